@@ -154,7 +154,8 @@ CREATE TABLE announcements (
     FOREIGN KEY (posted_by) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (course_id) REFERENCES courses(course_id) ON DELETE CASCADE,
     INDEX idx_audience (target_audience),
-    INDEX idx_posted_at (posted_at)
+    INDEX idx_posted_at (posted_at),
+    INDEX idx_expires_at (expires_at)
 );
 
 -- Table: Payments
@@ -176,16 +177,68 @@ CREATE TABLE payments (
 );
 
 -- Table: System Logs
+-- Range partitioned by month so old logs are removed by dropping partitions.
+-- MySQL does not allow foreign keys on partitioned tables, and the partitioning
+-- column must be part of the primary key. Monthly partitions are added by
+-- LogStorageManager when the application starts.
 CREATE TABLE system_logs (
-    log_id INT PRIMARY KEY AUTO_INCREMENT,
+    log_id INT AUTO_INCREMENT,
     user_id INT,
     action VARCHAR(100) NOT NULL,
     details TEXT,
     ip_address VARCHAR(45),
-    timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL,
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (log_id, timestamp),
     INDEX idx_user (user_id),
-    INDEX idx_timestamp (timestamp)
+    INDEX idx_timestamp (timestamp),
+    INDEX idx_action_time (action, timestamp)
+)
+PARTITION BY RANGE (UNIX_TIMESTAMP(timestamp)) (
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+-- Table: System Log Terms (word index over system_logs, used by log search; partitioned like system_logs)
+CREATE TABLE system_log_terms (
+    term VARCHAR(40) NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    log_id INT NOT NULL,
+    PRIMARY KEY (term, timestamp, log_id)
+)
+PARTITION BY RANGE (UNIX_TIMESTAMP(timestamp)) (
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+-- Table: Search Index Progress (per index or rollup: log entries below backfill_below still to be added; 0 when complete)
+CREATE TABLE search_index_progress (
+    index_name VARCHAR(40) PRIMARY KEY,
+    backfill_below BIGINT NOT NULL
+);
+
+-- Table: Hourly Log Statistics (entries per hour, action and role; maintained with each log write)
+CREATE TABLE log_stats_hourly (
+    hour_start DATETIME NOT NULL,
+    action VARCHAR(100) NOT NULL,
+    role VARCHAR(20) NOT NULL,
+    entries INT NOT NULL,
+    PRIMARY KEY (hour_start, action, role)
+);
+
+-- Table: User Log Statistics (all-time entries per user)
+CREATE TABLE log_stats_users (
+    user_id INT PRIMARY KEY,
+    entries BIGINT NOT NULL,
+    INDEX idx_entries (entries)
+);
+
+INSERT INTO search_index_progress (index_name, backfill_below) VALUES
+('system_log_terms', 0),
+('log_stats_hourly', 0);
+
+-- Table: Audit Journal Checkpoints (last journaled audit event replayed into system_logs, per client journal)
+CREATE TABLE audit_journal_checkpoint (
+    journal_id VARCHAR(36) PRIMARY KEY,
+    last_sequence BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
 -- Insert Default Admin User
@@ -1,13 +1,41 @@
+import database.MySQLDatabase;
 import gui.LoginForm;
+import services.ApiClient;
+import services.ApiServer;
+import services.LogStorageManager;
+import services.MaintenanceScheduler;
+import services.PasswordService;
+import utils.HostIdentity;
+import utils.MetricsRegistry;
+import utils.MetricsServer;
+import utils.SystemMetrics;
 
 import javax.swing.*;
 
 /**
  * Main entry point for Smart Campus Management System (SCMS)
- * 
+ *
+ * Usage:
+ *   java Main                 desktop client connected to MySQL
+ *   java Main --server [port] headless API server, no GUI
+ *   java Main --connect URL   desktop client that logs in through an API server
+ *   java Main --partition-logs  convert system_logs to monthly partitions, then exit
+ *                               (rebuilds the table: stop the application first)
  */
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && "--server".equals(args[0])) {
+            startServer(args.length > 1 ? Integer.parseInt(args[1]) : ApiServer.DEFAULT_PORT);
+            return;
+        }
+        if (args.length > 0 && "--partition-logs".equals(args[0])) {
+            System.exit(partitionLogs() ? 0 : 1);
+        }
+        if (args.length > 1 && "--connect".equals(args[0])) {
+            ApiClient.configure(args[1]);
+            System.out.println("Thin-client mode: logging in through " + args[1]);
+        }
+
         // Set System Look and Feel for better UI appearance
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -15,6 +43,8 @@ public class Main {
             System.err.println("Failed to set Look and Feel: " + e.getMessage());
         }
 
+        startBackgroundServices();
+
         // Launch application on Event Dispatch Thread
         SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -39,4 +69,65 @@ public class Main {
             }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Services shared by the desktop client and the headless server
+     */
+    private static void startBackgroundServices() {
+        // Resolve this machine's address once, before the first audit event needs it
+        HostIdentity.getInstance();
+
+        // Log partitioning and purges of old data (runs in the background)
+        MaintenanceScheduler.getInstance().start();
+
+        // Calibrate password hashing (about a second) before the first login needs it
+        Thread calibration = new Thread(PasswordService::getInstance, "scms-password-calibration");
+        calibration.setDaemon(true);
+        calibration.start();
+
+        // Expose pool, query and login metrics for the Performance tab and Prometheus
+        SystemMetrics.register(MetricsRegistry.getInstance());
+        try {
+            new MetricsServer(MetricsRegistry.getInstance(), MetricsServer.DEFAULT_PORT).start();
+        } catch (java.io.IOException e) {
+            System.err.println("Metrics endpoint not started: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Offline migration of an existing database to partitioned log tables
+     */
+    private static boolean partitionLogs() {
+        MySQLDatabase db = MySQLDatabase.getInstance();
+        if (!db.connect()) {
+            return false;
+        }
+        try {
+            if (!new LogStorageManager().migrate()) {
+                System.out.println("system_logs is already partitioned.");
+            }
+            return true;
+        } catch (java.sql.SQLException e) {
+            System.err.println("Error partitioning system_logs!");
+            e.printStackTrace();
+            return false;
+        } finally {
+            db.closeConnection();
+        }
+    }
+
+    /**
+     * Run headless, serving the JSON API until the process is stopped
+     */
+    private static void startServer(int port) {
+        startBackgroundServices();
+        ApiServer server = new ApiServer(port);
+        try {
+            server.start();
+        } catch (java.io.IOException e) {
+            System.err.println("API server not started on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "scms-api-shutdown"));
+    }
+}
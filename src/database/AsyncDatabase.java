@@ -0,0 +1,146 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AsyncDatabaseOperations backed by MySQLDatabase.
+ *
+ * On Java 21+ each task gets its own virtual thread, so thousands of
+ * pending requests cost almost nothing while they wait; on older runtimes
+ * a fixed pool of daemon platform threads is used instead. Either way at
+ * most one task per pooled connection runs at a time - the rest queue on a
+ * semaphore rather than piling up inside ConnectionPool.borrow().
+ */
+public class AsyncDatabase implements AsyncDatabaseOperations {
+    private static AsyncDatabase instance; // Singleton pattern
+
+    private final MySQLDatabase db;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final boolean virtualThreads;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private AsyncDatabase(MySQLDatabase db) {
+        this.db = db;
+        int maxConcurrency = db.getMaxConnections();
+        this.permits = new Semaphore(maxConcurrency, true);
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(maxConcurrency, daemonThreads());
+    }
+
+    /**
+     * Get singleton instance of AsyncDatabase
+     */
+    public static synchronized AsyncDatabase getInstance() {
+        if (instance == null) {
+            instance = new AsyncDatabase(MySQLDatabase.getInstance());
+        }
+        return instance;
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> queryAsync(String query, Object[] params, RowMapper<T> mapper) {
+        return supplyAsync(() -> db.query(query, params, mapper));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> queryForObjectAsync(String query, Object[] params, RowMapper<T> mapper) {
+        return supplyAsync(() -> db.queryForObject(query, params, mapper));
+    }
+
+    @Override
+    public CompletableFuture<Integer> updateAsync(String query, Object[] params) {
+        return supplyAsync(() -> db.update(query, params));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult> executeBatchAsync(String query, List<Object[]> rows) {
+        return supplyAsync(() -> db.executeBatch(query, rows));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> inTransactionAsync(TransactionCallback<T> callback) {
+        return supplyAsync(() -> db.inTransaction(callback));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(SqlTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            inFlight.incrementAndGet();
+            try {
+                permits.acquire();
+                try {
+                    if (!db.isConnected() && !db.connect()) {
+                        throw new SQLException("No database connection!");
+                    }
+                    return task.call();
+                } finally {
+                    permits.release();
+                }
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }, executor);
+    }
+
+    /**
+     * Tasks submitted and not yet finished (running or waiting for a permit)
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Tasks waiting for a free connection slot
+     */
+    public int getQueuedCount() {
+        return permits.getQueueLength();
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stop accepting work; tasks already submitted still complete
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() looked up reflectively so
+     * the code still compiles and runs on Java 8-20
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "scms-db-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
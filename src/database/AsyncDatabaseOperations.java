@@ -0,0 +1,67 @@
+package database;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of DatabaseOperations. Every method returns
+ * immediately; the work runs on a database worker thread and the future
+ * completes with the result, or exceptionally with the SQLException.
+ */
+public interface AsyncDatabaseOperations {
+
+    /**
+     * Runs a parameterised SELECT and maps every row
+     * 
+     * @param query  The SQL query with placeholders
+     * @param params Parameters to bind to the query
+     * @param mapper Maps one row to an object
+     * @return Future completed with the mapped rows
+     */
+    <T> CompletableFuture<List<T>> queryAsync(String query, Object[] params, RowMapper<T> mapper);
+
+    /**
+     * Runs a parameterised SELECT and maps the first row
+     * 
+     * @param query  The SQL query with placeholders
+     * @param params Parameters to bind to the query
+     * @param mapper Maps the row to an object
+     * @return Future completed with the mapped row, or null if there was none
+     */
+    <T> CompletableFuture<T> queryForObjectAsync(String query, Object[] params, RowMapper<T> mapper);
+
+    /**
+     * Executes an INSERT, UPDATE or DELETE with parameters
+     * 
+     * @param query  The SQL query with placeholders
+     * @param params Parameters to bind to the query
+     * @return Future completed with the number of rows affected
+     */
+    CompletableFuture<Integer> updateAsync(String query, Object[] params);
+
+    /**
+     * Executes the same statement for many rows in chunked batches
+     * 
+     * @param query The parameterised statement
+     * @param rows  One parameter array per row
+     * @return Future completed with the per-chunk outcome
+     */
+    CompletableFuture<BatchResult> executeBatchAsync(String query, List<Object[]> rows);
+
+    /**
+     * Runs the callback in a transaction on a worker thread
+     * 
+     * @param callback The transactional work
+     * @return Future completed with whatever the callback returns
+     */
+    <T> CompletableFuture<T> inTransactionAsync(TransactionCallback<T> callback);
+
+    /**
+     * Runs arbitrary database work (typically a blocking service method)
+     * on a worker thread
+     * 
+     * @param task The work to run
+     * @return Future completed with the task's result
+     */
+    <T> CompletableFuture<T> supplyAsync(SqlTask<T> task);
+}
@@ -0,0 +1,127 @@
+package database;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a chunked JDBC batch: one ChunkResult per chunk sent to the
+ * server. Execution stops at the first failed chunk: every chunk before it
+ * has been applied and none after it has been attempted. The failed chunk
+ * itself may be partially applied unless the batch runs in a transaction.
+ */
+public class BatchResult {
+    private final int totalRows;
+    private final List<ChunkResult> chunks = new ArrayList<>();
+
+    public BatchResult(int totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    void addChunk(ChunkResult chunk) {
+        chunks.add(chunk);
+    }
+
+    public List<ChunkResult> getChunks() {
+        return Collections.unmodifiableList(chunks);
+    }
+
+    /**
+     * Number of rows submitted (including rows of chunks never attempted)
+     */
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * Rows sent in chunks that completed successfully
+     */
+    public int getRowsProcessed() {
+        int rows = 0;
+        for (ChunkResult chunk : chunks) {
+            if (chunk.isSuccess()) {
+                rows += chunk.getRowCount();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sum of update counts reported by the driver. With
+     * rewriteBatchedStatements MySQL may report SUCCESS_NO_INFO (-2) per
+     * row, which is counted as one affected row.
+     */
+    public int getRowsAffected() {
+        int affected = 0;
+        for (ChunkResult chunk : chunks) {
+            affected += chunk.getRowsAffected();
+        }
+        return affected;
+    }
+
+    /**
+     * True if every row was sent and every chunk succeeded
+     */
+    public boolean isSuccess() {
+        return getRowsProcessed() == totalRows;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult[rows=" + totalRows + ", processed=" + getRowsProcessed()
+                + ", affected=" + getRowsAffected() + ", chunks=" + chunks.size() + "]";
+    }
+
+    /**
+     * Result of a single chunk (one executeBatch round trip)
+     */
+    public static class ChunkResult {
+        private final int index;
+        private final int rowCount;
+        private final int[] updateCounts;
+        private final String error;
+
+        public ChunkResult(int index, int rowCount, int[] updateCounts, String error) {
+            this.index = index;
+            this.rowCount = rowCount;
+            this.updateCounts = updateCounts;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public int[] getUpdateCounts() {
+            return updateCounts;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public int getRowsAffected() {
+            if (updateCounts == null) {
+                return 0;
+            }
+            int affected = 0;
+            for (int count : updateCounts) {
+                if (count > 0) {
+                    affected += count;
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    affected++;
+                }
+            }
+            return affected;
+        }
+    }
+}
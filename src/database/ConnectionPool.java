@@ -0,0 +1,529 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool used behind MySQLDatabase.
+ *
+ * Connections are handed out as proxies: calling close() on a borrowed
+ * connection returns it to the pool instead of closing the socket.
+ * A background housekeeper evicts idle connections, keeps the pool at its
+ * minimum size, reports leaked connections together with the stack trace of
+ * the code that borrowed them, and reclaims connections that have been
+ * abandoned for too long.
+ *
+ * Statements and result sets obtained from a borrowed connection are
+ * proxied too, so executing a statement or reading rows counts as activity:
+ * a long streaming scan is neither reported as a leak nor reclaimed, and a
+ * connection is never reclaimed while a statement on it is still executing.
+ *
+ * Each pooled connection also keeps an LRU StatementCache, so statements
+ * prepared through a borrowed connection are reused across borrowers.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+
+    // Tunables (milliseconds)
+    private long borrowTimeout = 10_000;
+    private long idleTimeout = 5 * 60_000;
+    private long validationWindow = 1_000;
+    private long leakThreshold = 15_000;
+    private long abandonedTimeout = 60_000;
+    private long housekeepingInterval = 5_000;
+    private int statementCacheSize = 64;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private volatile boolean closed;
+    private ScheduledExecutorService housekeeper;
+
+    // Monitoring counters
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong abandonedCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Opens the minimum number of connections and starts the housekeeper.
+     * Throws if the first connection cannot be opened so callers fail fast.
+     */
+    public synchronized void start() throws SQLException {
+        for (int i = 0; i < Math.max(1, minSize); i++) {
+            idle.offerFirst(createConnection());
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "scms-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                housekeepingInterval, housekeepingInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the borrow timeout if the pool is
+     * exhausted. The returned connection must be closed to give it back.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        waitingThreads.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeout
+                        + " ms waiting for a database connection (active=" + active.size()
+                        + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+
+        PooledConnection pooled;
+        try {
+            pooled = takeIdleOrCreate();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        long waited = System.nanoTime() - start;
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        pooled.markBorrowed(leakThreshold > 0 ? new Throwable("Connection borrowed here") : null);
+        active.add(pooled);
+        return pooled.newProxy();
+    }
+
+    /**
+     * Close every idle connection and stop handing out new ones. Connections
+     * still in use are closed as they are returned.
+     */
+    public synchronized void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close idle connections above the minimum size right away
+     */
+    public void trimIdle() {
+        while (totalConnections.get() > minSize) {
+            PooledConnection pc = idle.pollLast();
+            if (pc == null) {
+                break;
+            }
+            destroy(pc);
+        }
+    }
+
+    /**
+     * Snapshot of pool usage for monitoring
+     */
+    public PoolStats getStats() {
+        long borrows = borrowCount.get();
+        return new PoolStats(
+                active.size(),
+                idle.size(),
+                totalConnections.get(),
+                maxSize,
+                waitingThreads.get(),
+                borrows,
+                borrows == 0 ? 0 : totalWaitNanos.get() / borrows / 1_000,
+                maxWaitNanos.get() / 1_000,
+                timeoutCount.get(),
+                createdCount.get(),
+                destroyedCount.get(),
+                validationFailures.get(),
+                leakCount.get(),
+                abandonedCount.get(),
+                statementCacheHits.get(),
+                statementCacheMisses.get(),
+                statementCacheEvictions.get());
+    }
+
+    // Configuration setters (milliseconds)
+
+    public void setBorrowTimeout(long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public void setValidationWindow(long validationWindow) {
+        this.validationWindow = validationWindow;
+    }
+
+    public void setLeakThreshold(long leakThreshold) {
+        this.leakThreshold = leakThreshold;
+    }
+
+    public void setAbandonedTimeout(long abandonedTimeout) {
+        this.abandonedTimeout = abandonedTimeout;
+    }
+
+    public void setHousekeepingInterval(long housekeepingInterval) {
+        this.housekeepingInterval = housekeepingInterval;
+    }
+
+    /**
+     * Statements cached per connection; 0 disables the cache
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    // Internal helpers
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            // Connections returned very recently are trusted without a round trip
+            if (System.currentTimeMillis() - pc.lastUsed < validationWindow || isValid(pc)) {
+                return pc;
+            }
+            validationFailures.incrementAndGet();
+            destroy(pc);
+        }
+        return createConnection();
+    }
+
+    private boolean isValid(PooledConnection pc) {
+        try {
+            return pc.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pc) {
+        if (pc.statements != null) {
+            pc.statements.clear();
+        }
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            // Connection is being thrown away anyway
+        }
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+    }
+
+    /**
+     * Give a connection back. Resets transaction state so the next borrower
+     * always starts in auto-commit mode.
+     */
+    private void release(PooledConnection pc) {
+        if (!active.remove(pc)) {
+            return; // Already reclaimed by the housekeeper
+        }
+
+        boolean reusable = !closed;
+        if (reusable) {
+            try {
+                if (pc.physical.isClosed()) {
+                    reusable = false;
+                } else if (!pc.physical.getAutoCommit()) {
+                    pc.physical.rollback();
+                    pc.physical.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+
+        pc.borrowStack = null;
+        pc.lastUsed = System.currentTimeMillis();
+
+        if (reusable) {
+            idle.offerFirst(pc);
+        } else {
+            destroy(pc);
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            // Evict connections idle for too long (oldest are at the tail)
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections.get() > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsed > idleTimeout && idle.remove(pc)) {
+                    destroy(pc);
+                }
+            }
+
+            // Top the pool back up to its minimum size
+            while (!closed && totalConnections.get() < minSize) {
+                idle.offerLast(createConnection());
+            }
+
+            for (PooledConnection pc : active) {
+                if (pc.executing.get() > 0) {
+                    continue; // Busy, however long it takes
+                }
+
+                long held = now - pc.borrowedAt;
+                long unused = now - pc.lastUsed;
+                if (leakThreshold > 0 && unused > leakThreshold && !pc.leakReported) {
+                    pc.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.err.println("Possible connection leak: held for " + held + " ms, unused for "
+                            + unused + " ms by " + pc.borrowThread);
+                    if (pc.borrowStack != null) {
+                        pc.borrowStack.printStackTrace();
+                    }
+                }
+
+                if (abandonedTimeout > 0 && unused > abandonedTimeout && pc.executing.get() == 0
+                        && active.remove(pc)) {
+                    System.err.println("Reclaiming abandoned connection borrowed by " + pc.borrowThread);
+                    abandonedCount.incrementAndGet();
+                    destroy(pc);
+                    permits.release();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A physical connection plus the bookkeeping the pool needs for it
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile String borrowThread;
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+        private final AtomicInteger executing = new AtomicInteger(); // Statements running right now
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses,
+                            statementCacheEvictions)
+                    : null;
+        }
+
+        void markBorrowed(Throwable stack) {
+            borrowedAt = System.currentTimeMillis();
+            lastUsed = borrowedAt;
+            borrowThread = Thread.currentThread().getName();
+            borrowStack = stack;
+            leakReported = false;
+        }
+
+        void touch() {
+            lastUsed = System.currentTimeMillis();
+        }
+
+        Connection newProxy() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handler(this));
+        }
+    }
+
+    /**
+     * Routes calls on a borrowed connection to the physical one and turns
+     * close() into a return to the pool
+     */
+    private final class Handler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        Handler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pooled.physical + "]";
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+            }
+
+            // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the cache
+            if (pooled.statements != null && method.getName().equals("prepareStatement")
+                    && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer))) {
+                pooled.touch();
+                int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return track(pooled, pooled.statements.prepare(pooled.physical, (String) args[0], keys),
+                        PreparedStatement.class);
+            }
+
+            pooled.touch();
+            try {
+                return track(pooled, method.invoke(pooled.physical, args), method.getReturnType());
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Wrap a Statement or ResultSet from a borrowed connection so its use
+     * counts as activity on the connection; other values are returned as is
+     */
+    private static Object track(PooledConnection pooled, Object value, Class<?> type) {
+        if (value == null || !type.isInterface()
+                || !(Statement.class.isAssignableFrom(type) || ResultSet.class.isAssignableFrom(type))) {
+            return value;
+        }
+        return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { type },
+                new ActivityHandler(pooled, value));
+    }
+
+    /**
+     * Touches the pooled connection on every call to a statement or result
+     * set, and counts statements while they execute
+     */
+    private static final class ActivityHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final Object target;
+
+        ActivityHandler(PooledConnection pooled, Object target) {
+            this.pooled = pooled;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            boolean executes = method.getName().startsWith("execute");
+            if (executes) {
+                pooled.executing.incrementAndGet();
+            }
+            pooled.touch();
+            try {
+                return track(pooled, method.invoke(target, args), method.getReturnType());
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (executes) {
+                    pooled.touch();
+                    pooled.executing.decrementAndGet();
+                }
+            }
+        }
+    }
+}
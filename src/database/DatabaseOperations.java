@@ -1,7 +1,11 @@
 package database;
 
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Interface defining database operations - Demonstrates Interface usage
@@ -74,6 +78,125 @@ public interface DatabaseOperations {
      */
     boolean executePreparedQuery(String query, Object[] params);
 
+    /**
+     * Executes an INSERT, UPDATE or DELETE with parameters, reporting
+     * failures as exceptions (use this inside transactions)
+     * 
+     * @param query  The SQL query with placeholders
+     * @param params Parameters to bind to the query
+     * @return Number of rows affected
+     */
+    int update(String query, Object[] params) throws SQLException;
+
+    /**
+     * Executes an INSERT with parameters and returns the generated key
+     * 
+     * @param query  The INSERT statement with placeholders
+     * @param params Parameters to bind to the query
+     * @return The generated primary key
+     */
+    long insertAndGetKey(String query, Object[] params) throws SQLException;
+
+    /**
+     * Executes a multi-row INSERT as one batch and returns the generated
+     * keys in row order. Unlike executeBatch() any failure is thrown, so run
+     * it inside inTransaction() to make the batch all-or-nothing.
+     *
+     * @param query The INSERT statement with placeholders
+     * @param rows  One parameter array per row
+     * @return The generated primary key of each row
+     */
+    long[] insertAllAndGetKeys(String query, List<Object[]> rows) throws SQLException;
+
+    /**
+     * Runs the callback as one atomic unit of work: commits if it returns,
+     * rolls back if it throws
+     * 
+     * @param callback The transactional work
+     * @return Whatever the callback returns
+     */
+    <T> T inTransaction(TransactionCallback<T> callback) throws SQLException;
+
+    /**
+     * Executes the same parameterised statement for many rows using JDBC
+     * batching, sent to the server in chunks
+     * 
+     * @param query The SQL statement with placeholders
+     * @param rows  One parameter array per row
+     * @return Per-chunk results
+     */
+    BatchResult executeBatch(String query, List<Object[]> rows);
+
+    /**
+     * Inserts many rows into a table using JDBC batching. Every map must
+     * contain the same column names.
+     * 
+     * @param table The table name
+     * @param rows  One map of column names and values per row
+     * @return Per-chunk results
+     */
+    BatchResult insertAll(String table, List<Map<String, Object>> rows);
+
+    /**
+     * Runs a SELECT and maps every row. The statement, result set and
+     * connection are closed before this method returns.
+     * 
+     * @param query  The SQL query with placeholders
+     * @param params Parameters to bind to the query (may be empty)
+     * @param mapper Maps one row to an object
+     * @return List of mapped rows (empty if there are none)
+     */
+    <T> List<T> query(String query, Object[] params, RowMapper<T> mapper) throws SQLException;
+
+    /**
+     * Runs a SELECT and maps the first row only
+     * 
+     * @param query  The SQL query with placeholders
+     * @param params Parameters to bind to the query (may be empty)
+     * @param mapper Maps one row to an object
+     * @return The mapped first row, or null if there are no rows
+     */
+    <T> T queryForObject(String query, Object[] params, RowMapper<T> mapper) throws SQLException;
+
+    /**
+     * Runs a SELECT and hands each mapped row to the action as it is read,
+     * without collecting the mapped rows in a list. The driver still buffers
+     * the result; use stream() for scans too large for that.
+     * 
+     * @param query  The SQL query with placeholders
+     * @param params Parameters to bind to the query (may be empty)
+     * @param mapper Maps one row to an object
+     * @param action Called once per mapped row
+     */
+    <T> void forEach(String query, Object[] params, RowMapper<T> mapper, Consumer<? super T> action)
+            throws SQLException;
+
+    /**
+     * Fetches one page of a query using keyset pagination
+     * 
+     * @param query    A SELECT without ORDER BY or LIMIT
+     * @param params   Parameters to bind to the query (may be empty)
+     * @param sortKey  Unique sort columns, e.g. "timestamp DESC, log_id DESC"
+     * @param afterKey Page.getNextKey() of the previous page, or null for the first
+     * @param limit    Maximum number of rows in the page
+     * @param mapper   Maps one row to an object
+     * @return The page, with the key to continue from
+     */
+    <T> Page<T> fetchPage(String query, Object[] params, String sortKey, Object[] afterKey, int limit,
+            RowMapper<T> mapper) throws SQLException;
+
+    /**
+     * Runs a SELECT and returns its rows as a lazy Stream read from a
+     * streaming cursor, so large scans run in constant memory. The Stream
+     * holds a connection until exhausted or closed - use try-with-resources.
+     * 
+     * @param query  The SQL query with placeholders
+     * @param params Parameters to bind to the query (may be empty)
+     * @param mapper Maps one row to an object
+     * @return Stream of mapped rows
+     */
+    <T> Stream<T> stream(String query, Object[] params, RowMapper<T> mapper) throws SQLException;
+
     /**
      * Checks if the database connection is active
      * 
@@ -1,30 +1,87 @@
 package database;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * MySQL Database implementation - Implements DatabaseOperations interface
  * Demonstrates Interface implementation and JDBC connectivity
+ *
+ * Every operation borrows a connection from a bounded ConnectionPool and
+ * returns it when done, so services and panels can query concurrently.
  */
 public class MySQLDatabase implements DatabaseOperations {
 
     // Database connection parameters
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/scms_db?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+    // useServerPrepStmts makes the server keep the parsed plan for statements held in the StatementCache;
+    // rewriteBatchedStatements sends each JDBC batch as multi-row statements in one round trip;
+    // useLocalSessionState skips redundant autocommit/isolation round trips around transactions;
+    // useCursorFetch lets a positive fetch size in stream() use a server-side cursor
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/scms_db?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC"
+            + "&useServerPrepStmts=true&rewriteBatchedStatements=true&useLocalSessionState=true&useCursorFetch=true";
     private static final String DB_USER = "root"; // Change as needed
     private static final String DB_PASSWORD = ""; // Change as needed
 
-    private Connection connection;
+    // Connection pool parameters
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final int STATEMENT_CACHE_SIZE = 64; // Prepared statements kept per connection
+    private static final int DEFAULT_BATCH_CHUNK_SIZE = 500; // Rows per executeBatch round trip
+    private static final int TRANSACTION_MAX_RETRIES = 3; // Attempts for deadlocked transactions
+    private static final int TRANSACTION_RETRY_DELAY_MS = 50;
+    private static final long SLOW_QUERY_THRESHOLD_MS = 500; // Statements at least this slow are logged
+    private static final int SLOW_QUERY_LOG_SIZE = 200; // Slow/failed statements kept in memory
+    private static final String SLOW_QUERY_LOG_FILE = null; // e.g. "logs/slow-queries.log" to also log to disk
+    private static final long SLOW_QUERY_LOG_FILE_BYTES = 5 * 1024 * 1024; // Rotate after 5 MB
+    private static final int SLOW_QUERY_LOG_FILES = 5;
+
+    /**
+     * Fetch size that makes Connector/J stream a result one row at a time
+     */
+    public static final int STREAM_ROW_BY_ROW = Integer.MIN_VALUE;
+
+    private volatile ConnectionPool pool;
+    private volatile int batchChunkSize = DEFAULT_BATCH_CHUNK_SIZE;
     private static MySQLDatabase instance; // Singleton pattern
 
+    // Connection pinned to the current thread while inTransaction() runs
+    private final ThreadLocal<Connection> boundConnection = new ThreadLocal<>();
+    private volatile int defaultIsolation = Connection.TRANSACTION_REPEATABLE_READ;
+
+    // Timing of every statement executed through this class
+    private final QueryMonitor queryMonitor = new QueryMonitor(SLOW_QUERY_THRESHOLD_MS, SLOW_QUERY_LOG_SIZE);
+
     // Private constructor for singleton pattern
     private MySQLDatabase() {
+        if (SLOW_QUERY_LOG_FILE != null) {
+            queryMonitor.getSlowQueryLog().setLogFile(SLOW_QUERY_LOG_FILE, SLOW_QUERY_LOG_FILE_BYTES,
+                    SLOW_QUERY_LOG_FILES);
+        }
+    }
+
+    /**
+     * A database on an already started pool (the tests use one on a stub driver)
+     */
+    MySQLDatabase(ConnectionPool pool) {
+        this();
+        this.pool = pool;
     }
 
     /**
      * Get singleton instance of MySQLDatabase
      */
-    public static MySQLDatabase getInstance() {
+    public static synchronized MySQLDatabase getInstance() {
         if (instance == null) {
             instance = new MySQLDatabase();
         }
@@ -32,13 +89,21 @@ public class MySQLDatabase implements DatabaseOperations {
     }
 
     @Override
-    public boolean connect() {
+    public synchronized boolean connect() {
+        if (isConnected()) {
+            return true;
+        }
+
         try {
             // Load MySQL JDBC Driver
             Class.forName("com.mysql.cj.jdbc.Driver");
 
-            // Establish connection
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            // Open the connection pool
+            ConnectionPool newPool = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD, POOL_MIN_SIZE, POOL_MAX_SIZE);
+            newPool.setAbandonedTimeout(120_000);
+            newPool.setStatementCacheSize(STATEMENT_CACHE_SIZE);
+            newPool.start();
+            pool = newPool;
             System.out.println("Database connected successfully!");
             return true;
 
@@ -54,23 +119,24 @@ public class MySQLDatabase implements DatabaseOperations {
     }
 
     @Override
-    public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed.");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection!");
-            e.printStackTrace();
+    public synchronized void closeConnection() {
+        if (pool != null && !pool.isClosed()) {
+            pool.shutdown();
+            queryMonitor.getSlowQueryLog().close();
+            System.out.println("Database connection closed.");
         }
     }
 
     /**
-     * Disconnect from database (alias for closeConnection)
+     * Called by panels after a unit of work. The pool is shared by every
+     * screen, so this only trims idle connections down to the minimum size;
+     * use closeConnection() to shut the pool down.
      */
     public void disconnect() {
-        closeConnection();
+        ConnectionPool current = pool;
+        if (current != null) {
+            current.trimIdle();
+        }
     }
 
     @Override
@@ -80,37 +146,45 @@ public class MySQLDatabase implements DatabaseOperations {
             return false;
         }
 
-        try {
-            // Build INSERT query
-            StringBuilder columns = new StringBuilder();
-            StringBuilder values = new StringBuilder();
-
-            for (String column : data.keySet()) {
-                if (columns.length() > 0) {
-                    columns.append(", ");
-                    values.append(", ");
-                }
-                columns.append(column);
-                values.append("?");
+        // Build INSERT query
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+
+        for (String column : data.keySet()) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+                values.append(", ");
             }
+            columns.append(column);
+            values.append("?");
+        }
 
-            String query = "INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ")";
+        String query = "INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ")";
 
+        Connection conn = null;
+        long start = 0;
+        try {
             // Execute with prepared statement
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            conn = acquire();
+            start = System.nanoTime();
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
                 int index = 1;
                 for (Object value : data.values()) {
                     stmt.setObject(index++, value);
                 }
 
                 int rowsAffected = stmt.executeUpdate();
+                recordTiming(query, start, rowsAffected, null);
                 return rowsAffected > 0;
             }
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error inserting data into " + table);
             e.printStackTrace();
             return false;
+        } finally {
+            release(conn);
         }
     }
 
@@ -121,13 +195,22 @@ public class MySQLDatabase implements DatabaseOperations {
             return null;
         }
 
+        Connection conn = null;
+        Statement stmt = null;
+        long start = 0;
         try {
-            Statement stmt = connection.createStatement();
-            return stmt.executeQuery(query);
+            conn = acquire();
+            start = System.nanoTime();
+            stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(query);
+            return bindToConnection(rs, stmt, conn, query, System.nanoTime() - start);
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error fetching data!");
             e.printStackTrace();
+            closeQuietly(stmt);
+            release(conn);
             return null;
         }
     }
@@ -139,34 +222,42 @@ public class MySQLDatabase implements DatabaseOperations {
             return false;
         }
 
-        try {
-            // Build UPDATE query
-            StringBuilder setClause = new StringBuilder();
+        // Build UPDATE query
+        StringBuilder setClause = new StringBuilder();
 
-            for (String column : data.keySet()) {
-                if (setClause.length() > 0) {
-                    setClause.append(", ");
-                }
-                setClause.append(column).append(" = ?");
+        for (String column : data.keySet()) {
+            if (setClause.length() > 0) {
+                setClause.append(", ");
             }
+            setClause.append(column).append(" = ?");
+        }
 
-            String query = "UPDATE " + table + " SET " + setClause + " WHERE " + condition;
+        String query = "UPDATE " + table + " SET " + setClause + " WHERE " + condition;
 
+        Connection conn = null;
+        long start = 0;
+        try {
             // Execute with prepared statement
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            conn = acquire();
+            start = System.nanoTime();
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
                 int index = 1;
                 for (Object value : data.values()) {
                     stmt.setObject(index++, value);
                 }
 
                 int rowsAffected = stmt.executeUpdate();
+                recordTiming(query, start, rowsAffected, null);
                 return rowsAffected > 0;
             }
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error updating data in " + table);
             e.printStackTrace();
             return false;
+        } finally {
+            release(conn);
         }
     }
 
@@ -177,16 +268,25 @@ public class MySQLDatabase implements DatabaseOperations {
             return false;
         }
 
+        String query = "DELETE FROM " + table + " WHERE " + condition;
+        Connection conn = null;
+        long start = 0;
         try {
-            String query = "DELETE FROM " + table + " WHERE " + condition;
-            Statement stmt = connection.createStatement();
-            int rowsAffected = stmt.executeUpdate(query);
-            return rowsAffected > 0;
+            conn = acquire();
+            start = System.nanoTime();
+            try (Statement stmt = conn.createStatement()) {
+                int rowsAffected = stmt.executeUpdate(query);
+                recordTiming(query, start, rowsAffected, null);
+                return rowsAffected > 0;
+            }
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error deleting data from " + table);
             e.printStackTrace();
             return false;
+        } finally {
+            release(conn);
         }
     }
 
@@ -197,14 +297,24 @@ public class MySQLDatabase implements DatabaseOperations {
             return false;
         }
 
-        try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(query);
-            return true;
+        Connection conn = null;
+        long start = 0;
+        try {
+            conn = acquire();
+            start = System.nanoTime();
+            try (Statement stmt = conn.createStatement()) {
+                int rowsAffected = stmt.executeUpdate(query);
+                recordTiming(query, start, rowsAffected, null);
+                return true;
+            }
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error executing query!");
             e.printStackTrace();
             return false;
+        } finally {
+            release(conn);
         }
     }
 
@@ -215,36 +325,395 @@ public class MySQLDatabase implements DatabaseOperations {
             return false;
         }
 
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            // Bind parameters
-            for (int i = 0; i < params.length; i++) {
-                stmt.setObject(i + 1, params[i]);
-            }
+        Connection conn = null;
+        long start = 0;
+        try {
+            conn = acquire();
+            start = System.nanoTime();
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                // Bind parameters
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
 
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+                int rowsAffected = stmt.executeUpdate();
+                recordTiming(query, start, rowsAffected, null);
+                return rowsAffected > 0;
+            }
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error executing prepared query!");
             e.printStackTrace();
             return false;
+        } finally {
+            release(conn);
         }
     }
 
     @Override
-    public boolean isConnected() {
+    public BatchResult executeBatch(String query, List<Object[]> rows) {
+        return executeBatch(query, rows, batchChunkSize);
+    }
+
+    /**
+     * Executes a batch with an explicit chunk size (rows per round trip)
+     */
+    public BatchResult executeBatch(String query, List<Object[]> rows, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+
+        BatchResult result = new BatchResult(rows.size());
+        if (rows.isEmpty()) {
+            return result;
+        }
+        if (!isConnected()) {
+            System.err.println("No database connection!");
+            result.addChunk(new BatchResult.ChunkResult(0, Math.min(chunkSize, rows.size()), null,
+                    "No database connection"));
+            return result;
+        }
+
+        Connection conn = null;
         try {
-            return connection != null && !connection.isClosed();
+            conn = acquire();
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                for (int start = 0, index = 0; start < rows.size(); start += chunkSize, index++) {
+                    List<Object[]> chunk = rows.subList(start, Math.min(start + chunkSize, rows.size()));
+                    long chunkStart = System.nanoTime();
+                    try {
+                        for (Object[] params : chunk) {
+                            bindParameters(stmt, params);
+                            stmt.addBatch();
+                        }
+                        BatchResult.ChunkResult chunkResult = new BatchResult.ChunkResult(index, chunk.size(),
+                                stmt.executeBatch(), null);
+                        recordTiming(query, chunkStart, chunkResult.getRowsAffected(), null);
+                        result.addChunk(chunkResult);
+
+                    } catch (SQLException e) {
+                        recordTiming(query, chunkStart, -1, e);
+                        int[] counts = e instanceof BatchUpdateException
+                                ? ((BatchUpdateException) e).getUpdateCounts()
+                                : null;
+                        result.addChunk(new BatchResult.ChunkResult(index, chunk.size(), counts, e.getMessage()));
+                        System.err.println("Error executing batch chunk " + index + ": " + e.getMessage());
+                        stmt.clearBatch();
+                        break; // Later chunks are not attempted
+                    }
+                }
+            }
+
         } catch (SQLException e) {
-            return false;
+            System.err.println("Error executing batch!");
+            e.printStackTrace();
+        } finally {
+            release(conn);
+        }
+
+        return result;
+    }
+
+    @Override
+    public BatchResult insertAll(String table, List<Map<String, Object>> rows) {
+        return insertAll(table, rows, batchChunkSize);
+    }
+
+    /**
+     * Inserts rows in batches with an explicit chunk size (rows per round trip)
+     */
+    public BatchResult insertAll(String table, List<Map<String, Object>> rows, int chunkSize) {
+        if (rows.isEmpty()) {
+            return new BatchResult(0);
+        }
+
+        // Column list comes from the first row; every row must match it
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+
+        List<Object[]> params = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            if (row.size() != columns.size() || !row.keySet().containsAll(columns)) {
+                throw new IllegalArgumentException("All rows inserted into " + table + " must have the same columns");
+            }
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                values[i] = row.get(columns.get(i));
+            }
+            params.add(values);
+        }
+
+        String query = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + placeholders + ")";
+        return executeBatch(query, params, chunkSize);
+    }
+
+    /**
+     * Default number of rows sent per batch round trip
+     */
+    public void setBatchChunkSize(int batchChunkSize) {
+        if (batchChunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.batchChunkSize = batchChunkSize;
+    }
+
+    public int getBatchChunkSize() {
+        return batchChunkSize;
+    }
+
+    @Override
+    public <T> List<T> query(String query, Object[] params, RowMapper<T> mapper) throws SQLException {
+        List<T> results = new ArrayList<>();
+        forEach(query, params, mapper, results::add);
+        return results;
+    }
+
+    @Override
+    public <T> T queryForObject(String query, Object[] params, RowMapper<T> mapper) throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
+        }
+
+        Connection conn = acquire();
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            bindParameters(stmt, params);
+            stmt.setMaxRows(1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                boolean found = rs.next();
+                T result = found ? mapper.mapRow(rs) : null;
+                recordTiming(query, start, found ? 1 : 0, null);
+                return result;
+            } finally {
+                stmt.setMaxRows(0); // Statement may be reused from the cache
+            }
+        } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
+            throw e;
+        } finally {
+            release(conn);
+        }
+    }
+
+    /**
+     * Runs on the cached prepared statement with the driver's default
+     * (buffered) fetch, so the action may itself use the database, including
+     * inside inTransaction(). Use stream() for scans too large to buffer.
+     */
+    @Override
+    public <T> void forEach(String query, Object[] params, RowMapper<T> mapper, Consumer<? super T> action)
+            throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
+        }
+
+        Connection conn = acquire();
+        long start = System.nanoTime();
+        long rows = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            bindParameters(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapper.mapRow(rs));
+                    rows++;
+                }
+            }
+            recordTiming(query, start, rows, null);
+        } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
+            throw e;
+        } finally {
+            release(conn);
+        }
+    }
+
+    /**
+     * Fetch one page of a query using keyset (seek) pagination.
+     *
+     * The query is a plain SELECT without ORDER BY or LIMIT whose output
+     * column names are unique. sortKey lists output columns that together
+     * identify a row, all ascending or all with DESC, e.g. "registration_number"
+     * or "timestamp DESC, log_id DESC". Rows strictly after afterKey (null for
+     * the first page) are returned in that order, so with an index on the sort
+     * columns each page costs O(limit) however deep into the table it is.
+     */
+    @Override
+    public <T> Page<T> fetchPage(String query, Object[] params, String sortKey, Object[] afterKey, int limit,
+            RowMapper<T> mapper) throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+
+        // Parse "col [ASC|DESC], ..." - every column must share one direction
+        String[] parts = sortKey.split(",");
+        String[] columns = new String[parts.length];
+        Boolean descending = null;
+        for (int i = 0; i < parts.length; i++) {
+            String[] tokens = parts[i].trim().split("\\s+");
+            boolean desc = tokens.length > 1 && tokens[1].equalsIgnoreCase("DESC");
+            if (tokens.length > 2 || !tokens[0].matches("[A-Za-z_][A-Za-z0-9_]*")
+                    || (tokens.length == 2 && !desc && !tokens[1].equalsIgnoreCase("ASC"))) {
+                throw new IllegalArgumentException("Invalid sort key: " + sortKey);
+            }
+            if (descending != null && descending != desc) {
+                throw new IllegalArgumentException("Sort key columns must share one direction: " + sortKey);
+            }
+            descending = desc;
+            columns[i] = tokens[0];
+        }
+        if (afterKey != null && afterKey.length != columns.length) {
+            throw new IllegalArgumentException("afterKey has " + afterKey.length + " values, sort key has "
+                    + columns.length + " columns");
+        }
+
+        String columnList = String.join(", ", columns);
+        String direction = descending ? " DESC" : "";
+
+        // MySQL merges the derived table, so the seek predicate reaches the index
+        StringBuilder sql = new StringBuilder("SELECT * FROM (").append(query).append(") page_src");
+        if (afterKey != null) {
+            String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+            sql.append(" WHERE (").append(columnList).append(descending ? ") < (" : ") > (")
+                    .append(placeholders).append(")");
+        }
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i > 0 ? ", " : "").append(columns[i]).append(direction);
+        }
+        sql.append(" LIMIT ?");
+
+        List<Object> allParams = new ArrayList<>();
+        if (params != null) {
+            allParams.addAll(Arrays.asList(params));
+        }
+        if (afterKey != null) {
+            allParams.addAll(Arrays.asList(afterKey));
+        }
+        allParams.add(limit + 1); // One extra row tells us whether another page exists
+
+        List<T> items = new ArrayList<>();
+        Object[] lastKey = null;
+        boolean hasMore = false;
+
+        Connection conn = acquire();
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            bindParameters(stmt, allParams.toArray());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (items.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    items.add(mapper.mapRow(rs));
+                    lastKey = new Object[columns.length];
+                    for (int i = 0; i < columns.length; i++) {
+                        lastKey[i] = rs.getObject(columns[i]);
+                    }
+                }
+            }
+            recordTiming(sql.toString(), start, items.size(), null);
+        } catch (SQLException e) {
+            recordTiming(sql.toString(), start, -1, e);
+            throw e;
+        } finally {
+            release(conn);
+        }
+
+        return new Page<>(items, hasMore ? lastKey : null, hasMore);
+    }
+
+    @Override
+    public <T> Stream<T> stream(String query, Object[] params, RowMapper<T> mapper) throws SQLException {
+        return stream(query, params, STREAM_ROW_BY_ROW, mapper);
+    }
+
+    /**
+     * Runs a SELECT as a forward-only cursor and returns the rows as a lazy
+     * Stream. With STREAM_ROW_BY_ROW the driver reads one row off the socket
+     * per element pulled; a positive fetch size reads that many rows per
+     * round trip through a server-side cursor. Either way memory use does not
+     * grow with the result size, and the server only sends more rows as fast
+     * as the consumer takes them.
+     *
+     * The Stream holds a pooled connection until it is exhausted or closed,
+     * so always use it in try-with-resources. Closing before the end still
+     * drains the remaining rows off the socket, so add a LIMIT when only a
+     * prefix is needed. No other statement can run on the
+     * connection meanwhile - inside inTransaction() that means consuming the
+     * stream before issuing further queries. Read errors are thrown as
+     * UncheckedSQLException.
+     */
+    public <T> Stream<T> stream(String query, Object[] params, int fetchSize, RowMapper<T> mapper)
+            throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
+        }
+
+        Connection conn = acquire();
+        PreparedStatement stmt = null;
+        long start = System.nanoTime();
+        try {
+            // Not the cached prepareStatement(sql): the fetch size must not leak to other users
+            stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            bindParameters(stmt, params);
+            RowCursor<T> cursor = new RowCursor<>(stmt.executeQuery(), stmt, conn, mapper, query, start);
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+
+        } catch (SQLException | RuntimeException e) {
+            recordTiming(query, start, -1, e);
+            closeQuietly(stmt);
+            release(conn);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        ConnectionPool current = pool;
+        return current != null && !current.isClosed();
+    }
+
+    /**
+     * Borrow a connection from the pool. The caller must close it, which
+     * returns it to the pool rather than closing the socket.
+     */
+    public Connection getConnection() throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
         }
+        return pool.borrow();
+    }
+
+    /**
+     * Current connection pool usage (active/idle counts, wait times, leaks,
+     * statement cache hits/misses/evictions)
+     */
+    public PoolStats getPoolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : null;
+    }
+
+    /**
+     * Per-statement timing histograms and the slow-query log
+     */
+    public QueryMonitor getQueryMonitor() {
+        return queryMonitor;
     }
 
     /**
-     * Get the active connection object
+     * Upper bound on concurrently borrowed connections
      */
-    public Connection getConnection() {
-        return connection;
+    public int getMaxConnections() {
+        return POOL_MAX_SIZE;
     }
 
     /**
@@ -256,30 +725,43 @@ public class MySQLDatabase implements DatabaseOperations {
             return -1;
         }
 
-        try (PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            // Bind parameters
-            for (int i = 0; i < params.length; i++) {
-                stmt.setObject(i + 1, params[i]);
-            }
+        Connection conn = null;
+        long start = 0;
+        try {
+            conn = acquire();
+            start = System.nanoTime();
+            try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                // Bind parameters
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
 
-            stmt.executeUpdate();
+                int rowsAffected = stmt.executeUpdate();
+                recordTiming(query, start, rowsAffected, null);
 
-            // Get generated key
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                return rs.getInt(1);
+                // Get generated key
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
+                }
             }
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error executing insert query!");
             e.printStackTrace();
+        } finally {
+            release(conn);
         }
 
         return -1;
     }
 
     /**
-     * Execute a prepared query and return ResultSet
+     * Execute a prepared query and return ResultSet.
+     * The connection goes back to the pool when the ResultSet is closed or
+     * has been read to the end.
      */
     public ResultSet executePreparedSelect(String query, Object[] params) {
         if (!isConnected()) {
@@ -287,19 +769,28 @@ public class MySQLDatabase implements DatabaseOperations {
             return null;
         }
 
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        long start = 0;
         try {
-            PreparedStatement stmt = connection.prepareStatement(query);
+            conn = acquire();
+            start = System.nanoTime();
+            stmt = conn.prepareStatement(query);
 
             // Bind parameters
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
             }
 
-            return stmt.executeQuery();
+            ResultSet rs = stmt.executeQuery();
+            return bindToConnection(rs, stmt, conn, query, System.nanoTime() - start);
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error executing prepared select!");
             e.printStackTrace();
+            closeQuietly(stmt);
+            release(conn);
             return null;
         }
     }
@@ -314,13 +805,422 @@ public class MySQLDatabase implements DatabaseOperations {
             return -1;
         }
 
-        try (Statement stmt = connection.createStatement()) {
-            return stmt.executeUpdate(query);
+        // Each call may run on a different pooled connection, so transaction
+        // control statements here would leak an open transaction into the pool
+        String command = query.trim().toUpperCase();
+        if (command.startsWith("START TRANSACTION") || command.equals("BEGIN")
+                || command.startsWith("COMMIT") || command.startsWith("ROLLBACK")) {
+            System.err.println("Use inTransaction() instead of executing: " + query);
+            return -1;
+        }
+
+        Connection conn = null;
+        long start = 0;
+        try {
+            conn = acquire();
+            start = System.nanoTime();
+            try (Statement stmt = conn.createStatement()) {
+                int rowsAffected = stmt.executeUpdate(query);
+                recordTiming(query, start, rowsAffected, null);
+                return rowsAffected;
+            }
 
         } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
             System.err.println("Error executing update: " + query);
             e.printStackTrace();
             return -1;
+        } finally {
+            release(conn);
+        }
+    }
+
+    @Override
+    public int update(String query, Object[] params) throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
+        }
+
+        Connection conn = acquire();
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            bindParameters(stmt, params);
+            int rowsAffected = stmt.executeUpdate();
+            recordTiming(query, start, rowsAffected, null);
+            return rowsAffected;
+        } catch (SQLException e) {
+            recordTiming(query, start, -1, e);
+            throw e;
+        } finally {
+            release(conn);
+        }
+    }
+
+    @Override
+    public long insertAndGetKey(String query, Object[] params) throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
+        }
+
+        Connection conn = acquire();
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            bindParameters(stmt, params);
+            try {
+                recordTiming(query, start, stmt.executeUpdate(), null);
+            } catch (SQLException e) {
+                recordTiming(query, start, -1, e);
+                throw e;
+            }
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+            throw new SQLException("Insert did not return a generated key");
+        } finally {
+            release(conn);
+        }
+    }
+
+    @Override
+    public long[] insertAllAndGetKeys(String query, List<Object[]> rows) throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
+        }
+        if (rows.isEmpty()) {
+            return new long[0];
+        }
+
+        Connection conn = acquire();
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            for (Object[] params : rows) {
+                bindParameters(stmt, params);
+                stmt.addBatch();
+            }
+            try {
+                stmt.executeBatch();
+                recordTiming(query, start, rows.size(), null);
+            } catch (SQLException e) {
+                recordTiming(query, start, -1, e);
+                throw e;
+            }
+
+            // A rewritten multi-row INSERT gets consecutive keys, which the driver reports per row
+            long[] keys = new long[rows.size()];
+            int count = 0;
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                while (rs.next() && count < keys.length) {
+                    keys[count++] = rs.getLong(1);
+                }
+            }
+            if (count != keys.length) {
+                throw new SQLException("Batch insert returned " + count + " keys for " + keys.length + " rows");
+            }
+            return keys;
+        } finally {
+            release(conn);
+        }
+    }
+
+    // Transactions
+
+    @Override
+    public <T> T inTransaction(TransactionCallback<T> callback) throws SQLException {
+        return inTransaction(defaultIsolation, callback);
+    }
+
+    /**
+     * Run the callback in a transaction with the given isolation level
+     * (one of the Connection.TRANSACTION_* constants).
+     *
+     * The connection is bound to the calling thread for the duration, so
+     * every MySQLDatabase method called from the callback joins the same
+     * transaction. Any exception rolls back; deadlocks and lock wait
+     * timeouts are retried up to TRANSACTION_MAX_RETRIES times. A nested
+     * call runs inside the outer transaction behind a savepoint, so a
+     * failure there only undoes the nested work before propagating.
+     */
+    public <T> T inTransaction(int isolationLevel, TransactionCallback<T> callback) throws SQLException {
+        if (!isConnected()) {
+            throw new SQLException("No database connection!");
+        }
+
+        Connection bound = boundConnection.get();
+        if (bound != null) {
+            return runNested(bound, callback);
+        }
+
+        for (int attempt = 1;; attempt++) {
+            Connection conn = pool.borrow();
+            int previousIsolation = isolationLevel; // Nothing to restore until it has been read
+            boundConnection.set(conn);
+            try {
+                // Read inside the try so a failure still returns the connection
+                previousIsolation = conn.getTransactionIsolation();
+                if (previousIsolation != isolationLevel) {
+                    conn.setTransactionIsolation(isolationLevel);
+                }
+                conn.setAutoCommit(false);
+
+                T result = callback.doInTransaction(conn);
+                conn.commit();
+                return result;
+
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(conn);
+                if (e instanceof SQLException && isRetryable((SQLException) e) && attempt < TRANSACTION_MAX_RETRIES) {
+                    System.err.println("Transaction conflict (" + e.getMessage() + "), retrying attempt "
+                            + (attempt + 1));
+                    backoff(attempt);
+                    continue;
+                }
+                throw e;
+
+            } finally {
+                boundConnection.remove();
+                try {
+                    conn.setAutoCommit(true);
+                    if (previousIsolation != isolationLevel) {
+                        conn.setTransactionIsolation(previousIsolation);
+                    }
+                } catch (SQLException e) {
+                    // Pool discards or resets the connection on return
+                }
+                release(conn);
+            }
+        }
+    }
+
+    /**
+     * Default isolation level for inTransaction(callback)
+     */
+    public void setDefaultIsolation(int defaultIsolation) {
+        this.defaultIsolation = defaultIsolation;
+    }
+
+    /**
+     * True if the current thread is inside inTransaction()
+     */
+    public boolean isInTransaction() {
+        return boundConnection.get() != null;
+    }
+
+    private <T> T runNested(Connection conn, TransactionCallback<T> callback) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            T result = callback.doInTransaction(conn);
+            conn.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback(savepoint);
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Deadlocks (1213) and lock wait timeouts (1205) are safe to retry
+     * because the whole transaction has been rolled back
+     */
+    private boolean isRetryable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                SQLException sql = (SQLException) t;
+                if (sql.getErrorCode() == 1213 || sql.getErrorCode() == 1205 || "40001".equals(sql.getSQLState())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt) throws SQLException {
+        try {
+            Thread.sleep(TRANSACTION_RETRY_DELAY_MS * attempt
+                    + java.util.concurrent.ThreadLocalRandom.current().nextInt(TRANSACTION_RETRY_DELAY_MS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while retrying transaction", e);
+        }
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back transaction: " + e.getMessage());
+        }
+    }
+
+    // Connection helpers
+
+    /**
+     * Connection to run the next statement on: the one bound by
+     * inTransaction() on this thread, or a fresh one from the pool
+     */
+    private Connection acquire() throws SQLException {
+        Connection bound = boundConnection.get();
+        if (bound != null) {
+            return bound;
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Return a connection to the pool unless an open transaction still needs it
+     */
+    private void release(Connection conn) {
+        if (conn == null || conn == boundConnection.get()) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error returning connection to pool: " + e.getMessage());
+        }
+    }
+
+    private void bindParameters(PreparedStatement stmt, Object[] params) throws SQLException {
+        if (params == null) {
+            return;
+        }
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+    }
+
+    private void recordTiming(String sql, long start, long rows, Throwable error) {
+        queryMonitor.record(sql, System.nanoTime() - start, rows, error);
+    }
+
+    private void closeQuietly(Statement stmt) {
+        if (stmt != null) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                // Ignore - statement is being discarded
+            }
+        }
+    }
+
+    /**
+     * Wrap a ResultSet so that closing it (or reading past the last row)
+     * also closes its statement and returns the connection to the pool
+     */
+    private ResultSet bindToConnection(ResultSet rs, Statement stmt, Connection conn, String sql, long execNanos) {
+        boolean[] released = { false };
+        long[] rowCount = { 0 };
+        Runnable cleanup = () -> {
+            if (!released[0]) {
+                released[0] = true;
+                // Timed up to executeQuery() - the caller's row processing is not the query's cost
+                queryMonitor.record(sql, execNanos, rowCount[0], null);
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    // Ignore - connection is being released anyway
+                }
+                closeQuietly(stmt);
+                release(conn);
+            }
+        };
+
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("close")) {
+                        cleanup.run();
+                        return null;
+                    }
+                    if (name.equals("isClosed") && released[0]) {
+                        return true;
+                    }
+
+                    Object result;
+                    try {
+                        result = method.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+
+                    if (name.equals("next")) {
+                        if (Boolean.TRUE.equals(result)) {
+                            rowCount[0]++;
+                        } else {
+                            cleanup.run();
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Pulls rows from an open cursor on demand and releases the statement
+     * and connection once the last row is read or the stream is closed.
+     * The scan is timed from execution until close, since a streamed
+     * result is transferred while it is consumed.
+     */
+    private final class RowCursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final ResultSet rs;
+        private final Statement stmt;
+        private final Connection conn;
+        private final RowMapper<T> mapper;
+        private final String sql;
+        private final long start;
+        private long rows;
+        private SQLException error;
+        private boolean closed;
+
+        RowCursor(ResultSet rs, Statement stmt, Connection conn, RowMapper<T> mapper, String sql, long start) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.rs = rs;
+            this.stmt = stmt;
+            this.conn = conn;
+            this.mapper = mapper;
+            this.sql = sql;
+            this.start = start;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+                rows++;
+                action.accept(mapper.mapRow(rs));
+                return true;
+            } catch (SQLException e) {
+                error = e;
+                close();
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            recordTiming(sql, start, rows, error);
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                // Ignore - connection is being released anyway
+            }
+            closeQuietly(stmt);
+            release(conn);
         }
     }
 }
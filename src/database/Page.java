@@ -0,0 +1,50 @@
+package database;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query. Pass getNextKey() back to
+ * fetchPage() as the afterKey to continue where this page ended.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final Object[] nextKey;
+    private final boolean hasMore;
+
+    public Page(List<T> items, Object[] nextKey, boolean hasMore) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextKey = nextKey;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * A page with no items and nothing after it
+     */
+    public static <T> Page<T> empty() {
+        return new Page<>(Collections.<T>emptyList(), null, false);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Sort key values of the last item, or null if this is the last page
+     */
+    public Object[] getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
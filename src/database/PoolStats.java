@@ -0,0 +1,134 @@
+package database;
+
+/**
+ * Immutable snapshot of connection pool usage, used for monitoring
+ */
+public class PoolStats {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int maxConnections;
+    private final int waitingThreads;
+    private final long borrowCount;
+    private final long averageWaitMicros;
+    private final long maxWaitMicros;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long destroyedCount;
+    private final long validationFailures;
+    private final long leakCount;
+    private final long abandonedCount;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolStats(int activeConnections, int idleConnections, int totalConnections, int maxConnections,
+            int waitingThreads, long borrowCount, long averageWaitMicros, long maxWaitMicros,
+            long timeoutCount, long createdCount, long destroyedCount, long validationFailures,
+            long leakCount, long abandonedCount, long statementCacheHits, long statementCacheMisses,
+            long statementCacheEvictions) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.maxConnections = maxConnections;
+        this.waitingThreads = waitingThreads;
+        this.borrowCount = borrowCount;
+        this.averageWaitMicros = averageWaitMicros;
+        this.maxWaitMicros = maxWaitMicros;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.validationFailures = validationFailures;
+        this.leakCount = leakCount;
+        this.abandonedCount = abandonedCount;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getAverageWaitMicros() {
+        return averageWaitMicros;
+    }
+
+    public long getMaxWaitMicros() {
+        return maxWaitMicros;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount;
+    }
+
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    public long getLeakCount() {
+        return leakCount;
+    }
+
+    public long getAbandonedCount() {
+        return abandonedCount;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    /**
+     * Fraction of prepareStatement calls served from the statement cache
+     */
+    public double getStatementCacheHitRate() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[active=%d, idle=%d, total=%d/%d, waiting=%d, borrows=%d, " +
+                "avgWait=%dus, maxWait=%dus, timeouts=%d, leaks=%d, abandoned=%d, " +
+                "stmtCache[hits=%d, misses=%d, evictions=%d]]",
+                activeConnections, idleConnections, totalConnections, maxConnections, waitingThreads,
+                borrowCount, averageWaitMicros, maxWaitMicros, timeoutCount, leakCount, abandonedCount,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions);
+    }
+}
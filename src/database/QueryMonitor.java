@@ -0,0 +1,182 @@
+package database;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Collects timing for every statement MySQLDatabase executes: a latency
+ * histogram per SQL fingerprint, plus a slow-query log of statements that
+ * exceed the threshold or fail, with the application class that ran them.
+ */
+public class QueryMonitor {
+    private static final int MAX_FINGERPRINTS = 1000; // Further distinct statements share one bucket
+    private static final String OVERFLOW_FINGERPRINT = "(other statements)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ConcurrentHashMap<String, QueryStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final SlowQueryLog slowLog;
+    private final LatencyHistogram overall = new LatencyHistogram();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong slowCount = new AtomicLong();
+    private volatile long slowThresholdMicros;
+    private volatile boolean enabled = true;
+
+    public QueryMonitor(long slowThresholdMillis, int slowLogCapacity) {
+        this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(slowThresholdMillis);
+        this.slowLog = new SlowQueryLog(slowLogCapacity);
+    }
+
+    /**
+     * Record one execution
+     *
+     * @param sql          Statement text as sent to the driver
+     * @param elapsedNanos Time spent executing
+     * @param rows         Rows returned or affected, or -1 if unknown
+     * @param error        The failure, or null on success
+     */
+    public void record(String sql, long elapsedNanos, long rows, Throwable error) {
+        if (!enabled || sql == null) {
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+
+        String fingerprint = fingerprint(sql);
+        QueryStats queryStats = stats.get(fingerprint);
+        if (queryStats == null) {
+            if (stats.size() >= MAX_FINGERPRINTS) {
+                fingerprint = OVERFLOW_FINGERPRINT;
+            }
+            // The caller is only looked up the first time a statement is seen
+            queryStats = stats.computeIfAbsent(fingerprint, f -> new QueryStats(f, findCaller()));
+        }
+        queryStats.record(micros, rows, error != null);
+        overall.record(micros);
+
+        if (error != null) {
+            errorCount.incrementAndGet();
+        }
+        if (micros >= slowThresholdMicros) {
+            slowCount.incrementAndGet();
+        }
+        if (error != null || micros >= slowThresholdMicros) {
+            slowLog.add(new SlowQueryEntry(Instant.now(), WHITESPACE.matcher(sql.trim()).replaceAll(" "),
+                    micros, rows, findCaller(), error != null ? error.getMessage() : null));
+        }
+    }
+
+    /**
+     * Statement text with literals replaced by '?', placeholder lists
+     * collapsed and whitespace normalised, so calls that differ only in
+     * their values share statistics
+     */
+    public String fingerprint(String sql) {
+        String cached = fingerprints.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+
+        String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+        result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+        result = PLACEHOLDER_LIST.matcher(result).replaceAll("(?+)");
+        result = WHITESPACE.matcher(result.trim()).replaceAll(" ");
+
+        if (fingerprints.size() < MAX_FINGERPRINTS * 4) {
+            fingerprints.put(sql, result);
+        }
+        return result;
+    }
+
+    /**
+     * Per-fingerprint statistics, slowest p95 first
+     */
+    public List<QueryStats> getStats() {
+        List<QueryStats> list = new ArrayList<>(stats.values());
+        list.sort(Comparator.comparingLong(QueryStats::getP95Micros).reversed());
+        return list;
+    }
+
+    public QueryStats getStats(String sql) {
+        return stats.get(fingerprint(sql));
+    }
+
+    /**
+     * Latency of all statements together, in microseconds
+     */
+    public LatencyHistogram getOverallLatency() {
+        return overall;
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getSlowCount() {
+        return slowCount.get();
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowLog;
+    }
+
+    /**
+     * Statements at least this slow go to the slow-query log
+     */
+    public void setSlowThresholdMillis(long millis) {
+        this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(millis);
+    }
+
+    public long getSlowThresholdMillis() {
+        return TimeUnit.MICROSECONDS.toMillis(slowThresholdMicros);
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void reset() {
+        stats.clear();
+        slowLog.clear();
+    }
+
+    /**
+     * Summary table of all fingerprints, for printing to the console
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder("Query statistics (slowest p95 first):\n");
+        for (QueryStats queryStats : getStats()) {
+            sb.append("  ").append(queryStats).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * First stack frame outside the database layer and the JDK
+     */
+    private static String findCaller() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String cls = frame.getClassName();
+            if (cls.startsWith("database.") || cls.startsWith("java.") || cls.startsWith("javax.")
+                    || cls.startsWith("jdk.") || cls.startsWith("sun.") || cls.startsWith("com.sun.")
+                    || cls.contains("$Proxy")) {
+                continue;
+            }
+            return cls + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+        }
+        return "unknown";
+    }
+}
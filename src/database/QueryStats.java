@@ -0,0 +1,76 @@
+package database;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running statistics for one SQL fingerprint (the statement text with
+ * literals replaced by '?')
+ */
+public class QueryStats {
+    private final String fingerprint;
+    private final String firstCaller;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public QueryStats(String fingerprint, String firstCaller) {
+        this.fingerprint = fingerprint;
+        this.firstCaller = firstCaller;
+    }
+
+    void record(long micros, long rowCount, boolean failed) {
+        latency.record(micros);
+        if (rowCount > 0) {
+            rows.addAndGet(rowCount);
+        }
+        if (failed) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Code location that first ran this statement
+     */
+    public String getFirstCaller() {
+        return firstCaller;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getExecutions() {
+        return latency.getCount();
+    }
+
+    public long getTotalRows() {
+        return rows.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getP50Micros() {
+        return latency.getPercentileMicros(50);
+    }
+
+    public long getP95Micros() {
+        return latency.getPercentileMicros(95);
+    }
+
+    public long getP99Micros() {
+        return latency.getPercentileMicros(99);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%6d x  p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms rows=%d errors=%d  %s",
+                getExecutions(), getP50Micros() / 1000.0, getP95Micros() / 1000.0, getP99Micros() / 1000.0,
+                latency.getMaxMicros() / 1000.0, getTotalRows(), getErrors(), fingerprint);
+    }
+}
@@ -0,0 +1,21 @@
+package database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object.
+ * Implementations must not call next() or close() on the ResultSet -
+ * the database layer owns the cursor and its lifetime.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Map the row the ResultSet is currently positioned on
+     *
+     * @param rs ResultSet positioned on a row
+     * @return the mapped object
+     */
+    T mapRow(ResultSet rs) throws SQLException;
+}
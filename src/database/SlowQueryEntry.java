@@ -0,0 +1,66 @@
+package database;
+
+import java.time.Instant;
+
+/**
+ * One statement recorded by the slow-query log: either slower than the
+ * threshold or failed
+ */
+public class SlowQueryEntry {
+    private final Instant timestamp;
+    private final String sql;
+    private final long durationMicros;
+    private final long rows;
+    private final String caller;
+    private final String error;
+
+    public SlowQueryEntry(Instant timestamp, String sql, long durationMicros, long rows, String caller,
+            String error) {
+        this.timestamp = timestamp;
+        this.sql = sql;
+        this.durationMicros = durationMicros;
+        this.rows = rows;
+        this.caller = caller;
+        this.error = error;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    /**
+     * Rows returned or affected, or -1 if unknown
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public String getCaller() {
+        return caller;
+    }
+
+    /**
+     * Error message, or null if the statement succeeded
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + " " + String.format("%.1fms", durationMicros / 1000.0) + " rows=" + rows
+                + " caller=" + caller + (error != null ? " error=\"" + error + "\"" : "") + " sql=" + sql;
+    }
+}
@@ -0,0 +1,118 @@
+package database;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the most recent slow or failed statements in a bounded buffer and
+ * optionally appends them to a size-rotated log file
+ * (slow-queries.log, slow-queries.log.1, ...).
+ */
+public class SlowQueryLog {
+    private final ArrayDeque<SlowQueryEntry> entries = new ArrayDeque<>();
+    private final int capacity;
+
+    private File logFile;
+    private long maxFileBytes;
+    private int maxFiles;
+    private Writer writer;
+    private long fileBytes;
+
+    public SlowQueryLog(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Also append entries to a file, rotating once it exceeds maxFileBytes
+     * and keeping at most maxFiles files. Pass null to stop writing.
+     */
+    public synchronized void setLogFile(String path, long maxFileBytes, int maxFiles) {
+        closeWriter();
+        this.logFile = path != null ? new File(path) : null;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    public synchronized void add(SlowQueryEntry entry) {
+        if (entries.size() == capacity) {
+            entries.removeFirst();
+        }
+        entries.addLast(entry);
+
+        if (logFile != null) {
+            writeToFile(entry);
+        }
+    }
+
+    /**
+     * Buffered entries, oldest first
+     */
+    public synchronized List<SlowQueryEntry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized void close() {
+        closeWriter();
+    }
+
+    private void writeToFile(SlowQueryEntry entry) {
+        String line = entry + System.lineSeparator();
+        try {
+            if (writer == null) {
+                File parent = logFile.getAbsoluteFile().getParentFile();
+                if (parent != null && !parent.exists()) {
+                    parent.mkdirs();
+                }
+                fileBytes = logFile.length();
+                writer = new FileWriter(logFile, true);
+            }
+            if (fileBytes > 0 && fileBytes + line.length() > maxFileBytes) {
+                rotate();
+            }
+            writer.write(line);
+            writer.flush();
+            fileBytes += line.length();
+
+        } catch (IOException e) {
+            System.err.println("Error writing slow query log: " + e.getMessage());
+            closeWriter();
+            logFile = null; // Keep the in-memory buffer going
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeWriter();
+        String base = logFile.getPath();
+        new File(base + "." + (maxFiles - 1)).delete();
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            new File(base + "." + i).renameTo(new File(base + "." + (i + 1)));
+        }
+        if (maxFiles > 1) {
+            logFile.renameTo(new File(base + ".1"));
+        } else {
+            logFile.delete();
+        }
+        writer = new FileWriter(logFile, false);
+        fileBytes = 0;
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // Ignore - writer is being discarded
+            }
+            writer = null;
+        }
+    }
+}
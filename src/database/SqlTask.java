@@ -0,0 +1,17 @@
+package database;
+
+import java.sql.SQLException;
+
+/**
+ * A piece of database work run by AsyncDatabaseOperations.supplyAsync()
+ */
+@FunctionalInterface
+public interface SqlTask<T> {
+
+    /**
+     * Run the work on an async worker thread
+     *
+     * @return the result used to complete the future
+     */
+    T call() throws SQLException;
+}
@@ -0,0 +1,22 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Unit of work executed by DatabaseOperations.inTransaction().
+ * Throwing any exception rolls the transaction back.
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    /**
+     * Run the transactional work. The connection is also bound to the
+     * calling thread, so the regular DatabaseOperations methods called from
+     * here take part in the same transaction.
+     *
+     * @param conn Connection with auto-commit disabled
+     * @return Result handed back to the caller of inTransaction()
+     */
+    T doInTransaction(Connection conn) throws SQLException;
+}
@@ -5,7 +5,6 @@ import models.Admin;
 import services.CourseService;
 import services.LogService;
 import services.PaymentService;
-import utils.SessionManager;
 
 import javax.swing.*;
 import java.awt.*;
@@ -16,6 +15,7 @@ import java.sql.ResultSet;
  */
 public class AdminDashboard extends JFrame {
     private Admin admin;
+    private String sessionToken;
     private JPanel contentPanel;
     private CourseService courseService;
     private PaymentService paymentService;
@@ -23,8 +23,9 @@ public class AdminDashboard extends JFrame {
     private MySQLDatabase db;
     private JButton activeButton; // Track currently active menu button
 
-    public AdminDashboard(Admin admin) {
+    public AdminDashboard(Admin admin, String sessionToken) {
         this.admin = admin;
+        this.sessionToken = sessionToken;
         this.courseService = new CourseService();
         this.logService = new LogService();
         this.paymentService = new PaymentService();
@@ -107,6 +108,7 @@ public class AdminDashboard extends JFrame {
         addMenuItem(sidebar, "Reports", e -> showReports());
         addMenuItem(sidebar, "Payment Records", e -> showPayments());
         addMenuItem(sidebar, "System Logs", e -> showLogs());
+        addMenuItem(sidebar, "Performance", e -> showPerformance());
 
         sidebar.add(Box.createVerticalGlue());
 
@@ -309,6 +311,13 @@ public class AdminDashboard extends JFrame {
         contentPanel.repaint();
     }
 
+    private void showPerformance() {
+        contentPanel.removeAll();
+        contentPanel.add(new PerformancePanel(db, admin));
+        contentPanel.revalidate();
+        contentPanel.repaint();
+    }
+
     private void logout() {
         int confirm = JOptionPane.showConfirmDialog(this,
                 "Are you sure you want to logout?",
@@ -319,7 +328,7 @@ public class AdminDashboard extends JFrame {
             // Log the logout action
             logService.logLogout(admin.getUserId(), admin.getFullName(), "ADMIN");
 
-            SessionManager.getInstance().logout();
+            LoginForm.endSession(sessionToken);
             dispose();
             new LoginForm().setVisible(true);
         }
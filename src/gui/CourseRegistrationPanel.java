@@ -1,13 +1,12 @@
 package gui;
 
-import database.MySQLDatabase;
+import models.Course;
 import models.Student;
 import services.CourseService;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.sql.ResultSet;
 
 /**
  * Panel for registering new courses
@@ -15,14 +14,12 @@ import java.sql.ResultSet;
 public class CourseRegistrationPanel extends JPanel {
     private Student student;
     private CourseService courseService;
-    private MySQLDatabase db;
     private JTable coursesTable;
     private DefaultTableModel tableModel;
 
     public CourseRegistrationPanel(Student student, CourseService courseService) {
         this.student = student;
         this.courseService = courseService;
-        this.db = MySQLDatabase.getInstance();
         initializeUI();
         loadAvailableCourses();
     }
@@ -138,46 +135,25 @@ public class CourseRegistrationPanel extends JPanel {
         tableModel.setRowCount(0);
 
         try {
-            // Ensure fresh connection
-            if (!db.isConnected()) {
-                db.connect();
-            }
-
             // Load ALL active courses (not filtered by student's year/semester)
-            String query = "SELECT c.course_id, c.course_code, c.course_name, c.credits, " +
-                    "c.year_level, c.semester, c.department, " +
-                    "CONCAT(COALESCE(p.first_name, ''), ' ', COALESCE(p.last_name, '')) as lecturer_name " +
-                    "FROM courses c " +
-                    "LEFT JOIN lecturers l ON c.lecturer_id = l.lecturer_id " +
-                    "LEFT JOIN persons p ON l.person_id = p.person_id " +
-                    "WHERE c.is_active = TRUE " +
-                    "ORDER BY c.year_level, c.semester, c.course_code";
-
-            ResultSet rs = db.fetchData(query);
-
-            while (rs != null && rs.next()) {
-                String lecturerName = rs.getString("lecturer_name");
+            for (Course course : courseService.getActiveCourses()) {
+                String lecturerName = course.getLecturerName();
                 if (lecturerName == null || lecturerName.trim().isEmpty()) {
                     lecturerName = "TBA";
                 }
 
                 tableModel.addRow(new Object[] {
-                        rs.getString("course_code"),
-                        rs.getString("course_name"),
-                        rs.getInt("credits"),
-                        rs.getInt("year_level"),
-                        rs.getInt("semester"),
+                        course.getCourseCode(),
+                        course.getCourseName(),
+                        course.getCredits(),
+                        course.getYearLevel(),
+                        course.getSemester(),
                         lecturerName,
-                        rs.getString("department"),
-                        rs.getInt("course_id")
+                        course.getDepartment(),
+                        course.getCourseId()
                 });
             }
 
-            // Close ResultSet properly
-            if (rs != null) {
-                rs.close();
-            }
-
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
                     "Error loading courses: " + e.getMessage(),
@@ -4,7 +4,6 @@ import database.MySQLDatabase;
 import models.Lecturer;
 import services.CourseService;
 import services.GradeService;
-import utils.SessionManager;
 
 import javax.swing.*;
 import java.awt.*;
@@ -14,14 +13,16 @@ import java.awt.*;
  */
 public class LecturerDashboard extends JFrame {
     private Lecturer lecturer;
+    private String sessionToken;
     private JPanel contentPanel;
     private CourseService courseService;
     private GradeService gradeService;
     private MySQLDatabase db;
     private JButton activeButton; // Track currently active menu button
 
-    public LecturerDashboard(Lecturer lecturer) {
+    public LecturerDashboard(Lecturer lecturer, String sessionToken) {
         this.lecturer = lecturer;
+        this.sessionToken = sessionToken;
         this.db = MySQLDatabase.getInstance();
         this.courseService = new CourseService();
         this.gradeService = new GradeService();
@@ -300,7 +301,7 @@ public class LecturerDashboard extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            SessionManager.getInstance().logout();
+            LoginForm.endSession(sessionToken);
             dispose();
             new LoginForm().setVisible(true);
         }
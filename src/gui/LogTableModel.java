@@ -0,0 +1,144 @@
+package gui;
+
+import models.SystemLog;
+
+import javax.swing.table.AbstractTableModel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table model holding a sliding window of log entries. SystemLogsPanel
+ * extends the window at either end as the user scrolls and the model drops
+ * rows from the far end, so memory stays bounded however many entries
+ * match.
+ */
+public class LogTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = { "Log ID", "Timestamp", "User", "Role", "Action", "Details",
+            "IP Address" };
+
+    private final int maxRows;
+    private final List<SystemLog> rows = new ArrayList<>();
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private boolean moreAbove; // Newer entries exist before the first row
+    private boolean moreBelow; // Older entries exist after the last row
+
+    public LogTableModel(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        SystemLog log = rows.get(row);
+        switch (column) {
+            case 0:
+                return log.getLogId();
+            case 1:
+                return log.getTimestamp() != null ? dateFormat.format(log.getTimestamp()) : "";
+            case 2:
+                return log.getUserName();
+            case 3:
+                return log.getRole();
+            case 4:
+                return log.getAction();
+            case 5:
+                return log.getDetails();
+            default:
+                return log.getIpAddress();
+        }
+    }
+
+    public SystemLog getLog(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * Empty the window, e.g. before loading a new filter
+     */
+    public void clear() {
+        rows.clear();
+        moreAbove = false;
+        moreBelow = false;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Add older entries at the bottom, trimming the top if the window is full
+     *
+     * @return Number of rows removed from the top
+     */
+    public int appendBelow(List<SystemLog> logs, boolean hasMore) {
+        int first = rows.size();
+        rows.addAll(logs);
+        moreBelow = hasMore;
+        if (!logs.isEmpty()) {
+            fireTableRowsInserted(first, rows.size() - 1);
+        }
+
+        int excess = rows.size() - maxRows;
+        if (excess > 0) {
+            rows.subList(0, excess).clear();
+            moreAbove = true;
+            fireTableRowsDeleted(0, excess - 1);
+            return excess;
+        }
+        return 0;
+    }
+
+    /**
+     * Add newer entries (in display order) at the top, trimming the bottom
+     * if the window is full
+     */
+    public void prependAbove(List<SystemLog> logs, boolean hasMore) {
+        rows.addAll(0, logs);
+        moreAbove = hasMore;
+        if (!logs.isEmpty()) {
+            fireTableRowsInserted(0, logs.size() - 1);
+        }
+
+        int excess = rows.size() - maxRows;
+        if (excess > 0) {
+            int keep = rows.size() - excess;
+            rows.subList(keep, rows.size()).clear();
+            moreBelow = true;
+            fireTableRowsDeleted(keep, keep + excess - 1);
+        }
+    }
+
+    public boolean hasMoreAbove() {
+        return moreAbove;
+    }
+
+    public boolean hasMoreBelow() {
+        return moreBelow;
+    }
+
+    /**
+     * Paging key of the first row, or null if the window is empty
+     */
+    public Object[] getTopKey() {
+        return rows.isEmpty() ? null : rows.get(0).getSortKey();
+    }
+
+    /**
+     * Paging key of the last row, or null if the window is empty
+     */
+    public Object[] getBottomKey() {
+        return rows.isEmpty() ? null : rows.get(rows.size() - 1).getSortKey();
+    }
+}
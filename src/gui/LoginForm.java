@@ -5,14 +5,16 @@ import models.Admin;
 import models.Lecturer;
 import models.Person;
 import models.Student;
+import services.ApiClient;
 import services.AuthenticationService;
-import services.LogService;
-import utils.SessionManager;
+import services.LoginLockedException;
+import utils.SessionStore;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Login Form - Entry point of the application
@@ -24,7 +26,6 @@ public class LoginForm extends JFrame {
     private JButton loginButton;
     private JButton registerButton;
     private AuthenticationService authService;
-    private LogService logService;
 
     public LoginForm() {
         // Initialize database connection
@@ -37,7 +38,6 @@ public class LoginForm extends JFrame {
         }
 
         authService = new AuthenticationService();
-        logService = new LogService();
         initializeUI();
     }
 
@@ -236,7 +236,9 @@ public class LoginForm extends JFrame {
         SwingWorker<Person, Void> worker = new SwingWorker<Person, Void>() {
             @Override
             protected Person doInBackground() throws Exception {
-                return authService.login(username, password);
+                // In thin-client mode the server checks the credentials
+                ApiClient server = ApiClient.getInstance();
+                return server != null ? server.login(username, password) : authService.login(username, password);
             }
 
             @Override
@@ -245,27 +247,41 @@ public class LoginForm extends JFrame {
                     Person user = get();
 
                     if (user != null) {
-                        // Log successful login
-                        logService.logLogin(user.getUserId(), username, user.getRole());
+                        // The login itself was logged by AuthenticationService
 
-                        // Store user in session
-                        SessionManager.getInstance().setCurrentUser(user);
+                        // Start a session for the user (the server's, in thin-client mode)
+                        ApiClient server = ApiClient.getInstance();
+                        String sessionToken = server != null
+                                ? server.getToken()
+                                : SessionStore.getInstance().create(user).getToken();
 
                         // Open appropriate dashboard based on role
-                        openDashboard(user);
+                        openDashboard(user, sessionToken);
 
                         // Close login form
                         dispose();
 
                     } else {
-                        // Log failed login attempt
-                        logService.logFailedLogin(username);
-
+                        // Failed attempts are logged in aggregate by the login throttle
                         JOptionPane.showMessageDialog(LoginForm.this,
                                 "Invalid username or password!",
                                 "Login Failed", JOptionPane.ERROR_MESSAGE);
                     }
 
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof LoginLockedException) {
+                        // Not logged here: the throttle logs lockouts in aggregate
+                        LoginLockedException locked = (LoginLockedException) ex.getCause();
+                        JOptionPane.showMessageDialog(LoginForm.this,
+                                "Too many failed login attempts. Please try again in "
+                                        + locked.getRetryAfterText() + ".",
+                                "Login Locked", JOptionPane.WARNING_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(LoginForm.this,
+                                "Error during login: " + ex.getCause().getMessage(),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                        ex.getCause().printStackTrace();
+                    }
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(LoginForm.this,
                             "Error during login: " + ex.getMessage(),
@@ -284,13 +300,25 @@ public class LoginForm extends JFrame {
     /**
      * Open appropriate dashboard based on user role - Polymorphism
      */
-    private void openDashboard(Person user) {
+    private void openDashboard(Person user, String sessionToken) {
         if (user instanceof Student) {
-            new StudentDashboard((Student) user).setVisible(true);
+            new StudentDashboard((Student) user, sessionToken).setVisible(true);
         } else if (user instanceof Lecturer) {
-            new LecturerDashboard((Lecturer) user).setVisible(true);
+            new LecturerDashboard((Lecturer) user, sessionToken).setVisible(true);
         } else if (user instanceof Admin) {
-            new AdminDashboard((Admin) user).setVisible(true);
+            new AdminDashboard((Admin) user, sessionToken).setVisible(true);
+        }
+    }
+
+    /**
+     * End a dashboard's session on logout
+     */
+    static void endSession(String sessionToken) {
+        ApiClient server = ApiClient.getInstance();
+        if (server != null) {
+            new Thread(server::logout, "scms-logout").start(); // Don't hold up the UI for the server
+        } else {
+            SessionStore.getInstance().invalidate(sessionToken);
         }
     }
 
@@ -1,6 +1,7 @@
 package gui;
 
 import database.MySQLDatabase;
+import database.Page;
 import models.Course;
 import services.CourseService;
 
@@ -14,6 +15,10 @@ public class ManageCoursesPanel extends JPanel {
     private MySQLDatabase db;
     private JTable coursesTable;
     private DefaultTableModel tableModel;
+    private JButton loadMoreButton;
+    private Object[] nextPageKey; // Sort key of the last loaded row
+
+    private static final int PAGE_SIZE = 100;
 
     public ManageCoursesPanel(CourseService courseService) {
         this.courseService = courseService;
@@ -96,6 +101,17 @@ public class ManageCoursesPanel extends JPanel {
 
         add(topPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
+
+        // Later pages are only fetched on demand
+        loadMoreButton = createMinimalButton("Load More", new Color(100, 100, 110));
+        loadMoreButton.addActionListener(e -> loadNextCoursesPage());
+        loadMoreButton.setEnabled(false);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+        bottomPanel.setOpaque(false);
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(15, 0, 0, 0));
+        bottomPanel.add(loadMoreButton);
+        add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private JButton createMinimalButton(String text, Color bgColor) {
@@ -124,45 +140,37 @@ public class ManageCoursesPanel extends JPanel {
 
     private void loadCourses() {
         tableModel.setRowCount(0);
+        nextPageKey = null;
+        loadNextCoursesPage();
+    }
 
+    /**
+     * Append the next page of courses, paginated on course_code over the
+     * cached course catalog
+     */
+    private void loadNextCoursesPage() {
         try {
-            // Ensure fresh connection
-            if (!db.isConnected()) {
-                db.connect();
-            }
-
-            String query = "SELECT c.course_id, c.course_code, c.course_name, c.credits, " +
-                    "c.department, c.year_level, c.semester, " +
-                    "CONCAT(COALESCE(p.first_name, ''), ' ', COALESCE(p.last_name, '')) as lecturer_name " +
-                    "FROM courses c " +
-                    "LEFT JOIN lecturers l ON c.lecturer_id = l.lecturer_id " +
-                    "LEFT JOIN persons p ON l.person_id = p.person_id " +
-                    "ORDER BY c.course_code";
+            Page<Course> page = courseService.getCoursesPage(nextPageKey, PAGE_SIZE);
 
-            ResultSet rs = db.fetchData(query);
-
-            while (rs != null && rs.next()) {
-                String lecturerName = rs.getString("lecturer_name");
+            for (Course course : page.getItems()) {
+                String lecturerName = course.getLecturerName();
                 if (lecturerName == null || lecturerName.trim().isEmpty()) {
                     lecturerName = "Unassigned";
                 }
 
                 tableModel.addRow(new Object[] {
-                        rs.getInt("course_id"),
-                        rs.getString("course_code"),
-                        rs.getString("course_name"),
-                        rs.getInt("credits"),
-                        rs.getString("department"),
-                        rs.getInt("year_level"),
-                        rs.getInt("semester"),
+                        course.getCourseId(),
+                        course.getCourseCode(),
+                        course.getCourseName(),
+                        course.getCredits(),
+                        course.getDepartment(),
+                        course.getYearLevel(),
+                        course.getSemester(),
                         lecturerName
                 });
             }
-
-            // Close ResultSet properly
-            if (rs != null) {
-                rs.close();
-            }
+            nextPageKey = page.getNextKey();
+            loadMoreButton.setEnabled(page.hasMore());
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
@@ -415,6 +423,7 @@ public class ManageCoursesPanel extends JPanel {
                     db.disconnect(); // Disconnect immediately after update
 
                     if (success) {
+                        CourseService.invalidateCatalog();
                         dialog.dispose();
                         JOptionPane.showMessageDialog(ManageCoursesPanel.this,
                                 "Course updated successfully!",
@@ -519,6 +528,7 @@ public class ManageCoursesPanel extends JPanel {
             // 3. Delete course
             String deleteCourse = "DELETE FROM courses WHERE course_id = " + courseId;
             db.executeUpdate(deleteCourse);
+            CourseService.invalidateCatalog();
 
             db.disconnect();
 
@@ -661,6 +671,7 @@ public class ManageCoursesPanel extends JPanel {
                 db.disconnect();
 
                 if (rowsAffected > 0) {
+                    CourseService.invalidateCatalog();
                     dialog.dispose();
                     JOptionPane.showMessageDialog(ManageCoursesPanel.this,
                             lecturerId == null ? "Lecturer unassigned successfully!"
@@ -1,6 +1,9 @@
 package gui;
 
 import database.MySQLDatabase;
+import database.Page;
+import services.CourseService;
+import services.PasswordService;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -11,6 +14,10 @@ public class ManageLecturersPanel extends JPanel {
     private JTable lecturersTable;
     private DefaultTableModel tableModel;
     private MySQLDatabase db;
+    private JButton loadMoreButton;
+    private Object[] nextPageKey; // Sort key of the last loaded row
+
+    private static final int PAGE_SIZE = 100;
 
     public ManageLecturersPanel() {
         this.db = MySQLDatabase.getInstance();
@@ -89,6 +96,17 @@ public class ManageLecturersPanel extends JPanel {
 
         add(topPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
+
+        // Later pages are only fetched on demand
+        loadMoreButton = createMinimalButton("Load More", new Color(100, 100, 110));
+        loadMoreButton.addActionListener(e -> loadNextLecturersPage());
+        loadMoreButton.setEnabled(false);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+        bottomPanel.setOpaque(false);
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(15, 0, 0, 0));
+        bottomPanel.add(loadMoreButton);
+        add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private JButton createMinimalButton(String text, Color bgColor) {
@@ -117,7 +135,14 @@ public class ManageLecturersPanel extends JPanel {
 
     private void loadLecturers() {
         tableModel.setRowCount(0);
+        nextPageKey = null;
+        loadNextLecturersPage();
+    }
 
+    /**
+     * Append the next page of lecturers, keyset paginated on employee_number
+     */
+    private void loadNextLecturersPage() {
         try {
             // Ensure fresh connection
             if (!db.isConnected()) {
@@ -128,26 +153,23 @@ public class ManageLecturersPanel extends JPanel {
                     "CONCAT(p.first_name, ' ', p.last_name) as full_name, " +
                     "l.department, l.specialization, l.office_location " +
                     "FROM lecturers l " +
-                    "JOIN persons p ON l.person_id = p.person_id " +
-                    "ORDER BY l.employee_number";
-
-            ResultSet rs = db.fetchData(query);
+                    "JOIN persons p ON l.person_id = p.person_id";
 
-            while (rs != null && rs.next()) {
-                tableModel.addRow(new Object[] {
+            Page<Object[]> page = db.fetchPage(query, new Object[] {}, "employee_number", nextPageKey, PAGE_SIZE,
+                    rs -> new Object[] {
                         rs.getInt("lecturer_id"),
                         rs.getString("employee_number"),
                         rs.getString("full_name"),
                         rs.getString("department"),
                         rs.getString("specialization"),
                         rs.getString("office_location")
-                });
-            }
+                    });
 
-            // Close ResultSet properly
-            if (rs != null) {
-                rs.close();
+            for (Object[] row : page.getItems()) {
+                tableModel.addRow(row);
             }
+            nextPageKey = page.getNextKey();
+            loadMoreButton.setEnabled(page.hasMore());
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
@@ -296,7 +318,7 @@ public class ManageLecturersPanel extends JPanel {
                 String insertUser = "INSERT INTO users (username, password, role, email) VALUES (?, ?, 'LECTURER', ?)";
                 int userId = db.executeInsertAndGetId(insertUser, new Object[] {
                         usernameField.getText().trim(),
-                        new String(passwordField.getPassword()),
+                        PasswordService.getInstance().hash(new String(passwordField.getPassword())),
                         emailField.getText().trim()
                 });
 
@@ -408,15 +430,11 @@ public class ManageLecturersPanel extends JPanel {
                     "FROM lecturers l " +
                     "JOIN persons p ON l.person_id = p.person_id " +
                     "WHERE l.lecturer_id = " + lecturerId;
-            ResultSet rs = db.fetchData(getIdsQuery);
-
-            int personId = 0;
-            int userId = 0;
+            int[] ids = db.queryForObject(getIdsQuery, new Object[] {},
+                    rs -> new int[] { rs.getInt("person_id"), rs.getInt("user_id") });
 
-            if (rs != null && rs.next()) {
-                personId = rs.getInt("person_id");
-                userId = rs.getInt("user_id");
-            }
+            int personId = ids != null ? ids[0] : 0;
+            int userId = ids != null ? ids[1] : 0;
 
             if (personId == 0 || userId == 0) {
                 JOptionPane.showMessageDialog(this,
@@ -429,6 +447,7 @@ public class ManageLecturersPanel extends JPanel {
             // 1. Unassign courses (set lecturer_id to NULL)
             String unassignCourses = "UPDATE courses SET lecturer_id = NULL WHERE lecturer_id = " + lecturerId;
             db.executeUpdate(unassignCourses);
+            CourseService.invalidateCatalog();
 
             // 2. Delete lecturer record
             String deleteLecturer = "DELETE FROM lecturers WHERE lecturer_id = " + lecturerId;
@@ -666,6 +685,7 @@ public class ManageLecturersPanel extends JPanel {
                             lastNameField.getText().trim(),
                             phoneField.getText().trim()
                     });
+                    CourseService.invalidateCatalog(); // Course lists show the lecturer's name
 
                     // 3. Update lecturers table
                     String updateLecturer = "UPDATE lecturers SET department = ?, specialization = ?, qualification = ?, office_location = ? WHERE lecturer_id = "
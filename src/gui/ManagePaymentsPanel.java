@@ -184,10 +184,13 @@ public class ManagePaymentsPanel extends JPanel {
 
         String studentFilter = studentSearchField.getText().trim();
 
-        List<Payment> payments = paymentService.getAllPayments(
-                studentFilter.isEmpty() ? null : studentFilter,
-                null,
-                null);
+        // Query off the event dispatch thread, fill the table back on it
+        paymentService.getAllPaymentsAsync(studentFilter.isEmpty() ? null : studentFilter, null, null)
+                .thenAccept(payments -> SwingUtilities.invokeLater(() -> showPayments(payments)));
+    }
+
+    private void showPayments(List<Payment> payments) {
+        tableModel.setRowCount(0);
 
         double totalAmount = 0.0;
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MMM-yyyy");
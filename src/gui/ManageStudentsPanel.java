@@ -1,6 +1,8 @@
 package gui;
 
 import database.MySQLDatabase;
+import database.Page;
+import services.PasswordService;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -11,6 +13,10 @@ public class ManageStudentsPanel extends JPanel {
     private JTable studentsTable;
     private DefaultTableModel tableModel;
     private MySQLDatabase db;
+    private JButton loadMoreButton;
+    private Object[] nextPageKey; // Sort key of the last loaded row
+
+    private static final int PAGE_SIZE = 100;
 
     public ManageStudentsPanel() {
         this.db = MySQLDatabase.getInstance();
@@ -92,6 +98,17 @@ public class ManageStudentsPanel extends JPanel {
 
         add(topPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
+
+        // Later pages are only fetched on demand
+        loadMoreButton = createMinimalButton("Load More", new Color(100, 100, 110));
+        loadMoreButton.addActionListener(e -> loadNextStudentsPage());
+        loadMoreButton.setEnabled(false);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+        bottomPanel.setOpaque(false);
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(15, 0, 0, 0));
+        bottomPanel.add(loadMoreButton);
+        add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private JButton createMinimalButton(String text, Color bgColor) {
@@ -120,7 +137,14 @@ public class ManageStudentsPanel extends JPanel {
 
     private void loadStudents() {
         tableModel.setRowCount(0);
+        nextPageKey = null;
+        loadNextStudentsPage();
+    }
 
+    /**
+     * Append the next page of students, keyset paginated on registration_number
+     */
+    private void loadNextStudentsPage() {
         try {
             // Ensure fresh connection
             if (!db.isConnected()) {
@@ -131,13 +155,10 @@ public class ManageStudentsPanel extends JPanel {
                     "CONCAT(p.first_name, ' ', p.last_name) as full_name, " +
                     "s.program, s.year_of_study, s.gpa, s.fee_balance, s.status " +
                     "FROM students s " +
-                    "JOIN persons p ON s.person_id = p.person_id " +
-                    "ORDER BY s.registration_number";
-
-            ResultSet rs = db.fetchData(query);
+                    "JOIN persons p ON s.person_id = p.person_id";
 
-            while (rs != null && rs.next()) {
-                tableModel.addRow(new Object[] {
+            Page<Object[]> page = db.fetchPage(query, new Object[] {}, "registration_number", nextPageKey, PAGE_SIZE,
+                    rs -> new Object[] {
                         rs.getInt("student_id"),
                         rs.getString("registration_number"),
                         rs.getString("full_name"),
@@ -146,13 +167,13 @@ public class ManageStudentsPanel extends JPanel {
                         String.format("%.2f", rs.getDouble("gpa")),
                         String.format("%.2f", rs.getDouble("fee_balance")),
                         rs.getString("status")
-                });
-            }
+                    });
 
-            // Close ResultSet properly
-            if (rs != null) {
-                rs.close();
+            for (Object[] row : page.getItems()) {
+                tableModel.addRow(row);
             }
+            nextPageKey = page.getNextKey();
+            loadMoreButton.setEnabled(page.hasMore());
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
@@ -206,15 +227,11 @@ public class ManageStudentsPanel extends JPanel {
                     "FROM students s " +
                     "JOIN persons p ON s.person_id = p.person_id " +
                     "WHERE s.student_id = " + studentId;
-            ResultSet rs = db.fetchData(getIdsQuery);
-
-            int personId = 0;
-            int userId = 0;
+            int[] ids = db.queryForObject(getIdsQuery, new Object[] {},
+                    rs -> new int[] { rs.getInt("person_id"), rs.getInt("user_id") });
 
-            if (rs != null && rs.next()) {
-                personId = rs.getInt("person_id");
-                userId = rs.getInt("user_id");
-            }
+            int personId = ids != null ? ids[0] : 0;
+            int userId = ids != null ? ids[1] : 0;
 
             if (personId == 0 || userId == 0) {
                 JOptionPane.showMessageDialog(this,
@@ -422,7 +439,7 @@ public class ManageStudentsPanel extends JPanel {
                 String insertUser = "INSERT INTO users (username, password, role, email) VALUES (?, ?, 'STUDENT', ?)";
                 int userId = db.executeInsertAndGetId(insertUser, new Object[] {
                         usernameField.getText().trim(),
-                        new String(passwordField.getPassword()),
+                        PasswordService.getInstance().hash(new String(passwordField.getPassword())),
                         emailField.getText().trim()
                 });
 
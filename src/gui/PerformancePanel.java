@@ -0,0 +1,340 @@
+package gui;
+
+import database.MySQLDatabase;
+import database.QueryStats;
+import database.SlowQueryEntry;
+import models.Admin;
+import services.LoginThrottle;
+import utils.Counter;
+import utils.Gauge;
+import utils.Histogram;
+import utils.Metric;
+import utils.MetricsRegistry;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Performance Panel - Live view of the metrics registry, per-statement
+ * latency and the slow-query log, refreshed every few seconds
+ */
+public class PerformancePanel extends JPanel {
+    private static final int REFRESH_INTERVAL_MS = 2000;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private final MySQLDatabase db;
+    private final Admin admin;
+    private final MetricsRegistry registry;
+    private final Timer refreshTimer;
+
+    private JLabel connectionsValue;
+    private JLabel waitingValue;
+    private JLabel queryLatencyValue;
+    private JLabel cacheHitValue;
+    private JLabel asyncQueueValue;
+    private JLabel loginRateValue;
+
+    private DefaultTableModel metricsModel;
+    private DefaultTableModel queriesModel;
+    private DefaultTableModel slowModel;
+    private DefaultTableModel lockoutsModel;
+    private JTable lockoutsTable;
+    private List<LoginThrottle.Lockout> lockoutsShown = new ArrayList<>();
+
+    private long lastLoginCount = -1;
+    private long lastRefreshNanos;
+
+    public PerformancePanel(MySQLDatabase db, Admin admin) {
+        this.db = db;
+        this.admin = admin;
+        this.registry = MetricsRegistry.getInstance();
+        setLayout(new BorderLayout());
+        setBackground(Color.WHITE);
+        setBorder(BorderFactory.createEmptyBorder(30, 40, 30, 40));
+
+        initializeComponents();
+        refresh();
+
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        // Stop polling once the admin navigates away
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void initializeComponents() {
+        // Title
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.setOpaque(false);
+        topPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 25, 0));
+
+        JLabel titleLabel = new JLabel("Performance");
+        titleLabel.setFont(new Font("Segoe UI", Font.PLAIN, 28));
+        titleLabel.setForeground(new Color(45, 45, 45));
+
+        JLabel hintLabel = new JLabel("Live values, refreshed every " + (REFRESH_INTERVAL_MS / 1000) + "s");
+        hintLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        hintLabel.setForeground(new Color(120, 120, 120));
+
+        topPanel.add(titleLabel, BorderLayout.WEST);
+        topPanel.add(hintLabel, BorderLayout.EAST);
+
+        // Headline figures
+        JPanel cardsPanel = new JPanel(new GridLayout(1, 6, 15, 0));
+        cardsPanel.setOpaque(false);
+        cardsPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 25, 0));
+
+        connectionsValue = addCard(cardsPanel, "DB Connections (active/max)");
+        waitingValue = addCard(cardsPanel, "Threads Waiting");
+        queryLatencyValue = addCard(cardsPanel, "Query p95 / p99");
+        cacheHitValue = addCard(cardsPanel, "Statement Cache Hits");
+        asyncQueueValue = addCard(cardsPanel, "Async Queue");
+        loginRateValue = addCard(cardsPanel, "Logins / min");
+
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.setOpaque(false);
+        northPanel.add(topPanel, BorderLayout.NORTH);
+        northPanel.add(cardsPanel, BorderLayout.CENTER);
+        add(northPanel, BorderLayout.NORTH);
+
+        // Detail tables
+        metricsModel = createModel("Metric", "Type", "Value", "Description");
+        queriesModel = createModel("Executions", "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)", "Errors",
+                "First Caller", "Statement");
+        slowModel = createModel("Time", "Duration (ms)", "Rows", "Caller", "Error", "Statement");
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        tabs.addTab("Metrics", createTable(metricsModel));
+        tabs.addTab("Statements (slowest first)", createTable(queriesModel));
+        tabs.addTab("Slow Query Log", createTable(slowModel));
+        tabs.addTab("Login Lockouts", createLockoutsPanel());
+        add(tabs, BorderLayout.CENTER);
+    }
+
+    private JLabel addCard(JPanel parent, String title) {
+        JPanel card = new JPanel();
+        card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
+        card.setBackground(new Color(250, 250, 252));
+        card.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(230, 230, 235), 1),
+                BorderFactory.createEmptyBorder(15, 15, 15, 15)));
+
+        JLabel valueLabel = new JLabel("-");
+        valueLabel.setFont(new Font("Segoe UI", Font.PLAIN, 22));
+        valueLabel.setForeground(new Color(45, 45, 45));
+
+        JLabel titleLabel = new JLabel(title);
+        titleLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        titleLabel.setForeground(new Color(120, 120, 120));
+
+        card.add(valueLabel);
+        card.add(Box.createRigidArea(new Dimension(0, 5)));
+        card.add(titleLabel);
+        parent.add(card);
+        return valueLabel;
+    }
+
+    private JPanel createLockoutsPanel() {
+        lockoutsModel = createModel("Type", "Username / Address", "Locked At", "Locked Until", "Failures",
+                "Attempts Rejected");
+        JScrollPane scrollPane = createTable(lockoutsModel);
+        lockoutsTable = (JTable) scrollPane.getViewport().getView();
+
+        JButton unlockButton = new JButton("Unlock Selected");
+        unlockButton.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        unlockButton.setFocusPainted(false);
+        unlockButton.addActionListener(e -> unlockSelected());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 10));
+        buttonPanel.setOpaque(false);
+        buttonPanel.add(unlockButton);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setOpaque(false);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private DefaultTableModel createModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private JScrollPane createTable(DefaultTableModel model) {
+        JTable table = new JTable(model);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        table.setRowHeight(32);
+        table.setShowVerticalLines(false);
+        table.setGridColor(new Color(240, 240, 245));
+        table.setSelectionBackground(new Color(245, 247, 250));
+        table.setSelectionForeground(new Color(45, 45, 45));
+        table.getTableHeader().setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.getTableHeader().setBackground(Color.WHITE);
+        table.getTableHeader().setForeground(new Color(120, 120, 120));
+        table.getTableHeader().setReorderingAllowed(false);
+
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 235), 1));
+        scrollPane.getViewport().setBackground(Color.WHITE);
+        return scrollPane;
+    }
+
+    private void refresh() {
+        // Everything here reads in-memory counters, so it is cheap enough for the EDT
+        connectionsValue.setText(gaugeText("scms_db_pool_active_connections") + " / "
+                + gaugeText("scms_db_pool_max_connections"));
+        waitingValue.setText(gaugeText("scms_db_pool_waiting_threads"));
+        asyncQueueValue.setText(gaugeText("scms_db_async_queued"));
+
+        Metric cacheHits = registry.get("scms_db_statement_cache_hit_ratio");
+        cacheHitValue.setText(cacheHits instanceof Gauge && !Double.isNaN(((Gauge) cacheHits).getValue())
+                ? String.format("%.1f%%", ((Gauge) cacheHits).getValue() * 100)
+                : "-");
+
+        Metric latency = registry.get("scms_db_query_seconds");
+        if (latency instanceof Histogram && ((Histogram) latency).getCount() > 0) {
+            Histogram histogram = (Histogram) latency;
+            queryLatencyValue.setText(String.format("%.0f / %.0f ms",
+                    histogram.getPercentile(95) * 1000, histogram.getPercentile(99) * 1000));
+        } else {
+            queryLatencyValue.setText("-");
+        }
+
+        Metric logins = registry.get("scms_logins_total");
+        long now = System.nanoTime();
+        if (logins instanceof Counter) {
+            long count = ((Counter) logins).getCount();
+            if (lastLoginCount >= 0) {
+                double minutes = (now - lastRefreshNanos) / 60e9;
+                loginRateValue.setText(String.format("%.0f", (count - lastLoginCount) / minutes));
+            }
+            lastLoginCount = count;
+        }
+        lastRefreshNanos = now;
+
+        refreshMetricsTable();
+        refreshQueriesTable();
+        refreshSlowLogTable();
+        refreshLockoutsTable();
+    }
+
+    private String gaugeText(String name) {
+        Metric metric = registry.get(name);
+        return metric instanceof Gauge && !Double.isNaN(((Gauge) metric).getValue()) ? metric.getDisplayValue() : "-";
+    }
+
+    private void refreshMetricsTable() {
+        metricsModel.setRowCount(0);
+        for (Metric metric : registry.getMetrics()) {
+            metricsModel.addRow(new Object[] {
+                    metric.getName(), metric.getType(), metric.getDisplayValue(), metric.getHelp()
+            });
+        }
+    }
+
+    private void refreshQueriesTable() {
+        queriesModel.setRowCount(0);
+        for (QueryStats stats : db.getQueryMonitor().getStats()) {
+            queriesModel.addRow(new Object[] {
+                    stats.getExecutions(),
+                    String.format("%.1f", stats.getP50Micros() / 1000.0),
+                    String.format("%.1f", stats.getP95Micros() / 1000.0),
+                    String.format("%.1f", stats.getP99Micros() / 1000.0),
+                    String.format("%.1f", stats.getLatency().getMaxMicros() / 1000.0),
+                    stats.getErrors(),
+                    stats.getFirstCaller(),
+                    stats.getFingerprint()
+            });
+        }
+    }
+
+    private void refreshSlowLogTable() {
+        List<SlowQueryEntry> entries = db.getQueryMonitor().getSlowQueryLog().getEntries();
+
+        slowModel.setRowCount(0);
+        for (int i = entries.size() - 1; i >= 0; i--) { // Newest first
+            SlowQueryEntry entry = entries.get(i);
+            slowModel.addRow(new Object[] {
+                    TIME_FORMAT.format(entry.getTimestamp()),
+                    String.format("%.1f", entry.getDurationMicros() / 1000.0),
+                    entry.getRows() >= 0 ? entry.getRows() : "-",
+                    entry.getCaller(),
+                    entry.getError() != null ? entry.getError() : "",
+                    entry.getSql()
+            });
+        }
+    }
+
+    private void refreshLockoutsTable() {
+        List<LoginThrottle.Lockout> lockouts = LoginThrottle.getInstance().getLockouts();
+        LoginThrottle.Lockout selected = selectedLockout();
+
+        lockoutsShown = lockouts;
+        lockoutsModel.setRowCount(0);
+        for (LoginThrottle.Lockout lockout : lockouts) {
+            lockoutsModel.addRow(new Object[] {
+                    lockout.getType() == LoginThrottle.Lockout.Type.USER ? "Username" : "Address",
+                    lockout.getKey(),
+                    TIME_FORMAT.format(Instant.ofEpochMilli(lockout.getLockedAt())),
+                    TIME_FORMAT.format(Instant.ofEpochMilli(lockout.getLockedUntil())),
+                    lockout.getFailures(),
+                    lockout.getRejected()
+            });
+        }
+
+        // Keep the selection across refreshes
+        int row = lockouts.indexOf(selected);
+        if (row >= 0) {
+            lockoutsTable.setRowSelectionInterval(row, row);
+        }
+    }
+
+    private LoginThrottle.Lockout selectedLockout() {
+        int row = lockoutsTable.getSelectedRow();
+        return row >= 0 && row < lockoutsShown.size() ? lockoutsShown.get(row) : null;
+    }
+
+    private void unlockSelected() {
+        LoginThrottle.Lockout lockout = selectedLockout();
+        if (lockout == null) {
+            JOptionPane.showMessageDialog(this, "Please select a lockout to lift!", "No Selection",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "Allow logins for " + lockout + " again before the lockout ends?",
+                "Confirm Unlock", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        if (!LoginThrottle.getInstance().unlock(lockout, admin.getUserId())) {
+            JOptionPane.showMessageDialog(this, "The lockout has already ended.", "Unlock",
+                    JOptionPane.INFORMATION_MESSAGE);
+        }
+        refreshLockoutsTable();
+    }
+}
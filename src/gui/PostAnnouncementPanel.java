@@ -1,13 +1,14 @@
 package gui;
 
 import database.MySQLDatabase;
+import models.Course;
 import models.Lecturer;
 import services.AnnouncementService;
+import services.CourseService;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 
@@ -17,6 +18,7 @@ import java.time.LocalDateTime;
 public class PostAnnouncementPanel extends JPanel {
     private final MySQLDatabase db;
     private final AnnouncementService announcementService;
+    private final CourseService courseService;
     private final Lecturer lecturer;
 
     private JTextField titleField;
@@ -31,6 +33,7 @@ public class PostAnnouncementPanel extends JPanel {
         this.db = db;
         this.lecturer = lecturer;
         this.announcementService = new AnnouncementService(db);
+        this.courseService = new CourseService();
 
         setLayout(new BorderLayout());
         setBorder(new EmptyBorder(30, 40, 30, 40));
@@ -233,30 +236,18 @@ public class PostAnnouncementPanel extends JPanel {
     }
 
     private void loadLecturerCourses() {
-        if (!db.isConnected()) {
-            db.connect();
-        }
+        courseCombo.removeAllItems();
+        courseCombo.addItem(new CourseItem(null, "-- Select Course --"));
 
         try {
-            String sql = "SELECT c.course_id, c.course_code, c.course_name " +
-                    "FROM courses c " +
-                    "WHERE c.lecturer_id = ?";
-
-            Object[] params = { lecturer.getLecturerId() };
-            ResultSet rs = db.executePreparedSelect(sql, params);
-
-            courseCombo.removeAllItems();
-            courseCombo.addItem(new CourseItem(null, "-- Select Course --"));
-
-            if (rs != null) {
-                while (rs.next()) {
-                    int courseId = rs.getInt("course_id");
-                    String courseCode = rs.getString("course_code");
-                    String courseName = rs.getString("course_name");
-                    courseCombo.addItem(new CourseItem(courseId, courseCode + " - " + courseName));
+            // Every course of the lecturer's, including inactive ones, from the cached catalog
+            for (Course course : courseService.getCatalog()) {
+                if (course.getLecturerId() == lecturer.getLecturerId()) {
+                    courseCombo.addItem(new CourseItem(course.getCourseId(),
+                            course.getCourseCode() + " - " + course.getCourseName()));
                 }
-                rs.close();
             }
+
         } catch (Exception e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
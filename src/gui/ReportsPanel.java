@@ -11,6 +11,7 @@ import java.awt.*;
 import java.sql.ResultSet;
 import java.text.NumberFormat;
 import java.util.Locale;
+import java.util.stream.Stream;
 
 /**
  * Reports panel for administrative reporting and analytics
@@ -772,10 +773,9 @@ public class ReportsPanel extends JPanel {
                     "JOIN persons p ON s.person_id = p.person_id " +
                     "ORDER BY s.program, s.year_of_study, s.registration_number";
 
-            ResultSet rs = db.executePreparedSelect(sql, new Object[] {});
-            if (rs != null) {
-                while (rs.next()) {
-                    writer.printf("%s,%s,%s,%d,%d,%.2f,%.2f,%s%n",
+            // Stream rows straight into the file instead of buffering the table
+            try (Stream<String> lines = db.stream(sql, new Object[] {},
+                    rs -> String.format("%s,%s,%s,%d,%d,%.2f,%.2f,%s",
                             rs.getString("registration_number"),
                             rs.getString("name"),
                             rs.getString("program"),
@@ -783,9 +783,8 @@ public class ReportsPanel extends JPanel {
                             rs.getInt("semester"),
                             rs.getDouble("gpa"),
                             rs.getDouble("fee_balance"),
-                            rs.getString("status"));
-                }
-                rs.close();
+                            rs.getString("status")))) {
+                lines.forEach(writer::println);
             }
 
             writer.close();
@@ -839,10 +838,9 @@ public class ReportsPanel extends JPanel {
                     "LEFT JOIN persons admin_per ON a.person_id = admin_per.person_id " +
                     "ORDER BY p.payment_date DESC";
 
-            ResultSet rs = db.executePreparedSelect(sql, new Object[] {});
-            if (rs != null) {
-                while (rs.next()) {
-                    writer.printf("%d,%s,%s,%s,%.2f,%s,%s,%s,%s,%d,%s%n",
+            // Stream rows straight into the file instead of buffering the table
+            try (Stream<String> lines = db.stream(sql, new Object[] {},
+                    rs -> String.format("%d,%s,%s,%s,%.2f,%s,%s,%s,%s,%d,%s",
                             rs.getInt("payment_id"),
                             rs.getTimestamp("payment_date"),
                             rs.getString("registration_number"),
@@ -853,9 +851,8 @@ public class ReportsPanel extends JPanel {
                             rs.getString("purpose"),
                             rs.getString("academic_year"),
                             rs.getInt("semester"),
-                            rs.getString("processed_by") != null ? rs.getString("processed_by") : "N/A");
-                }
-                rs.close();
+                            rs.getString("processed_by") != null ? rs.getString("processed_by") : "N/A"))) {
+                lines.forEach(writer::println);
             }
 
             // Add summary section
@@ -871,7 +868,7 @@ public class ReportsPanel extends JPanel {
                     "WHERE s.fee_balance > 0 " +
                     "ORDER BY s.fee_balance DESC";
 
-            rs = db.executePreparedSelect(sql, new Object[] {});
+            ResultSet rs = db.executePreparedSelect(sql, new Object[] {});
             if (rs != null) {
                 while (rs.next()) {
                     writer.printf("%s,%s,%s,%.2f,%s%n",
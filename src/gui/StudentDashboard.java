@@ -4,7 +4,6 @@ import database.MySQLDatabase;
 import models.Student;
 import services.CourseService;
 import services.GradeService;
-import utils.SessionManager;
 
 import javax.swing.*;
 import java.awt.*;
@@ -15,6 +14,7 @@ import java.awt.*;
  */
 public class StudentDashboard extends JFrame {
     private Student student;
+    private String sessionToken;
     private JPanel contentPanel;
     private JLabel welcomeLabel;
     private CourseService courseService;
@@ -22,8 +22,9 @@ public class StudentDashboard extends JFrame {
     private MySQLDatabase db;
     private JButton activeButton; // Track currently active menu button
 
-    public StudentDashboard(Student student) {
+    public StudentDashboard(Student student, String sessionToken) {
         this.student = student;
+        this.sessionToken = sessionToken;
         this.db = MySQLDatabase.getInstance();
         this.courseService = new CourseService();
         this.gradeService = new GradeService();
@@ -394,7 +395,7 @@ public class StudentDashboard extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            SessionManager.getInstance().logout();
+            LoginForm.endSession(sessionToken);
             dispose();
             new LoginForm().setVisible(true);
         }
@@ -132,7 +132,13 @@ public class StudentGradesPanel extends JPanel {
     private void loadGrades() {
         tableModel.setRowCount(0);
 
-        List<Grade> grades = gradeService.getStudentGrades(student.getStudentId());
+        // Query off the event dispatch thread, fill the table back on it
+        gradeService.getStudentGradesAsync(student.getStudentId())
+                .thenAccept(grades -> SwingUtilities.invokeLater(() -> showGrades(grades)));
+    }
+
+    private void showGrades(List<Grade> grades) {
+        tableModel.setRowCount(0);
 
         for (Grade grade : grades) {
             tableModel.addRow(new Object[] {
@@ -1,30 +1,67 @@
 package gui;
 
+import database.AsyncDatabase;
 import database.MySQLDatabase;
+import database.Page;
+import models.SystemLog;
+import services.ExportProgress;
+import services.LogExporter;
+import services.LogFacets;
+import services.LogSearchQuery;
+import services.LogStatistics;
+import services.LogService;
+import services.MaintenanceScheduler;
+import services.PurgeProgress;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
 import java.awt.*;
-import java.sql.ResultSet;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * System Logs Panel - View and filter system activity logs
+ *
+ * Filtering and paging happen in SQL, with text searches answered from
+ * the log search index. The table holds a bounded window of rows that is
+ * extended at either end as the user scrolls.
  */
 public class SystemLogsPanel extends JPanel {
     private MySQLDatabase db;
     private JTable logsTable;
-    private DefaultTableModel tableModel;
+    private LogTableModel tableModel;
+    private JScrollPane tableScrollPane;
+    private LogService logService;
     private JComboBox<String> filterComboBox;
+    private JComboBox<String> roleComboBox;
+    private JComboBox<String> periodComboBox;
     private JTextField searchField;
     private JLabel totalLogsLabel;
     private JLabel filteredLogsLabel;
-    private TableRowSorter<DefaultTableModel> sorter;
+    private JLabel facetsLabel;
+    private Timer searchDebounce;
+    private boolean loading;
+    private JLabel purgeStatusLabel;
+    private JButton cancelPurgeButton;
+    private MaintenanceScheduler.PurgeJob purgeJob; // Purge started by Clear Old, stopped by cancelPurgeButton
+    private JButton exportButton;
+    private JProgressBar exportProgressBar;
+    private JButton cancelExportButton;
+    private int loadGeneration; // Bumped by each reload so stale pages are ignored
+
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_LOADED_ROWS = 1000; // Window kept in memory while scrolling
+    private static final int SCROLL_PREFETCH_ROWS = 50; // Load more when this close to either end
+    private static final int SEARCH_DEBOUNCE_MS = 300;
+    private static final int FACET_SUMMARY_ITEMS = 3; // Top actions and roles listed under the table
 
     public SystemLogsPanel(MySQLDatabase db) {
         this.db = db;
+        this.logService = new LogService();
         setLayout(new BorderLayout());
         setBackground(Color.WHITE);
         setBorder(BorderFactory.createEmptyBorder(30, 40, 30, 40));
@@ -47,8 +84,8 @@ public class SystemLogsPanel extends JPanel {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         buttonPanel.setOpaque(false);
 
-        JButton exportBtn = createMinimalButton("Export CSV", new Color(70, 130, 180));
-        exportBtn.addActionListener(e -> exportLogs());
+        exportButton = createMinimalButton("Export CSV", new Color(70, 130, 180));
+        exportButton.addActionListener(e -> exportLogs());
 
         JButton statsBtn = createMinimalButton("Statistics", new Color(100, 100, 110));
         statsBtn.addActionListener(e -> showStatistics());
@@ -60,7 +97,7 @@ public class SystemLogsPanel extends JPanel {
         refreshBtn.addActionListener(e -> loadLogs());
 
         buttonPanel.add(statsBtn);
-        buttonPanel.add(exportBtn);
+        buttonPanel.add(exportButton);
         buttonPanel.add(clearBtn);
         buttonPanel.add(refreshBtn);
 
@@ -84,7 +121,18 @@ public class SystemLogsPanel extends JPanel {
         filterComboBox = new JComboBox<>(filterOptions);
         filterComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         filterComboBox.setPreferredSize(new Dimension(150, 35));
-        filterComboBox.addActionListener(e -> applyFilter());
+        filterComboBox.addActionListener(e -> loadLogs());
+
+        roleComboBox = new JComboBox<>(new String[] { "All Roles", "ADMIN", "LECTURER", "STUDENT", "SYSTEM" });
+        roleComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        roleComboBox.setPreferredSize(new Dimension(120, 35));
+        roleComboBox.addActionListener(e -> loadLogs());
+
+        periodComboBox = new JComboBox<>(new String[] { "Any Time", "Today", "Last 7 Days", "Last 30 Days",
+                "Last 90 Days" });
+        periodComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        periodComboBox.setPreferredSize(new Dimension(130, 35));
+        periodComboBox.addActionListener(e -> loadLogs());
 
         JLabel searchLabel = new JLabel("Search:");
         searchLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
@@ -95,17 +143,22 @@ public class SystemLogsPanel extends JPanel {
         searchField.setBorder(BorderFactory.createCompoundBorder(
                 BorderFactory.createLineBorder(new Color(220, 220, 225), 1),
                 BorderFactory.createEmptyBorder(8, 12, 8, 12)));
+        searchField.setToolTipText("<html>Words must all appear: <b>payment mobile</b><br>"
+                + "Word starting with: <b>regist*</b><br>Exact phrase: <b>\"grade submitted\"</b></html>");
+        // Query once typing pauses rather than on every keystroke
+        searchDebounce = new Timer(SEARCH_DEBOUNCE_MS, e -> loadLogs());
+        searchDebounce.setRepeats(false);
         searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
             public void changedUpdate(javax.swing.event.DocumentEvent e) {
-                applyFilter();
+                searchDebounce.restart();
             }
 
             public void removeUpdate(javax.swing.event.DocumentEvent e) {
-                applyFilter();
+                searchDebounce.restart();
             }
 
             public void insertUpdate(javax.swing.event.DocumentEvent e) {
-                applyFilter();
+                searchDebounce.restart();
             }
         });
 
@@ -114,6 +167,8 @@ public class SystemLogsPanel extends JPanel {
 
         filterPanel.add(filterLabel);
         filterPanel.add(filterComboBox);
+        filterPanel.add(roleComboBox);
+        filterPanel.add(periodComboBox);
         filterPanel.add(Box.createHorizontalStrut(15));
         filterPanel.add(searchLabel);
         filterPanel.add(searchField);
@@ -144,6 +199,43 @@ public class SystemLogsPanel extends JPanel {
         filteredLogsLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
         filteredLogsLabel.setForeground(new Color(70, 130, 180));
 
+        // Action and role breakdown of the current search
+        facetsLabel = new JLabel();
+        facetsLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        facetsLabel.setForeground(new Color(100, 100, 110));
+
+        // Progress of a background purge started by Clear Old
+        purgeStatusLabel = new JLabel();
+        purgeStatusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        purgeStatusLabel.setForeground(new Color(220, 80, 80));
+        purgeStatusLabel.setVisible(false);
+
+        cancelPurgeButton = createMinimalButton("Stop Purge", new Color(220, 80, 80));
+        cancelPurgeButton.addActionListener(e -> {
+            if (purgeJob != null) {
+                purgeJob.cancel();
+            }
+        });
+        cancelPurgeButton.setVisible(false);
+
+        // Progress of a background export
+        exportProgressBar = new JProgressBar();
+        exportProgressBar.setStringPainted(true);
+        exportProgressBar.setPreferredSize(new Dimension(220, 22));
+        exportProgressBar.setVisible(false);
+
+        cancelExportButton = createMinimalButton("Stop Export", new Color(180, 180, 185));
+        cancelExportButton.addActionListener(e -> {
+            cancelExportButton.setEnabled(false);
+            LogExporter.getInstance().cancel();
+        });
+        cancelExportButton.setVisible(false);
+
+        statsPanel.add(exportProgressBar);
+        statsPanel.add(cancelExportButton);
+        statsPanel.add(purgeStatusLabel);
+        statsPanel.add(cancelPurgeButton);
+        statsPanel.add(facetsLabel);
         statsPanel.add(totalLogsLabel);
         statsPanel.add(filteredLogsLabel);
 
@@ -177,13 +269,7 @@ public class SystemLogsPanel extends JPanel {
         JPanel tablePanel = new JPanel(new BorderLayout());
         tablePanel.setOpaque(false);
 
-        String[] columns = { "Log ID", "Timestamp", "User", "Role", "Action", "Details", "IP Address" };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new LogTableModel(MAX_LOADED_ROWS);
 
         logsTable = new JTable(tableModel);
         logsTable.setFont(new Font("Segoe UI", Font.PLAIN, 13));
@@ -211,10 +297,6 @@ public class SystemLogsPanel extends JPanel {
         logsTable.getColumnModel().getColumn(5).setPreferredWidth(300); // Details
         logsTable.getColumnModel().getColumn(6).setPreferredWidth(120); // IP Address
 
-        // Add row sorter
-        sorter = new TableRowSorter<>(tableModel);
-        logsTable.setRowSorter(sorter);
-
         // Add double-click listener for details
         logsTable.addMouseListener(new java.awt.event.MouseAdapter() {
             public void mouseClicked(java.awt.event.MouseEvent evt) {
@@ -227,10 +309,11 @@ public class SystemLogsPanel extends JPanel {
             }
         });
 
-        JScrollPane scrollPane = new JScrollPane(logsTable);
-        scrollPane.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 235), 1));
-        scrollPane.getViewport().setBackground(Color.WHITE);
-        tablePanel.add(scrollPane, BorderLayout.CENTER);
+        tableScrollPane = new JScrollPane(logsTable);
+        tableScrollPane.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 235), 1));
+        tableScrollPane.getViewport().setBackground(Color.WHITE);
+        tableScrollPane.getVerticalScrollBar().addAdjustmentListener(e -> loadNearViewport());
+        tablePanel.add(tableScrollPane, BorderLayout.CENTER);
 
         return tablePanel;
     }
@@ -239,107 +322,214 @@ public class SystemLogsPanel extends JPanel {
         return new JPanel(); // Deprecated - actions now in top buttons
     }
 
+    /**
+     * Start again from the newest entry matching the current filters
+     */
     private void loadLogs() {
-        try {
-            if (!db.isConnected()) {
-                db.connect();
-            }
-
-            tableModel.setRowCount(0);
-
-            String sql = "SELECT l.log_id, l.timestamp, " +
-                    "CONCAT(p.first_name, ' ', p.last_name) as user_name, " +
-                    "u.role, l.action, l.details, l.ip_address " +
-                    "FROM system_logs l " +
-                    "LEFT JOIN users u ON l.user_id = u.user_id " +
-                    "LEFT JOIN persons p ON u.user_id = p.user_id " +
-                    "ORDER BY l.timestamp DESC";
-
-            ResultSet rs = db.executePreparedSelect(sql, new Object[] {});
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            int count = 0;
-
-            if (rs != null) {
-                while (rs.next()) {
-                    Object[] row = {
-                            rs.getInt("log_id"),
-                            dateFormat.format(rs.getTimestamp("timestamp")),
-                            rs.getString("user_name") != null ? rs.getString("user_name") : "System",
-                            rs.getString("role") != null ? rs.getString("role") : "SYSTEM",
-                            rs.getString("action"),
-                            rs.getString("details"),
-                            rs.getString("ip_address") != null ? rs.getString("ip_address") : "N/A"
-                    };
-                    tableModel.addRow(row);
-                    count++;
-                }
-                rs.close();
-            }
-
-            totalLogsLabel.setText("Total Logs: " + count);
-            filteredLogsLabel.setText("Filtered: " + count);
+        searchDebounce.stop();
+        loadGeneration++;
+        loading = false;
+        tableModel.clear();
+        loadPage(null, true);
+        loadFacets();
+    }
 
-            // Notify table that data has changed
-            tableModel.fireTableDataChanged();
+    /**
+     * Fetch more rows when the viewport gets close to either end of the window
+     */
+    private void loadNearViewport() {
+        if (loading || tableModel.getRowCount() == 0) {
+            return;
+        }
+        Rectangle visible = logsTable.getVisibleRect();
+        int firstVisible = logsTable.rowAtPoint(new Point(0, visible.y));
+        int lastVisible = logsTable.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+        if (lastVisible < 0) {
+            lastVisible = tableModel.getRowCount() - 1;
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error loading logs: " + e.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
+        if (tableModel.hasMoreBelow() && lastVisible >= tableModel.getRowCount() - SCROLL_PREFETCH_ROWS) {
+            loadPage(tableModel.getBottomKey(), true);
+        } else if (tableModel.hasMoreAbove() && firstVisible >= 0 && firstVisible < SCROLL_PREFETCH_ROWS) {
+            loadPage(tableModel.getTopKey(), false);
         }
     }
 
-    private void applyFilter() {
-        RowFilter<DefaultTableModel, Object> filter = new RowFilter<DefaultTableModel, Object>() {
-            public boolean include(Entry<? extends DefaultTableModel, ? extends Object> entry) {
-                // Filter by action type
-                String selectedAction = (String) filterComboBox.getSelectedItem();
-                String action = entry.getStringValue(4); // Action column
-                if (!selectedAction.equals("All Actions") && !action.contains(selectedAction)) {
-                    return false;
-                }
+    /**
+     * Fetch one page off the EDT and add it to the window
+     *
+     * @param afterKey Key to continue from, or null for the newest entries
+     * @param older    true to extend the window downwards (older entries), false upwards
+     */
+    private void loadPage(Object[] afterKey, boolean older) {
+        int generation = loadGeneration;
+        LogSearchQuery search = getSearchQuery();
+        loading = true;
+
+        AsyncDatabase.getInstance().supplyAsync(
+                () -> logService.getLogsPage(search, afterKey, older, PAGE_SIZE))
+                .whenComplete((page, error) -> SwingUtilities.invokeLater(() -> {
+                    if (generation != loadGeneration) {
+                        return; // Filters changed since this page was requested
+                    }
+                    loading = false;
+                    if (error != null) {
+                        error.printStackTrace();
+                        JOptionPane.showMessageDialog(this,
+                                "Error loading logs: " + error.getMessage(),
+                                "Error",
+                                JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    addPage(page, older);
+                    updateLabels();
+                    loadNearViewport(); // The new rows may still not fill the viewport
+                }));
+    }
 
-                // Filter by search text
-                String searchText = searchField.getText().toLowerCase();
-                if (!searchText.isEmpty()) {
-                    boolean found = false;
-                    for (int i = 0; i < entry.getValueCount(); i++) {
-                        if (entry.getStringValue(i).toLowerCase().contains(searchText)) {
-                            found = true;
-                            break;
-                        }
+    /**
+     * Count the newest matches per action and role off the EDT
+     */
+    private void loadFacets() {
+        int generation = loadGeneration;
+        LogSearchQuery search = getSearchQuery();
+        facetsLabel.setText(" ");
+
+        AsyncDatabase.getInstance().supplyAsync(() -> logService.getFacets(search))
+                .whenComplete((facets, error) -> SwingUtilities.invokeLater(() -> {
+                    if (generation != loadGeneration) {
+                        return;
                     }
-                    if (!found) {
-                        return false;
+                    if (error != null) {
+                        System.err.println("Error loading log facets: " + error.getMessage());
+                        return;
                     }
-                }
+                    showFacets(facets);
+                }));
+    }
+
+    private void showFacets(LogFacets facets) {
+        if (facets.getTotal() == 0) {
+            facetsLabel.setText("No matches");
+            return;
+        }
+        String newest = facets.isSampled() ? "Newest " + facets.getTotal() + ": " : "";
+        facetsLabel.setText(newest + summarize(facets.getActionCounts()) + "  |  "
+                + summarize(facets.getRoleCounts()));
+
+        StringBuilder tooltip = new StringBuilder("<html>");
+        for (Map.Entry<LocalDate, Long> day : facets.getDayCounts().entrySet()) {
+            tooltip.append(day.getKey()).append(": ").append(day.getValue()).append("<br>");
+        }
+        facetsLabel.setToolTipText(tooltip.append("</html>").toString());
+    }
 
-                return true;
+    private static String summarize(Map<String, Long> counts) {
+        StringBuilder text = new StringBuilder();
+        int shown = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (shown++ == FACET_SUMMARY_ITEMS) {
+                text.append(", ...");
+                break;
             }
-        };
+            text.append(shown > 1 ? ", " : "").append(entry.getKey()).append(" ").append(entry.getValue());
+        }
+        return text.toString();
+    }
+
+    private void addPage(Page<SystemLog> page, boolean older) {
+        int rowHeight = logsTable.getRowHeight();
+        JViewport viewport = tableScrollPane.getViewport();
+        Point position = viewport.getViewPosition();
+
+        if (older) {
+            int removed = tableModel.appendBelow(page.getItems(), page.hasMore());
+            // Keep the rows the user is looking at in place when the top is trimmed
+            position.y = Math.max(0, position.y - removed * rowHeight);
+        } else {
+            List<SystemLog> newer = new ArrayList<>(page.getItems());
+            Collections.reverse(newer); // Fetched oldest first
+            tableModel.prependAbove(newer, page.hasMore());
+            position.y += newer.size() * rowHeight;
+        }
+        logsTable.revalidate();
+        viewport.setViewPosition(position);
+    }
+
+    private void updateLabels() {
+        totalLogsLabel.setText("Showing: " + tableModel.getRowCount()
+                + (tableModel.hasMoreAbove() || tableModel.hasMoreBelow() ? " (scroll for more)" : ""));
+
+        List<String> filters = new ArrayList<>();
+        if (getActionFilter() != null) {
+            filters.add(getActionFilter());
+        }
+        if (roleComboBox.getSelectedIndex() > 0) {
+            filters.add((String) roleComboBox.getSelectedItem());
+        }
+        if (periodComboBox.getSelectedIndex() > 0) {
+            filters.add((String) periodComboBox.getSelectedItem());
+        }
+        String search = searchField.getText().trim();
+        if (!search.isEmpty()) {
+            filters.add("\"" + search + "\"");
+        }
+        filteredLogsLabel.setText("Filtered: " + (filters.isEmpty() ? "none" : String.join(" + ", filters)));
+    }
 
-        sorter.setRowFilter(filter);
-        filteredLogsLabel.setText("Filtered: " + logsTable.getRowCount());
+    /**
+     * Selected action, or null for all
+     */
+    private String getActionFilter() {
+        String selected = (String) filterComboBox.getSelectedItem();
+        return selected == null || selected.equals("All Actions") ? null : selected;
+    }
+
+    /**
+     * The search box text and filter selections as one query
+     */
+    private LogSearchQuery getSearchQuery() {
+        LogSearchQuery query = LogSearchQuery.parse(searchField.getText());
+        query.setActionFilter(getActionFilter());
+        if (roleComboBox.getSelectedIndex() > 0) {
+            query.setRole((String) roleComboBox.getSelectedItem());
+        }
+        LocalDate today = LocalDate.now();
+        switch (periodComboBox.getSelectedIndex()) {
+            case 1:
+                query.setFromDate(today);
+                break;
+            case 2:
+                query.setFromDate(today.minusDays(6));
+                break;
+            case 3:
+                query.setFromDate(today.minusDays(29));
+                break;
+            case 4:
+                query.setFromDate(today.minusDays(89));
+                break;
+        }
+        return query;
     }
 
     private void clearFilters() {
         filterComboBox.setSelectedIndex(0);
+        roleComboBox.setSelectedIndex(0);
+        periodComboBox.setSelectedIndex(0);
         searchField.setText("");
-        applyFilter();
+        loadLogs();
     }
 
     private void showLogDetails(int row) {
-        int modelRow = logsTable.convertRowIndexToModel(row);
+        SystemLog log = tableModel.getLog(row);
 
-        String logId = tableModel.getValueAt(modelRow, 0).toString();
-        String timestamp = tableModel.getValueAt(modelRow, 1).toString();
-        String user = tableModel.getValueAt(modelRow, 2).toString();
-        String role = tableModel.getValueAt(modelRow, 3).toString();
-        String action = tableModel.getValueAt(modelRow, 4).toString();
-        String details = tableModel.getValueAt(modelRow, 5).toString();
-        String ipAddress = tableModel.getValueAt(modelRow, 6).toString();
+        String logId = String.valueOf(log.getLogId());
+        String timestamp = tableModel.getValueAt(row, 1).toString();
+        String user = log.getUserName();
+        String role = log.getRole();
+        String action = log.getAction();
+        String details = log.getDetails() != null ? log.getDetails() : "";
+        String ipAddress = log.getIpAddress();
 
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Log Details", true);
         dialog.setSize(600, 400);
@@ -414,45 +604,66 @@ public class SystemLogsPanel extends JPanel {
     }
 
     private void exportLogs() {
-        try {
-            // Create reports directory if it doesn't exist
-            java.io.File reportsDir = new java.io.File("reports");
-            if (!reportsDir.exists()) {
-                reportsDir.mkdirs();
-            }
-
-            String filename = "reports/system_logs_" + System.currentTimeMillis() + ".csv";
-            java.io.PrintWriter writer = new java.io.PrintWriter(filename);
+        String[] options = { "CSV", "CSV (gzip)", "Cancel" };
+        int choice = JOptionPane.showOptionDialog(this,
+                "Export every log entry matching the current filters as:",
+                "Export Logs",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                options,
+                options[0]);
+        if (choice != 0 && choice != 1) {
+            return;
+        }
 
-            // Write header
-            writer.println("SYSTEM LOGS REPORT - Generated: " + new Date());
-            writer.println();
-            writer.println("Log ID,Timestamp,User,Role,Action,Details,IP Address");
+        // Streams from the database in the background; the panel stays usable meanwhile
+        Path file = Paths.get("reports", "system_logs_" + System.currentTimeMillis() + ".csv");
+        exportButton.setEnabled(false);
+        exportProgressBar.setIndeterminate(true);
+        exportProgressBar.setString("Exporting...");
+        exportProgressBar.setVisible(true);
+        cancelExportButton.setEnabled(true);
+        cancelExportButton.setVisible(true);
+        LogExporter.getInstance().export(getSearchQuery(), file, choice == 1,
+                progress -> SwingUtilities.invokeLater(() -> showExportProgress(progress)));
+    }
 
-            // Write data (visible rows only - respects filters)
-            for (int i = 0; i < logsTable.getRowCount(); i++) {
-                for (int j = 0; j < logsTable.getColumnCount(); j++) {
-                    writer.print("\"" + logsTable.getValueAt(i, j).toString().replace("\"", "\"\"") + "\"");
-                    if (j < logsTable.getColumnCount() - 1) {
-                        writer.print(",");
-                    }
-                }
-                writer.println();
+    private void showExportProgress(ExportProgress progress) {
+        if (!progress.isFinished()) {
+            int percent = progress.getPercent();
+            exportProgressBar.setIndeterminate(percent < 0);
+            if (percent >= 0) {
+                exportProgressBar.setValue(percent);
             }
+            exportProgressBar.setString("Exported " + progress.getRowsWritten()
+                    + (progress.getEstimatedRows() >= 0 ? " of ~" + progress.getEstimatedRows() : "") + " rows");
+            return;
+        }
 
-            writer.close();
-
-            JOptionPane.showMessageDialog(this,
-                    "System logs exported successfully!\n\nLocation: " + filename,
-                    "Export Successful",
-                    JOptionPane.INFORMATION_MESSAGE);
+        exportButton.setEnabled(true);
+        exportProgressBar.setVisible(false);
+        cancelExportButton.setVisible(false);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error exporting logs: " + e.getMessage(),
-                    "Export Failed",
-                    JOptionPane.ERROR_MESSAGE);
+        switch (progress.getState()) {
+            case COMPLETED:
+                JOptionPane.showMessageDialog(this,
+                        "System logs exported successfully!\n\n" + progress.getRowsWritten() + " entries\n"
+                                + "Location: " + progress.getFileName(),
+                        "Export Successful",
+                        JOptionPane.INFORMATION_MESSAGE);
+                break;
+            case CANCELLED:
+                JOptionPane.showMessageDialog(this,
+                        "Export stopped; no file was written.",
+                        "Info",
+                        JOptionPane.INFORMATION_MESSAGE);
+                break;
+            default:
+                JOptionPane.showMessageDialog(this,
+                        "Error exporting logs: " + progress.getMessage(),
+                        "Export Failed",
+                        JOptionPane.ERROR_MESSAGE);
         }
     }
 
@@ -494,28 +705,38 @@ public class SystemLogsPanel extends JPanel {
                 JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                // Ensure database connection
-                if (!db.isConnected()) {
-                    db.connect();
-                }
-
-                String sql = "DELETE FROM system_logs WHERE timestamp < DATE_SUB(NOW(), INTERVAL ? DAY)";
-                boolean deleted = db.executePreparedQuery(sql, new Object[] { days });
+            // Runs in the background: whole months are dropped as partitions and the rest
+            // is deleted in small throttled chunks, so the table stays usable meanwhile
+            purgeStatusLabel.setText("Waiting to purge logs older than " + days + " days...");
+            purgeStatusLabel.setVisible(true);
+            cancelPurgeButton.setVisible(true);
+            purgeJob = MaintenanceScheduler.getInstance().purgeLogs(days,
+                    progress -> SwingUtilities.invokeLater(() -> showPurgeProgress(progress)));
+        }
+    }
 
-                // Reload logs to reflect changes
-                loadLogs();
+    private void showPurgeProgress(PurgeProgress progress) {
+        if (!progress.isFinished()) {
+            String text = "Purging old logs: " + progress.getRowsDeleted() + " removed";
+            if (progress.getState() == PurgeProgress.State.THROTTLED) {
+                text += " (paused: " + progress.getMessage() + ")";
+            }
+            purgeStatusLabel.setText(text);
+            return;
+        }
 
-                // Reapply current filters if any
-                applyFilter();
+        purgeStatusLabel.setVisible(false);
+        cancelPurgeButton.setVisible(false);
 
-                // Force UI update
-                revalidate();
-                repaint();
+        // Reload logs to reflect changes (current filters still apply)
+        loadLogs();
 
-                if (deleted) {
+        switch (progress.getState()) {
+            case COMPLETED:
+                if (progress.getRowsDeleted() > 0) {
                     JOptionPane.showMessageDialog(this,
-                            "Old log entries deleted successfully!\n\nThe logs have been refreshed.",
+                            "About " + progress.getRowsDeleted() + " old log entries deleted successfully!\n\n"
+                                    + "The logs have been refreshed.",
                             "Success",
                             JOptionPane.INFORMATION_MESSAGE);
                 } else {
@@ -524,14 +745,18 @@ public class SystemLogsPanel extends JPanel {
                             "Info",
                             JOptionPane.INFORMATION_MESSAGE);
                 }
-
-            } catch (Exception e) {
-                e.printStackTrace();
+                break;
+            case CANCELLED:
+                JOptionPane.showMessageDialog(this,
+                        "Purge stopped after deleting " + progress.getRowsDeleted() + " log entries.",
+                        "Info",
+                        JOptionPane.INFORMATION_MESSAGE);
+                break;
+            default:
                 JOptionPane.showMessageDialog(this,
-                        "Error deleting logs: " + e.getMessage(),
+                        "Error deleting logs: " + progress.getMessage(),
                         "Error",
                         JOptionPane.ERROR_MESSAGE);
-            }
         }
     }
 
@@ -556,90 +781,36 @@ public class SystemLogsPanel extends JPanel {
             mainPanel.add(titleLabel);
             mainPanel.add(Box.createRigidArea(new Dimension(0, 20)));
 
-            // Get statistics
+            // Get statistics (from the rollup tables, not system_logs itself)
+            LogStatistics statistics = logService.getStatistics();
             String[][] stats = new String[10][2];
             int index = 0;
 
-            // Total logs
-            ResultSet rs = db.executePreparedSelect("SELECT COUNT(*) as count FROM system_logs", new Object[] {});
-            if (rs != null && rs.next()) {
-                stats[index++] = new String[] { "Total Log Entries", String.valueOf(rs.getInt("count")) };
-                rs.close();
-            }
-
-            // Logs today
-            rs = db.executePreparedSelect(
-                    "SELECT COUNT(*) as count FROM system_logs WHERE DATE(timestamp) = CURDATE()", new Object[] {});
-            if (rs != null && rs.next()) {
-                stats[index++] = new String[] { "Logs Today", String.valueOf(rs.getInt("count")) };
-                rs.close();
-            }
-
-            // Logs this week
-            rs = db.executePreparedSelect(
-                    "SELECT COUNT(*) as count FROM system_logs WHERE timestamp >= DATE_SUB(NOW(), INTERVAL 7 DAY)",
-                    new Object[] {});
-            if (rs != null && rs.next()) {
-                stats[index++] = new String[] { "Logs This Week", String.valueOf(rs.getInt("count")) };
-                rs.close();
-            }
+            stats[index++] = new String[] { "Total Log Entries", String.valueOf(statistics.getTotalEntries()) };
+            stats[index++] = new String[] { "Logs Today", String.valueOf(statistics.getEntriesToday()) };
+            stats[index++] = new String[] { "Logs This Week", String.valueOf(statistics.getEntriesThisWeek()) };
 
-            // Most active user
-            rs = db.executePreparedSelect(
-                    "SELECT CONCAT(p.first_name, ' ', p.last_name) as name, COUNT(*) as count " +
-                            "FROM system_logs l " +
-                            "JOIN users u ON l.user_id = u.user_id " +
-                            "JOIN persons p ON u.user_id = p.user_id " +
-                            "GROUP BY l.user_id ORDER BY count DESC LIMIT 1",
-                    new Object[] {});
-            if (rs != null && rs.next()) {
+            if (statistics.getMostActiveUser() != null) {
                 stats[index++] = new String[] { "Most Active User",
-                        rs.getString("name") + " (" + rs.getInt("count") + " actions)" };
-                rs.close();
+                        statistics.getMostActiveUser() + " (" + statistics.getMostActiveUserEntries() + " actions)" };
             }
 
-            // Most common action
-            rs = db.executePreparedSelect(
-                    "SELECT action, COUNT(*) as count FROM system_logs GROUP BY action ORDER BY count DESC LIMIT 1",
-                    new Object[] {});
-            if (rs != null && rs.next()) {
+            String topAction = statistics.getMostCommonAction();
+            if (topAction != null) {
                 stats[index++] = new String[] { "Most Common Action",
-                        rs.getString("action") + " (" + rs.getInt("count") + " times)" };
-                rs.close();
+                        topAction + " (" + statistics.getActionCount(topAction) + " times)" };
             }
 
-            // Login count today
-            rs = db.executePreparedSelect(
-                    "SELECT COUNT(*) as count FROM system_logs WHERE action = 'LOGIN' AND DATE(timestamp) = CURDATE()",
-                    new Object[] {});
-            if (rs != null && rs.next()) {
-                stats[index++] = new String[] { "Logins Today", String.valueOf(rs.getInt("count")) };
-                rs.close();
-            }
+            stats[index++] = new String[] { "Logins Today", String.valueOf(statistics.getLoginsToday()) };
+            stats[index++] = new String[] { "Failed Login Attempts", String.valueOf(statistics.getFailedLogins()) };
 
-            // Failed logins (if you track them)
-            rs = db.executePreparedSelect(
-                    "SELECT COUNT(*) as count FROM system_logs WHERE action LIKE '%FAILED%'", new Object[] {});
-            if (rs != null && rs.next()) {
-                stats[index++] = new String[] { "Failed Login Attempts", String.valueOf(rs.getInt("count")) };
-                rs.close();
-            }
-
-            // Actions by role
-            rs = db.executePreparedSelect(
-                    "SELECT u.role, COUNT(*) as count FROM system_logs l " +
-                            "JOIN users u ON l.user_id = u.user_id GROUP BY u.role",
-                    new Object[] {});
             StringBuilder roleStats = new StringBuilder();
-            if (rs != null) {
-                while (rs.next()) {
-                    if (roleStats.length() > 0)
-                        roleStats.append(", ");
-                    roleStats.append(rs.getString("role")).append(": ").append(rs.getInt("count"));
-                }
-                rs.close();
-                stats[index++] = new String[] { "Actions by Role", roleStats.toString() };
+            for (Map.Entry<String, Long> role : statistics.getRoleCounts().entrySet()) {
+                if (roleStats.length() > 0)
+                    roleStats.append(", ");
+                roleStats.append(role.getKey()).append(": ").append(role.getValue());
             }
+            stats[index++] = new String[] { "Actions by Role", roleStats.toString() };
 
             // Create stats display
             for (int i = 0; i < index; i++) {
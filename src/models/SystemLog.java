@@ -0,0 +1,104 @@
+package models;
+
+import java.sql.Timestamp;
+
+/**
+ * SystemLog model - Represents one entry of the system activity log
+ */
+public class SystemLog {
+    private int logId;
+    private Timestamp timestamp; // Kept as read from the database so it can be used as a paging key
+    private String userName;
+    private String role;
+    private String action;
+    private String details;
+    private String ipAddress;
+
+    // Constructors
+    public SystemLog() {
+    }
+
+    public SystemLog(int logId, Timestamp timestamp, String userName, String role, String action,
+            String details, String ipAddress) {
+        this.logId = logId;
+        this.timestamp = timestamp;
+        this.userName = userName;
+        this.role = role;
+        this.action = action;
+        this.details = details;
+        this.ipAddress = ipAddress;
+    }
+
+    // Getters and Setters
+    public int getLogId() {
+        return logId;
+    }
+
+    public void setLogId(int logId) {
+        this.logId = logId;
+    }
+
+    public Timestamp getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Timestamp timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public void setDetails(String details) {
+        this.details = details;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public void setIpAddress(String ipAddress) {
+        this.ipAddress = ipAddress;
+    }
+
+    /**
+     * Keyset paging key (timestamp, log_id) of this entry
+     */
+    public Object[] getSortKey() {
+        return new Object[] { timestamp, logId };
+    }
+
+    @Override
+    public String toString() {
+        return "SystemLog{" +
+                "logId=" + logId +
+                ", timestamp=" + timestamp +
+                ", action='" + action + '\'' +
+                '}';
+    }
+}
@@ -1,6 +1,8 @@
 package services;
 
 import database.MySQLDatabase;
+import database.Page;
+import database.RowMapper;
 import models.Announcement;
 
 import java.sql.*;
@@ -11,6 +13,11 @@ import java.util.List;
  * Service class for managing announcements
  */
 public class AnnouncementService {
+    /**
+     * Reusable mapper for announcement rows joined with poster and course names
+     */
+    public static final RowMapper<Announcement> ANNOUNCEMENT_MAPPER = AnnouncementService::mapResultSetToAnnouncement;
+
     private final MySQLDatabase db;
 
     public AnnouncementService(MySQLDatabase db) {
@@ -80,6 +87,24 @@ public class AnnouncementService {
         return executeAnnouncementQuery(sql, null);
     }
 
+    /**
+     * Gets one page of announcements for students, newest first
+     *
+     * @param afterKey getNextKey() of the previous page, or null for the first page
+     */
+    public Page<Announcement> getAnnouncementsForStudentsPage(Object[] afterKey, int limit) {
+        return fetchAudiencePage("STUDENTS", afterKey, limit);
+    }
+
+    /**
+     * Gets one page of announcements for lecturers, newest first
+     *
+     * @param afterKey getNextKey() of the previous page, or null for the first page
+     */
+    public Page<Announcement> getAnnouncementsForLecturersPage(Object[] afterKey, int limit) {
+        return fetchAudiencePage("LECTURERS", afterKey, limit);
+    }
+
     /**
      * Gets announcements for a specific course
      */
@@ -127,6 +152,18 @@ public class AnnouncementService {
         return executeAnnouncementQuery(sql, params);
     }
 
+    /**
+     * The user id that posted the announcement, or null if there is no such announcement
+     */
+    public Integer getPostedBy(int announcementId) throws SQLException {
+        if (!db.isConnected()) {
+            db.connect();
+        }
+
+        String sql = "SELECT posted_by FROM announcements WHERE announcement_id = ?";
+        return db.queryForObject(sql, new Object[] { announcementId }, rs -> rs.getInt("posted_by"));
+    }
+
     /**
      * Deactivates an announcement
      */
@@ -147,48 +184,69 @@ public class AnnouncementService {
         List<Announcement> announcements = new ArrayList<>();
 
         try {
-            ResultSet rs = params != null ? db.executePreparedSelect(sql, params)
-                    : db.executePreparedSelect(sql, new Object[] {});
-
-            if (rs != null) {
-                while (rs.next()) {
-                    Announcement announcement = new Announcement();
-                    announcement.setAnnouncementId(rs.getInt("announcement_id"));
-                    announcement.setTitle(rs.getString("title"));
-                    announcement.setContent(rs.getString("content"));
-                    announcement.setPostedBy(rs.getInt("posted_by"));
-                    announcement.setPostedByName(rs.getString("posted_by_name"));
-                    announcement.setTargetAudience(rs.getString("target_audience"));
-
-                    // Handle nullable courseId
-                    if (rs.getObject("course_id") != null) {
-                        announcement.setCourseId(rs.getInt("course_id"));
-                    }
-
-                    announcement.setCourseName(rs.getString("course_name"));
-
-                    // Convert Timestamp to LocalDateTime
-                    Timestamp postedAt = rs.getTimestamp("posted_at");
-                    if (postedAt != null) {
-                        announcement.setPostedAt(postedAt.toLocalDateTime());
-                    }
-
-                    // Handle nullable expiresAt
-                    Timestamp expiresAt = rs.getTimestamp("expires_at");
-                    if (expiresAt != null) {
-                        announcement.setExpiresAt(expiresAt.toLocalDateTime());
-                    }
-
-                    announcement.setActive(rs.getBoolean("is_active"));
-
-                    announcements.add(announcement);
-                }
-                rs.close();
-            }
+            announcements = db.query(sql, params != null ? params : new Object[] {}, ANNOUNCEMENT_MAPPER);
         } catch (Exception e) {
             e.printStackTrace();
         }
 
         return announcements;
     }
+
+    private Page<Announcement> fetchAudiencePage(String audience, Object[] afterKey, int limit) {
+        if (!db.isConnected()) {
+            db.connect();
+        }
+
+        String sql = "SELECT a.announcement_id, a.title, a.content, a.posted_by, " +
+                "CONCAT(p.first_name, ' ', p.last_name) as posted_by_name, " +
+                "a.target_audience, a.course_id, c.course_name, " +
+                "a.posted_at, a.expires_at, a.is_active " +
+                "FROM announcements a " +
+                "JOIN persons p ON a.posted_by = p.user_id " +
+                "LEFT JOIN courses c ON a.course_id = c.course_id " +
+                "WHERE a.is_active = TRUE " +
+                "AND (a.target_audience = 'ALL' OR a.target_audience = ?) " +
+                "AND (a.expires_at IS NULL OR a.expires_at > NOW())";
+
+        try {
+            return db.fetchPage(sql, new Object[] { audience }, "posted_at DESC, announcement_id DESC",
+                    afterKey, limit, ANNOUNCEMENT_MAPPER);
+        } catch (SQLException e) {
+            System.err.println("Error fetching announcements page: " + e.getMessage());
+            e.printStackTrace();
+            return Page.empty();
+        }
+    }
+
+    private static Announcement mapResultSetToAnnouncement(ResultSet rs) throws SQLException {
+        Announcement announcement = new Announcement();
+        announcement.setAnnouncementId(rs.getInt("announcement_id"));
+        announcement.setTitle(rs.getString("title"));
+        announcement.setContent(rs.getString("content"));
+        announcement.setPostedBy(rs.getInt("posted_by"));
+        announcement.setPostedByName(rs.getString("posted_by_name"));
+        announcement.setTargetAudience(rs.getString("target_audience"));
+
+        // Handle nullable courseId
+        if (rs.getObject("course_id") != null) {
+            announcement.setCourseId(rs.getInt("course_id"));
+        }
+
+        announcement.setCourseName(rs.getString("course_name"));
+
+        // Convert Timestamp to LocalDateTime
+        Timestamp postedAt = rs.getTimestamp("posted_at");
+        if (postedAt != null) {
+            announcement.setPostedAt(postedAt.toLocalDateTime());
+        }
+
+        // Handle nullable expiresAt
+        Timestamp expiresAt = rs.getTimestamp("expires_at");
+        if (expiresAt != null) {
+            announcement.setExpiresAt(expiresAt.toLocalDateTime());
+        }
+
+        announcement.setActive(rs.getBoolean("is_active"));
+        return announcement;
+    }
 }
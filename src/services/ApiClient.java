@@ -0,0 +1,202 @@
+package services;
+
+import models.Admin;
+import models.Lecturer;
+import models.Person;
+import models.Student;
+import utils.Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Client for the ApiServer, used by the GUI in thin-client mode (started
+ * with --connect URL). Holds the session token of the logged-in user.
+ */
+public class ApiClient {
+    // Client timeouts (change as needed)
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static ApiClient instance; // Singleton pattern; null unless in thin-client mode
+
+    private final String baseUrl;
+    private final HttpClient http;
+    private volatile String token;
+
+    private ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.http = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+    }
+
+    /**
+     * Switch the application to thin-client mode against the given server
+     * (e.g. http://campus-server:8080)
+     */
+    public static synchronized void configure(String baseUrl) {
+        instance = new ApiClient(baseUrl);
+    }
+
+    /**
+     * The configured client, or null when the application talks to the
+     * database directly
+     */
+    public static synchronized ApiClient getInstance() {
+        return instance;
+    }
+
+    /**
+     * Log in through the server
+     *
+     * @return The user's profile, or null if the credentials are wrong
+     * @throws LoginLockedException       if the server has locked the login out
+     * @throws RejectedExecutionException if the server is too busy
+     * @throws IOException                if the server cannot be reached
+     */
+    @SuppressWarnings("unchecked")
+    public Person login(String username, String password) throws IOException {
+        Map<String, Object> body = Map.of("username", username, "password", password);
+        HttpResponse<byte[]> response = send(request("/api/login")
+                .POST(HttpRequest.BodyPublishers.ofString(Json.write(body))).build());
+        if (response.statusCode() == 401) {
+            return null;
+        }
+        Map<String, Object> session = (Map<String, Object>) parse(response);
+        token = (String) session.get("token");
+        return toPerson((String) session.get("role"), (Map<String, Object>) session.get("user"));
+    }
+
+    /**
+     * End the session on the server. Failures are only logged: the session
+     * expires there on its own.
+     */
+    public void logout() {
+        String current = token;
+        token = null;
+        if (current == null) {
+            return;
+        }
+        try {
+            send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/logout"))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Authorization", "Bearer " + current)
+                    .POST(HttpRequest.BodyPublishers.noBody()).build());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error logging out from " + baseUrl + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET a path and parse the JSON response
+     */
+    public Object get(String path) throws IOException {
+        return parse(send(request(path).GET().build()));
+    }
+
+    /**
+     * POST a JSON body to a path and parse the JSON response
+     */
+    public Object post(String path, Object body) throws IOException {
+        return parse(send(request(path).POST(HttpRequest.BodyPublishers.ofString(Json.write(body))).build()));
+    }
+
+    /**
+     * GET a path returning a JSON array of model objects
+     */
+    public <T> List<T> getList(String path, Class<T> type) throws IOException {
+        List<T> items = new ArrayList<>();
+        for (Object item : (List<?>) get(path)) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> json = (Map<String, Object>) item;
+            items.add(Json.toBean(json, type));
+        }
+        return items;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .header("Accept-Encoding", "gzip");
+        String current = token;
+        if (current != null) {
+            builder.header("Authorization", "Bearer " + current);
+        }
+        return builder;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling " + request.uri(), e);
+        }
+    }
+
+    /**
+     * Parse a response body, turning error statuses into exceptions
+     */
+    private static Object parse(HttpResponse<byte[]> response) throws IOException {
+        byte[] bytes = response.body();
+        if (response.headers().firstValue("Content-Encoding").orElse("").equals("gzip")) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readAllBytes();
+            }
+        }
+        Object json = bytes.length > 0 ? Json.parse(new String(bytes, StandardCharsets.UTF_8)) : null;
+
+        int status = response.statusCode();
+        if (status == 200) {
+            return json;
+        }
+        String message = json instanceof Map && ((Map<?, ?>) json).get("error") != null
+                ? (String) ((Map<?, ?>) json).get("error")
+                : "HTTP " + status;
+        long retryAfterSeconds = response.headers().firstValue("Retry-After").map(Long::parseLong).orElse(60L);
+        switch (status) {
+            case 429:
+                throw new LoginLockedException(message, retryAfterSeconds * 1000);
+            case 503:
+                throw new RejectedExecutionException(message);
+            case 400:
+            case 403:
+            case 404:
+                throw new IllegalArgumentException(message);
+            default:
+                throw new IOException("Server error from " + response.uri() + ": " + message);
+        }
+    }
+
+    private static Person toPerson(String role, Map<String, Object> user) {
+        switch (role) {
+            case "STUDENT":
+                return Json.toBean(user, Student.class);
+            case "LECTURER":
+                return Json.toBean(user, Lecturer.class);
+            case "ADMIN":
+                return Json.toBean(user, Admin.class);
+            default:
+                throw new IllegalArgumentException("Unknown role " + role);
+        }
+    }
+}
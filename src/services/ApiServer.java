@@ -0,0 +1,558 @@
+package services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import database.MySQLDatabase;
+import database.Page;
+import models.Admin;
+import models.Course;
+import models.Lecturer;
+import models.Payment;
+import models.Person;
+import models.Student;
+import utils.Counter;
+import utils.HostIdentity;
+import utils.Json;
+import utils.MetricTimer;
+import utils.MetricsRegistry;
+import utils.Session;
+import utils.SessionStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Headless JSON API over the services, so many thin clients share one
+ * server's connection pool, caches, login throttle and sessions instead of
+ * each desk connecting to MySQL itself.
+ *
+ * Clients log in with POST /api/login and send the returned token as
+ * "Authorization: Bearer token". Every other route checks the session's
+ * cached role (and, for students and lecturers, that the data is their own)
+ * without a database lookup. Errors are returned as {"error": "..."} with
+ * a matching status code. Larger responses are gzip compressed when the
+ * client accepts it.
+ */
+public class ApiServer {
+    public static final int DEFAULT_PORT = 8080;
+
+    // Server limits (change as needed)
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int PLATFORM_WORKER_THREADS = 64; // Used only where virtual threads are unavailable
+
+    private static final Counter REQUESTS = MetricsRegistry.getInstance()
+            .counter("scms_api_requests_total", "API requests served");
+    private static final Counter ERRORS = MetricsRegistry.getInstance()
+            .counter("scms_api_errors_total", "API requests answered with a 5xx status");
+    private static final MetricTimer REQUEST_TIME = MetricsRegistry.getInstance()
+            .timer("scms_api_request_seconds", "Time to handle an API request");
+
+    /**
+     * An error with the HTTP status to answer it with
+     */
+    static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Handler {
+        Object handle(Request request) throws Exception;
+    }
+
+    private static class Route {
+        final String method;
+        final Pattern path;
+        final String[] roles; // Empty for routes open without a session
+        final Handler handler;
+
+        Route(String method, String path, String[] roles, Handler handler) {
+            this.method = method;
+            this.path = Pattern.compile(path.replace("{id}", "(\\d+)"));
+            this.roles = roles;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * One request: path parameters, query parameters, body and session
+     */
+    private static class Request {
+        final HttpExchange exchange;
+        final Matcher path;
+        final Map<String, String> query;
+        Session session;
+        private Map<String, Object> body;
+
+        Request(HttpExchange exchange, Matcher path) {
+            this.exchange = exchange;
+            this.path = path;
+            this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+
+        int pathId(int group) {
+            return Integer.parseInt(path.group(group));
+        }
+
+        String param(String name) {
+            String value = query.get(name);
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        int intParam(String name, int defaultValue) {
+            String value = param(name);
+            try {
+                return value != null ? Integer.parseInt(value) : defaultValue;
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Parameter " + name + " must be a number");
+            }
+        }
+
+        String requiredParam(String name) {
+            String value = param(name);
+            if (value == null) {
+                throw new ApiException(400, "Missing parameter " + name);
+            }
+            return value;
+        }
+
+        Map<String, Object> body() throws IOException {
+            if (body == null) {
+                try (InputStream in = exchange.getRequestBody()) {
+                    byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                    if (bytes.length > MAX_BODY_BYTES) {
+                        throw new ApiException(413, "Request body too large");
+                    }
+                    body = bytes.length == 0 ? new LinkedHashMap<>()
+                            : Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
+            return body;
+        }
+
+        <T> T field(String name, Class<T> type) throws IOException {
+            Object value = body().get(name);
+            if (value == null) {
+                throw new ApiException(400, "Missing field " + name);
+            }
+            try {
+                return type.cast(Json.convert(value, type));
+            } catch (RuntimeException e) {
+                throw new ApiException(400, "Field " + name + " has the wrong type");
+            }
+        }
+
+        Object optionalField(String name, Class<?> type) throws IOException {
+            Object value = body().get(name);
+            try {
+                return Json.convert(value, type);
+            } catch (RuntimeException e) {
+                throw new ApiException(400, "Field " + name + " has the wrong type");
+            }
+        }
+    }
+
+    private static final String[] ANYONE = { "STUDENT", "LECTURER", "ADMIN" };
+    private static final String[] STAFF = { "LECTURER", "ADMIN" };
+    private static final String[] ADMIN = { "ADMIN" };
+    private static final String[] PUBLIC = {};
+
+    private final int port;
+    private final List<Route> routes = new ArrayList<>();
+    private final SessionStore sessions;
+    private final AuthenticationService authService;
+    private final CourseService courseService;
+    private final GradeService gradeService;
+    private final PaymentService paymentService;
+    private final AnnouncementService announcementService;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ApiServer(int port) {
+        this.port = port;
+        this.sessions = SessionStore.getInstance();
+        this.authService = new AuthenticationService();
+        this.courseService = new CourseService();
+        this.gradeService = new GradeService();
+        this.paymentService = new PaymentService();
+        this.announcementService = new AnnouncementService(MySQLDatabase.getInstance());
+        registerRoutes();
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.createContext("/api/", this::dispatch);
+        executor = createExecutor();
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        server = httpServer;
+        System.out.println("API available at http://" + HostIdentity.getInstance().getAddress() + ":" + port
+                + "/api/");
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * A virtual thread per request where the JVM has them (Java 21+), since
+     * handlers mostly wait on the database; otherwise a fixed pool
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(PLATFORM_WORKER_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "scms-api-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void registerRoutes() {
+        // Sessions
+        route("POST", "/api/login", PUBLIC, this::login);
+        route("POST", "/api/logout", ANYONE, request -> {
+            sessions.invalidate(request.session.getToken());
+            return result(true);
+        });
+        route("GET", "/api/session", ANYONE, request -> sessionInfo(request.session));
+
+        // Courses
+        route("GET", "/api/courses", ANYONE, request -> courseService.getAllCourses());
+        route("GET", "/api/courses/available", ANYONE, request -> courseService.getAvailableCourses(
+                request.intParam("yearLevel", 1), request.intParam("semester", 1)));
+        route("GET", "/api/courses/{id}/enrollments", STAFF, request -> courseService.getCourseEnrollments(
+                taughtCourseId(request), request.requiredParam("academicYear"), request.intParam("semester", 1)));
+        route("GET", "/api/courses/{id}/grades", STAFF, request -> gradeService.getCourseGrades(
+                taughtCourseId(request), request.requiredParam("academicYear"), request.intParam("semester", 1)));
+
+        // A student's own data
+        route("GET", "/api/students/{id}/registrations", ANYONE, request -> courseService.getStudentRegistrations(
+                ownStudentId(request), request.requiredParam("academicYear"), request.intParam("semester", 1)));
+        route("POST", "/api/students/{id}/registrations", ANYONE, request -> result(courseService.registerCourse(
+                ownStudentId(request), request.field("courseId", Integer.class),
+                request.field("academicYear", String.class), request.field("semester", Integer.class))));
+        route("DELETE", "/api/students/{id}/registrations/{id}", ANYONE,
+                request -> result(courseService.dropCourse(request.pathId(2), ownStudentId(request))));
+        route("GET", "/api/students/{id}/grades", ANYONE,
+                request -> gradeService.getStudentGrades(ownStudentId(request)));
+        route("GET", "/api/students/{id}/payments", ANYONE, request -> {
+            int studentId = ownStudentId(request);
+            Map<String, Object> payments = new LinkedHashMap<>();
+            payments.put("totalPaid", paymentService.getTotalPaymentsByStudent(studentId));
+            payments.put("payments", paymentService.getStudentPayments(studentId));
+            return payments;
+        });
+
+        // Lecturers
+        route("GET", "/api/lecturers/{id}/courses", STAFF,
+                request -> courseService.getLecturerCourses(ownLecturerId(request)));
+        route("POST", "/api/grades", new String[] { "LECTURER" }, request -> {
+            int registrationId = request.field("registrationId", Integer.class);
+            int lecturerId = ((Lecturer) request.session.getUser()).getLecturerId();
+            if (!gradeService.isTaughtBy(registrationId, lecturerId)) {
+                throw new ApiException(403, "Lecturers can only grade students in their own courses");
+            }
+            return result(gradeService.uploadGrade(registrationId, request.field("courseworkMarks", Double.class),
+                    request.field("examMarks", Double.class), lecturerId,
+                    (String) request.optionalField("remarks", String.class)));
+        });
+
+        // Payments
+        route("GET", "/api/payments", ADMIN, request -> page(paymentService.getPaymentsPage(
+                request.param("student"), request.param("from"), request.param("to"),
+                afterKey(request), pageSize(request))));
+        route("POST", "/api/payments", ADMIN, request -> {
+            Payment payment = Json.toBean(request.body(), Payment.class);
+            payment.setProcessedBy(((Admin) request.session.getUser()).getAdminId());
+            return result(paymentService.recordPayment(payment));
+        });
+
+        // Announcements
+        route("GET", "/api/announcements", ANYONE, request -> {
+            String audience = request.session.hasRole("ADMIN")
+                    ? request.param("audience")
+                    : request.session.getRole();
+            return "LECTURER".equalsIgnoreCase(audience) || "LECTURERS".equalsIgnoreCase(audience)
+                    ? announcementService.getAnnouncementsForLecturers()
+                    : announcementService.getAnnouncementsForStudents();
+        });
+        route("POST", "/api/announcements", STAFF, request -> result(announcementService.postAnnouncement(
+                request.field("title", String.class), request.field("content", String.class),
+                request.session.getUserId(), request.field("targetAudience", String.class),
+                (Integer) request.optionalField("courseId", Integer.class),
+                (Timestamp) request.optionalField("expiresAt", Timestamp.class))));
+        route("DELETE", "/api/announcements/{id}", STAFF, request -> {
+            int announcementId = request.pathId(1);
+            Integer postedBy = announcementService.getPostedBy(announcementId);
+            if (postedBy == null) {
+                throw new ApiException(404, "No such announcement");
+            }
+            if (!request.session.hasRole("ADMIN") && postedBy != request.session.getUserId()) {
+                throw new ApiException(403, "Lecturers can only remove their own announcements");
+            }
+            return result(announcementService.deactivateAnnouncement(announcementId));
+        });
+    }
+
+    private void route(String method, String path, String[] roles, Handler handler) {
+        routes.add(new Route(method, path, roles, handler));
+    }
+
+    private Object login(Request request) throws IOException, SQLException {
+        Person user = authService.login(request.field("username", String.class),
+                request.field("password", String.class));
+        if (user == null) {
+            // Logged in aggregate by the login throttle
+            throw new ApiException(401, "Invalid username or password");
+        }
+        Session session = sessions.create(user);
+        Map<String, Object> response = sessionInfo(session);
+        response.put("token", session.getToken());
+        return response;
+    }
+
+    private Map<String, Object> sessionInfo(Session session) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("role", session.getRole());
+        info.put("idleTimeoutSeconds", sessions.getIdleTimeoutMillis() / 1000);
+        info.put("user", session.getUser());
+        return info;
+    }
+
+    /**
+     * The student id in the path, if the caller is that student or an administrator
+     */
+    private static int ownStudentId(Request request) {
+        int studentId = request.pathId(1);
+        Person user = request.session.getUser();
+        boolean own = user instanceof Student && ((Student) user).getStudentId() == studentId;
+        if (!own && !request.session.hasRole("ADMIN")) {
+            throw new ApiException(403, "Students can only access their own records");
+        }
+        return studentId;
+    }
+
+    /**
+     * The lecturer id in the path, if the caller is that lecturer or an administrator
+     */
+    private static int ownLecturerId(Request request) {
+        int lecturerId = request.pathId(1);
+        Person user = request.session.getUser();
+        boolean own = user instanceof Lecturer && ((Lecturer) user).getLecturerId() == lecturerId;
+        if (!own && !request.session.hasRole("ADMIN")) {
+            throw new ApiException(403, "Lecturers can only access their own courses");
+        }
+        return lecturerId;
+    }
+
+    /**
+     * The course id in the path, if the caller teaches that course or is an administrator
+     */
+    private int taughtCourseId(Request request) throws SQLException {
+        int courseId = request.pathId(1);
+        if (request.session.hasRole("ADMIN")) {
+            return courseId;
+        }
+        Course course = courseService.getCourseById(courseId);
+        if (course == null) {
+            throw new ApiException(404, "No such course");
+        }
+        Person user = request.session.getUser();
+        if (!(user instanceof Lecturer) || ((Lecturer) user).getLecturerId() != course.getLecturerId()) {
+            throw new ApiException(403, "Lecturers can only access their own courses");
+        }
+        return courseId;
+    }
+
+    private static Object[] afterKey(Request request) {
+        String after = request.param("after");
+        if (after == null) {
+            return null;
+        }
+        try {
+            Object key = Json.parse(after);
+            if (!(key instanceof List)) {
+                throw new ApiException(400, "Parameter after must be the nextKey of the previous page");
+            }
+            return ((List<?>) key).toArray();
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Parameter after must be the nextKey of the previous page");
+        }
+    }
+
+    private static int pageSize(Request request) {
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, request.intParam("limit", 100)));
+    }
+
+    private static Map<String, Object> page(Page<?> page) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", page.getItems());
+        response.put("nextKey", page.getNextKey());
+        response.put("hasMore", page.hasMore());
+        return response;
+    }
+
+    private static Map<String, Object> result(boolean success) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", success);
+        return response;
+    }
+
+    private void dispatch(HttpExchange exchange) {
+        long start = System.nanoTime();
+        REQUESTS.increment();
+        HostIdentity hostIdentity = HostIdentity.getInstance();
+        hostIdentity.setClientAddress(exchange.getRemoteAddress().getAddress().getHostAddress());
+        try {
+            Object response;
+            int status = 200;
+            try {
+                response = handle(exchange);
+            } catch (ApiException e) {
+                status = e.status;
+                response = error(e.getMessage());
+            } catch (LoginLockedException e) {
+                status = 429;
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+                response = error("Too many failed login attempts. Please try again in "
+                        + e.getRetryAfterText() + ".");
+            } catch (RejectedExecutionException e) {
+                status = 503;
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                response = error(e.getMessage());
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                response = error(e.getMessage());
+            } catch (Exception e) {
+                System.err.println("Error handling " + exchange.getRequestMethod() + " "
+                        + exchange.getRequestURI().getPath() + ": " + e.getMessage());
+                e.printStackTrace();
+                status = 500;
+                response = error("Internal server error");
+            }
+            if (status >= 500) {
+                ERRORS.increment();
+            }
+            send(exchange, status, response);
+        } catch (IOException e) {
+            System.err.println("Error sending API response: " + e.getMessage());
+        } finally {
+            hostIdentity.clearClientAddress();
+            exchange.close();
+            REQUEST_TIME.recordSince(start);
+        }
+    }
+
+    private Object handle(HttpExchange exchange) throws Exception {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        boolean pathMatched = false;
+
+        for (Route route : routes) {
+            Matcher matcher = route.path.matcher(path);
+            if (!matcher.matches()) {
+                continue;
+            }
+            pathMatched = true;
+            if (!route.method.equals(method)) {
+                continue;
+            }
+
+            Request request = new Request(exchange, matcher);
+            if (route.roles.length > 0) {
+                request.session = sessions.get(bearerToken(exchange));
+                if (request.session == null) {
+                    throw new ApiException(401, "Not logged in or session expired");
+                }
+                if (!request.session.hasRole(route.roles)) {
+                    throw new ApiException(403, "Not allowed for role " + request.session.getRole());
+                }
+            }
+            return route.handler.handle(request);
+        }
+        throw pathMatched ? new ApiException(405, "Method not allowed") : new ApiException(404, "Not found");
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("error", message);
+        return response;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object response) throws IOException {
+        byte[] body = Json.write(response).getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (body.length >= GZIP_MIN_BYTES && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.put(name, value);
+        }
+        return params;
+    }
+}
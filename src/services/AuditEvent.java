@@ -0,0 +1,67 @@
+package services;
+
+/**
+ * A system_logs row waiting to be written by the AuditLogWriter. The
+ * timestamp is taken when the action happens, not when the row is flushed.
+ */
+public class AuditEvent {
+    private final Integer userId;
+    private final String action;
+    private final String details;
+    private final String ipAddress;
+    private final long timestampMillis;
+    private final int occurrences;
+
+    public AuditEvent(Integer userId, String action, String details, String ipAddress, long timestampMillis) {
+        this(userId, action, details, ipAddress, timestampMillis, 1);
+    }
+
+    /**
+     * An event standing for several occurrences of the action, such as a
+     * summary of failed logins; the statistics count each occurrence
+     */
+    public AuditEvent(Integer userId, String action, String details, String ipAddress, long timestampMillis,
+            int occurrences) {
+        this.userId = userId;
+        this.action = action;
+        this.details = details;
+        this.ipAddress = ipAddress;
+        this.timestampMillis = timestampMillis;
+        this.occurrences = occurrences;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    /**
+     * Address recorded with the event, or null to use this machine's address
+     */
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Occurrences of the action this event stands for, 1 unless it is a summary
+     */
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditEvent[" + action + ", user=" + userId + ", at=" + timestampMillis + "]";
+    }
+}
@@ -0,0 +1,444 @@
+package services;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only journal of audit events that could not be written
+ * to the database straight away, stored as memory-mapped segment files.
+ *
+ * Every record carries a sequence number and a CRC. Appends land in the
+ * mapped page cache immediately, so they survive a JVM crash; force()
+ * pushes them to disk. Replay reads records oldest first; the writer
+ * stores the last replayed sequence in the database in the same
+ * transaction as the rows, which keeps replay free of duplicates even if
+ * the application dies between the commit and markReplayed().
+ *
+ * The journal holds at most maxBytes of segments; once full, append()
+ * fails until replay frees a segment. Events the database keeps rejecting
+ * are moved to a quarantine file next to the segments so replay can get
+ * past them.
+ *
+ * Record layout: int payloadLength, int crc32, long sequence, payload.
+ * A zero length marks the end of the written part of a segment.
+ */
+public class AuditJournal {
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String ID_FILE = "journal.id";
+    private static final String QUARANTINE_FILE = "quarantine.log";
+    private static final int HAS_USER = 1; // Payload flags; an occurrence count follows the strings if set
+    private static final int HAS_OCCURRENCES = 2;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final String journalId;
+    private final List<Segment> segments = new ArrayList<>(); // Oldest first; last is the append target
+
+    private long nextSequence = 1;
+    private long replayedThrough; // Highest sequence known to be in the database
+    private int readSegment; // Replay cursor
+    private int readOffset;
+    private int pendingSegment = -1; // Cursor position after the last readBatch()
+    private int pendingOffset;
+    private long pendingThrough;
+
+    /**
+     * @param segmentBytes Size of each segment file
+     * @param maxBytes     Most bytes of segments kept (at least one segment)
+     */
+    public AuditJournal(String directory, int segmentBytes, long maxBytes) throws IOException {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = Math.max(maxBytes, segmentBytes);
+        Files.createDirectories(this.directory);
+        this.journalId = loadJournalId();
+        recover();
+    }
+
+    /**
+     * Identifies this journal in the database checkpoint table
+     */
+    public String getJournalId() {
+        return journalId;
+    }
+
+    /**
+     * Append events, oldest first
+     *
+     * @return Sequence number of the last event appended
+     * @throws IOException if the journal is full (events before the one that
+     *                     did not fit are appended) or cannot be written
+     */
+    public synchronized long append(List<AuditEvent> events) throws IOException {
+        for (AuditEvent event : events) {
+            byte[] payload = encode(event);
+            int needed = HEADER_BYTES + payload.length + 4; // Room for the end marker too
+            if (needed > segmentBytes) {
+                throw new IOException("Audit event of " + payload.length + " bytes exceeds the segment size");
+            }
+
+            Segment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (active == null || active.writeOffset + needed > segmentBytes) {
+                if (getSizeBytes() + segmentBytes > maxBytes) {
+                    throw new IOException("Audit journal is full (" + getSizeBytes() + " bytes)");
+                }
+                if (active != null) {
+                    active.buffer.force(); // Sealed segments are always fully on disk
+                }
+                active = openSegment(nextSequence, true);
+                segments.add(active);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteBuffer buffer = active.buffer;
+            buffer.position(active.writeOffset);
+            buffer.putInt(payload.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.putLong(nextSequence);
+            buffer.put(payload);
+            buffer.putInt(0);
+            active.writeOffset += needed - 4;
+            active.lastSequence = nextSequence++;
+        }
+        return nextSequence - 1;
+    }
+
+    /**
+     * Flush appended records from the page cache to the storage device
+     */
+    public synchronized void force() {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).buffer.force();
+        }
+    }
+
+    /**
+     * True if some appended events have not been replayed yet
+     */
+    public synchronized boolean hasPending() {
+        return nextSequence - 1 > replayedThrough;
+    }
+
+    public synchronized long getPendingCount() {
+        return Math.max(0, nextSequence - 1 - replayedThrough);
+    }
+
+    /**
+     * Bytes held in journal segment files
+     */
+    public synchronized long getSizeBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    /**
+     * Read up to maxEvents unreplayed events, oldest first. Nothing is
+     * consumed until markReplayed() is called.
+     */
+    public synchronized List<Entry> readBatch(int maxEvents) {
+        List<Entry> entries = new ArrayList<>();
+        int segmentIndex = readSegment;
+        int offset = readOffset;
+
+        while (entries.size() < maxEvents && segmentIndex < segments.size()) {
+            Segment segment = segments.get(segmentIndex);
+            ByteBuffer buffer = segment.buffer.duplicate();
+            Entry entry = offset < segment.writeOffset ? readRecord(buffer, offset) : null;
+            if (entry == null) {
+                if (segmentIndex == segments.size() - 1) {
+                    break; // Caught up with the writer
+                }
+                segmentIndex++;
+                offset = 0;
+                continue;
+            }
+            offset += HEADER_BYTES + entry.encodedLength;
+            if (entry.sequence > replayedThrough) {
+                entries.add(entry);
+            }
+        }
+
+        pendingSegment = segmentIndex;
+        pendingOffset = offset;
+        pendingThrough = entries.isEmpty() ? replayedThrough : entries.get(entries.size() - 1).sequence;
+        return entries;
+    }
+
+    /**
+     * Consume everything returned by the last readBatch() and delete
+     * segments that have been replayed completely
+     */
+    public synchronized void markReplayed() {
+        if (pendingSegment < 0) {
+            return;
+        }
+        readSegment = pendingSegment;
+        readOffset = pendingOffset;
+        replayedThrough = Math.max(replayedThrough, pendingThrough);
+        pendingSegment = -1;
+        deleteReplayedSegments();
+    }
+
+    /**
+     * Treat every event up to the sequence as replayed, e.g. after writing
+     * a batch one event at a time. The read cursor moves past them on the
+     * next readBatch() and markReplayed().
+     */
+    public synchronized void skipThrough(long sequence) {
+        if (sequence > replayedThrough) {
+            replayedThrough = Math.min(sequence, nextSequence - 1);
+            pendingSegment = -1;
+        }
+    }
+
+    /**
+     * Move an event the database will not accept to the quarantine file and
+     * skip it, so replay continues with the events after it
+     */
+    public synchronized void quarantine(Entry entry, String reason) throws IOException {
+        AuditEvent event = entry.getEvent();
+        String line = entry.getSequence() + "\t" + event.getTimestampMillis() + "\t" + event.getUserId() + "\t"
+                + oneLine(event.getAction()) + "\t" + oneLine(event.getIpAddress()) + "\t"
+                + oneLine(event.getDetails()) + "\t" + oneLine(reason) + System.lineSeparator();
+        Files.write(directory.resolve(QUARANTINE_FILE), line.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        skipThrough(entry.getSequence());
+    }
+
+    /**
+     * Path of the file holding quarantined events
+     */
+    public Path getQuarantineFile() {
+        return directory.resolve(QUARANTINE_FILE);
+    }
+
+    public synchronized void close() {
+        force();
+        segments.clear(); // Mappings are released when collected
+    }
+
+    private void deleteReplayedSegments() {
+        // Never delete the append target; it is reused until it fills up
+        while (segments.size() > 1 && segments.get(0).lastSequence <= replayedThrough && readSegment > 0) {
+            Segment sealed = segments.remove(0);
+            readSegment--;
+            try {
+                Files.deleteIfExists(sealed.path);
+            } catch (IOException e) {
+                System.err.println("Error deleting audit journal segment: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuild the segment list, the next sequence and the append position
+     * from the files on disk; a torn record ends its segment
+     */
+    private void recover() throws IOException {
+        File[] files = directory.toFile().listFiles((dir, name) ->
+                name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files); // Names embed the zero-padded first sequence
+
+        for (File file : files) {
+            Segment segment = openSegment(firstSequenceOf(file.getName()), false);
+            ByteBuffer buffer = segment.buffer.duplicate();
+            int offset = 0;
+            Entry entry;
+            while ((entry = readRecord(buffer, offset)) != null) {
+                offset += HEADER_BYTES + entry.encodedLength;
+                segment.lastSequence = entry.sequence;
+            }
+            segment.writeOffset = offset;
+            if (segment.lastSequence == 0) {
+                Files.deleteIfExists(segment.path); // Nothing usable in it
+                continue;
+            }
+            segments.add(segment);
+            nextSequence = Math.max(nextSequence, segment.lastSequence + 1);
+        }
+
+        // Until the database checkpoint is known, assume nothing has been replayed
+        replayedThrough = segments.isEmpty() ? nextSequence - 1 : segments.get(0).firstSequence - 1;
+    }
+
+    private Entry readRecord(ByteBuffer buffer, int offset) {
+        try {
+            buffer.position(offset);
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.capacity() - offset - HEADER_BYTES) {
+                return null;
+            }
+            int expectedCrc = buffer.getInt();
+            long sequence = buffer.getLong();
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != expectedCrc) {
+                return null;
+            }
+            return new Entry(sequence, decode(payload), length);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Segment openSegment(long firstSequence, boolean create) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+                FileChannel channel = file.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            Segment segment = new Segment(path, firstSequence, buffer);
+            if (create) {
+                buffer.putInt(0, 0);
+            }
+            return segment;
+        }
+    }
+
+    private static String oneLine(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private static long firstSequenceOf(String name) {
+        String digits = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private String loadJournalId() throws IOException {
+        Path idFile = directory.resolve(ID_FILE);
+        if (Files.exists(idFile)) {
+            String id = new String(Files.readAllBytes(idFile), StandardCharsets.UTF_8).trim();
+            if (!id.isEmpty()) {
+                return id;
+            }
+        }
+        String id = UUID.randomUUID().toString();
+        Files.write(idFile, id.getBytes(StandardCharsets.UTF_8));
+        return id;
+    }
+
+    private static byte[] encode(AuditEvent event) {
+        byte[] action = bytes(event.getAction());
+        byte[] details = bytes(event.getDetails());
+        byte[] ipAddress = bytes(event.getIpAddress());
+        boolean summary = event.getOccurrences() != 1;
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 1 + 4 + 12 + length(action) + length(details) + length(ipAddress)
+                + (summary ? 4 : 0));
+        buffer.putLong(event.getTimestampMillis());
+        buffer.put((byte) ((event.getUserId() != null ? HAS_USER : 0) | (summary ? HAS_OCCURRENCES : 0)));
+        buffer.putInt(event.getUserId() != null ? event.getUserId() : 0);
+        putBytes(buffer, action);
+        putBytes(buffer, details);
+        putBytes(buffer, ipAddress);
+        if (summary) {
+            buffer.putInt(event.getOccurrences());
+        }
+        return buffer.array();
+    }
+
+    private static AuditEvent decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long timestamp = buffer.getLong();
+        byte flags = buffer.get();
+        int userId = buffer.getInt();
+        String action = getString(buffer);
+        String details = getString(buffer);
+        String ipAddress = getString(buffer);
+        int occurrences = (flags & HAS_OCCURRENCES) != 0 ? buffer.getInt() : 1;
+        return new AuditEvent((flags & HAS_USER) != 0 ? userId : null, action, details, ipAddress, timestamp,
+                occurrences);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        buffer.putInt(value == null ? -1 : value.length);
+        if (value != null) {
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A journaled event and its sequence number
+     */
+    public static class Entry {
+        private final long sequence;
+        private final AuditEvent event;
+        private final int encodedLength;
+
+        Entry(long sequence, AuditEvent event, int payloadLength) {
+            this.sequence = sequence;
+            this.event = event;
+            this.encodedLength = payloadLength;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public AuditEvent getEvent() {
+            return event;
+        }
+    }
+
+    /**
+     * One mapped segment file
+     */
+    private static class Segment {
+        private final Path path;
+        private final long firstSequence;
+        private final MappedByteBuffer buffer;
+        private int writeOffset;
+        private long lastSequence;
+
+        Segment(Path path, long firstSequence, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package services;
+
+import database.MySQLDatabase;
+import utils.Counter;
+import utils.HostIdentity;
+import utils.MetricTimer;
+import utils.MetricsRegistry;
+import utils.RingBuffer;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes system_logs rows in the background so auditing never adds a
+ * database round trip to the user action being audited.
+ *
+ * Events are queued in a bounded lock-free RingBuffer and a single daemon
+ * thread inserts them in JDBC batches, either as soon as a full batch is
+ * waiting or every FLUSH_INTERVAL_MS. Each batch is one transaction.
+ *
+ * If a batch cannot be written (database down or slow) the writer
+ * switches to journal mode: the batch, the queue and every new event go
+ * to the durable AuditJournal, and the flusher replays the journal in
+ * order until it has caught up, then switches back to the queue.
+ *
+ * Fields are cut to the system_logs column sizes before insert. A journal
+ * batch that keeps failing while the database is reachable is retried one
+ * event at a time, and events that still fail are quarantined so one bad
+ * row cannot stall the journal.
+ *
+ * The words of each entry are added to the LogSearchIndex, and the entry
+ * to the LogStatsRollup totals, in the same transaction as the entry itself.
+ */
+public class AuditLogWriter {
+
+    /**
+     * What log() does when the queue is full
+     */
+    public enum OverflowPolicy {
+        /** Wait for the flusher to make room (up to BLOCK_TIMEOUT_MS, then drop) */
+        BLOCK,
+        /** Discard the oldest queued event to make room for the new one */
+        DROP_OLDEST,
+        /** Append the event to the journal; it is replayed once the database keeps up */
+        SPILL_TO_DISK
+    }
+
+    // Writer parameters
+    private static final int QUEUE_CAPACITY = 8192; // Rounded up to a power of two
+    private static final int BATCH_SIZE = 200; // Rows per INSERT batch
+    private static final long FLUSH_INTERVAL_MS = 250; // Partial batches wait at most this long
+    private static final long MAX_RETRY_DELAY_MS = 5000; // Back-off cap while the database is down
+    private static final long BLOCK_TIMEOUT_MS = 2000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000; // Time allowed to drain the queue on exit
+    private static final OverflowPolicy OVERFLOW_POLICY = OverflowPolicy.SPILL_TO_DISK; // Change as needed
+
+    // Journal parameters (JOURNAL_DIR = null disables the journal)
+    private static final String JOURNAL_DIR = "logs/audit-journal";
+    private static final int JOURNAL_SEGMENT_BYTES = 16 * 1024 * 1024;
+    private static final long JOURNAL_MAX_BYTES = 256L * 1024 * 1024; // Events are dropped beyond this
+    private static final long JOURNAL_FORCE_INTERVAL_MS = 1000; // Max data lost if the OS crashes
+    private static final int MAX_BATCH_ATTEMPTS = 5; // Failures before a batch is split up or given up
+
+    // system_logs column sizes (VARCHAR(100), TEXT, VARCHAR(45))
+    private static final int MAX_ACTION_CHARS = 100;
+    private static final int MAX_DETAILS_CHARS = 16000; // TEXT holds 65535 bytes, up to 4 per char
+    private static final int MAX_IP_CHARS = 45;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO system_logs (user_id, action, details, ip_address, timestamp) VALUES (?, ?, ?, ?, ?)";
+    private static final String CREATE_CHECKPOINT_SQL = "CREATE TABLE IF NOT EXISTS audit_journal_checkpoint ("
+            + "journal_id VARCHAR(36) PRIMARY KEY, last_sequence BIGINT NOT NULL, "
+            + "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP)";
+
+    private static AuditLogWriter instance; // Singleton pattern
+
+    private final MySQLDatabase db;
+    private final LogSearchIndex searchIndex;
+    private final LogStatsRollup statsRollup;
+    private final RingBuffer<AuditEvent> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final AuditJournal journal;
+    private final Thread flusher;
+    private volatile boolean running = true;
+    private volatile boolean journaling; // New events go to the journal until replay catches up
+    private boolean checkpointTableReady;
+    private long failedReplayHead = -1; // First sequence of the journal batch that last failed
+    private int failedReplayAttempts;
+    private volatile boolean journalFull;
+
+    private final Counter enqueued;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter journaled;
+    private final Counter writeFailures;
+    private final Counter quarantined;
+    private final MetricTimer flushTime;
+
+    private AuditLogWriter(MySQLDatabase db, int capacity, OverflowPolicy overflowPolicy, AuditJournal journal) {
+        this.db = db;
+        this.searchIndex = LogSearchIndex.getInstance();
+        this.statsRollup = LogStatsRollup.getInstance();
+        this.queue = new RingBuffer<>(capacity);
+        this.journal = journal;
+        this.overflowPolicy = journal == null && overflowPolicy == OverflowPolicy.SPILL_TO_DISK
+                ? OverflowPolicy.DROP_OLDEST
+                : overflowPolicy;
+        this.journaling = journal != null && journal.hasPending(); // Left over from the last run
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("scms_audit_queue_depth", "Audit events waiting to be written", queue::size);
+        registry.gauge("scms_audit_queue_capacity", "Size of the audit event queue", queue::capacity);
+        registry.gauge("scms_audit_journal_pending", "Journaled audit events not yet in the database",
+                () -> journal != null ? journal.getPendingCount() : 0);
+        registry.gauge("scms_audit_journal_bytes", "Size of the audit journal segment files",
+                () -> journal != null ? journal.getSizeBytes() : 0);
+        this.enqueued = registry.counter("scms_audit_events_total", "Audit events submitted");
+        this.written = registry.counter("scms_audit_written_total", "Audit events stored in system_logs");
+        this.dropped = registry.counter("scms_audit_dropped_total", "Audit events lost because the queue was full");
+        this.journaled = registry.counter("scms_audit_journaled_total", "Audit events written to the journal");
+        this.writeFailures = registry.counter("scms_audit_write_failures_total", "Failed audit batch inserts");
+        this.quarantined = registry.counter("scms_audit_quarantined_total",
+                "Journaled audit events the database rejected, moved to the quarantine file");
+        this.flushTime = registry.timer("scms_audit_flush_seconds", "Time to insert one audit batch");
+
+        this.flusher = new Thread(this::runFlusher, "scms-audit-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "scms-audit-shutdown"));
+    }
+
+    /**
+     * Get singleton instance of AuditLogWriter
+     */
+    public static synchronized AuditLogWriter getInstance() {
+        if (instance == null) {
+            instance = new AuditLogWriter(MySQLDatabase.getInstance(), QUEUE_CAPACITY, OVERFLOW_POLICY,
+                    openJournal());
+        }
+        return instance;
+    }
+
+    private static AuditJournal openJournal() {
+        if (JOURNAL_DIR == null) {
+            return null;
+        }
+        try {
+            return new AuditJournal(JOURNAL_DIR, JOURNAL_SEGMENT_BYTES, JOURNAL_MAX_BYTES);
+        } catch (IOException e) {
+            System.err.println("Audit journal unavailable, events may be lost while the database is down!");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Queue an event for writing. Never touches the database; only blocks
+     * under the BLOCK policy while the queue is full.
+     */
+    public void log(AuditEvent event) {
+        enqueued.increment();
+        if (journaling || (!running && journal != null)) {
+            appendToJournal(Collections.singletonList(event)); // Stay behind the events already journaled
+            return;
+        }
+        if (!running) {
+            writeDirectly(event); // Shutting down: nobody is left to flush the queue
+            return;
+        }
+
+        if (!queue.offer(event)) {
+            handleOverflow(event);
+        }
+        if (queue.size() >= BATCH_SIZE) {
+            LockSupport.unpark(flusher); // A full batch is ready; don't wait for the interval
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * True while events are being routed through the journal
+     */
+    public boolean isJournaling() {
+        return journaling;
+    }
+
+    /**
+     * Stop accepting work and write out everything still queued. Anything
+     * the database cannot take right now stays in the journal for the next
+     * start.
+     */
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            System.err.println("Audit writer did not drain in time; " + queue.size() + " events left in memory");
+        } else {
+            // Events queued while the flusher was exiting
+            List<AuditEvent> leftover = new ArrayList<>();
+            while (queue.drainTo(leftover, BATCH_SIZE) > 0) {
+                if (journal != null) {
+                    appendToJournal(leftover); // Behind anything already journaled
+                } else if (!writeBatch(leftover)) {
+                    abandon(leftover);
+                }
+                leftover.clear();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void handleOverflow(AuditEvent event) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MS);
+                do {
+                    LockSupport.unpark(flusher);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    if (queue.offer(event)) {
+                        return;
+                    }
+                } while (System.nanoTime() < deadline);
+                dropped.increment();
+                System.err.println("Audit queue full for " + BLOCK_TIMEOUT_MS + "ms, dropped " + event);
+                break;
+
+            case DROP_OLDEST:
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                break;
+
+            case SPILL_TO_DISK:
+                // The database is not keeping up: route everything through the journal from now on
+                journaling = true;
+                appendToJournal(Collections.singletonList(event));
+                LockSupport.unpark(flusher);
+                break;
+        }
+    }
+
+    private boolean appendToJournal(List<AuditEvent> events) {
+        try {
+            journal.append(events);
+            journaled.increment(events.size());
+            journalFull = false;
+            return true;
+        } catch (IOException e) {
+            dropped.increment(events.size());
+            if (!journalFull) { // Once per episode, not once per event
+                journalFull = true;
+                System.err.println("Error journaling audit events, dropping them: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private void runFlusher() {
+        List<AuditEvent> batch = new ArrayList<>(BATCH_SIZE);
+        int consecutiveFailures = 0;
+        long lastForce = System.nanoTime();
+
+        while (true) {
+            boolean stopping = !running;
+            boolean failed = false;
+
+            if (journal != null && (journaling || journal.hasPending())) {
+                // Keep journal order: everything still in memory is older than new journal appends
+                moveToJournal(batch);
+                if (stopping) {
+                    break; // Replayed on the next start
+                }
+                int replayed = replayJournal();
+                if (replayed > 0) {
+                    consecutiveFailures = 0;
+                    continue; // Catch up as fast as the database allows
+                }
+                if (replayed == 0) {
+                    leaveJournalMode();
+                }
+                failed = replayed < 0;
+
+            } else {
+                if (batch.isEmpty()) {
+                    queue.drainTo(batch, BATCH_SIZE);
+                }
+                if (!batch.isEmpty()) {
+                    if (writeBatch(batch)) {
+                        batch.clear();
+                    } else if (journal != null) {
+                        journaling = true;
+                        continue; // The batch moves to the journal on the next pass
+                    } else if (stopping) {
+                        abandon(batch);
+                        break;
+                    } else if (consecutiveFailures + 1 >= MAX_BATCH_ATTEMPTS && isDatabaseReachable()) {
+                        // The database is up but will not take these rows; retrying cannot help
+                        dropped.increment(batch.size());
+                        System.err.println("Audit writer dropped a batch of " + batch.size()
+                                + " the database keeps rejecting");
+                        batch.clear();
+                    } else {
+                        failed = true; // Retry the same batch after a pause
+                    }
+                } else if (stopping) {
+                    break;
+                }
+            }
+
+            long sinceForce = System.nanoTime() - lastForce;
+            if (journal != null && sinceForce > TimeUnit.MILLISECONDS.toNanos(JOURNAL_FORCE_INTERVAL_MS)) {
+                journal.force();
+                lastForce = System.nanoTime();
+            }
+
+            if (failed) {
+                consecutiveFailures++;
+                long delay = Math.min(MAX_RETRY_DELAY_MS, FLUSH_INTERVAL_MS << Math.min(consecutiveFailures, 5));
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(delay));
+            } else {
+                consecutiveFailures = 0;
+                if (!stopping && queue.size() < BATCH_SIZE) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS));
+                }
+            }
+        }
+
+        if (journal != null) {
+            journal.force();
+        }
+    }
+
+    private void moveToJournal(List<AuditEvent> batch) {
+        queue.drainTo(batch, Integer.MAX_VALUE);
+        if (!batch.isEmpty()) {
+            appendToJournal(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Switch back to the in-memory queue once the journal is fully replayed
+     */
+    private void leaveJournalMode() {
+        synchronized (journal) {
+            if (!journal.hasPending()) {
+                journaling = false;
+            }
+        }
+    }
+
+    /**
+     * Write the next journal batch, skipping anything the database already
+     * has according to its checkpoint row. A batch that has failed
+     * MAX_BATCH_ATTEMPTS times while the database answers is written one
+     * event at a time, quarantining the events that fail on their own.
+     *
+     * @return Events consumed, 0 if the journal is empty, -1 on failure
+     */
+    private int replayJournal() {
+        List<AuditJournal.Entry> entries = journal.readBatch(BATCH_SIZE);
+        if (entries.isEmpty()) {
+            journal.markReplayed();
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        try {
+            int inserted = storeJournalEntries(entries);
+            journal.markReplayed();
+            flushTime.recordSince(start);
+            written.increment(inserted);
+            failedReplayHead = -1;
+            return entries.size();
+
+        } catch (Exception e) {
+            writeFailures.increment();
+            System.err.println("Error replaying audit journal: " + e.getMessage());
+
+            long head = entries.get(0).getSequence();
+            failedReplayAttempts = head == failedReplayHead ? failedReplayAttempts + 1 : 1;
+            failedReplayHead = head;
+            if (failedReplayAttempts >= MAX_BATCH_ATTEMPTS && isDatabaseReachable()) {
+                return replayOneByOne(entries);
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Write a failing batch event by event, quarantining each event that is
+     * rejected while the database is reachable
+     *
+     * @return Events consumed, -1 if none could be (the database went away)
+     */
+    private int replayOneByOne(List<AuditJournal.Entry> entries) {
+        int consumed = 0;
+        for (AuditJournal.Entry entry : entries) {
+            try {
+                written.increment(storeJournalEntries(Collections.singletonList(entry)));
+                journal.skipThrough(entry.getSequence());
+
+            } catch (Exception e) {
+                if (!isDatabaseReachable()) {
+                    break; // An outage, not a bad event: retry later
+                }
+                try {
+                    journal.quarantine(entry, e.getMessage());
+                    quarantined.increment();
+                    System.err.println("Quarantined audit event " + entry.getSequence() + " in "
+                            + journal.getQuarantineFile() + ": " + e.getMessage());
+                    advanceCheckpoint(entry.getSequence());
+                } catch (IOException ioe) {
+                    System.err.println("Error quarantining audit event " + entry.getSequence() + ": "
+                            + ioe.getMessage());
+                    break;
+                }
+            }
+            consumed++;
+        }
+        failedReplayHead = -1;
+        return consumed > 0 ? consumed : -1;
+    }
+
+    /**
+     * Insert journal entries and move the checkpoint past them in one transaction
+     *
+     * @return Rows inserted (entries already stored before a crash are skipped)
+     */
+    private int storeJournalEntries(List<AuditJournal.Entry> entries) throws SQLException {
+        if (!db.isConnected()) {
+            db.connect();
+        }
+        ensureCheckpointTable();
+        ensureTables();
+
+        String journalId = journal.getJournalId();
+        long lastSequence = entries.get(entries.size() - 1).getSequence();
+        return db.inTransaction(conn -> {
+            db.update("INSERT IGNORE INTO audit_journal_checkpoint (journal_id, last_sequence) VALUES (?, 0)",
+                    new Object[] { journalId });
+            Long checkpoint = db.queryForObject(
+                    "SELECT last_sequence FROM audit_journal_checkpoint WHERE journal_id = ? FOR UPDATE",
+                    new Object[] { journalId }, rs -> rs.getLong("last_sequence"));
+            long storedThrough = checkpoint != null ? checkpoint : 0;
+
+            List<AuditEvent> events = new ArrayList<>(entries.size());
+            for (AuditJournal.Entry entry : entries) {
+                if (entry.getSequence() > storedThrough) { // Already stored before a crash otherwise
+                    events.add(entry.getEvent());
+                }
+            }
+            insertAndIndex(events);
+            db.update("UPDATE audit_journal_checkpoint SET last_sequence = ? WHERE journal_id = ?",
+                    new Object[] { Math.max(storedThrough, lastSequence), journalId });
+            return events.size();
+        });
+    }
+
+    /**
+     * Record a quarantined sequence as done, so a restart does not replay it
+     */
+    private void advanceCheckpoint(long sequence) {
+        try {
+            db.update("UPDATE audit_journal_checkpoint SET last_sequence = GREATEST(last_sequence, ?) "
+                    + "WHERE journal_id = ?", new Object[] { sequence, journal.getJournalId() });
+        } catch (SQLException e) {
+            System.err.println("Error updating audit journal checkpoint: " + e.getMessage());
+        }
+    }
+
+    private void ensureCheckpointTable() throws SQLException {
+        if (!checkpointTableReady) {
+            db.update(CREATE_CHECKPOINT_SQL, new Object[0]);
+            checkpointTableReady = true;
+        }
+    }
+
+    private boolean isDatabaseReachable() {
+        try {
+            return db.isConnected() && db.queryForObject("SELECT 1", new Object[0], rs -> rs.getInt(1)) != null;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Insert the events in one transaction
+     */
+    private boolean writeBatch(List<AuditEvent> events) {
+        long start = System.nanoTime();
+        try {
+            if (!db.isConnected()) {
+                db.connect();
+            }
+            ensureTables();
+
+            db.inTransaction(conn -> {
+                insertAndIndex(events);
+                return null;
+            });
+
+            flushTime.recordSince(start);
+            written.increment(events.size());
+            return true;
+
+        } catch (Exception e) {
+            writeFailures.increment();
+            System.err.println("Error writing audit batch of " + events.size() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Create the search index and statistics tables if needed. Call it
+     * (outside any transaction) before writeInTransaction().
+     */
+    public void ensureTables() throws SQLException {
+        searchIndex.ensureTable();
+        statsRollup.ensureTables();
+    }
+
+    /**
+     * Write an event synchronously as part of the caller's transaction, for
+     * entries that must commit or roll back together with other changes
+     */
+    public void writeInTransaction(AuditEvent event) throws SQLException {
+        enqueued.increment();
+        insertAndIndex(Collections.singletonList(event));
+        written.increment();
+    }
+
+    /**
+     * Insert the events with their search terms and statistics; call inside a transaction
+     */
+    private void insertAndIndex(List<AuditEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            rows.add(toRow(event));
+        }
+        long[] logIds = db.insertAllAndGetKeys(INSERT_SQL, rows);
+        List<Object[]> termRows = new ArrayList<>();
+        List<Object[]> statsEntries = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            LogSearchIndex.addTermRows(termRows, logIds[i], (Timestamp) row[4], (String) row[1], (String) row[2]);
+            statsEntries.add(new Object[] { row[0], row[1], row[4], events.get(i).getOccurrences() });
+        }
+        searchIndex.insertTerms(termRows);
+        statsRollup.record(statsEntries);
+    }
+
+    private void writeDirectly(AuditEvent event) {
+        if (!writeBatch(Collections.singletonList(event))) {
+            abandon(Collections.singletonList(event));
+        }
+    }
+
+    /**
+     * Events that can no longer be written go to the journal if there is one
+     */
+    private void abandon(List<AuditEvent> events) {
+        if (journal == null || !appendToJournal(events)) {
+            dropped.increment(events.size());
+            System.err.println("Audit writer gave up on " + events.size() + " events");
+        }
+    }
+
+    /**
+     * Row values for an event, cut to fit the system_logs columns
+     */
+    private Object[] toRow(AuditEvent event) {
+        String ipAddress = event.getIpAddress() != null
+                ? event.getIpAddress()
+                : HostIdentity.getInstance().getAddress();
+        String action = event.getAction() != null ? event.getAction() : "UNKNOWN";
+        return new Object[] { event.getUserId(), truncate(action, MAX_ACTION_CHARS),
+                truncate(event.getDetails(), MAX_DETAILS_CHARS), truncate(ipAddress, MAX_IP_CHARS),
+                new Timestamp(event.getTimestampMillis()) };
+    }
+
+    private static String truncate(String value, int maxChars) {
+        if (value == null || value.length() <= maxChars) {
+            return value;
+        }
+        int end = maxChars;
+        if (Character.isHighSurrogate(value.charAt(end - 1))) {
+            end--; // Don't split a surrogate pair
+        }
+        return value.substring(0, end);
+    }
+}
@@ -1,73 +1,127 @@
 package services;
 
+import database.AsyncDatabase;
 import database.MySQLDatabase;
 import models.*;
+import utils.Counter;
+import utils.HostIdentity;
+import utils.MetricTimer;
+import utils.MetricsRegistry;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Authentication Service for user login and registration
  */
 public class AuthenticationService {
+    private static final Counter LOGINS = MetricsRegistry.getInstance()
+            .counter("scms_logins_total", "Successful logins");
+    private static final Counter FAILED_LOGINS = MetricsRegistry.getInstance()
+            .counter("scms_login_failures_total", "Rejected login attempts");
+    private static final MetricTimer LOGIN_TIME = MetricsRegistry.getInstance()
+            .timer("scms_login_seconds", "Time to authenticate and load the user profile");
+
+    // Credentials plus every role's profile columns; only the user's own role table joins
+    private static final String LOGIN_QUERY = "SELECT u.user_id, u.password, u.role, " +
+            "p.person_id, p.first_name, p.last_name, p.date_of_birth, " +
+            "p.gender, p.phone_number, p.address, " +
+            "s.student_id, s.registration_number, s.program, s.year_of_study, s.semester, " +
+            "s.enrollment_date, s.fee_balance, s.gpa, s.status AS student_status, " +
+            "l.lecturer_id, l.employee_number AS lecturer_employee_number, " +
+            "l.department AS lecturer_department, l.specialization, l.qualification, " +
+            "l.hire_date, l.office_location, l.status AS lecturer_status, " +
+            "a.admin_id, a.employee_number AS admin_employee_number, " +
+            "a.department AS admin_department, a.access_level " +
+            "FROM users u " +
+            "JOIN persons p ON u.user_id = p.user_id " +
+            "LEFT JOIN students s ON u.role = 'STUDENT' AND s.person_id = p.person_id " +
+            "LEFT JOIN lecturers l ON u.role = 'LECTURER' AND l.person_id = p.person_id " +
+            "LEFT JOIN admins a ON u.role = 'ADMIN' AND a.person_id = p.person_id " +
+            "WHERE u.username = ? AND u.is_active = TRUE";
+
+    /**
+     * The row read by LOGIN_QUERY
+     */
+    private static class LoginRecord {
+        String storedPassword;
+        String role;
+        Person profile; // Null if the role's profile row is missing
+    }
+
     private MySQLDatabase db;
+    private AsyncDatabase asyncDb;
+    private LoginThrottle throttle;
 
     public AuthenticationService() {
         this.db = MySQLDatabase.getInstance();
+        this.asyncDb = AsyncDatabase.getInstance();
+        this.throttle = LoginThrottle.getInstance();
     }
 
     /**
      * Authenticate user with username and password
      * 
      * @return Person object (Student, Lecturer, or Admin) if successful, null
-     *         otherwise
+     *         if the credentials are wrong
+     * @throws LoginLockedException       if the username or client address is
+     *                                    locked out, or the attempt came too
+     *                                    soon after a failed one
+     * @throws RejectedExecutionException if too many logins are being verified
+     *                                    at once
+     * @throws SQLException               if the database cannot be read (not
+     *                                    counted as a failed attempt)
      */
-    public Person login(String username, String password) {
-        try {
-            // Query to fetch user data
-            String query = "SELECT u.user_id, u.username, u.password, u.role, u.email, " +
-                    "p.person_id, p.first_name, p.last_name, p.date_of_birth, " +
-                    "p.gender, p.phone_number, p.address " +
-                    "FROM users u " +
-                    "JOIN persons p ON u.user_id = p.user_id " +
-                    "WHERE u.username = ? AND u.is_active = TRUE";
-
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { username });
-
-            if (rs != null && rs.next()) {
-                String storedPassword = rs.getString("password");
-
-                // Validate password (in production, use hashing!)
-                if (password.equals(storedPassword)) {
-                    String role = rs.getString("role");
-
-                    // Update last login
-                    updateLastLogin(rs.getInt("user_id"));
-
-                    // Log the login
-                    logAction(rs.getInt("user_id"), "LOGIN", "User logged in successfully");
-
-                    // Create appropriate Person object based on role
-                    switch (role) {
-                        case "STUDENT":
-                            return fetchStudentDetails(rs.getInt("person_id"));
-                        case "LECTURER":
-                            return fetchLecturerDetails(rs.getInt("person_id"));
-                        case "ADMIN":
-                            return fetchAdminDetails(rs.getInt("person_id"));
-                        default:
-                            return null;
-                    }
-                }
-            }
+    public Person login(String username, String password) throws SQLException {
+        String address = HostIdentity.getInstance().getEventAddress();
+        LoginThrottle.Decision decision = throttle.check(username, address);
+        if (decision.isLocked()) {
+            throw new LoginLockedException("Too many failed login attempts for " + decision.getLockout(),
+                    decision.getRetryAfterMillis());
+        }
+        if (decision.isTooSoon()) {
+            // Rejected rather than slept on, so no thread is held while the client waits
+            throw new LoginLockedException("Login attempt too soon after a failed one",
+                    decision.getRetryAfterMillis());
+        }
 
-        } catch (SQLException e) {
-            System.err.println("Error during login!");
-            e.printStackTrace();
+        long start = System.nanoTime();
+        Person person = authenticate(username, password);
+        LOGIN_TIME.recordSince(start);
+        if (person != null) {
+            LOGINS.increment();
+            throttle.recordSuccess(username);
+        } else {
+            // Logged in aggregate by the throttle
+            FAILED_LOGINS.increment();
+            throttle.recordFailure(username, address);
         }
+        return person;
+    }
 
-        return null;
+    private Person authenticate(String username, String password) throws SQLException {
+        // Credentials and the whole role profile in one round trip
+        LoginRecord record = db.queryForObject(LOGIN_QUERY, new Object[] { username },
+                AuthenticationService::mapLoginRecord);
+
+        // Hashing runs on the verifier pool, never more than it allows at once
+        PasswordService passwords = PasswordService.getInstance();
+        if (!passwords.verify(record != null ? record.storedPassword : null, password)) {
+            return null;
+        }
+        if (record.profile == null) {
+            System.err.println("No " + record.role + " profile for user " + username + "!");
+            return null;
+        }
+
+        // None of these writes is needed to open the dashboard, so they run in the background
+        passwords.upgradeIfNeeded(record.profile.getUserId(), record.storedPassword, password);
+        updateLastLogin(record.profile.getUserId());
+        logAction(record.profile.getUserId(), "LOGIN",
+                "User " + username + " (" + record.role + ") logged in successfully");
+        return record.profile;
     }
 
     /**
@@ -78,50 +132,47 @@ public class AuthenticationService {
             String registrationNumber, String program,
             int yearOfStudy, int semester) {
         try {
-            // Check if username already exists
-            String checkQuery = "SELECT user_id FROM users WHERE username = ?";
-            ResultSet rs = db.executePreparedSelect(checkQuery, new Object[] { username });
-            if (rs != null && rs.next()) {
-                System.err.println("Username already exists!");
-                return false;
-            }
-
-            // Check if registration number already exists
-            checkQuery = "SELECT student_id FROM students WHERE registration_number = ?";
-            rs = db.executePreparedSelect(checkQuery, new Object[] { registrationNumber });
-            if (rs != null && rs.next()) {
-                System.err.println("Registration number already exists!");
-                return false;
-            }
-
-            // Insert into users table
-            String insertUser = "INSERT INTO users (username, password, role, email) VALUES (?, ?, 'STUDENT', ?)";
-            int userId = db.executeInsertAndGetId(insertUser, new Object[] { username, password, email });
-
-            if (userId <= 0) {
-                return false;
-            }
-
-            // Insert into persons table
-            String insertPerson = "INSERT INTO persons (user_id, first_name, last_name, phone_number) VALUES (?, ?, ?, ?)";
-            int personId = db.executeInsertAndGetId(insertPerson, new Object[] { userId, firstName, lastName, phone });
-
-            if (personId <= 0) {
-                return false;
-            }
-
-            // Insert into students table
-            String insertStudent = "INSERT INTO students (person_id, registration_number, program, year_of_study, semester, enrollment_date, status) "
-                    +
-                    "VALUES (?, ?, ?, ?, ?, CURDATE(), 'ACTIVE')";
-            boolean success = db.executePreparedQuery(insertStudent,
-                    new Object[] { personId, registrationNumber, program, yearOfStudy, semester });
-
-            if (success) {
-                logAction(userId, "REGISTRATION", "New student registered: " + registrationNumber);
-            }
-
-            return success;
+            String passwordHash = PasswordService.getInstance().hash(password);
+            AuditLogWriter auditWriter = AuditLogWriter.getInstance();
+            auditWriter.ensureTables(); // DDL, so not inside the transaction
+
+            // Checks and all inserts form one unit, so a failure part way
+            // through cannot leave a user without a person or student row
+            return db.inTransaction(conn -> {
+                // Check if username already exists
+                String checkQuery = "SELECT user_id FROM users WHERE username = ?";
+                if (db.queryForObject(checkQuery, new Object[] { username }, rs -> rs.getInt("user_id")) != null) {
+                    System.err.println("Username already exists!");
+                    return false;
+                }
+
+                // Check if registration number already exists
+                checkQuery = "SELECT student_id FROM students WHERE registration_number = ?";
+                if (db.queryForObject(checkQuery, new Object[] { registrationNumber },
+                        rs -> rs.getInt("student_id")) != null) {
+                    System.err.println("Registration number already exists!");
+                    return false;
+                }
+
+                // Insert into users table
+                String insertUser = "INSERT INTO users (username, password, role, email) VALUES (?, ?, 'STUDENT', ?)";
+                long userId = db.insertAndGetKey(insertUser, new Object[] { username, passwordHash, email });
+
+                // Insert into persons table
+                String insertPerson = "INSERT INTO persons (user_id, first_name, last_name, phone_number) VALUES (?, ?, ?, ?)";
+                long personId = db.insertAndGetKey(insertPerson, new Object[] { userId, firstName, lastName, phone });
+
+                // Insert into students table
+                String insertStudent = "INSERT INTO students (person_id, registration_number, program, year_of_study, semester, enrollment_date, status) "
+                        +
+                        "VALUES (?, ?, ?, ?, ?, CURDATE(), 'ACTIVE')";
+                db.update(insertStudent, new Object[] { personId, registrationNumber, program, yearOfStudy, semester });
+
+                auditWriter.writeInTransaction(new AuditEvent((int) userId, "REGISTRATION",
+                        "New student registered: " + registrationNumber,
+                        HostIdentity.getInstance().getEventAddress(), System.currentTimeMillis()));
+                return true;
+            });
 
         } catch (SQLException e) {
             System.err.println("Error during student registration!");
@@ -130,154 +181,113 @@ public class AuthenticationService {
         }
     }
 
-    /**
-     * Fetch complete student details
-     */
-    private Student fetchStudentDetails(int personId) throws SQLException {
-        String query = "SELECT s.*, p.*, u.user_id, u.username, u.email " +
-                "FROM students s " +
-                "JOIN persons p ON s.person_id = p.person_id " +
-                "JOIN users u ON p.user_id = u.user_id " +
-                "WHERE s.person_id = ?";
-
-        ResultSet rs = db.executePreparedSelect(query, new Object[] { personId });
-
-        if (rs != null && rs.next()) {
-            Student student = new Student();
-
-            // Set Person fields
-            student.setPersonId(rs.getInt("person_id"));
-            student.setUserId(rs.getInt("user_id"));
-            student.setFirstName(rs.getString("first_name"));
-            student.setLastName(rs.getString("last_name"));
-            student.setPhoneNumber(rs.getString("phone_number"));
-            student.setAddress(rs.getString("address"));
-            student.setGender(rs.getString("gender"));
-
-            if (rs.getDate("date_of_birth") != null) {
-                student.setDateOfBirth(rs.getDate("date_of_birth").toLocalDate());
-            }
-
-            // Set Student fields
-            student.setStudentId(rs.getInt("student_id"));
-            student.setRegistrationNumber(rs.getString("registration_number"));
-            student.setProgram(rs.getString("program"));
-            student.setYearOfStudy(rs.getInt("year_of_study"));
-            student.setSemester(rs.getInt("semester"));
-            student.setFeeBalance(rs.getDouble("fee_balance"));
-            student.setGpa(rs.getDouble("gpa"));
-            student.setStatus(rs.getString("status"));
-
-            if (rs.getDate("enrollment_date") != null) {
-                student.setEnrollmentDate(rs.getDate("enrollment_date").toLocalDate());
-            }
-
-            return student;
+    private static LoginRecord mapLoginRecord(ResultSet rs) throws SQLException {
+        LoginRecord record = new LoginRecord();
+        record.storedPassword = rs.getString("password");
+        record.role = rs.getString("role");
+
+        // Only the role's own table joins, so the other profile columns are null;
+        // a NULL role falls through to the default
+        switch (String.valueOf(record.role)) {
+            case "STUDENT":
+                record.profile = rs.getObject("student_id") != null ? mapStudent(rs) : null;
+                break;
+            case "LECTURER":
+                record.profile = rs.getObject("lecturer_id") != null ? mapLecturer(rs) : null;
+                break;
+            case "ADMIN":
+                record.profile = rs.getObject("admin_id") != null ? mapAdmin(rs) : null;
+                break;
+            default:
+                record.profile = null;
         }
+        return record;
+    }
 
-        return null;
+    private static void mapPersonFields(Person person, ResultSet rs) throws SQLException {
+        person.setPersonId(rs.getInt("person_id"));
+        person.setUserId(rs.getInt("user_id"));
+        person.setFirstName(rs.getString("first_name"));
+        person.setLastName(rs.getString("last_name"));
+        person.setPhoneNumber(rs.getString("phone_number"));
+        person.setAddress(rs.getString("address"));
+        person.setGender(rs.getString("gender"));
+
+        if (rs.getDate("date_of_birth") != null) {
+            person.setDateOfBirth(rs.getDate("date_of_birth").toLocalDate());
+        }
     }
 
-    /**
-     * Fetch complete lecturer details
-     */
-    private Lecturer fetchLecturerDetails(int personId) throws SQLException {
-        String query = "SELECT l.*, p.*, u.user_id, u.username, u.email " +
-                "FROM lecturers l " +
-                "JOIN persons p ON l.person_id = p.person_id " +
-                "JOIN users u ON p.user_id = u.user_id " +
-                "WHERE l.person_id = ?";
-
-        ResultSet rs = db.executePreparedSelect(query, new Object[] { personId });
-
-        if (rs != null && rs.next()) {
-            Lecturer lecturer = new Lecturer();
-
-            // Set Person fields
-            lecturer.setPersonId(rs.getInt("person_id"));
-            lecturer.setUserId(rs.getInt("user_id"));
-            lecturer.setFirstName(rs.getString("first_name"));
-            lecturer.setLastName(rs.getString("last_name"));
-            lecturer.setPhoneNumber(rs.getString("phone_number"));
-            lecturer.setAddress(rs.getString("address"));
-            lecturer.setGender(rs.getString("gender"));
-
-            if (rs.getDate("date_of_birth") != null) {
-                lecturer.setDateOfBirth(rs.getDate("date_of_birth").toLocalDate());
-            }
-
-            // Set Lecturer fields
-            lecturer.setLecturerId(rs.getInt("lecturer_id"));
-            lecturer.setEmployeeNumber(rs.getString("employee_number"));
-            lecturer.setDepartment(rs.getString("department"));
-            lecturer.setSpecialization(rs.getString("specialization"));
-            lecturer.setQualification(rs.getString("qualification"));
-            lecturer.setOfficeLocation(rs.getString("office_location"));
-            lecturer.setStatus(rs.getString("status"));
-
-            if (rs.getDate("hire_date") != null) {
-                lecturer.setHireDate(rs.getDate("hire_date").toLocalDate());
-            }
-
-            return lecturer;
+    private static Student mapStudent(ResultSet rs) throws SQLException {
+        Student student = new Student();
+        mapPersonFields(student, rs);
+
+        // Set Student fields
+        student.setStudentId(rs.getInt("student_id"));
+        student.setRegistrationNumber(rs.getString("registration_number"));
+        student.setProgram(rs.getString("program"));
+        student.setYearOfStudy(rs.getInt("year_of_study"));
+        student.setSemester(rs.getInt("semester"));
+        student.setFeeBalance(rs.getDouble("fee_balance"));
+        student.setGpa(rs.getDouble("gpa"));
+        student.setStatus(rs.getString("student_status"));
+
+        if (rs.getDate("enrollment_date") != null) {
+            student.setEnrollmentDate(rs.getDate("enrollment_date").toLocalDate());
         }
 
-        return null;
+        return student;
     }
 
-    /**
-     * Fetch complete admin details
-     */
-    private Admin fetchAdminDetails(int personId) throws SQLException {
-        String query = "SELECT a.*, p.*, u.user_id, u.username, u.email " +
-                "FROM admins a " +
-                "JOIN persons p ON a.person_id = p.person_id " +
-                "JOIN users u ON p.user_id = u.user_id " +
-                "WHERE a.person_id = ?";
-
-        ResultSet rs = db.executePreparedSelect(query, new Object[] { personId });
-
-        if (rs != null && rs.next()) {
-            Admin admin = new Admin();
-
-            // Set Person fields
-            admin.setPersonId(rs.getInt("person_id"));
-            admin.setUserId(rs.getInt("user_id"));
-            admin.setFirstName(rs.getString("first_name"));
-            admin.setLastName(rs.getString("last_name"));
-            admin.setPhoneNumber(rs.getString("phone_number"));
-            admin.setAddress(rs.getString("address"));
-            admin.setGender(rs.getString("gender"));
-
-            if (rs.getDate("date_of_birth") != null) {
-                admin.setDateOfBirth(rs.getDate("date_of_birth").toLocalDate());
-            }
-
-            // Set Admin fields
-            admin.setAdminId(rs.getInt("admin_id"));
-            admin.setEmployeeNumber(rs.getString("employee_number"));
-            admin.setDepartment(rs.getString("department"));
-            admin.setAccessLevel(rs.getInt("access_level"));
-
-            return admin;
+    private static Lecturer mapLecturer(ResultSet rs) throws SQLException {
+        Lecturer lecturer = new Lecturer();
+        mapPersonFields(lecturer, rs);
+
+        // Set Lecturer fields
+        lecturer.setLecturerId(rs.getInt("lecturer_id"));
+        lecturer.setEmployeeNumber(rs.getString("lecturer_employee_number"));
+        lecturer.setDepartment(rs.getString("lecturer_department"));
+        lecturer.setSpecialization(rs.getString("specialization"));
+        lecturer.setQualification(rs.getString("qualification"));
+        lecturer.setOfficeLocation(rs.getString("office_location"));
+        lecturer.setStatus(rs.getString("lecturer_status"));
+
+        if (rs.getDate("hire_date") != null) {
+            lecturer.setHireDate(rs.getDate("hire_date").toLocalDate());
         }
 
-        return null;
+        return lecturer;
+    }
+
+    private static Admin mapAdmin(ResultSet rs) throws SQLException {
+        Admin admin = new Admin();
+        mapPersonFields(admin, rs);
+
+        // Set Admin fields
+        admin.setAdminId(rs.getInt("admin_id"));
+        admin.setEmployeeNumber(rs.getString("admin_employee_number"));
+        admin.setDepartment(rs.getString("admin_department"));
+        admin.setAccessLevel(rs.getInt("access_level"));
+
+        return admin;
     }
 
     /**
-     * Update last login timestamp
+     * Update last login timestamp in the background
      */
     private void updateLastLogin(int userId) {
         String query = "UPDATE users SET last_login = NOW() WHERE user_id = ?";
-        db.executePreparedQuery(query, new Object[] { userId });
+        asyncDb.updateAsync(query, new Object[] { userId }).exceptionally(e -> {
+            System.err.println("Error updating last login for user " + userId + ": " + e.getMessage());
+            return 0;
+        });
     }
 
     /**
-     * Log user action
+     * Log user action (queued on the AuditLogWriter, so it is also indexed for search)
      */
     private void logAction(int userId, String action, String details) {
-        String query = "INSERT INTO system_logs (user_id, action, details) VALUES (?, ?, ?)";
-        db.executePreparedQuery(query, new Object[] { userId, action, details });
+        AuditLogWriter.getInstance().log(new AuditEvent(userId, action, details,
+                HostIdentity.getInstance().getEventAddress(), System.currentTimeMillis()));
     }
 }
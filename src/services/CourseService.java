@@ -1,23 +1,57 @@
 package services;
 
+import database.AsyncDatabase;
 import database.MySQLDatabase;
+import database.Page;
+import database.RowMapper;
 import models.Course;
 import models.CourseRegistration;
+import utils.LoadingCache;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for course management and registration operations
  * Demonstrates exception handling and business logic
  */
 public class CourseService {
+    /**
+     * Reusable mapper for rows of the courses table (optionally with lecturer_name)
+     */
+    public static final RowMapper<Course> COURSE_MAPPER = CourseService::mapResultSetToCourse;
+
+    // Course catalog cache (change as needed)
+    private static final int CATALOG_CACHE_ENTRIES = 256;
+    private static final long CATALOG_CACHE_TTL_MS = 10 * 60 * 1000L; // 10 minutes
+
+    private static final String ALL_COURSES_KEY = "all";
+
+    /**
+     * Course lists shared by every screen in this process. Lists are stored
+     * unmodifiable and handed out as copies; the Course objects in them are
+     * shared and must not be modified.
+     */
+    private static final LoadingCache<String, List<Course>> CATALOG = new LoadingCache<>(
+            "scms_course_catalog_cache", CATALOG_CACHE_ENTRIES, CATALOG_CACHE_TTL_MS);
+
+    private static final String COURSES_WITH_LECTURER_QUERY =
+            "SELECT c.*, CONCAT(p.first_name, ' ', p.last_name) as lecturer_name " +
+            "FROM courses c " +
+            "LEFT JOIN lecturers l ON c.lecturer_id = l.lecturer_id " +
+            "LEFT JOIN persons p ON l.person_id = p.person_id ";
+
     private MySQLDatabase db;
+    private AsyncDatabase asyncDb;
 
     public CourseService() {
         this.db = MySQLDatabase.getInstance();
+        this.asyncDb = AsyncDatabase.getInstance();
     }
 
     /**
@@ -26,60 +60,47 @@ public class CourseService {
      */
     public boolean registerCourse(int studentId, int courseId, String academicYear, int semester) {
         try {
-            // Validate course exists and is active
-            Course course = getCourseById(courseId);
-            if (course == null || !course.isActive()) {
-                throw new IllegalArgumentException("Course not found or inactive!");
-            }
-
-            // Check if student is currently registered
-            if (isAlreadyRegistered(studentId, courseId, academicYear, semester)) {
-                throw new IllegalStateException("Already registered for this course!");
-            }
-
-            // Check if a dropped registration exists (due to unique constraint)
-            String checkDroppedQuery = "SELECT registration_id FROM course_registrations " +
-                    "WHERE student_id = ? AND course_id = ? AND academic_year = ? " +
-                    "AND semester = ? AND status = 'DROPPED'";
-
-            ResultSet rs = db.executePreparedSelect(checkDroppedQuery,
-                    new Object[] { studentId, courseId, academicYear, semester });
-
-            boolean hadDroppedRegistration = (rs != null && rs.next());
+            // Check and write in one transaction so two concurrent requests
+            // cannot both pass the duplicate check
+            return db.inTransaction(conn -> {
+                // Validate course exists and is active (read fresh, not from the catalog cache)
+                Course course = loadCourse(courseId);
+                if (course == null || !course.isActive()) {
+                    throw new IllegalArgumentException("Course not found or inactive!");
+                }
 
-            if (rs != null) {
-                rs.close();
-            }
+                // Existing registration (a dropped one must be reused due to the unique constraint)
+                String statusQuery = "SELECT status FROM course_registrations " +
+                        "WHERE student_id = ? AND course_id = ? AND academic_year = ? AND semester = ? " +
+                        "FOR UPDATE";
 
-            boolean success;
+                String status = db.queryForObject(statusQuery,
+                        new Object[] { studentId, courseId, academicYear, semester },
+                        rs -> rs.getString("status"));
 
-            if (hadDroppedRegistration) {
-                // Update the dropped registration back to REGISTERED
-                String updateQuery = "UPDATE course_registrations SET status = 'REGISTERED', " +
-                        "registration_date = CURRENT_TIMESTAMP " +
-                        "WHERE student_id = ? AND course_id = ? AND academic_year = ? AND semester = ?";
+                if ("REGISTERED".equals(status)) {
+                    throw new IllegalStateException("Already registered for this course!");
+                }
 
-                success = db.executePreparedQuery(updateQuery,
-                        new Object[] { studentId, courseId, academicYear, semester });
+                if (status != null) {
+                    // Update the dropped registration back to REGISTERED
+                    String updateQuery = "UPDATE course_registrations SET status = 'REGISTERED', " +
+                            "registration_date = CURRENT_TIMESTAMP " +
+                            "WHERE student_id = ? AND course_id = ? AND academic_year = ? AND semester = ?";
 
-                if (success) {
+                    db.update(updateQuery, new Object[] { studentId, courseId, academicYear, semester });
                     System.out.println("Re-registered for previously dropped course: " + course.getCourseCode());
-                }
-            } else {
-                // Insert new registration
-                String insertQuery = "INSERT INTO course_registrations (student_id, course_id, academic_year, semester, status) "
-                        +
-                        "VALUES (?, ?, ?, ?, 'REGISTERED')";
-
-                success = db.executePreparedQuery(insertQuery,
-                        new Object[] { studentId, courseId, academicYear, semester });
+                } else {
+                    // Insert new registration
+                    String insertQuery = "INSERT INTO course_registrations (student_id, course_id, academic_year, semester, status) "
+                            +
+                            "VALUES (?, ?, ?, ?, 'REGISTERED')";
 
-                if (success) {
+                    db.update(insertQuery, new Object[] { studentId, courseId, academicYear, semester });
                     System.out.println("Successfully registered for course: " + course.getCourseCode());
                 }
-            }
-
-            return success;
+                return true;
+            });
 
         } catch (IllegalArgumentException | IllegalStateException e) {
             System.err.println("Registration Error: " + e.getMessage());
@@ -95,22 +116,19 @@ public class CourseService {
      * Drop a course registration
      */
     public boolean dropCourse(int registrationId, int studentId) {
-        ResultSet rs = null;
         try {
 
             // Verify the registration belongs to the student
             String checkQuery = "SELECT registration_id FROM course_registrations " +
                     "WHERE registration_id = ? AND student_id = ? AND status = 'REGISTERED'";
 
-            rs = db.executePreparedSelect(checkQuery, new Object[] { registrationId, studentId });
+            Integer found = db.queryForObject(checkQuery, new Object[] { registrationId, studentId },
+                    rs -> rs.getInt("registration_id"));
 
-            if (rs == null || !rs.next()) {
+            if (found == null) {
                 throw new IllegalArgumentException("Invalid registration or already dropped!");
             }
 
-            // Close the ResultSet before executing update
-            rs.close();
-
             // Update status to DROPPED
             String updateQuery = "UPDATE course_registrations SET status = 'DROPPED' WHERE registration_id = ?";
             boolean success = db.executePreparedQuery(updateQuery, new Object[] { registrationId });
@@ -130,15 +148,6 @@ public class CourseService {
             System.err.println("Error dropping course!");
             e.printStackTrace();
             return false;
-        } finally {
-            // Ensure ResultSet is closed
-            if (rs != null) {
-                try {
-                    rs.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
 
@@ -149,19 +158,12 @@ public class CourseService {
         List<Course> courses = new ArrayList<>();
 
         try {
-            String query = "SELECT c.*, CONCAT(p.first_name, ' ', p.last_name) as lecturer_name " +
-                    "FROM courses c " +
-                    "LEFT JOIN lecturers l ON c.lecturer_id = l.lecturer_id " +
-                    "LEFT JOIN persons p ON l.person_id = p.person_id " +
+            String query = COURSES_WITH_LECTURER_QUERY +
                     "WHERE c.year_level = ? AND c.semester = ? AND c.is_active = TRUE " +
                     "ORDER BY c.course_code";
 
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { yearLevel, semester });
-
-            while (rs != null && rs.next()) {
-                Course course = mapResultSetToCourse(rs);
-                courses.add(course);
-            }
+            courses = cached("available:" + yearLevel + ":" + semester,
+                    () -> db.query(query, new Object[] { yearLevel, semester }, COURSE_MAPPER));
 
         } catch (SQLException e) {
             System.err.println("Error fetching available courses!");
@@ -178,18 +180,7 @@ public class CourseService {
         List<Course> courses = new ArrayList<>();
 
         try {
-            String query = "SELECT c.*, CONCAT(p.first_name, ' ', p.last_name) as lecturer_name " +
-                    "FROM courses c " +
-                    "LEFT JOIN lecturers l ON c.lecturer_id = l.lecturer_id " +
-                    "LEFT JOIN persons p ON l.person_id = p.person_id " +
-                    "ORDER BY c.department, c.course_code";
-
-            ResultSet rs = db.fetchData(query);
-
-            while (rs != null && rs.next()) {
-                Course course = mapResultSetToCourse(rs);
-                courses.add(course);
-            }
+            courses = getCatalog();
 
         } catch (SQLException e) {
             System.err.println("Error fetching all courses!");
@@ -199,6 +190,86 @@ public class CourseService {
         return courses;
     }
 
+    /**
+     * Get all courses from the catalog, for callers that report a failed load themselves
+     *
+     * @throws SQLException if the catalog cannot be loaded
+     */
+    public List<Course> getCatalog() throws SQLException {
+        return cached(ALL_COURSES_KEY, this::loadAllCourses);
+    }
+
+    /**
+     * Get all active courses ordered by year level, semester and course code
+     *
+     * @throws SQLException if the catalog cannot be loaded
+     */
+    public List<Course> getActiveCourses() throws SQLException {
+        List<Course> courses = new ArrayList<>();
+        for (Course course : getCatalog()) {
+            if (course.isActive()) {
+                courses.add(course);
+            }
+        }
+        courses.sort(Comparator.comparingInt(Course::getYearLevel)
+                .thenComparingInt(Course::getSemester)
+                .thenComparing(Course::getCourseCode));
+        return courses;
+    }
+
+    /**
+     * Get a course from the catalog
+     *
+     * @return The course, or null if there is no such course
+     * @throws SQLException if the catalog cannot be loaded
+     */
+    public Course getCourseById(int courseId) throws SQLException {
+        for (Course course : getCatalog()) {
+            if (course.getCourseId() == courseId) {
+                return course;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get one page of all courses ordered by course code
+     *
+     * @param afterKey getNextKey() of the previous page, or null for the first page
+     * @throws SQLException if the catalog cannot be loaded
+     */
+    public Page<Course> getCoursesPage(Object[] afterKey, int limit) throws SQLException {
+        // Paged in memory over the cached catalog rather than with a
+        // keyset query per page
+        List<Course> courses = getCatalog();
+        courses.sort(Comparator.comparing(Course::getCourseCode));
+
+        String after = afterKey == null ? null : (String) afterKey[0];
+        List<Course> items = new ArrayList<>();
+        boolean hasMore = false;
+        for (Course course : courses) {
+            if (after != null && course.getCourseCode().compareTo(after) <= 0) {
+                continue;
+            }
+            if (items.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            items.add(course);
+        }
+
+        Object[] nextKey = items.isEmpty() ? afterKey
+                : new Object[] { items.get(items.size() - 1).getCourseCode() };
+        return new Page<>(items, nextKey, hasMore);
+    }
+
+    /**
+     * Get all courses without blocking the caller
+     */
+    public CompletableFuture<List<Course>> getAllCoursesAsync() {
+        return asyncDb.supplyAsync(() -> getAllCourses());
+    }
+
     /**
      * Get student's registered courses
      */
@@ -214,9 +285,7 @@ public class CourseService {
                     "WHERE cr.student_id = ? AND cr.academic_year = ? AND cr.semester = ? " +
                     "ORDER BY c.course_code";
 
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { studentId, academicYear, semester });
-
-            while (rs != null && rs.next()) {
+            registrations = db.query(query, new Object[] { studentId, academicYear, semester }, rs -> {
                 CourseRegistration reg = new CourseRegistration();
                 reg.setRegistrationId(rs.getInt("registration_id"));
                 reg.setStudentId(rs.getInt("student_id"));
@@ -227,9 +296,8 @@ public class CourseService {
                 reg.setCourseCode(rs.getString("course_code"));
                 reg.setCourseName(rs.getString("course_name"));
                 reg.setCredits(rs.getInt("credits"));
-
-                registrations.add(reg);
-            }
+                return reg;
+            });
 
         } catch (SQLException e) {
             System.err.println("Error fetching student registrations!");
@@ -247,12 +315,8 @@ public class CourseService {
 
         try {
             String query = "SELECT * FROM courses WHERE lecturer_id = ? AND is_active = TRUE ORDER BY course_code";
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { lecturerId });
-
-            while (rs != null && rs.next()) {
-                Course course = mapResultSetToCourse(rs);
-                courses.add(course);
-            }
+            courses = cached("lecturer:" + lecturerId,
+                    () -> db.query(query, new Object[] { lecturerId }, COURSE_MAPPER));
 
         } catch (SQLException e) {
             System.err.println("Error fetching lecturer courses!");
@@ -278,9 +342,7 @@ public class CourseService {
                     "AND cr.status = 'REGISTERED' " +
                     "ORDER BY student_name";
 
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { courseId, academicYear, semester });
-
-            while (rs != null && rs.next()) {
+            enrollments = db.query(query, new Object[] { courseId, academicYear, semester }, rs -> {
                 CourseRegistration enrollment = new CourseRegistration();
                 enrollment.setRegistrationId(rs.getInt("registration_id"));
                 enrollment.setStudentId(rs.getInt("student_id"));
@@ -288,9 +350,8 @@ public class CourseService {
                 enrollment.setStudentName(rs.getString("student_name"));
                 enrollment.setRegistrationNumber(rs.getString("registration_number"));
                 enrollment.setStatus(rs.getString("status"));
-
-                enrollments.add(enrollment);
-            }
+                return enrollment;
+            });
 
         } catch (SQLException e) {
             System.err.println("Error fetching course enrollments!");
@@ -309,12 +370,16 @@ public class CourseService {
                     "department, semester, year_level, max_capacity, lecturer_id) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-            return db.executePreparedQuery(query, new Object[] {
+            boolean success = db.executePreparedQuery(query, new Object[] {
                     course.getCourseCode(), course.getCourseName(), course.getDescription(),
                     course.getCredits(), course.getDepartment(), course.getSemester(),
                     course.getYearLevel(), course.getMaxCapacity(),
                     course.getLecturerId() > 0 ? course.getLecturerId() : null
             });
+            if (success) {
+                invalidateCatalog();
+            }
+            return success;
 
         } catch (Exception e) {
             System.err.println("Error adding course!");
@@ -323,33 +388,38 @@ public class CourseService {
         }
     }
 
-    // Helper methods
+    /**
+     * Drop every cached course list. Call after any change to the courses
+     * table (or to a lecturer's name) so the next read goes to the database.
+     * Other processes see the change when their own entries expire.
+     */
+    public static void invalidateCatalog() {
+        CATALOG.invalidateAll();
+    }
 
-    private Course getCourseById(int courseId) throws SQLException {
-        String query = "SELECT * FROM courses WHERE course_id = ?";
-        ResultSet rs = db.executePreparedSelect(query, new Object[] { courseId });
+    // Helper methods
 
-        if (rs != null && rs.next()) {
-            return mapResultSetToCourse(rs);
-        }
-        return null;
+    /**
+     * A copy of the cached list for the key, loading it on a miss
+     */
+    private static List<Course> cached(String key, LoadingCache.Loader<List<Course>> loader) throws SQLException {
+        return new ArrayList<>(CATALOG.get(key, () -> Collections.unmodifiableList(loader.load())));
     }
 
-    private boolean isAlreadyRegistered(int studentId, int courseId, String academicYear, int semester)
-            throws SQLException {
-        String query = "SELECT COUNT(*) as count FROM course_registrations " +
-                "WHERE student_id = ? AND course_id = ? AND academic_year = ? " +
-                "AND semester = ? AND status = 'REGISTERED'";
-
-        ResultSet rs = db.executePreparedSelect(query, new Object[] { studentId, courseId, academicYear, semester });
+    private List<Course> loadAllCourses() throws SQLException {
+        String query = COURSES_WITH_LECTURER_QUERY + "ORDER BY c.department, c.course_code";
+        return db.query(query, new Object[] {}, COURSE_MAPPER);
+    }
 
-        if (rs != null && rs.next()) {
-            return rs.getInt("count") > 0;
-        }
-        return false;
+    /**
+     * Read a course straight from the database, bypassing the catalog cache
+     */
+    private Course loadCourse(int courseId) throws SQLException {
+        String query = "SELECT * FROM courses WHERE course_id = ?";
+        return db.queryForObject(query, new Object[] { courseId }, COURSE_MAPPER);
     }
 
-    private Course mapResultSetToCourse(ResultSet rs) throws SQLException {
+    private static Course mapResultSetToCourse(ResultSet rs) throws SQLException {
         Course course = new Course();
         course.setCourseId(rs.getInt("course_id"));
         course.setCourseCode(rs.getString("course_code"));
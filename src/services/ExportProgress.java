@@ -0,0 +1,82 @@
+package services;
+
+/**
+ * Snapshot of a running or finished log export, passed to progress listeners
+ */
+public class ExportProgress {
+
+    public enum State {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final String fileName;
+    private final State state;
+    private final long rowsWritten;
+    private final long estimatedRows;
+    private final long elapsedMillis;
+    private final String message;
+
+    public ExportProgress(String fileName, State state, long rowsWritten, long estimatedRows, long elapsedMillis,
+            String message) {
+        this.fileName = fileName;
+        this.state = state;
+        this.rowsWritten = rowsWritten;
+        this.estimatedRows = estimatedRows;
+        this.elapsedMillis = elapsedMillis;
+        this.message = message;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Expected number of rows, or -1 if it cannot be estimated cheaply
+     */
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    /**
+     * Percentage done (capped at 99 until finished), or -1 if unknown
+     */
+    public int getPercent() {
+        if (state == State.COMPLETED) {
+            return 100;
+        }
+        if (estimatedRows <= 0) {
+            return -1;
+        }
+        return (int) Math.min(99, rowsWritten * 100 / estimatedRows);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Error detail, may be null
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    @Override
+    public String toString() {
+        return "Export " + fileName + ": " + state + ", " + rowsWritten + " rows"
+                + (estimatedRows >= 0 ? " of ~" + estimatedRows : "") + " in " + elapsedMillis + " ms"
+                + (message != null ? " (" + message + ")" : "");
+    }
+}
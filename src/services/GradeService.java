@@ -1,6 +1,9 @@
 package services;
 
+import database.AsyncDatabase;
+import database.BatchResult;
 import database.MySQLDatabase;
+import database.RowMapper;
 import models.Grade;
 
 import java.io.BufferedWriter;
@@ -10,20 +13,28 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for grade management operations
  * Demonstrates file I/O operations for exporting grades
  */
 public class GradeService {
+    /**
+     * Reusable mapper for rows of the grades table (optionally joined with course/student names)
+     */
+    public static final RowMapper<Grade> GRADE_MAPPER = GradeService::mapResultSetToGrade;
+
     private MySQLDatabase db;
+    private AsyncDatabase asyncDb;
 
     public GradeService() {
         this.db = MySQLDatabase.getInstance();
+        this.asyncDb = AsyncDatabase.getInstance();
     }
 
     /**
-     * Upload grades for a student's course registration
+     * Upload grades for a student's course registration in a course the lecturer teaches
      */
     public boolean uploadGrade(int registrationId, double courseworkMarks, double examMarks,
             int lecturerId, String remarks) {
@@ -36,6 +47,9 @@ public class GradeService {
             if (examMarks < 0 || examMarks > 60) {
                 throw new IllegalArgumentException("Exam marks must be between 0 and 60!");
             }
+            if (!isTaughtBy(registrationId, lecturerId)) {
+                throw new IllegalArgumentException("You can only grade students in courses you teach!");
+            }
 
             double totalMarks = courseworkMarks + examMarks;
 
@@ -44,9 +58,8 @@ public class GradeService {
 
             // Check if grade already exists
             String checkQuery = "SELECT grade_id FROM grades WHERE registration_id = ?";
-            ResultSet rs = db.executePreparedSelect(checkQuery, new Object[] { registrationId });
-
-            boolean exists = (rs != null && rs.next());
+            boolean exists = db.queryForObject(checkQuery, new Object[] { registrationId },
+                    rs -> rs.getInt("grade_id")) != null;
 
             if (exists) {
                 // Update existing grade
@@ -81,6 +94,93 @@ public class GradeService {
         }
     }
 
+    /**
+     * Upload many grades at once (e.g. a whole class list) using a JDBC batch.
+     * Existing grades for the same registration are updated in place.
+     *
+     * @return Batch result, or null if any grade fails validation or is for a course the
+     *         lecturer does not teach (nothing is written)
+     */
+    public BatchResult uploadGrades(List<Grade> grades, int lecturerId) {
+        try {
+            List<Object[]> rows = new ArrayList<>();
+
+            for (Grade input : grades) {
+                if (input.getCourseworkMarks() < 0 || input.getCourseworkMarks() > 40) {
+                    throw new IllegalArgumentException("Coursework marks must be between 0 and 40!");
+                }
+                if (input.getExamMarks() < 0 || input.getExamMarks() > 60) {
+                    throw new IllegalArgumentException("Exam marks must be between 0 and 60!");
+                }
+
+                // Recalculate totals and letter grade from the marks
+                Grade grade = new Grade(input.getRegistrationId(), input.getCourseworkMarks(), input.getExamMarks());
+                rows.add(new Object[] {
+                        grade.getRegistrationId(), grade.getCourseworkMarks(), grade.getExamMarks(),
+                        grade.getTotalMarks(), grade.getLetterGrade(), grade.getGradePoints(),
+                        input.getRemarks(), lecturerId
+                });
+            }
+
+            if (!areAllTaughtBy(grades, lecturerId)) {
+                throw new IllegalArgumentException("You can only grade students in courses you teach!");
+            }
+
+            // registration_id is UNIQUE in grades, so one statement covers insert and update
+            String upsertQuery = "INSERT INTO grades (registration_id, coursework_marks, exam_marks, " +
+                    "total_marks, letter_grade, grade_points, remarks, uploaded_by) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE coursework_marks = VALUES(coursework_marks), " +
+                    "exam_marks = VALUES(exam_marks), total_marks = VALUES(total_marks), " +
+                    "letter_grade = VALUES(letter_grade), grade_points = VALUES(grade_points), " +
+                    "remarks = VALUES(remarks), uploaded_by = VALUES(uploaded_by), uploaded_at = NOW()";
+
+            return db.executeBatch(upsertQuery, rows);
+
+        } catch (IllegalArgumentException e) {
+            System.err.println("Validation Error: " + e.getMessage());
+            return null;
+        } catch (SQLException e) {
+            System.err.println("Error uploading grades!");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Whether the registration is for a course the lecturer teaches
+     */
+    public boolean isTaughtBy(int registrationId, int lecturerId) throws SQLException {
+        String query = "SELECT c.lecturer_id FROM course_registrations cr " +
+                "JOIN courses c ON cr.course_id = c.course_id " +
+                "WHERE cr.registration_id = ?";
+        Integer teacher = db.queryForObject(query, new Object[] { registrationId },
+                rs -> rs.getInt("lecturer_id"));
+        return teacher != null && teacher == lecturerId;
+    }
+
+    /**
+     * Whether every grade's registration is for a course the lecturer teaches (one query)
+     */
+    private boolean areAllTaughtBy(List<Grade> grades, int lecturerId) throws SQLException {
+        if (grades.isEmpty()) {
+            return true;
+        }
+        StringBuilder placeholders = new StringBuilder();
+        Object[] params = new Object[grades.size() + 1];
+        params[0] = lecturerId;
+        for (int i = 0; i < grades.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+            params[i + 1] = grades.get(i).getRegistrationId();
+        }
+        String query = "SELECT COUNT(DISTINCT cr.registration_id) AS taught FROM course_registrations cr " +
+                "JOIN courses c ON cr.course_id = c.course_id " +
+                "WHERE c.lecturer_id = ? AND cr.registration_id IN (" + placeholders + ")";
+        Integer taught = db.queryForObject(query, params, rs -> rs.getInt("taught"));
+        long distinct = grades.stream().mapToInt(Grade::getRegistrationId).distinct().count();
+        return taught != null && taught == distinct;
+    }
+
     /**
      * Get grades for a specific student
      */
@@ -98,12 +198,7 @@ public class GradeService {
                     "WHERE s.student_id = ? " +
                     "ORDER BY c.course_code";
 
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { studentId });
-
-            while (rs != null && rs.next()) {
-                Grade grade = mapResultSetToGrade(rs);
-                grades.add(grade);
-            }
+            grades = db.query(query, new Object[] { studentId }, GRADE_MAPPER);
 
         } catch (SQLException e) {
             System.err.println("Error fetching student grades!");
@@ -113,6 +208,13 @@ public class GradeService {
         return grades;
     }
 
+    /**
+     * Get grades for a specific student without blocking the caller
+     */
+    public CompletableFuture<List<Grade>> getStudentGradesAsync(int studentId) {
+        return asyncDb.supplyAsync(() -> getStudentGrades(studentId));
+    }
+
     /**
      * Get grades for a specific course
      */
@@ -130,12 +232,7 @@ public class GradeService {
                     "WHERE cr.course_id = ? AND cr.academic_year = ? AND cr.semester = ? " +
                     "ORDER BY student_name";
 
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { courseId, academicYear, semester });
-
-            while (rs != null && rs.next()) {
-                Grade grade = mapResultSetToGrade(rs);
-                grades.add(grade);
-            }
+            grades = db.query(query, new Object[] { courseId, academicYear, semester }, GRADE_MAPPER);
 
         } catch (SQLException e) {
             System.err.println("Error fetching course grades!");
@@ -287,9 +384,7 @@ public class GradeService {
                     "JOIN course_registrations cr ON g.registration_id = cr.registration_id " +
                     "WHERE cr.course_id = ? AND cr.academic_year = ? AND cr.semester = ?";
 
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { courseId, academicYear, semester });
-
-            if (rs != null && rs.next()) {
+            String summary = db.queryForObject(query, new Object[] { courseId, academicYear, semester }, rs -> {
                 int total = rs.getInt("total_students");
                 double avg = rs.getDouble("average");
                 double highest = rs.getDouble("highest");
@@ -298,6 +393,10 @@ public class GradeService {
 
                 return String.format("Total: %d | Average: %.2f | Highest: %.2f | Lowest: %.2f | Passed: %d (%.1f%%)",
                         total, avg, highest, lowest, passed, (passed * 100.0 / total));
+            });
+
+            if (summary != null) {
+                return summary;
             }
 
         } catch (SQLException e) {
@@ -309,7 +408,7 @@ public class GradeService {
     }
 
     // Helper method
-    private Grade mapResultSetToGrade(ResultSet rs) throws SQLException {
+    private static Grade mapResultSetToGrade(ResultSet rs) throws SQLException {
         Grade grade = new Grade();
         grade.setGradeId(rs.getInt("grade_id"));
         grade.setRegistrationId(rs.getInt("registration_id"));
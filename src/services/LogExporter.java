@@ -0,0 +1,214 @@
+package services;
+
+import models.SystemLog;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the log entries matching a search to CSV in the background.
+ *
+ * Rows are read off a forward-only database cursor and written through a
+ * large buffer on a file channel (optionally gzip compressed), so memory
+ * use stays constant however many entries are exported. The file is
+ * written under a .part name and renamed once complete, so a cancelled or
+ * failed export never leaves a truncated file behind. Exports run one at a
+ * time on their own daemon thread.
+ */
+public class LogExporter {
+    private static final int BUFFER_BYTES = 1024 * 1024; // File write buffer
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+    private static final int PROGRESS_INTERVAL_ROWS = 5000; // Listener called at most this often
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static LogExporter instance; // Singleton pattern
+
+    private final LogService logService;
+    private final ExecutorService executor;
+    private final AtomicBoolean cancelRequested = new AtomicBoolean();
+
+    private LogExporter() {
+        this.logService = new LogService();
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "scms-log-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get singleton instance of LogExporter
+     */
+    public static synchronized LogExporter getInstance() {
+        if (instance == null) {
+            instance = new LogExporter();
+        }
+        return instance;
+    }
+
+    /**
+     * Export the entries matching the search, newest first
+     *
+     * @param target   File to create (".gz" is appended when compressing and missing)
+     * @param gzip     Compress the output
+     * @param listener Receives progress while running and once finished (on the export thread)
+     */
+    public Future<ExportProgress> export(LogSearchQuery search, Path target, boolean gzip,
+            Consumer<ExportProgress> listener) {
+        Path file = gzip && !target.getFileName().toString().endsWith(".gz")
+                ? target.resolveSibling(target.getFileName() + ".gz")
+                : target;
+        return executor.submit(() -> runExport(search, file, gzip, listener));
+    }
+
+    /**
+     * Ask the running export to stop; its partial file is deleted
+     */
+    public void cancel() {
+        cancelRequested.set(true);
+    }
+
+    private ExportProgress runExport(LogSearchQuery search, Path file, boolean gzip,
+            Consumer<ExportProgress> listener) {
+        cancelRequested.set(false);
+        String fileName = file.toString();
+        long start = System.currentTimeMillis();
+        long estimated = -1;
+        long rows = 0;
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+
+        try {
+            estimated = logService.estimateMatches(search);
+            report(new ExportProgress(fileName, ExportProgress.State.RUNNING, 0, estimated, 0, null), listener);
+
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            boolean cancelled = false;
+            try (Writer writer = openWriter(partial, gzip);
+                    Stream<SystemLog> logs = logService.streamLogs(search)) {
+                writer.write("SYSTEM LOGS REPORT - Generated: " + LocalDateTime.now().format(TIMESTAMP_FORMAT)
+                        + "\n\n");
+                writer.write("Log ID,Timestamp,User,Role,Action,Details,IP Address\n");
+
+                Iterator<SystemLog> it = logs.iterator();
+                while (it.hasNext()) {
+                    if (cancelRequested.get()) {
+                        cancelled = true;
+                        break;
+                    }
+                    writeRow(writer, it.next());
+                    rows++;
+                    if (rows % PROGRESS_INTERVAL_ROWS == 0) {
+                        report(new ExportProgress(fileName, ExportProgress.State.RUNNING, rows, estimated,
+                                System.currentTimeMillis() - start, null), listener);
+                    }
+                }
+            }
+
+            if (cancelled) {
+                Files.deleteIfExists(partial);
+                return report(new ExportProgress(fileName, ExportProgress.State.CANCELLED, rows, estimated,
+                        System.currentTimeMillis() - start, null), listener);
+            }
+            moveIntoPlace(partial, file);
+            ExportProgress done = new ExportProgress(fileName, ExportProgress.State.COMPLETED, rows, estimated,
+                    System.currentTimeMillis() - start, null);
+            System.out.println(done);
+            return report(done, listener);
+
+        } catch (Exception e) {
+            System.err.println("Error exporting logs to " + fileName + ": " + e.getMessage());
+            e.printStackTrace();
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Nothing more to clean up
+            }
+            return report(new ExportProgress(fileName, ExportProgress.State.FAILED, rows, estimated,
+                    System.currentTimeMillis() - start, e.getMessage()), listener);
+        }
+    }
+
+    private static Writer openWriter(Path file, boolean gzip) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES);
+        if (gzip) {
+            out = new GZIPOutputStream(out, GZIP_BUFFER_BYTES);
+        }
+        // Small char buffer: bytes are batched by the stream below
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private static void writeRow(Writer writer, SystemLog log) throws IOException {
+        writer.write(String.valueOf(log.getLogId()));
+        writer.write(',');
+        writeField(writer, log.getTimestamp() != null
+                ? log.getTimestamp().toLocalDateTime().format(TIMESTAMP_FORMAT)
+                : null);
+        writer.write(',');
+        writeField(writer, log.getUserName());
+        writer.write(',');
+        writeField(writer, log.getRole());
+        writer.write(',');
+        writeField(writer, log.getAction());
+        writer.write(',');
+        writeField(writer, log.getDetails());
+        writer.write(',');
+        writeField(writer, log.getIpAddress());
+        writer.write('\n');
+    }
+
+    /**
+     * Quoted CSV field with embedded quotes doubled
+     */
+    private static void writeField(Writer writer, String value) throws IOException {
+        writer.write('"');
+        if (value != null) {
+            writer.write(value.indexOf('"') >= 0 ? value.replace("\"", "\"\"") : value);
+        }
+        writer.write('"');
+    }
+
+    private static void moveIntoPlace(Path partial, Path file) throws IOException {
+        try {
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private ExportProgress report(ExportProgress progress, Consumer<ExportProgress> listener) {
+        if (listener != null) {
+            try {
+                listener.accept(progress);
+            } catch (RuntimeException e) {
+                System.err.println("Error in export progress listener: " + e.getMessage());
+            }
+        }
+        return progress;
+    }
+}
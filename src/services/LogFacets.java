@@ -0,0 +1,85 @@
+package services;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hit counts per action, role and day for a log search, taken over the
+ * newest matches (up to the sample limit) so they stay cheap to compute
+ * however many entries match.
+ */
+public class LogFacets {
+    private final Map<String, Long> actions = new TreeMap<>();
+    private final Map<String, Long> roles = new TreeMap<>();
+    private final Map<LocalDate, Long> days = new TreeMap<>(Collections.reverseOrder());
+    private final int sampleLimit;
+    private long total;
+
+    public LogFacets(int sampleLimit) {
+        this.sampleLimit = sampleLimit;
+    }
+
+    /**
+     * Count hits entries with the given action, role and day
+     */
+    public void add(String action, String role, LocalDate day, long hits) {
+        actions.merge(action, hits, Long::sum);
+        roles.merge(role != null ? role : "SYSTEM", hits, Long::sum);
+        if (day != null) {
+            days.merge(day, hits, Long::sum);
+        }
+        total += hits;
+    }
+
+    /**
+     * Counts per action, most frequent first
+     */
+    public Map<String, Long> getActionCounts() {
+        return byCount(actions);
+    }
+
+    /**
+     * Counts per role ("SYSTEM" for entries without a user), most frequent first
+     */
+    public Map<String, Long> getRoleCounts() {
+        return byCount(roles);
+    }
+
+    /**
+     * Counts per day, newest first
+     */
+    public Map<LocalDate, Long> getDayCounts() {
+        return Collections.unmodifiableMap(days);
+    }
+
+    /**
+     * Number of matches counted
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * True if the sample limit was reached, so more entries match than were counted
+     */
+    public boolean isSampled() {
+        return total >= sampleLimit;
+    }
+
+    private static Map<String, Long> byCount(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    @Override
+    public String toString() {
+        return "LogFacets[total=" + total + (isSampled() ? "+" : "") + ", actions=" + getActionCounts()
+                + ", roles=" + getRoleCounts() + ", days=" + days.size() + "]";
+    }
+}
@@ -0,0 +1,166 @@
+package services;
+
+import database.BatchResult;
+import database.MySQLDatabase;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Word index over system_logs, stored in system_log_terms as one row per
+ * (term, timestamp, log_id). MySQL cannot put a FULLTEXT index on the
+ * partitioned system_logs table, so words are indexed here instead: a
+ * word lookup is a primary-key range scan that already returns entries in
+ * time order, which lets a search stop after one page.
+ *
+ * Terms are written in the same transaction as their log entry by the
+ * AuditLogWriter. Entries that existed before the index was created are
+ * indexed newest first by backfill(), which the MaintenanceScheduler runs
+ * in small chunks. system_log_terms is partitioned by month like
+ * system_logs, so retention drops both together.
+ */
+public class LogSearchIndex {
+    public static final String TERMS_TABLE = "system_log_terms";
+
+    // Tokenizer parameters
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 40; // Size of system_log_terms.term; longer words are cut
+    private static final int MAX_TERMS_PER_ENTRY = 100; // Change as needed
+    private static final int INSERT_CHUNK_SIZE = 1000;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final String INSERT_TERM_SQL =
+            "INSERT IGNORE INTO system_log_terms (term, timestamp, log_id) VALUES (?, ?, ?)";
+    private static final String CREATE_PROGRESS_SQL = "CREATE TABLE IF NOT EXISTS search_index_progress ("
+            + "index_name VARCHAR(40) PRIMARY KEY, backfill_below BIGINT NOT NULL)";
+
+    private static LogSearchIndex instance; // Singleton pattern
+
+    private final MySQLDatabase db;
+    private final LogStorageManager storageManager;
+    private volatile boolean ready;
+
+    private LogSearchIndex() {
+        this.db = MySQLDatabase.getInstance();
+        this.storageManager = new LogStorageManager();
+    }
+
+    /**
+     * Get singleton instance of LogSearchIndex
+     */
+    public static synchronized LogSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new LogSearchIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Split text into distinct lower-case words of letters and digits.
+     * The same rules apply to indexed text and to search input.
+     */
+    public static List<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text != null) {
+            for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+                if (word.length() >= MIN_TERM_LENGTH) {
+                    terms.add(word.length() > MAX_TERM_LENGTH ? word.substring(0, MAX_TERM_LENGTH) : word);
+                }
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Add the system_log_terms rows for one log entry
+     *
+     * @param texts The indexed columns of the entry (action and details)
+     */
+    public static void addTermRows(List<Object[]> termRows, long logId, Timestamp timestamp, String... texts) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String text : texts) {
+            terms.addAll(tokenize(text));
+        }
+        int count = 0;
+        for (String term : terms) {
+            if (count++ == MAX_TERMS_PER_ENTRY) {
+                break;
+            }
+            termRows.add(new Object[] { term, timestamp, logId });
+        }
+    }
+
+    /**
+     * Create the index tables if needed. Must be called before writing
+     * terms and outside any transaction (DDL commits implicitly).
+     */
+    public synchronized void ensureTable() throws SQLException {
+        if (ready) {
+            return;
+        }
+        if (!db.isConnected()) {
+            db.connect();
+        }
+        db.update(CREATE_PROGRESS_SQL, new Object[0]);
+        if (storageManager.createTermsTable()) {
+            // Entries written from now on are indexed by their writer, older ones by backfill()
+            db.update("INSERT IGNORE INTO search_index_progress (index_name, backfill_below) "
+                    + "SELECT ?, COALESCE(MAX(log_id), 0) + 1 FROM system_logs", new Object[] { TERMS_TABLE });
+        }
+        ready = true;
+    }
+
+    /**
+     * Store term rows built by addTermRows(); run it in the transaction
+     * that inserts the log entries
+     */
+    public void insertTerms(List<Object[]> termRows) throws SQLException {
+        if (termRows.isEmpty()) {
+            return;
+        }
+        BatchResult result = db.executeBatch(INSERT_TERM_SQL, termRows, INSERT_CHUNK_SIZE);
+        if (!result.isSuccess()) {
+            throw new SQLException("Search terms not stored: " + result);
+        }
+    }
+
+    /**
+     * Index the next chunk of entries older than the index, newest first
+     *
+     * @return Entries indexed, 0 once every entry is indexed
+     */
+    public int backfill(int limit) throws SQLException {
+        ensureTable();
+        Long below = db.queryForObject("SELECT backfill_below FROM search_index_progress WHERE index_name = ?",
+                new Object[] { TERMS_TABLE }, rs -> rs.getLong("backfill_below"));
+        if (below == null || below <= 1) {
+            return 0;
+        }
+
+        List<Object[]> termRows = new ArrayList<>();
+        List<Long> logIds = db.query(
+                "SELECT log_id, timestamp, action, details FROM system_logs "
+                        + "WHERE log_id < ? ORDER BY log_id DESC LIMIT ?",
+                new Object[] { below, limit }, rs -> {
+                    long logId = rs.getLong("log_id");
+                    addTermRows(termRows, logId, rs.getTimestamp("timestamp"),
+                            rs.getString("action"), rs.getString("details"));
+                    return logId;
+                });
+        long next = logIds.size() < limit ? 0 : logIds.get(logIds.size() - 1);
+
+        db.inTransaction(conn -> {
+            insertTerms(termRows);
+            db.update("UPDATE search_index_progress SET backfill_below = ? WHERE index_name = ?",
+                    new Object[] { next, TERMS_TABLE });
+            return null;
+        });
+        return logIds.size();
+    }
+}
@@ -0,0 +1,183 @@
+package services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A parsed log search: words, prefixes and phrases matched through the
+ * term index, plus action, role and date facet filters.
+ *
+ * Query syntax:
+ * - word matches entries containing that word
+ * - word* matches entries containing a word starting with it
+ * - "two words" matches entries whose details contain the exact phrase
+ *
+ * All parts must match. Words too short to be indexed are matched as
+ * substrings of the details instead.
+ */
+public class LogSearchQuery {
+    private static final Pattern PART = Pattern.compile("\"([^\"]*)\"?|(\\S+)");
+
+    private final String text;
+    private final List<String> terms = new ArrayList<>();
+    private final List<String> prefixes = new ArrayList<>();
+    private final List<String> phrases = new ArrayList<>();
+    private String actionFilter;
+    private String role;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+
+    private LogSearchQuery(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parse search box text; null or blank text matches everything
+     */
+    public static LogSearchQuery parse(String text) {
+        LogSearchQuery query = new LogSearchQuery(text != null ? text.trim() : "");
+        Matcher matcher = PART.matcher(query.text);
+        while (matcher.find()) {
+            if (matcher.group(1) != null) {
+                query.addPhrase(matcher.group(1));
+            } else if (matcher.group(2).endsWith("*")) {
+                query.addPrefix(matcher.group(2).replaceAll("\\*+$", ""));
+            } else {
+                query.addWord(matcher.group(2));
+            }
+        }
+        return query;
+    }
+
+    private void addWord(String word) {
+        List<String> tokens = LogSearchIndex.tokenize(word);
+        if (tokens.isEmpty()) {
+            addLiteral(word);
+        } else {
+            addTerms(tokens);
+        }
+    }
+
+    private void addPrefix(String word) {
+        List<String> tokens = LogSearchIndex.tokenize(word);
+        if (tokens.isEmpty()) {
+            addLiteral(word);
+            return;
+        }
+        // "user.adm*" is the word "user" followed by a word starting with "adm"
+        addTerms(tokens.subList(0, tokens.size() - 1));
+        String last = tokens.get(tokens.size() - 1);
+        if (!prefixes.contains(last)) {
+            prefixes.add(last);
+        }
+    }
+
+    private void addPhrase(String phrase) {
+        // The words narrow the candidates through the index, the phrase itself is checked on the row
+        addTerms(LogSearchIndex.tokenize(phrase));
+        addLiteral(phrase.trim());
+    }
+
+    private void addTerms(List<String> tokens) {
+        for (String token : tokens) {
+            if (!terms.contains(token)) {
+                terms.add(token);
+            }
+        }
+    }
+
+    private void addLiteral(String literal) {
+        if (!literal.isEmpty() && !phrases.contains(literal)) {
+            phrases.add(literal);
+        }
+    }
+
+    /**
+     * The text this query was parsed from
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Words every entry must contain (already normalized)
+     */
+    public List<String> getTerms() {
+        return Collections.unmodifiableList(terms);
+    }
+
+    /**
+     * Word prefixes every entry must contain a word starting with
+     */
+    public List<String> getPrefixes() {
+        return Collections.unmodifiableList(prefixes);
+    }
+
+    /**
+     * Literal text every entry's details must contain
+     */
+    public List<String> getPhrases() {
+        return Collections.unmodifiableList(phrases);
+    }
+
+    /**
+     * True if any word, prefix or phrase was given
+     */
+    public boolean hasText() {
+        return !terms.isEmpty() || !prefixes.isEmpty() || !phrases.isEmpty();
+    }
+
+    public String getActionFilter() {
+        return actionFilter;
+    }
+
+    /**
+     * @param actionFilter Action prefix (e.g. "LOGIN" also matches LOGIN_FAILED), or null for all
+     */
+    public void setActionFilter(String actionFilter) {
+        this.actionFilter = actionFilter;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * @param role User role to match, "SYSTEM" for entries without a user, or null for all
+     */
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    /**
+     * @param fromDate First day to include, or null for no lower bound
+     */
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    /**
+     * @param toDate Last day to include, or null for no upper bound
+     */
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    @Override
+    public String toString() {
+        return "LogSearchQuery[terms=" + terms + ", prefixes=" + prefixes + ", phrases=" + phrases
+                + ", action=" + actionFilter + ", role=" + role + ", from=" + fromDate + ", to=" + toDate + "]";
+    }
+}
@@ -1,16 +1,65 @@
 package services;
 
 import database.MySQLDatabase;
-import java.net.InetAddress;
+import database.Page;
+import database.RowMapper;
+import models.SystemLog;
+import utils.HostIdentity;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * LogService - Central service for logging system activities
+ *
+ * Actions are handed to the AuditLogWriter, which stores them in
+ * system_logs in the background, so logging never slows the caller down.
+ * Searches go through the LogSearchIndex (see LogSearchQuery).
  */
 public class LogService {
+    /**
+     * Maps rows of LOGS_QUERY
+     */
+    public static final RowMapper<SystemLog> LOG_MAPPER = rs -> new SystemLog(
+            rs.getInt("log_id"),
+            rs.getTimestamp("timestamp"),
+            rs.getString("user_name") != null ? rs.getString("user_name") : "System",
+            rs.getString("role") != null ? rs.getString("role") : "SYSTEM",
+            rs.getString("action"),
+            rs.getString("details"),
+            rs.getString("ip_address") != null ? rs.getString("ip_address") : "N/A");
+
+    private static final String LOGS_QUERY = "SELECT l.log_id, l.timestamp, " +
+            "CONCAT(p.first_name, ' ', p.last_name) as user_name, " +
+            "u.role, l.action, l.details, l.ip_address " +
+            "FROM system_logs l " +
+            "LEFT JOIN users u ON l.user_id = u.user_id " +
+            "LEFT JOIN persons p ON u.user_id = p.user_id";
+
+    // Driven by one word of the search: its index entries are read in (timestamp, log_id) order
+    // and joined to their log rows, so a page needs only as many lookups as it has rows
+    private static final String INDEXED_LOGS_QUERY = "SELECT t0.log_id AS log_id, t0.timestamp AS timestamp, " +
+            "CONCAT(p.first_name, ' ', p.last_name) as user_name, " +
+            "u.role, l.action, l.details, l.ip_address " +
+            "FROM system_log_terms t0 " +
+            "JOIN system_logs l ON l.log_id = t0.log_id AND l.timestamp = t0.timestamp " +
+            "LEFT JOIN users u ON l.user_id = u.user_id " +
+            "LEFT JOIN persons p ON u.user_id = p.user_id";
+
+    private static final int FACET_SAMPLE_SIZE = 10000; // Facets count at most this many newest matches
+
     private MySQLDatabase db;
+    private AuditLogWriter writer;
+    private HostIdentity hostIdentity;
 
     public LogService() {
         this.db = MySQLDatabase.getInstance();
+        this.writer = AuditLogWriter.getInstance();
+        this.hostIdentity = HostIdentity.getInstance();
     }
 
     /**
@@ -24,21 +73,33 @@ public class LogService {
      */
     public void logAction(Integer userId, String action, String details) {
         try {
-            if (!db.isConnected()) {
-                db.connect();
-            }
-
-            String ipAddress = getIpAddress();
-
-            String sql = "INSERT INTO system_logs (user_id, action, details, ip_address) VALUES (?, ?, ?, ?)";
-            db.executePreparedQuery(sql, new Object[] { userId, action, details, ipAddress });
-
+            writer.log(new AuditEvent(userId, action, details, hostIdentity.getEventAddress(),
+                    System.currentTimeMillis()));
         } catch (Exception e) {
             System.err.println("Error logging action: " + e.getMessage());
             // Don't throw exception to avoid disrupting normal operations
         }
     }
 
+    /**
+     * Log a summary of several occurrences of a system action; the log
+     * statistics count each occurrence
+     *
+     * @param ipAddress   Address the occurrences came from, or null for this
+     *                    machine's address
+     * @param occurrences Number of occurrences the entry stands for
+     */
+    public void logSummary(String action, String details, String ipAddress, long occurrences) {
+        try {
+            writer.log(new AuditEvent(null, action, details,
+                    ipAddress != null ? ipAddress : hostIdentity.getEventAddress(), System.currentTimeMillis(),
+                    (int) Math.min(occurrences, Integer.MAX_VALUE)));
+        } catch (Exception e) {
+            System.err.println("Error logging summary: " + e.getMessage());
+            // Don't throw exception to avoid disrupting normal operations
+        }
+    }
+
     /**
      * Log a login action
      */
@@ -53,13 +114,6 @@ public class LogService {
         logAction(userId, "LOGOUT", "User " + username + " (" + role + ") logged out");
     }
 
-    /**
-     * Log a failed login attempt
-     */
-    public void logFailedLogin(String username) {
-        logAction(null, "LOGIN_FAILED", "Failed login attempt for username: " + username);
-    }
-
     /**
      * Log student registration
      */
@@ -159,14 +213,205 @@ public class LogService {
     }
 
     /**
-     * Get the current IP address
+     * Get one page of log entries matching the search. Filtering happens in
+     * SQL, so only the page itself is transferred.
+     *
+     * @param search      Words, prefixes and phrases plus action, role and date filters
+     * @param afterKey    getSortKey() of the row to continue after, or null to start at the newest/oldest
+     * @param newestFirst Direction of travel: true pages towards older entries
      */
-    private String getIpAddress() {
-        try {
-            InetAddress localhost = InetAddress.getLocalHost();
-            return localhost.getHostAddress();
-        } catch (Exception e) {
-            return "Unknown";
+    public Page<SystemLog> getLogsPage(LogSearchQuery search, Object[] afterKey, boolean newestFirst, int limit)
+            throws SQLException {
+        if (!db.isConnected()) {
+            db.connect();
+        }
+
+        List<Object> params = new ArrayList<>();
+        String query = buildLogsQuery(search, params);
+        return db.fetchPage(query, params.toArray(),
+                newestFirst ? "timestamp DESC, log_id DESC" : "timestamp, log_id",
+                afterKey, limit, LOG_MAPPER);
+    }
+
+    /**
+     * Stream every log entry matching the search, newest first. The
+     * stream holds a connection and must be closed.
+     */
+    public Stream<SystemLog> streamLogs(LogSearchQuery search) throws SQLException {
+        if (!db.isConnected()) {
+            db.connect();
+        }
+
+        List<Object> params = new ArrayList<>();
+        String query = buildLogsQuery(search, params);
+        return db.stream("SELECT * FROM (" + query + ") matches ORDER BY timestamp DESC, log_id DESC",
+                params.toArray(), LOG_MAPPER);
+    }
+
+    /**
+     * Action, role and day counts over the newest FACET_SAMPLE_SIZE
+     * entries matching the search
+     */
+    public LogFacets getFacets(LogSearchQuery search) throws SQLException {
+        if (!db.isConnected()) {
+            db.connect();
         }
+
+        List<Object> params = new ArrayList<>();
+        String query = buildLogsQuery(search, params);
+        params.add(FACET_SAMPLE_SIZE);
+
+        LogFacets facets = new LogFacets(FACET_SAMPLE_SIZE);
+        db.query("SELECT sample.action, sample.role, DATE(sample.timestamp) AS day, COUNT(*) AS hits FROM ("
+                + "SELECT * FROM (" + query + ") matches ORDER BY timestamp DESC, log_id DESC LIMIT ?) sample "
+                + "GROUP BY sample.action, sample.role, DATE(sample.timestamp)",
+                params.toArray(), rs -> {
+                    Date day = rs.getDate("day");
+                    facets.add(rs.getString("action"), rs.getString("role"),
+                            day != null ? day.toLocalDate() : null, rs.getLong("hits"));
+                    return day;
+                });
+        return facets;
+    }
+
+    /**
+     * Number of entries matching the search, from the statistics rollup
+     * (exact to the hour for date filters), or -1 for text searches, which
+     * the rollup cannot answer
+     */
+    public long estimateMatches(LogSearchQuery search) throws SQLException {
+        if (search.hasText()) {
+            return -1;
+        }
+        LogStatsRollup.getInstance().ensureTables();
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (search.getActionFilter() != null && !search.getActionFilter().isEmpty()) {
+            conditions.add("action LIKE ?");
+            params.add(escapeLike(search.getActionFilter()) + "%");
+        }
+        if (search.getRole() != null) {
+            conditions.add("role = ?");
+            params.add(search.getRole());
+        }
+        if (search.getFromDate() != null) {
+            conditions.add("hour_start >= ?");
+            params.add(Timestamp.valueOf(search.getFromDate().atStartOfDay()));
+        }
+        if (search.getToDate() != null) {
+            conditions.add("hour_start < ?");
+            params.add(Timestamp.valueOf(search.getToDate().plusDays(1).atStartOfDay()));
+        }
+
+        Long total = db.queryForObject("SELECT COALESCE(SUM(entries), 0) AS total FROM log_stats_hourly"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions)),
+                params.toArray(), rs -> rs.getLong("total"));
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Activity totals from the statistics rollup: one pass over the hourly
+     * totals and one indexed read of the top user
+     */
+    public LogStatistics getStatistics() throws SQLException {
+        LogStatsRollup.getInstance().ensureTables();
+
+        LogStatistics statistics = new LogStatistics();
+        db.query("SELECT action, role, SUM(entries) AS total, "
+                + "SUM(IF(hour_start >= DATE_FORMAT(NOW() - INTERVAL 7 DAY, '%Y-%m-%d %H:00:00'), entries, 0)) "
+                + "AS this_week, "
+                + "SUM(IF(hour_start >= CURDATE(), entries, 0)) AS today "
+                + "FROM log_stats_hourly GROUP BY action, role",
+                new Object[0], rs -> {
+                    statistics.add(rs.getString("action"), rs.getString("role"), rs.getLong("total"),
+                            rs.getLong("this_week"), rs.getLong("today"));
+                    return null;
+                });
+
+        db.queryForObject("SELECT CONCAT(p.first_name, ' ', p.last_name) AS name, s.entries "
+                + "FROM log_stats_users s JOIN persons p ON s.user_id = p.user_id "
+                + "ORDER BY s.entries DESC LIMIT 1",
+                new Object[0], rs -> {
+                    statistics.setMostActiveUser(rs.getString("name"), rs.getLong("entries"));
+                    return null;
+                });
+        return statistics;
+    }
+
+    /**
+     * The log query for a search, appending its parameters. The longest
+     * word drives the query through the index (longer words tend to be
+     * rarer); every other word and prefix is a primary-key probe of the
+     * index for the candidate row. Phrases are checked on the row itself.
+     */
+    private String buildLogsQuery(LogSearchQuery search, List<Object> params) {
+        List<String> terms = new ArrayList<>(search.getTerms());
+        List<String> conditions = new ArrayList<>();
+        StringBuilder query;
+        String timestampColumn;
+
+        if (!terms.isEmpty()) {
+            String driver = terms.get(0);
+            for (String term : terms) {
+                if (term.length() > driver.length()) {
+                    driver = term;
+                }
+            }
+            terms.remove(driver);
+            query = new StringBuilder(INDEXED_LOGS_QUERY);
+            timestampColumn = "t0.timestamp";
+            conditions.add("t0.term = ?");
+            params.add(driver);
+        } else {
+            query = new StringBuilder(LOGS_QUERY);
+            timestampColumn = "l.timestamp";
+        }
+
+        for (String term : terms) {
+            conditions.add("EXISTS (SELECT 1 FROM system_log_terms t WHERE t.term = ? "
+                    + "AND t.timestamp = l.timestamp AND t.log_id = l.log_id)");
+            params.add(term);
+        }
+        for (String prefix : search.getPrefixes()) {
+            conditions.add("EXISTS (SELECT 1 FROM system_log_terms t WHERE t.term LIKE ? "
+                    + "AND t.timestamp = l.timestamp AND t.log_id = l.log_id)");
+            params.add(escapeLike(prefix) + "%");
+        }
+        for (String phrase : search.getPhrases()) {
+            conditions.add("l.details LIKE ?");
+            params.add("%" + escapeLike(phrase) + "%");
+        }
+
+        String actionFilter = search.getActionFilter();
+        if (actionFilter != null && !actionFilter.isEmpty()) {
+            // Prefix match can use the (action, timestamp) index
+            conditions.add("l.action LIKE ?");
+            params.add(escapeLike(actionFilter) + "%");
+        }
+        if ("SYSTEM".equals(search.getRole())) {
+            conditions.add("u.role IS NULL");
+        } else if (search.getRole() != null) {
+            conditions.add("u.role = ?");
+            params.add(search.getRole());
+        }
+        // Bounds on the driving timestamp prune partitions and narrow the index range
+        if (search.getFromDate() != null) {
+            conditions.add(timestampColumn + " >= ?");
+            params.add(Timestamp.valueOf(search.getFromDate().atStartOfDay()));
+        }
+        if (search.getToDate() != null) {
+            conditions.add(timestampColumn + " < ?");
+            params.add(Timestamp.valueOf(search.getToDate().plusDays(1).atStartOfDay()));
+        }
+
+        if (!conditions.isEmpty()) {
+            query.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return query.toString();
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 }
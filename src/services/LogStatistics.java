@@ -0,0 +1,100 @@
+package services;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Log activity totals read from the statistics rollup
+ */
+public class LogStatistics {
+    private long totalEntries;
+    private long entriesToday;
+    private long entriesThisWeek;
+    private long loginsToday;
+    private long failedLogins;
+    private final Map<String, Long> actionCounts = new LinkedHashMap<>();
+    private final Map<String, Long> roleCounts = new LinkedHashMap<>();
+    private String mostActiveUser;
+    private long mostActiveUserEntries;
+
+    /**
+     * Add the totals of one action and role
+     */
+    public void add(String action, String role, long total, long thisWeek, long today) {
+        totalEntries += total;
+        entriesThisWeek += thisWeek;
+        entriesToday += today;
+        if ("LOGIN".equals(action)) {
+            loginsToday += today;
+        }
+        if (action.contains("FAILED")) {
+            failedLogins += total;
+        }
+        actionCounts.merge(action, total, Long::sum);
+        roleCounts.merge(role, total, Long::sum);
+    }
+
+    public void setMostActiveUser(String name, long entries) {
+        this.mostActiveUser = name;
+        this.mostActiveUserEntries = entries;
+    }
+
+    public long getTotalEntries() {
+        return totalEntries;
+    }
+
+    public long getEntriesToday() {
+        return entriesToday;
+    }
+
+    /**
+     * Entries in the last seven days (to the hour)
+     */
+    public long getEntriesThisWeek() {
+        return entriesThisWeek;
+    }
+
+    public long getLoginsToday() {
+        return loginsToday;
+    }
+
+    public long getFailedLogins() {
+        return failedLogins;
+    }
+
+    /**
+     * Most frequent action, or null if there are no entries
+     */
+    public String getMostCommonAction() {
+        String top = null;
+        for (Map.Entry<String, Long> entry : actionCounts.entrySet()) {
+            if (top == null || entry.getValue() > actionCounts.get(top)) {
+                top = entry.getKey();
+            }
+        }
+        return top;
+    }
+
+    public long getActionCount(String action) {
+        return actionCounts.getOrDefault(action, 0L);
+    }
+
+    /**
+     * Entries per role ("SYSTEM" for entries without a user)
+     */
+    public Map<String, Long> getRoleCounts() {
+        return Collections.unmodifiableMap(roleCounts);
+    }
+
+    /**
+     * Name of the user with the most entries of all time, or null if none
+     */
+    public String getMostActiveUser() {
+        return mostActiveUser;
+    }
+
+    public long getMostActiveUserEntries() {
+        return mostActiveUserEntries;
+    }
+}
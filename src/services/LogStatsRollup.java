@@ -0,0 +1,181 @@
+package services;
+
+import database.BatchResult;
+import database.MySQLDatabase;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running totals of system_logs entries, so statistics never aggregate the
+ * log table itself:
+ * - log_stats_hourly counts entries per hour, action and role
+ * - log_stats_users counts all-time entries per user
+ *
+ * Counts are added in the same transaction as their log entries by the
+ * AuditLogWriter. Entries that existed before the tables were created are
+ * counted by backfill(), which the MaintenanceScheduler runs in small
+ * chunks. Purging old logs removes the matching hourly rows; user totals
+ * are lifetime counts and are kept. A summary entry, such as a minute of
+ * failed logins, counts once per occurrence it stands for.
+ */
+public class LogStatsRollup {
+    public static final String HOURLY_TABLE = "log_stats_hourly";
+
+    private static final int UPSERT_CHUNK_SIZE = 500;
+
+    private static final String CREATE_HOURLY_SQL = "CREATE TABLE IF NOT EXISTS log_stats_hourly ("
+            + "hour_start DATETIME NOT NULL, action VARCHAR(100) NOT NULL, role VARCHAR(20) NOT NULL, "
+            + "entries INT NOT NULL, PRIMARY KEY (hour_start, action, role))";
+    private static final String CREATE_USERS_SQL = "CREATE TABLE IF NOT EXISTS log_stats_users ("
+            + "user_id INT PRIMARY KEY, entries BIGINT NOT NULL, INDEX idx_entries (entries))";
+
+    // Entries without a user (or whose user is gone) count under SYSTEM, as in the log viewer
+    private static final String UPSERT_HOURLY_SQL = "INSERT INTO log_stats_hourly (hour_start, action, role, entries) "
+            + "SELECT DATE_FORMAT(?, '%Y-%m-%d %H:00:00'), ?, "
+            + "COALESCE((SELECT role FROM users WHERE user_id = ?), 'SYSTEM'), ? "
+            + "ON DUPLICATE KEY UPDATE entries = log_stats_hourly.entries + VALUES(entries)";
+    private static final String UPSERT_USER_SQL = "INSERT INTO log_stats_users (user_id, entries) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE entries = entries + VALUES(entries)";
+
+    private static LogStatsRollup instance; // Singleton pattern
+
+    private final MySQLDatabase db;
+    private volatile boolean ready;
+
+    private LogStatsRollup() {
+        this.db = MySQLDatabase.getInstance();
+    }
+
+    /**
+     * Get singleton instance of LogStatsRollup
+     */
+    public static synchronized LogStatsRollup getInstance() {
+        if (instance == null) {
+            instance = new LogStatsRollup();
+        }
+        return instance;
+    }
+
+    /**
+     * Create the rollup tables if needed. Must be called before recording
+     * and outside any transaction (DDL commits implicitly).
+     */
+    public synchronized void ensureTables() throws SQLException {
+        if (ready) {
+            return;
+        }
+        if (!db.isConnected()) {
+            db.connect();
+        }
+        Long existing = db.queryForObject("SELECT COUNT(*) AS existing FROM information_schema.TABLES "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                new Object[] { HOURLY_TABLE }, rs -> rs.getLong("existing"));
+        db.update(CREATE_HOURLY_SQL, new Object[0]);
+        db.update(CREATE_USERS_SQL, new Object[0]);
+        if (existing == null || existing == 0) {
+            // Entries written from now on are counted by their writer, older ones by backfill()
+            db.update("CREATE TABLE IF NOT EXISTS search_index_progress ("
+                    + "index_name VARCHAR(40) PRIMARY KEY, backfill_below BIGINT NOT NULL)", new Object[0]);
+            db.update("INSERT IGNORE INTO search_index_progress (index_name, backfill_below) "
+                    + "SELECT ?, COALESCE(MAX(log_id), 0) + 1 FROM system_logs", new Object[] { HOURLY_TABLE });
+        }
+        ready = true;
+    }
+
+    /**
+     * Add newly written entries to the totals; run it in the transaction
+     * that inserts them
+     *
+     * @param entries One { userId (Integer or null), action, timestamp, occurrences }
+     *                per entry; a summary entry counts once per occurrence
+     */
+    public void record(List<Object[]> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        // Collapse the batch first: most entries share an hour, action and user
+        long hourMillis = TimeUnit.HOURS.toMillis(1);
+        Map<String, Object[]> hourly = new TreeMap<>(); // Sorted so concurrent writers lock rows in one order
+        Map<Integer, Long> users = new TreeMap<>();
+        for (Object[] entry : entries) {
+            Integer userId = (Integer) entry[0];
+            String action = (String) entry[1];
+            Timestamp timestamp = (Timestamp) entry[2];
+            int occurrences = (Integer) entry[3];
+            long hour = timestamp.getTime() - Math.floorMod(timestamp.getTime(), hourMillis);
+
+            Object[] row = hourly.computeIfAbsent(hour + "|" + action + "|" + userId,
+                    key -> new Object[] { new Timestamp(hour), action, userId, 0 });
+            row[3] = (Integer) row[3] + occurrences;
+            if (userId != null) {
+                users.merge(userId, (long) occurrences, Long::sum);
+            }
+        }
+
+        BatchResult result = db.executeBatch(UPSERT_HOURLY_SQL, new ArrayList<>(hourly.values()), UPSERT_CHUNK_SIZE);
+        if (!result.isSuccess()) {
+            throw new SQLException("Hourly log statistics not stored: " + result);
+        }
+        if (!users.isEmpty()) {
+            List<Object[]> userRows = new ArrayList<>(users.size());
+            users.forEach((userId, count) -> userRows.add(new Object[] { userId, count }));
+            result = db.executeBatch(UPSERT_USER_SQL, userRows, UPSERT_CHUNK_SIZE);
+            if (!result.isSuccess()) {
+                throw new SQLException("User log statistics not stored: " + result);
+            }
+        }
+    }
+
+    /**
+     * Count the next range of entries older than the rollup, newest first
+     *
+     * @param span Number of log IDs to cover in this chunk
+     * @return Log IDs covered, 0 once every entry is counted
+     */
+    public long backfill(int span) throws SQLException {
+        ensureTables();
+        Long below = db.queryForObject("SELECT backfill_below FROM search_index_progress WHERE index_name = ?",
+                new Object[] { HOURLY_TABLE }, rs -> rs.getLong("backfill_below"));
+        if (below == null || below <= 1) {
+            return 0;
+        }
+        long from = Math.max(1, below - span);
+
+        db.inTransaction(conn -> {
+            db.update("INSERT INTO log_stats_hourly (hour_start, action, role, entries) "
+                    + "SELECT * FROM (SELECT DATE_FORMAT(l.timestamp, '%Y-%m-%d %H:00:00') AS hour_start, "
+                    + "l.action, COALESCE(u.role, 'SYSTEM') AS role, COUNT(*) AS hits "
+                    + "FROM system_logs l LEFT JOIN users u ON l.user_id = u.user_id "
+                    + "WHERE l.log_id >= ? AND l.log_id < ? GROUP BY 1, 2, 3) counted "
+                    + "ON DUPLICATE KEY UPDATE entries = log_stats_hourly.entries + counted.hits",
+                    new Object[] { from, below });
+            db.update("INSERT INTO log_stats_users (user_id, entries) "
+                    + "SELECT * FROM (SELECT user_id, COUNT(*) AS hits FROM system_logs "
+                    + "WHERE log_id >= ? AND log_id < ? AND user_id IS NOT NULL GROUP BY user_id) counted "
+                    + "ON DUPLICATE KEY UPDATE entries = log_stats_users.entries + counted.hits",
+                    new Object[] { from, below });
+            db.update("UPDATE search_index_progress SET backfill_below = ? WHERE index_name = ?",
+                    new Object[] { from > 1 ? from : 0, HOURLY_TABLE });
+            return null;
+        });
+        return below - from;
+    }
+
+    /**
+     * Remove the hourly totals of hours that end before the cutoff
+     *
+     * @return Rows removed
+     */
+    public int purgeBefore(Timestamp cutoff) throws SQLException {
+        ensureTables();
+        return db.update("DELETE FROM log_stats_hourly WHERE hour_start < DATE_FORMAT(?, '%Y-%m-%d %H:00:00')",
+                new Object[] { cutoff });
+    }
+}
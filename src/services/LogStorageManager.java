@@ -0,0 +1,301 @@
+package services;
+
+import database.MySQLDatabase;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps system_logs (and its search index, system_log_terms) in monthly
+ * RANGE partitions so that retention is a
+ * partition drop (metadata only, milliseconds) instead of a DELETE that
+ * locks the table and fills the undo log, and so that date-bounded
+ * queries are pruned to the months they cover.
+ *
+ * Partition pYYYYMM holds the rows of that month; pmax catches anything
+ * beyond the last month created. Maintenance (run daily by the
+ * MaintenanceScheduler) keeps PARTITION_MONTHS_AHEAD empty months ready so
+ * pmax stays empty and cheap to split.
+ *
+ * Maintenance never converts an unpartitioned system_logs (from a database
+ * created before partitioning): that rebuilds the whole table and blocks
+ * audit writes while it runs. It only reports it; the conversion is the
+ * offline step "java Main --partition-logs", run in a maintenance window.
+ */
+public class LogStorageManager {
+    private static final int PARTITION_MONTHS_AHEAD = 3;
+    private static final String OVERFLOW_PARTITION = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final String[] PARTITIONED_TABLES = { "system_logs", LogSearchIndex.TERMS_TABLE };
+
+    private static final String PARTITIONS_QUERY = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS, "
+            + "DATE_FORMAT(FROM_UNIXTIME(CAST(PARTITION_DESCRIPTION AS UNSIGNED)), '%Y-%m-%d') AS upper_bound "
+            + "FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+            + "ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private static volatile boolean unpartitionedReported; // Once per process, not every maintenance pass
+
+    private MySQLDatabase db;
+
+    public LogStorageManager() {
+        this.db = MySQLDatabase.getInstance();
+    }
+
+    /**
+     * One maintenance pass; errors are reported and retried next time
+     */
+    public void runMaintenance() {
+        try {
+            if (!db.isConnected()) {
+                db.connect();
+            }
+            if (!isPartitioned() && !unpartitionedReported) {
+                unpartitionedReported = true;
+                System.err.println("system_logs is not partitioned: old logs are purged with chunked DELETEs. "
+                        + "Run \"java Main --partition-logs\" during a maintenance window to convert it.");
+            }
+            LogSearchIndex.getInstance().ensureTable();
+            ensureFuturePartitions();
+        } catch (SQLException e) {
+            System.err.println("Error maintaining log partitions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * True if system_logs is range partitioned
+     */
+    public boolean isPartitioned() throws SQLException {
+        return !getPartitions().isEmpty();
+    }
+
+    /**
+     * Current system_logs partitions in order, oldest first (pmax last)
+     */
+    public List<LogPartition> getPartitions() throws SQLException {
+        return getPartitions("system_logs");
+    }
+
+    /**
+     * Partitions of the given table in order; empty if it is not partitioned
+     * or does not exist
+     */
+    public List<LogPartition> getPartitions(String table) throws SQLException {
+        return db.query(PARTITIONS_QUERY, new Object[] { table }, rs -> new LogPartition(
+                rs.getString("PARTITION_NAME"),
+                "MAXVALUE".equals(rs.getString("PARTITION_DESCRIPTION"))
+                        ? null
+                        : LocalDate.parse(rs.getString("upper_bound")),
+                rs.getLong("TABLE_ROWS")));
+    }
+
+    /**
+     * Offline migration: partition system_logs if it is not yet, then make
+     * sure the search index table and future partitions exist
+     *
+     * @return true if system_logs was converted, false if it already was partitioned
+     */
+    public boolean migrate() throws SQLException {
+        boolean converted = false;
+        if (!isPartitioned()) {
+            partitionTable();
+            converted = true;
+        }
+        LogSearchIndex.getInstance().ensureTable();
+        ensureFuturePartitions();
+        return converted;
+    }
+
+    /**
+     * Convert an existing unpartitioned system_logs table. MySQL requires
+     * the partitioning column in every unique key and does not allow
+     * foreign keys on partitioned tables, so the primary key becomes
+     * (log_id, timestamp) and the user_id foreign key is dropped. This
+     * copies the whole table and blocks writes to it meanwhile, so it is
+     * only run through migrate() with the application stopped.
+     */
+    public void partitionTable() throws SQLException {
+        System.out.println("Partitioning system_logs by month...");
+        long start = System.currentTimeMillis();
+
+        List<String> foreignKeys = db.query(
+                "SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'system_logs' "
+                        + "AND CONSTRAINT_TYPE = 'FOREIGN KEY'",
+                new Object[0], rs -> rs.getString("CONSTRAINT_NAME"));
+        for (String foreignKey : foreignKeys) {
+            db.update("ALTER TABLE system_logs DROP FOREIGN KEY `" + foreignKey + "`", new Object[0]);
+        }
+
+        db.update("ALTER TABLE system_logs "
+                + "MODIFY timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                + "DROP PRIMARY KEY, ADD PRIMARY KEY (log_id, timestamp)", new Object[0]);
+
+        // One partition per month from the oldest row to a few months ahead
+        db.update("ALTER TABLE system_logs PARTITION BY RANGE (UNIX_TIMESTAMP(timestamp)) ("
+                + monthPartitions(oldestLogMonth(), lastMonthNeeded()) + ")", new Object[0]);
+
+        System.out.println("system_logs partitioned in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Create system_log_terms with the same monthly partitions as
+     * system_logs, unless it already exists
+     *
+     * @return true if the table was created
+     */
+    public boolean createTermsTable() throws SQLException {
+        if (!getPartitions(LogSearchIndex.TERMS_TABLE).isEmpty()) {
+            return false;
+        }
+        // The term comes first so a word lookup is one key range, already in time order
+        db.update("CREATE TABLE IF NOT EXISTS " + LogSearchIndex.TERMS_TABLE + " ("
+                + "term VARCHAR(40) NOT NULL, timestamp TIMESTAMP NOT NULL, log_id INT NOT NULL, "
+                + "PRIMARY KEY (term, timestamp, log_id)) "
+                + "PARTITION BY RANGE (UNIX_TIMESTAMP(timestamp)) ("
+                + monthPartitions(oldestLogMonth(), lastMonthNeeded()) + ")", new Object[0]);
+        System.out.println("Created " + LogSearchIndex.TERMS_TABLE);
+        return true;
+    }
+
+    /**
+     * Split empty months off pmax until PARTITION_MONTHS_AHEAD months
+     * beyond the current one exist, for every partitioned log table
+     *
+     * @return Number of partitions added
+     */
+    public int ensureFuturePartitions() throws SQLException {
+        int added = 0;
+        for (String table : PARTITIONED_TABLES) {
+            added += ensureFuturePartitions(table);
+        }
+        return added;
+    }
+
+    private int ensureFuturePartitions(String table) throws SQLException {
+        List<LogPartition> partitions = getPartitions(table);
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        LocalDate lastBound = null;
+        for (LogPartition partition : partitions) {
+            if (partition.getUpperBound() != null) {
+                lastBound = partition.getUpperBound();
+            }
+        }
+        // lastBound is the first day of the month after the newest partition
+        LocalDate firstMonth = lastBound != null ? lastBound : LocalDate.now().withDayOfMonth(1);
+        LocalDate lastMonth = lastMonthNeeded();
+        if (firstMonth.isAfter(lastMonth)) {
+            return 0;
+        }
+
+        db.update("ALTER TABLE " + table + " REORGANIZE PARTITION " + OVERFLOW_PARTITION + " INTO ("
+                + monthPartitions(firstMonth, lastMonth) + ")", new Object[0]);
+        return (int) ChronoUnit.MONTHS.between(firstMonth, lastMonth) + 1;
+    }
+
+    /**
+     * Drop every partition that lies entirely before the cutoff (now minus
+     * the given number of days) from each log table. Rows of the month
+     * containing the cutoff are left for a chunked purge.
+     *
+     * @return Number of log entries removed (from table statistics, approximate)
+     */
+    public long dropExpiredPartitions(int days) throws SQLException {
+        long removed = dropExpiredPartitions("system_logs", days);
+        dropExpiredPartitions(LogSearchIndex.TERMS_TABLE, days);
+        return removed;
+    }
+
+    private long dropExpiredPartitions(String table, int days) throws SQLException {
+        List<LogPartition> expired = db.query(
+                "SELECT PARTITION_NAME, TABLE_ROWS FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? "
+                        + "AND PARTITION_DESCRIPTION <> 'MAXVALUE' "
+                        + "AND CAST(PARTITION_DESCRIPTION AS UNSIGNED) <= UNIX_TIMESTAMP(NOW() - INTERVAL ? DAY) "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                new Object[] { table, days },
+                rs -> new LogPartition(rs.getString("PARTITION_NAME"), null, rs.getLong("TABLE_ROWS")));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        long removed = 0;
+        StringBuilder names = new StringBuilder();
+        for (LogPartition partition : expired) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(partition.getName());
+            removed += partition.getRowEstimate();
+        }
+        db.update("ALTER TABLE " + table + " DROP PARTITION " + names, new Object[0]);
+        return removed;
+    }
+
+    /**
+     * First day of the month of the oldest log entry (the current month if there are none)
+     */
+    private LocalDate oldestLogMonth() throws SQLException {
+        String oldest = db.queryForObject(
+                "SELECT DATE_FORMAT(MIN(timestamp), '%Y-%m-01') AS oldest FROM system_logs",
+                new Object[0], rs -> rs.getString("oldest"));
+        return oldest != null ? LocalDate.parse(oldest) : LocalDate.now().withDayOfMonth(1);
+    }
+
+    private static LocalDate lastMonthNeeded() {
+        return LocalDate.now().withDayOfMonth(1).plusMonths(PARTITION_MONTHS_AHEAD);
+    }
+
+    /**
+     * Partition definitions for each month in [firstMonth, lastMonth] plus pmax
+     */
+    private static String monthPartitions(LocalDate firstMonth, LocalDate lastMonth) {
+        StringBuilder sql = new StringBuilder();
+        for (LocalDate month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            sql.append("PARTITION ").append(month.format(PARTITION_NAME))
+                    .append(" VALUES LESS THAN (UNIX_TIMESTAMP('").append(month.plusMonths(1))
+                    .append(" 00:00:00')), ");
+        }
+        sql.append("PARTITION ").append(OVERFLOW_PARTITION).append(" VALUES LESS THAN MAXVALUE");
+        return sql.toString();
+    }
+
+    /**
+     * A log table partition and the first day it no longer covers
+     */
+    public static class LogPartition {
+        private final String name;
+        private final LocalDate upperBound;
+        private final long rowEstimate;
+
+        public LogPartition(String name, LocalDate upperBound, long rowEstimate) {
+            this.name = name;
+            this.upperBound = upperBound;
+            this.rowEstimate = rowEstimate;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Exclusive upper bound, or null for the catch-all pmax partition
+         */
+        public LocalDate getUpperBound() {
+            return upperBound;
+        }
+
+        /**
+         * Row count from table statistics (approximate for InnoDB)
+         */
+        public long getRowEstimate() {
+            return rowEstimate;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package services;
+
+/**
+ * Thrown by login when the username or client address is locked out after
+ * too many failed attempts, or when an attempt comes too soon after a
+ * failed one
+ */
+public class LoginLockedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public LoginLockedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Time until another attempt may be made
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Whole minutes until another attempt may be made (at least 1)
+     */
+    public long getRetryAfterMinutes() {
+        return Math.max(1, (retryAfterMillis + 59_999) / 60_000);
+    }
+
+    /**
+     * Whole seconds until another attempt may be made (at least 1)
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+
+    /**
+     * The wait for messages, e.g. "3 seconds" or "15 minutes"
+     */
+    public String getRetryAfterText() {
+        if (retryAfterMillis < 60_000) {
+            long seconds = getRetryAfterSeconds();
+            return seconds + (seconds == 1 ? " second" : " seconds");
+        }
+        long minutes = getRetryAfterMinutes();
+        return minutes + (minutes == 1 ? " minute" : " minutes");
+    }
+}
@@ -0,0 +1,440 @@
+package services;
+
+import utils.Counter;
+import utils.MetricsRegistry;
+import utils.SlidingWindowCounter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Brute-force protection for logins, checked before the database is
+ * touched.
+ *
+ * Failed attempts are counted per username and per client address in
+ * SlidingWindowCounters. After FREE_FAILURES failures the next attempt must
+ * wait a while after the last failure (the wait doubles with each failure);
+ * attempts made sooner are rejected with the time left, never by sleeping
+ * on the caller's thread. At the per-user or per-address limit the key is
+ * locked out for LOCKOUT_MINUTES. Rejected attempts never reach the
+ * database.
+ *
+ * Nothing is logged per attempt: each lockout is logged when it starts,
+ * and failed and rejected attempts are summed into one audit entry per
+ * username or lockout every SUMMARY_INTERVAL_SECONDS.
+ *
+ * State is in memory, per process.
+ */
+public class LoginThrottle {
+
+    /**
+     * What a login attempt may do right now
+     */
+    public static class Decision {
+        private static final Decision ALLOW = new Decision(0, null);
+
+        private final long waitMillis;
+        private final Lockout lockout;
+
+        private Decision(long waitMillis, Lockout lockout) {
+            this.waitMillis = waitMillis;
+            this.lockout = lockout;
+        }
+
+        /**
+         * True if the attempt may go ahead
+         */
+        public boolean isAllowed() {
+            return lockout == null && waitMillis == 0;
+        }
+
+        /**
+         * True if the attempt is rejected because the key is locked out
+         */
+        public boolean isLocked() {
+            return lockout != null;
+        }
+
+        /**
+         * True if the attempt is rejected because it came too soon after a
+         * failed one
+         */
+        public boolean isTooSoon() {
+            return lockout == null && waitMillis > 0;
+        }
+
+        /**
+         * Time until another attempt may be made, 0 if allowed
+         */
+        public long getRetryAfterMillis() {
+            return lockout != null
+                    ? Math.max(0, lockout.getLockedUntil() - System.currentTimeMillis())
+                    : waitMillis;
+        }
+
+        public Lockout getLockout() {
+            return lockout;
+        }
+    }
+
+    /**
+     * A username or client address that is locked out
+     */
+    public static class Lockout {
+        public enum Type {
+            USER, ADDRESS
+        }
+
+        private final Type type;
+        private final String key;
+        private final long lockedAt;
+        private final long lockedUntil;
+        private final long failures;
+        private final AtomicLong rejected = new AtomicLong();
+        private long rejectedLogged; // Only touched by the summary task
+
+        Lockout(Type type, String key, long lockedAt, long lockedUntil, long failures) {
+            this.type = type;
+            this.key = key;
+            this.lockedAt = lockedAt;
+            this.lockedUntil = lockedUntil;
+            this.failures = failures;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * The username or client address
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public long getLockedAt() {
+            return lockedAt;
+        }
+
+        public long getLockedUntil() {
+            return lockedUntil;
+        }
+
+        /**
+         * Failed attempts in the window when the lockout started
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Attempts rejected during the lockout
+         */
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        boolean isExpired(long now) {
+            return now >= lockedUntil;
+        }
+
+        @Override
+        public String toString() {
+            return (type == Type.USER ? "user '" : "address ") + key + (type == Type.USER ? "'" : "");
+        }
+    }
+
+    // Throttle parameters (change as needed)
+    private static final long WINDOW_MINUTES = 15;
+    private static final int WINDOW_BUCKETS = 15; // The window slides a minute at a time
+    private static final int COUNTER_STRIPES = 4096;
+    private static final int FREE_FAILURES = 3; // Failures per user before attempts are slowed down
+    private static final long BASE_DELAY_MS = 500;
+    private static final long MAX_DELAY_MS = 8000;
+    private static final int MAX_FAILURES_PER_USER = 5;
+    private static final int MAX_FAILURES_PER_ADDRESS = 20;
+    private static final long LOCKOUT_MINUTES = 15;
+    private static final int MAX_LOCKOUTS = 10000; // Further lockouts only apply once older ones expire
+    private static final long SUMMARY_INTERVAL_SECONDS = 60;
+    private static final int MAX_TRACKED_KEYS = 10000; // Bounds the wait and summary maps
+    private static final String OTHER_USERNAMES = "\0"; // Summary bucket once MAX_TRACKED_KEYS is reached
+
+    private static LoginThrottle instance; // Singleton pattern
+
+    private final SlidingWindowCounter userFailures;
+    private final SlidingWindowCounter addressFailures;
+    private final Map<String, Lockout> lockouts = new ConcurrentHashMap<>();
+    private final Map<String, Long> notBefore = new ConcurrentHashMap<>(); // Key -> earliest next attempt
+    private final Map<String, AtomicLong> failedSinceSummary = new ConcurrentHashMap<>(); // Summary key -> count
+    private final Map<String, AtomicLong> tooSoonSinceSummary = new ConcurrentHashMap<>();
+    private final LogService logService;
+    private final Counter delayed;
+    private final Counter rejected;
+    private final Counter lockoutsStarted;
+
+    private LoginThrottle() {
+        long windowMillis = TimeUnit.MINUTES.toMillis(WINDOW_MINUTES);
+        this.userFailures = new SlidingWindowCounter(COUNTER_STRIPES, windowMillis, WINDOW_BUCKETS);
+        this.addressFailures = new SlidingWindowCounter(COUNTER_STRIPES, windowMillis, WINDOW_BUCKETS);
+        this.logService = new LogService();
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        this.delayed = registry.counter("scms_login_delayed_total",
+                "Login attempts rejected for coming too soon after a failed one");
+        this.rejected = registry.counter("scms_login_rejected_total", "Login attempts rejected during a lockout");
+        this.lockoutsStarted = registry.counter("scms_login_lockouts_total", "Usernames and addresses locked out");
+        registry.gauge("scms_login_lockouts_active", "Usernames and addresses currently locked out",
+                () -> getLockouts().size());
+
+        ScheduledExecutorService summarizer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "scms-login-throttle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        summarizer.scheduleWithFixedDelay(this::summarize, SUMMARY_INTERVAL_SECONDS, SUMMARY_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Get singleton instance of LoginThrottle
+     */
+    public static synchronized LoginThrottle getInstance() {
+        if (instance == null) {
+            instance = new LoginThrottle();
+        }
+        return instance;
+    }
+
+    /**
+     * Decide whether a login attempt may go ahead. Never blocks; a rejected
+     * attempt is counted against its lockout or in the next summary.
+     */
+    public Decision check(String username, String address) {
+        long now = System.currentTimeMillis();
+        Lockout lockout = activeLockout(userKey(username), now);
+        if (lockout == null && address != null) {
+            lockout = activeLockout(addressKey(address), now);
+        }
+        if (lockout != null) {
+            lockout.rejected.incrementAndGet();
+            rejected.increment();
+            return new Decision(0, lockout);
+        }
+
+        long earliest = Math.max(notBefore.getOrDefault(userKey(username), 0L),
+                address != null ? notBefore.getOrDefault(addressKey(address), 0L) : 0L);
+        if (earliest > now) {
+            delayed.increment();
+            countForSummary(tooSoonSinceSummary, username, address);
+            return new Decision(earliest - now, null);
+        }
+        return Decision.ALLOW;
+    }
+
+    /**
+     * Count a failed attempt: past FREE_FAILURES the next attempt must wait,
+     * and at its limit the username or address is locked out
+     */
+    public void recordFailure(String username, String address) {
+        long now = System.currentTimeMillis();
+        countForSummary(failedSinceSummary, username, address);
+
+        long failures = userFailures.increment(normalize(username));
+        if (failures >= MAX_FAILURES_PER_USER) {
+            lockOut(Lockout.Type.USER, normalize(username), failures, now);
+        } else {
+            requireWait(userKey(username), failures, now);
+        }
+        if (address != null) {
+            failures = addressFailures.increment(address);
+            if (failures >= MAX_FAILURES_PER_ADDRESS) {
+                lockOut(Lockout.Type.ADDRESS, address, failures, now);
+            } else {
+                // Scaled to the per-user limits so either count can trigger a wait
+                requireWait(addressKey(address), failures * MAX_FAILURES_PER_USER / MAX_FAILURES_PER_ADDRESS, now);
+            }
+        }
+    }
+
+    /**
+     * A successful login forgets the username's failures. The address keeps
+     * its count, so one valid account cannot be used to reset it.
+     */
+    public void recordSuccess(String username) {
+        userFailures.clear(normalize(username));
+        notBefore.remove(userKey(username));
+    }
+
+    /**
+     * Active lockouts, newest first
+     */
+    public List<Lockout> getLockouts() {
+        long now = System.currentTimeMillis();
+        List<Lockout> active = new ArrayList<>();
+        for (Lockout lockout : lockouts.values()) {
+            if (!lockout.isExpired(now)) {
+                active.add(lockout);
+            }
+        }
+        active.sort(Comparator.comparingLong(Lockout::getLockedAt).reversed());
+        return active;
+    }
+
+    /**
+     * Lift a lockout early (e.g. after the user has been verified) and
+     * forget its failures
+     *
+     * @param adminUserId The admin doing it, for the audit log
+     */
+    public boolean unlock(Lockout lockout, Integer adminUserId) {
+        String mapKey = lockout.getType() == Lockout.Type.USER ? userKey(lockout.getKey()) : addressKey(lockout.getKey());
+        if (!lockouts.remove(mapKey, lockout)) {
+            return false;
+        }
+        if (lockout.getType() == Lockout.Type.USER) {
+            userFailures.clear(lockout.getKey());
+        } else {
+            addressFailures.clear(lockout.getKey());
+        }
+        notBefore.remove(mapKey);
+        logService.logAction(adminUserId, "LOGIN_UNLOCKED", "Login lockout lifted for " + lockout);
+        return true;
+    }
+
+    /**
+     * Make the key wait before its next attempt, doubling per failure past FREE_FAILURES
+     */
+    private void requireWait(String mapKey, long failures, long now) {
+        if (failures < FREE_FAILURES) {
+            return;
+        }
+        if (notBefore.size() >= MAX_TRACKED_KEYS) {
+            notBefore.values().removeIf(until -> until <= now);
+            if (notBefore.size() >= MAX_TRACKED_KEYS) {
+                return; // Counters still lead to lockouts
+            }
+        }
+        long wait = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(failures - FREE_FAILURES, 16));
+        notBefore.merge(mapKey, now + wait, Math::max);
+    }
+
+    /**
+     * Count an attempt per username and client address, so each summary
+     * names where the attempts came from
+     */
+    private void countForSummary(Map<String, AtomicLong> counts, String username, String address) {
+        String key = summaryKey(username, address);
+        AtomicLong count = counts.get(key);
+        if (count == null) {
+            count = counts.computeIfAbsent(counts.size() < MAX_TRACKED_KEYS ? key : OTHER_USERNAMES,
+                    k -> new AtomicLong());
+        }
+        count.incrementAndGet();
+    }
+
+    private Lockout activeLockout(String mapKey, long now) {
+        Lockout lockout = lockouts.get(mapKey);
+        return lockout != null && !lockout.isExpired(now) ? lockout : null;
+    }
+
+    private void lockOut(Lockout.Type type, String key, long failures, long now) {
+        String mapKey = type == Lockout.Type.USER ? userKey(key) : addressKey(key);
+        if (activeLockout(mapKey, now) != null) {
+            return;
+        }
+        if (lockouts.size() >= MAX_LOCKOUTS) {
+            lockouts.values().removeIf(lockout -> lockout.isExpired(now));
+            if (lockouts.size() >= MAX_LOCKOUTS) {
+                return; // Counters still slow these attempts down
+            }
+        }
+        Lockout created = new Lockout(type, key, now, now + TimeUnit.MINUTES.toMillis(LOCKOUT_MINUTES), failures);
+        Lockout lockout = lockouts.compute(mapKey,
+                (k, previous) -> previous != null && !previous.isExpired(now) ? previous : created);
+        if (lockout != created) {
+            return; // Another thread locked it first
+        }
+        lockoutsStarted.increment();
+        logService.logAction(null, "LOGIN_LOCKED", "Login locked for " + LOCKOUT_MINUTES + " minutes: " + lockout
+                + " after " + failures + " failed attempts");
+    }
+
+    /**
+     * Log failed and rejected attempts in aggregate and drop expired state
+     */
+    private void summarize() {
+        try {
+            long now = System.currentTimeMillis();
+            summarizeAttempts(failedSinceSummary, "LOGIN_FAILED", "failed login attempts");
+            summarizeAttempts(tooSoonSinceSummary, "LOGIN_THROTTLED",
+                    "login attempts rejected for coming too soon after a failure");
+            notBefore.values().removeIf(until -> until <= now);
+
+            for (Map.Entry<String, Lockout> entry : lockouts.entrySet()) {
+                Lockout lockout = entry.getValue();
+                long total = lockout.rejected.get();
+                if (total > lockout.rejectedLogged) {
+                    logService.logAction(null, "LOGIN_THROTTLED", (total - lockout.rejectedLogged)
+                            + " login attempts rejected for " + lockout + " (locked until "
+                            + Instant.ofEpochMilli(lockout.getLockedUntil()) + ")");
+                    lockout.rejectedLogged = total;
+                }
+                if (lockout.isExpired(now)) {
+                    lockouts.remove(entry.getKey(), lockout);
+                }
+            }
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule
+            System.err.println("Error summarizing login lockouts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Log one entry per username and address; each counts as its number of
+     * attempts in the log statistics
+     */
+    private void summarizeAttempts(Map<String, AtomicLong> counts, String action, String description) {
+        for (String key : new ArrayList<>(counts.keySet())) {
+            AtomicLong count = counts.remove(key);
+            long attempts = count != null ? count.get() : 0;
+            if (attempts <= 0) {
+                continue;
+            }
+            String details = attempts + " " + description + " in the last " + SUMMARY_INTERVAL_SECONDS + "s for ";
+            if (key.equals(OTHER_USERNAMES)) {
+                logService.logSummary(action, details + "other usernames", null, attempts);
+            } else {
+                // Key is "address username"; addresses never contain a space
+                int split = key.indexOf(' ');
+                String address = split > 0 ? key.substring(0, split) : null;
+                String username = key.substring(split + 1);
+                logService.logSummary(action, details + "username: " + username
+                        + (address != null ? " from " + address : ""), address, attempts);
+            }
+        }
+    }
+
+    private static String normalize(String username) {
+        return username == null ? "" : username.trim().toLowerCase();
+    }
+
+    private static String summaryKey(String username, String address) {
+        return (address != null ? address : "") + " " + normalize(username);
+    }
+
+    private static String userKey(String username) {
+        return "user:" + normalize(username);
+    }
+
+    private static String addressKey(String address) {
+        return "address:" + address;
+    }
+}
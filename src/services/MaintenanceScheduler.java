@@ -0,0 +1,388 @@
+package services;
+
+import database.MySQLDatabase;
+import database.PoolStats;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Background maintenance: keeps system_logs partitions in place, indexes
+ * and counts log entries that predate the search index and statistics
+ * rollup, and purges old log entries and expired announcements.
+ *
+ * Purges never run one big DELETE. Rows are removed in primary-key order,
+ * a chunk at a time: each chunk is a short transaction that holds few locks
+ * and little undo. The chunk size adapts to how long chunks take, the job
+ * pauses between chunks in proportion to the work just done, and it backs
+ * off while the server or the connection pool is busy. All jobs run on one
+ * daemon thread, so at most one purge touches the database at a time.
+ *
+ * Each purge requested through purgeLogs() or purgeAnnouncements() gets
+ * its own PurgeJob handle; cancelling it stops that job only, even if it
+ * has not started yet.
+ */
+public class MaintenanceScheduler {
+    // Purge parameters
+    private static final int INITIAL_CHUNK_SIZE = 1000;
+    private static final int MIN_CHUNK_SIZE = 100;
+    private static final int MAX_CHUNK_SIZE = 10000;
+    private static final long TARGET_CHUNK_MS = 200; // Chunks slower than this shrink, much faster ones grow
+    private static final double PAUSE_RATIO = 1.0; // Pause this multiple of each chunk's duration (50% duty cycle)
+    private static final long MIN_PAUSE_MS = 20;
+    private static final long BUSY_BACKOFF_MS = 1000; // Wait while the database is busy
+    private static final int MAX_THREADS_RUNNING = 16; // Server considered busy above this
+
+    // Schedules
+    private static final long MAINTENANCE_INTERVAL_HOURS = 24;
+    private static final int ANNOUNCEMENT_RETENTION_DAYS = 30; // Kept this long after expiring or being removed
+    private static final int LOG_RETENTION_DAYS = 0; // 0 keeps logs until cleared from System Logs; change as needed
+
+    private static MaintenanceScheduler instance; // Singleton pattern
+
+    private final MySQLDatabase db;
+    private final LogStorageManager storageManager;
+    private final LogSearchIndex searchIndex;
+    private final LogStatsRollup statsRollup;
+    private final ScheduledExecutorService executor;
+    private volatile PurgeProgress lastProgress;
+    private boolean started;
+    private boolean backfillRunning;
+    private boolean loadProbeFailed;
+
+    private MaintenanceScheduler() {
+        this.db = MySQLDatabase.getInstance();
+        this.storageManager = new LogStorageManager();
+        this.searchIndex = LogSearchIndex.getInstance();
+        this.statsRollup = LogStatsRollup.getInstance();
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "scms-maintenance");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Get singleton instance of MaintenanceScheduler
+     */
+    public static synchronized MaintenanceScheduler getInstance() {
+        if (instance == null) {
+            instance = new MaintenanceScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Start the daily maintenance cycle (first run immediately)
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        executor.scheduleWithFixedDelay(this::runDailyMaintenance, 0, MAINTENANCE_INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * Purge log entries older than the given number of days in the background
+     *
+     * @param listener Receives progress after every chunk (on the maintenance thread)
+     */
+    public PurgeJob purgeLogs(int days, Consumer<PurgeProgress> listener) {
+        PurgeJob job = new PurgeJob();
+        job.future = executor.submit(() -> runLogPurge(days, job.cancelRequested, listener));
+        return job;
+    }
+
+    /**
+     * Purge expired and removed announcements in the background
+     */
+    public PurgeJob purgeAnnouncements(Consumer<PurgeProgress> listener) {
+        PurgeJob job = new PurgeJob();
+        job.future = executor.submit(() -> runAnnouncementPurge(job.cancelRequested, listener));
+        return job;
+    }
+
+    /**
+     * Progress of the most recent purge, or null if none has run
+     */
+    public PurgeProgress getLastProgress() {
+        return lastProgress;
+    }
+
+    private void runDailyMaintenance() {
+        try {
+            storageManager.runMaintenance();
+            if (!backfillRunning) {
+                backfillRunning = true;
+                runBackfill(INITIAL_CHUNK_SIZE);
+            }
+            runAnnouncementPurge(new AtomicBoolean(), null);
+            if (LOG_RETENTION_DAYS > 0) {
+                runLogPurge(LOG_RETENTION_DAYS, new AtomicBoolean(), null);
+            }
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule
+            System.err.println("Error during scheduled maintenance!");
+            e.printStackTrace();
+        }
+    }
+
+    private PurgeProgress runLogPurge(int days, AtomicBoolean cancelRequested, Consumer<PurgeProgress> listener) {
+        String jobName = "system_logs older than " + days + " days";
+        long start = System.currentTimeMillis();
+        if (cancelRequested.get()) { // Stopped before its turn came
+            return report(new PurgeProgress(jobName, PurgeProgress.State.CANCELLED, 0, 0, 0, null), listener);
+        }
+        try {
+            if (!db.isConnected()) {
+                db.connect();
+            }
+            // Fix the cutoff once so the job does not chase rows that age while it runs
+            Timestamp cutoff = db.queryForObject("SELECT NOW() - INTERVAL ? DAY AS cutoff", new Object[] { days },
+                    rs -> rs.getTimestamp("cutoff"));
+
+            // Whole months go at once; only the month containing the cutoff is left for chunking.
+            // Search terms of the chunk-deleted entries stay until their month is dropped; the
+            // search joins system_logs, so they never match.
+            long dropped = storageManager.dropExpiredPartitions(days);
+
+            statsRollup.purgeBefore(cutoff);
+            return purgeInChunks(jobName, "system_logs", "log_id", "timestamp < ?", new Object[] { cutoff },
+                    dropped, start, cancelRequested, listener);
+
+        } catch (SQLException e) {
+            return report(new PurgeProgress(jobName, PurgeProgress.State.FAILED, 0, 0,
+                    System.currentTimeMillis() - start, e.getMessage()), listener);
+        }
+    }
+
+    private PurgeProgress runAnnouncementPurge(AtomicBoolean cancelRequested, Consumer<PurgeProgress> listener) {
+        String jobName = "expired announcements";
+        long start = System.currentTimeMillis();
+        try {
+            if (!db.isConnected()) {
+                db.connect();
+            }
+            Timestamp cutoff = db.queryForObject("SELECT NOW() - INTERVAL ? DAY AS cutoff",
+                    new Object[] { ANNOUNCEMENT_RETENTION_DAYS }, rs -> rs.getTimestamp("cutoff"));
+
+            return purgeInChunks(jobName, "announcements", "announcement_id",
+                    "(expires_at < ? OR (is_active = FALSE AND posted_at < ?))", new Object[] { cutoff, cutoff },
+                    0, start, cancelRequested, listener);
+
+        } catch (SQLException e) {
+            return report(new PurgeProgress(jobName, PurgeProgress.State.FAILED, 0, 0,
+                    System.currentTimeMillis() - start, e.getMessage()), listener);
+        }
+    }
+
+    /**
+     * Index or count one chunk of the entries written before the search
+     * index or statistics rollup existed, then schedule the next chunk.
+     * Running a chunk per task lets purges requested meanwhile take their
+     * turn on the maintenance thread.
+     */
+    private void runBackfill(int chunkSize) {
+        try {
+            String busy = databaseBusyReason();
+            if (busy != null) {
+                executor.schedule(() -> runBackfill(chunkSize), BUSY_BACKOFF_MS, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            long chunkStart = System.nanoTime();
+            long done = searchIndex.backfill(chunkSize);
+            if (done == 0) {
+                done = statsRollup.backfill(chunkSize);
+            }
+            if (done == 0) {
+                backfillRunning = false;
+                return;
+            }
+            long chunkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStart);
+            int nextChunkSize = nextChunkSize(chunkSize, chunkMillis);
+            executor.schedule(() -> runBackfill(nextChunkSize),
+                    Math.max(MIN_PAUSE_MS, (long) (chunkMillis * PAUSE_RATIO)), TimeUnit.MILLISECONDS);
+
+        } catch (SQLException | RuntimeException e) {
+            // Picked up again by the next daily maintenance
+            backfillRunning = false;
+            System.err.println("Error backfilling log index and statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete rows matching the condition in ascending key order. Each chunk
+     * looks up the next keys, then deletes that key range re-checking the
+     * condition, so rows that stop matching in between are left alone.
+     */
+    private PurgeProgress purgeInChunks(String jobName, String table, String keyColumn, String condition,
+            Object[] conditionParams, long alreadyDeleted, long start, AtomicBoolean cancelRequested,
+            Consumer<PurgeProgress> listener) throws SQLException {
+        String selectKeys = "SELECT " + keyColumn + " AS purge_key FROM " + table
+                + " WHERE " + keyColumn + " > ? AND " + condition + " ORDER BY " + keyColumn + " LIMIT ?";
+        String deleteRange = "DELETE FROM " + table
+                + " WHERE " + keyColumn + " BETWEEN ? AND ? AND " + condition;
+
+        long deleted = alreadyDeleted;
+        long lastKey = 0;
+        int chunks = 0;
+        int chunkSize = INITIAL_CHUNK_SIZE;
+
+        while (true) {
+            if (cancelRequested.get()) {
+                return report(new PurgeProgress(jobName, PurgeProgress.State.CANCELLED, deleted, chunks,
+                        System.currentTimeMillis() - start, null), listener);
+            }
+
+            String busy = databaseBusyReason();
+            if (busy != null) {
+                report(new PurgeProgress(jobName, PurgeProgress.State.THROTTLED, deleted, chunks,
+                        System.currentTimeMillis() - start, busy), listener);
+                sleep(BUSY_BACKOFF_MS, cancelRequested);
+                continue;
+            }
+
+            long chunkStart = System.nanoTime();
+            int requested = chunkSize;
+            List<Long> keys = db.query(selectKeys, concat(new Object[] { lastKey }, conditionParams, requested),
+                    rs -> rs.getLong("purge_key"));
+            if (keys.isEmpty()) {
+                break;
+            }
+            long firstKey = keys.get(0);
+            lastKey = keys.get(keys.size() - 1);
+            deleted += db.update(deleteRange, concat(new Object[] { firstKey, lastKey }, conditionParams));
+            chunks++;
+            long chunkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStart);
+
+            report(new PurgeProgress(jobName, PurgeProgress.State.RUNNING, deleted, chunks,
+                    System.currentTimeMillis() - start, null), listener);
+
+            chunkSize = nextChunkSize(chunkSize, chunkMillis);
+            if (keys.size() < requested) {
+                break; // Nothing matched beyond this chunk
+            }
+            sleep(Math.max(MIN_PAUSE_MS, (long) (chunkMillis * PAUSE_RATIO)), cancelRequested);
+        }
+
+        PurgeProgress done = new PurgeProgress(jobName, PurgeProgress.State.COMPLETED, deleted, chunks,
+                System.currentTimeMillis() - start, null);
+        System.out.println("Purge finished - " + done);
+        return report(done, listener);
+    }
+
+    /**
+     * Aim for short chunks: shrink when slow, grow when comfortably fast
+     */
+    private static int nextChunkSize(int chunkSize, long chunkMillis) {
+        if (chunkMillis > TARGET_CHUNK_MS) {
+            return Math.max(MIN_CHUNK_SIZE, chunkSize / 2);
+        } else if (chunkMillis < TARGET_CHUNK_MS / 2) {
+            return Math.min(MAX_CHUNK_SIZE, chunkSize * 2);
+        }
+        return chunkSize;
+    }
+
+    /**
+     * Why background work should wait right now, or null if it may proceed
+     */
+    private String databaseBusyReason() {
+        PoolStats poolStats = db.getPoolStats();
+        if (poolStats == null) {
+            return "not connected to the database";
+        }
+        if (poolStats.getWaitingThreads() > 0) {
+            return "application is waiting for connections";
+        }
+        if (!loadProbeFailed) {
+            try {
+                Long threadsRunning = db.queryForObject(
+                        "SELECT CAST(VARIABLE_VALUE AS UNSIGNED) AS running FROM performance_schema.global_status "
+                                + "WHERE VARIABLE_NAME = 'Threads_running'",
+                        new Object[0], rs -> rs.getLong("running"));
+                if (threadsRunning != null && threadsRunning > MAX_THREADS_RUNNING) {
+                    return threadsRunning + " statements running on the server";
+                }
+            } catch (SQLException e) {
+                // performance_schema may be disabled or not readable; fall back to pool-based throttling
+                loadProbeFailed = true;
+                System.err.println("Purge load probe unavailable: " + e.getMessage());
+            }
+        }
+
+        return null;
+    }
+
+    private PurgeProgress report(PurgeProgress progress, Consumer<PurgeProgress> listener) {
+        lastProgress = progress;
+        if (progress.getState() == PurgeProgress.State.FAILED) {
+            System.err.println("Purge failed - " + progress);
+        }
+        if (listener != null) {
+            try {
+                listener.accept(progress);
+            } catch (RuntimeException e) {
+                System.err.println("Error in purge progress listener: " + e.getMessage());
+            }
+        }
+        return progress;
+    }
+
+    private static Object[] concat(Object[] head, Object[] middle, Object... tail) {
+        List<Object> params = new ArrayList<>(Arrays.asList(head));
+        params.addAll(Arrays.asList(middle));
+        params.addAll(Arrays.asList(tail));
+        return params.toArray();
+    }
+
+    private void sleep(long millis, AtomicBoolean cancelRequested) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelRequested.set(true);
+        }
+    }
+
+    /**
+     * Handle on one requested purge
+     */
+    public static final class PurgeJob {
+        private final AtomicBoolean cancelRequested = new AtomicBoolean();
+        private volatile Future<PurgeProgress> future;
+
+        private PurgeJob() {
+        }
+
+        /**
+         * Stop this purge after its current chunk, or before it starts if it
+         * is still waiting for the maintenance thread
+         */
+        public void cancel() {
+            cancelRequested.set(true);
+        }
+
+        public boolean isCancelRequested() {
+            return cancelRequested.get();
+        }
+
+        /**
+         * Completes with the final progress of the purge
+         */
+        public Future<PurgeProgress> getFuture() {
+            return future;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package services;
+
+import database.AsyncDatabase;
+import utils.Counter;
+import utils.MetricTimer;
+import utils.MetricsRegistry;
+import utils.PasswordHasher;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes and verifies passwords on a small, bounded pool of its own.
+ *
+ * Hashing is deliberately slow, so during a login surge it would otherwise
+ * take every CPU from the rest of the application. The pool uses half the
+ * cores and a short queue; once the queue is full further logins are
+ * turned away with a "try again" error instead of piling up. The PBKDF2
+ * cost is calibrated once at startup so a verify takes about
+ * TARGET_VERIFY_MS on this machine.
+ *
+ * Plain-text passwords left from before hashing still verify, and are
+ * replaced with a hash the next time their owner logs in.
+ */
+public class PasswordService {
+    // Hashing parameters (change as needed)
+    private static final long TARGET_VERIFY_MS = 100;
+    private static final int MIN_ITERATIONS = 100_000;
+    private static final int MAX_ITERATIONS = 2_000_000;
+    private static final int QUEUE_PER_THREAD = 16;
+    private static final long VERIFY_TIMEOUT_SECONDS = 10;
+
+    private static final Counter REHASHES = MetricsRegistry.getInstance()
+            .counter("scms_password_rehashes_total", "Stored passwords upgraded on login");
+    private static final Counter REJECTED = MetricsRegistry.getInstance()
+            .counter("scms_password_verifier_rejected_total", "Hash requests turned away because the pool was full");
+    private static final MetricTimer VERIFY_TIME = MetricsRegistry.getInstance()
+            .timer("scms_password_verify_seconds", "Time to verify a password, including the queue wait");
+
+    private static PasswordService instance; // Singleton pattern
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor verifier;
+    private final AsyncDatabase asyncDb;
+    private final String dummyHash;
+
+    private PasswordService() {
+        int iterations = PasswordHasher.calibrate(TARGET_VERIFY_MS, MIN_ITERATIONS, MAX_ITERATIONS);
+        this.hasher = new PasswordHasher(iterations);
+        System.out.println("Password hashing calibrated to " + iterations + " PBKDF2 iterations");
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.verifier = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "scms-password-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.asyncDb = AsyncDatabase.getInstance();
+        this.dummyHash = hasher.hash("not-a-real-password");
+
+        MetricsRegistry.getInstance().gauge("scms_password_verifier_queued", "Hash requests waiting for the pool",
+                () -> verifier.getQueue().size());
+    }
+
+    /**
+     * Get singleton instance of PasswordService (calibrates on first call)
+     */
+    public static synchronized PasswordService getInstance() {
+        if (instance == null) {
+            instance = new PasswordService();
+        }
+        return instance;
+    }
+
+    /**
+     * Hash a password for storage
+     *
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public String hash(String password) {
+        return run(() -> hasher.hash(password));
+    }
+
+    /**
+     * Check a password against the stored value. A null stored value (unknown
+     * user) is checked against a dummy hash, so the response time does not
+     * reveal whether the username exists.
+     *
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public boolean verify(String stored, String password) {
+        long start = System.nanoTime();
+        try {
+            return run(() -> {
+                if (stored == null) {
+                    hasher.verify(dummyHash, password); // Same work as a real check
+                    return false;
+                }
+                return hasher.verify(stored, password);
+            });
+        } finally {
+            VERIFY_TIME.recordSince(start);
+        }
+    }
+
+    /**
+     * Replace a just-verified stored password with a current hash if it is
+     * plain text or below the current cost. Runs in the background; skipped
+     * (and retried at the next login) if the pool is busy.
+     */
+    public void upgradeIfNeeded(int userId, String stored, String password) {
+        if (!hasher.needsRehash(stored)) {
+            return;
+        }
+        try {
+            verifier.execute(() -> {
+                String query = "UPDATE users SET password = ? WHERE user_id = ? AND password = ?";
+                // Only if unchanged since it was read, so a concurrent password change is kept
+                asyncDb.updateAsync(query, new Object[] { hasher.hash(password), userId, stored })
+                        .thenAccept(updated -> {
+                            if (updated > 0) {
+                                REHASHES.increment();
+                            }
+                        })
+                        .exceptionally(e -> {
+                            System.err.println("Error upgrading password hash for user " + userId + ": "
+                                    + e.getMessage());
+                            return null;
+                        });
+            });
+        } catch (RejectedExecutionException e) {
+            REJECTED.increment();
+        }
+    }
+
+    public int getIterations() {
+        return hasher.getIterations();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = verifier.submit(task);
+        } catch (RejectedExecutionException e) {
+            REJECTED.increment();
+            throw new RejectedExecutionException("Too many logins in progress, please try again in a moment");
+        }
+        try {
+            return future.get(VERIFY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the password check", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RejectedExecutionException("Password check timed out, please try again", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password check failed", e.getCause());
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package services;
 
+import database.AsyncDatabase;
 import database.MySQLDatabase;
+import database.Page;
+import database.RowMapper;
 import models.Payment;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Payment Service - Business logic for payment operations
  */
 public class PaymentService {
+    /**
+     * Reusable mapper for payment rows joined with student and processor names
+     */
+    public static final RowMapper<Payment> PAYMENT_MAPPER = PaymentService::mapResultSetToPayment;
+
+    private static final String PAYMENTS_ORDER = "ORDER BY p.payment_date DESC, p.payment_id DESC";
+
     private MySQLDatabase db;
+    private AsyncDatabase asyncDb;
 
     public PaymentService() {
         this.db = MySQLDatabase.getInstance();
+        this.asyncDb = AsyncDatabase.getInstance();
     }
 
     /**
@@ -27,49 +41,39 @@ public class PaymentService {
                 db.connect();
             }
 
-            // Start transaction
-            db.executeUpdate("START TRANSACTION");
-
-            // Insert payment record
-            String insertQuery = "INSERT INTO payments (student_id, amount, payment_date, " +
-                    "payment_method, reference_number, purpose, academic_year, semester, processed_by) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-            Object[] params = {
-                    payment.getStudentId(),
-                    payment.getAmount(),
-                    payment.getPaymentDate(),
-                    payment.getPaymentMethod(),
-                    payment.getReferenceNumber(),
-                    payment.getPurpose(),
-                    payment.getAcademicYear(),
-                    payment.getSemester(),
-                    payment.getProcessedBy()
-            };
-
-            boolean success = db.executePreparedQuery(insertQuery, params);
-
-            if (success) {
+            // Payment row and balance change commit together or not at all
+            db.inTransaction(conn -> {
+                String insertQuery = "INSERT INTO payments (student_id, amount, payment_date, " +
+                        "payment_method, reference_number, purpose, academic_year, semester, processed_by) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+                Object[] params = {
+                        payment.getStudentId(),
+                        payment.getAmount(),
+                        payment.getPaymentDate(),
+                        payment.getPaymentMethod(),
+                        payment.getReferenceNumber(),
+                        payment.getPurpose(),
+                        payment.getAcademicYear(),
+                        payment.getSemester(),
+                        payment.getProcessedBy()
+                };
+                db.update(insertQuery, params);
+
                 // Update student fee balance (reduce by payment amount)
                 String updateBalanceQuery = "UPDATE students SET fee_balance = fee_balance - ? WHERE student_id = ?";
-                db.executePreparedQuery(updateBalanceQuery,
+                int updated = db.update(updateBalanceQuery,
                         new Object[] { payment.getAmount(), payment.getStudentId() });
+                if (updated != 1) {
+                    throw new SQLException("Student not found: " + payment.getStudentId());
+                }
+                return null;
+            });
 
-                // Commit transaction
-                db.executeUpdate("COMMIT");
-                System.out.println("Payment recorded successfully. Reference: " + payment.getReferenceNumber());
-                return true;
-            } else {
-                db.executeUpdate("ROLLBACK");
-                return false;
-            }
+            System.out.println("Payment recorded successfully. Reference: " + payment.getReferenceNumber());
+            return true;
 
         } catch (Exception e) {
-            try {
-                db.executeUpdate("ROLLBACK");
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
             System.err.println("Error recording payment: " + e.getMessage());
             e.printStackTrace();
             return false;
@@ -87,59 +91,65 @@ public class PaymentService {
                 db.connect();
             }
 
-            StringBuilder query = new StringBuilder(
-                    "SELECT p.payment_id, p.student_id, p.amount, p.payment_date, " +
-                            "p.payment_method, p.reference_number, p.purpose, p.academic_year, " +
-                            "p.semester, p.processed_by, " +
-                            "s.registration_number, " +
-                            "CONCAT(per.first_name, ' ', per.last_name) as student_name, " +
-                            "CONCAT(adm_per.first_name, ' ', adm_per.last_name) as processed_by_name " +
-                            "FROM payments p " +
-                            "JOIN students s ON p.student_id = s.student_id " +
-                            "JOIN persons per ON s.person_id = per.person_id " +
-                            "LEFT JOIN admins a ON p.processed_by = a.admin_id " +
-                            "LEFT JOIN persons adm_per ON a.person_id = adm_per.person_id " +
-                            "WHERE 1=1 ");
-
             List<Object> params = new ArrayList<>();
+            String query = buildPaymentsQuery(studentFilter, dateFromFilter, dateToFilter, params);
 
-            // Add filters
-            if (studentFilter != null && !studentFilter.trim().isEmpty()) {
-                query.append("AND (s.registration_number LIKE ? OR " +
-                        "CONCAT(per.first_name, ' ', per.last_name) LIKE ?) ");
-                String searchPattern = "%" + studentFilter + "%";
-                params.add(searchPattern);
-                params.add(searchPattern);
-            }
+            payments = db.query(query + PAYMENTS_ORDER, params.toArray(), PAYMENT_MAPPER);
 
-            if (dateFromFilter != null && !dateFromFilter.trim().isEmpty()) {
-                query.append("AND p.payment_date >= ? ");
-                params.add(dateFromFilter);
-            }
+        } catch (SQLException e) {
+            System.err.println("Error fetching payments: " + e.getMessage());
+            e.printStackTrace();
+        }
 
-            if (dateToFilter != null && !dateToFilter.trim().isEmpty()) {
-                query.append("AND p.payment_date <= ? ");
-                params.add(dateToFilter);
-            }
+        return payments;
+    }
 
-            query.append("ORDER BY p.payment_date DESC, p.payment_id DESC");
+    /**
+     * Stream payments matching the filters straight off a database cursor,
+     * for exports and scans too large to hold in memory. The caller must
+     * close the stream.
+     */
+    public Stream<Payment> streamPayments(String studentFilter, String dateFromFilter, String dateToFilter)
+            throws SQLException {
+        if (!db.isConnected()) {
+            db.connect();
+        }
 
-            ResultSet rs = db.executePreparedSelect(query.toString(), params.toArray());
+        List<Object> params = new ArrayList<>();
+        String query = buildPaymentsQuery(studentFilter, dateFromFilter, dateToFilter, params);
+        return db.stream(query + PAYMENTS_ORDER, params.toArray(), PAYMENT_MAPPER);
+    }
 
-            while (rs != null && rs.next()) {
-                payments.add(mapResultSetToPayment(rs));
+    /**
+     * Get one page of payments matching the filters, newest first
+     *
+     * @param afterKey getNextKey() of the previous page, or null for the first page
+     */
+    public Page<Payment> getPaymentsPage(String studentFilter, String dateFromFilter, String dateToFilter,
+            Object[] afterKey, int limit) {
+        try {
+            if (!db.isConnected()) {
+                db.connect();
             }
 
-            if (rs != null) {
-                rs.close();
-            }
+            List<Object> params = new ArrayList<>();
+            String query = buildPaymentsQuery(studentFilter, dateFromFilter, dateToFilter, params);
+            return db.fetchPage(query, params.toArray(), "payment_date DESC, payment_id DESC", afterKey, limit,
+                    PAYMENT_MAPPER);
 
         } catch (SQLException e) {
-            System.err.println("Error fetching payments: " + e.getMessage());
+            System.err.println("Error fetching payments page: " + e.getMessage());
             e.printStackTrace();
+            return Page.empty();
         }
+    }
 
-        return payments;
+    /**
+     * Get all payments with optional filters without blocking the caller
+     */
+    public CompletableFuture<List<Payment>> getAllPaymentsAsync(String studentFilter, String dateFromFilter,
+            String dateToFilter) {
+        return asyncDb.supplyAsync(() -> getAllPayments(studentFilter, dateFromFilter, dateToFilter));
     }
 
     /**
@@ -167,15 +177,7 @@ public class PaymentService {
                     "WHERE p.student_id = ? " +
                     "ORDER BY p.payment_date DESC, p.payment_id DESC";
 
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { studentId });
-
-            while (rs != null && rs.next()) {
-                payments.add(mapResultSetToPayment(rs));
-            }
-
-            if (rs != null) {
-                rs.close();
-            }
+            payments = db.query(query, new Object[] { studentId }, PAYMENT_MAPPER);
 
         } catch (SQLException e) {
             System.err.println("Error fetching student payments: " + e.getMessage());
@@ -207,13 +209,7 @@ public class PaymentService {
                     "LEFT JOIN persons adm_per ON a.person_id = adm_per.person_id " +
                     "WHERE p.reference_number = ?";
 
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { referenceNumber });
-
-            if (rs != null && rs.next()) {
-                Payment payment = mapResultSetToPayment(rs);
-                rs.close();
-                return payment;
-            }
+            return db.queryForObject(query, new Object[] { referenceNumber }, PAYMENT_MAPPER);
 
         } catch (SQLException e) {
             System.err.println("Error fetching payment by reference: " + e.getMessage());
@@ -233,11 +229,9 @@ public class PaymentService {
             }
 
             String query = "SELECT COALESCE(SUM(amount), 0) as total FROM payments WHERE student_id = ?";
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { studentId });
+            Double total = db.queryForObject(query, new Object[] { studentId }, rs -> rs.getDouble("total"));
 
-            if (rs != null && rs.next()) {
-                double total = rs.getDouble("total");
-                rs.close();
+            if (total != null) {
                 return total;
             }
 
@@ -266,11 +260,9 @@ public class PaymentService {
             }
 
             String query = "SELECT COUNT(*) as count FROM payments WHERE reference_number = ?";
-            ResultSet rs = db.executePreparedSelect(query, new Object[] { referenceNumber });
+            Integer count = db.queryForObject(query, new Object[] { referenceNumber }, rs -> rs.getInt("count"));
 
-            if (rs != null && rs.next()) {
-                int count = rs.getInt("count");
-                rs.close();
+            if (count != null) {
                 return count > 0;
             }
 
@@ -285,7 +277,45 @@ public class PaymentService {
     /**
      * Map ResultSet to Payment object
      */
-    private Payment mapResultSetToPayment(ResultSet rs) throws SQLException {
+    private String buildPaymentsQuery(String studentFilter, String dateFromFilter, String dateToFilter,
+            List<Object> params) {
+        StringBuilder query = new StringBuilder(
+                "SELECT p.payment_id, p.student_id, p.amount, p.payment_date, " +
+                        "p.payment_method, p.reference_number, p.purpose, p.academic_year, " +
+                        "p.semester, p.processed_by, " +
+                        "s.registration_number, " +
+                        "CONCAT(per.first_name, ' ', per.last_name) as student_name, " +
+                        "CONCAT(adm_per.first_name, ' ', adm_per.last_name) as processed_by_name " +
+                        "FROM payments p " +
+                        "JOIN students s ON p.student_id = s.student_id " +
+                        "JOIN persons per ON s.person_id = per.person_id " +
+                        "LEFT JOIN admins a ON p.processed_by = a.admin_id " +
+                        "LEFT JOIN persons adm_per ON a.person_id = adm_per.person_id " +
+                        "WHERE 1=1 ");
+
+        // Add filters
+        if (studentFilter != null && !studentFilter.trim().isEmpty()) {
+            query.append("AND (s.registration_number LIKE ? OR " +
+                    "CONCAT(per.first_name, ' ', per.last_name) LIKE ?) ");
+            String searchPattern = "%" + studentFilter + "%";
+            params.add(searchPattern);
+            params.add(searchPattern);
+        }
+
+        if (dateFromFilter != null && !dateFromFilter.trim().isEmpty()) {
+            query.append("AND p.payment_date >= ? ");
+            params.add(dateFromFilter);
+        }
+
+        if (dateToFilter != null && !dateToFilter.trim().isEmpty()) {
+            query.append("AND p.payment_date <= ? ");
+            params.add(dateToFilter);
+        }
+
+        return query.toString();
+    }
+
+    private static Payment mapResultSetToPayment(ResultSet rs) throws SQLException {
         Payment payment = new Payment();
         payment.setPaymentId(rs.getInt("payment_id"));
         payment.setStudentId(rs.getInt("student_id"));
@@ -0,0 +1,65 @@
+package services;
+
+/**
+ * Snapshot of a running or finished purge job, passed to progress listeners
+ */
+public class PurgeProgress {
+
+    public enum State {
+        RUNNING, THROTTLED, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final String jobName;
+    private final State state;
+    private final long rowsDeleted;
+    private final int chunks;
+    private final long elapsedMillis;
+    private final String message;
+
+    public PurgeProgress(String jobName, State state, long rowsDeleted, int chunks, long elapsedMillis,
+            String message) {
+        this.jobName = jobName;
+        this.state = state;
+        this.rowsDeleted = rowsDeleted;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+        this.message = message;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsDeleted() {
+        return rowsDeleted;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Extra detail (throttle reason or error), may be null
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.CANCELLED || state == State.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return jobName + ": " + state + ", " + rowsDeleted + " rows in " + chunks + " chunks, "
+                + elapsedMillis + " ms" + (message != null ? " (" + message + ")" : "");
+    }
+}
@@ -0,0 +1,44 @@
+package utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonically increasing count (requests, errors, ...)
+ */
+public class Counter extends Metric {
+    private final LongAdder count = new LongAdder();
+
+    public Counter(String name, String help) {
+        super(name, help);
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void increment(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counters only go up");
+        }
+        count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public String getDisplayValue() {
+        return Long.toString(getCount());
+    }
+
+    @Override
+    protected void writeSamples(StringBuilder out) {
+        out.append(getName()).append(' ').append(getCount()).append('\n');
+    }
+}
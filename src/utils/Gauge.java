@@ -0,0 +1,39 @@
+package utils;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Value sampled on demand from a supplier (pool size, queue depth, ...)
+ */
+public class Gauge extends Metric {
+    private final DoubleSupplier supplier;
+
+    public Gauge(String name, String help, DoubleSupplier supplier) {
+        super(name, help);
+        this.supplier = supplier;
+    }
+
+    public double getValue() {
+        try {
+            return supplier.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN; // The source may not be initialised yet
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+    @Override
+    public String getDisplayValue() {
+        double value = getValue();
+        return value == Math.rint(value) ? format(value) : String.format("%.3f", value);
+    }
+
+    @Override
+    protected void writeSamples(StringBuilder out) {
+        out.append(getName()).append(' ').append(format(getValue())).append('\n');
+    }
+}
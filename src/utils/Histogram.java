@@ -0,0 +1,73 @@
+package utils;
+
+import database.LatencyHistogram;
+
+/**
+ * Distribution of recorded values with p50/p95/p99, exported as a
+ * Prometheus summary. Backed by a log-linear LatencyHistogram, so
+ * recording is lock-free and quantiles are accurate to within 12.5%.
+ */
+public class Histogram extends Metric {
+    private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+
+    private final LatencyHistogram histogram;
+    private final double exportScale;
+
+    public Histogram(String name, String help) {
+        this(name, help, new LatencyHistogram(), 1.0);
+    }
+
+    /**
+     * Expose an existing histogram, multiplying recorded values by
+     * exportScale on export (e.g. 1e-6 to report microseconds as seconds)
+     */
+    public Histogram(String name, String help, LatencyHistogram histogram, double exportScale) {
+        super(name, help);
+        this.histogram = histogram;
+        this.exportScale = exportScale;
+    }
+
+    public void record(long value) {
+        histogram.record(value);
+    }
+
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    /**
+     * Value at the percentile (0-100) in export units
+     */
+    public double getPercentile(double percentile) {
+        return histogram.getPercentileMicros(percentile) * exportScale;
+    }
+
+    public double getMax() {
+        return histogram.getMaxMicros() * exportScale;
+    }
+
+    @Override
+    public String getType() {
+        return "summary";
+    }
+
+    @Override
+    public String getDisplayValue() {
+        return String.format("n=%d p50=%s p95=%s p99=%s", getCount(), display(getPercentile(50)),
+                display(getPercentile(95)), display(getPercentile(99)));
+    }
+
+    protected String display(double value) {
+        return format(value);
+    }
+
+    @Override
+    protected void writeSamples(StringBuilder out) {
+        for (double q : QUANTILES) {
+            out.append(getName()).append("{quantile=\"").append(q).append("\"} ")
+                    .append(format(getPercentile(q * 100))).append('\n');
+        }
+        out.append(getName()).append("_sum ").append(format(histogram.getSumMicros() * exportScale)).append('\n');
+        out.append(getName()).append("_count ").append(getCount()).append('\n');
+    }
+}
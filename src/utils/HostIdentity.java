@@ -0,0 +1,137 @@
+package utils;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Address of this machine (and, when serving remote clients, of the client
+ * behind the current request) for stamping audit events.
+ *
+ * The address is read from the network interfaces rather than through
+ * InetAddress.getLocalHost(), which does a DNS lookup that can take seconds
+ * on machines with broken DNS. Interfaces are scanned once at startup and
+ * then re-checked in the background, so getAddress() is only a volatile
+ * read.
+ */
+public class HostIdentity {
+    private static final long REFRESH_INTERVAL_SECONDS = 30; // How quickly network changes are picked up
+    private static final String UNKNOWN = "Unknown";
+
+    private static HostIdentity instance; // Singleton pattern
+
+    private final ThreadLocal<String> clientAddress = new ThreadLocal<>();
+    private final ScheduledExecutorService refresher;
+    private volatile String address = UNKNOWN;
+    private volatile List<String> interfaceAddresses = Collections.emptyList();
+
+    private HostIdentity() {
+        refresher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "scms-host-identity");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresh(); // Interface enumeration needs no DNS, so the first scan is cheap enough to do inline
+        refresher.scheduleWithFixedDelay(this::refresh, REFRESH_INTERVAL_SECONDS, REFRESH_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Get singleton instance of HostIdentity
+     */
+    public static synchronized HostIdentity getInstance() {
+        if (instance == null) {
+            instance = new HostIdentity();
+        }
+        return instance;
+    }
+
+    /**
+     * Best address of this machine: a site-local IPv4 address if there is
+     * one, otherwise any non-loopback address, otherwise loopback
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Every address on an interface that is up, best first
+     */
+    public List<String> getInterfaceAddresses() {
+        return interfaceAddresses;
+    }
+
+    /**
+     * Address to record for an event on this thread: the remote client's if
+     * one is bound, else this machine's
+     */
+    public String getEventAddress() {
+        String client = clientAddress.get();
+        return client != null ? client : address;
+    }
+
+    /**
+     * Attribute events logged by the current thread to a remote client
+     * until clearClientAddress() is called (used by request handlers)
+     */
+    public void setClientAddress(String address) {
+        clientAddress.set(address);
+    }
+
+    public void clearClientAddress() {
+        clientAddress.remove();
+    }
+
+    /**
+     * Re-scan the interfaces now instead of waiting for the next refresh
+     */
+    public void refresh() {
+        try {
+            List<String> siteLocal = new ArrayList<>();
+            List<String> other = new ArrayList<>();
+            List<String> loopback = new ArrayList<>();
+
+            for (NetworkInterface nic : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!nic.isUp() || nic.isVirtual()) {
+                    continue;
+                }
+                for (InetAddress inet : Collections.list(nic.getInetAddresses())) {
+                    if (inet.isLinkLocalAddress()) {
+                        continue; // fe80::/169.254 addresses mean nothing to another machine
+                    }
+                    String text = inet.getHostAddress();
+                    int zone = text.indexOf('%');
+                    if (zone >= 0) {
+                        text = text.substring(0, zone);
+                    }
+                    if (inet.isLoopbackAddress()) {
+                        loopback.add(text);
+                    } else if (inet.isSiteLocalAddress() && inet instanceof Inet4Address) {
+                        siteLocal.add(text);
+                    } else if (inet instanceof Inet4Address) {
+                        other.add(0, text); // Prefer public IPv4 over IPv6
+                    } else {
+                        other.add(text);
+                    }
+                }
+            }
+
+            List<String> all = new ArrayList<>(siteLocal);
+            all.addAll(other);
+            all.addAll(loopback);
+            interfaceAddresses = Collections.unmodifiableList(all);
+            address = all.isEmpty() ? UNKNOWN : all.get(0);
+
+        } catch (SocketException | RuntimeException e) {
+            // Keep the last known address; the next refresh may succeed
+            System.err.println("Error reading network interfaces: " + e.getMessage());
+        }
+    }
+}
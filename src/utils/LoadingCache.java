@@ -0,0 +1,176 @@
+package utils;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Read-through cache for data that rarely changes, such as the course
+ * catalog.
+ *
+ * Entries expire ttlMillis after they were loaded; beyond maxEntries the
+ * least recently used entry is evicted. Loading is single-flight per key:
+ * when many threads miss the same key at once, one of them runs the loader
+ * and the others wait for its result, so the database sees one query
+ * rather than a thundering herd. invalidateAll() makes the next read of
+ * every key load again (a load already running finishes for the threads
+ * waiting on it but is not kept).
+ *
+ * Hits and misses are counted as NAME_hits_total and NAME_misses_total,
+ * with the hit ratio as the NAME_hit_ratio gauge.
+ */
+public class LoadingCache<K, V> {
+
+    /**
+     * Reads a value from the source of truth
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws SQLException;
+    }
+
+    private static class Entry<V> {
+        final CompletableFuture<V> value = new CompletableFuture<>();
+        volatile long loadedAt = Long.MAX_VALUE; // Not expired while loading
+        volatile long lastAccess = System.nanoTime();
+    }
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * @param name       Metric name prefix, e.g. "scms_course_catalog_cache"
+     * @param maxEntries Most keys kept at once
+     * @param ttlMillis  How long a loaded value is served before reloading
+     */
+    public LoadingCache(String name, int maxEntries, long ttlMillis) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        this.hits = registry.counter(name + "_hits_total", "Reads served from the " + name);
+        this.misses = registry.counter(name + "_misses_total", "Reads that loaded into the " + name);
+        registry.gauge(name + "_hit_ratio", "Share of reads served from the " + name, this::getHitRatio);
+    }
+
+    /**
+     * The cached value for the key, loading it if missing or expired
+     *
+     * @throws SQLException if the load fails (failures are not cached)
+     */
+    public V get(K key, Loader<V> loader) throws SQLException {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && !isExpired(entry, now)) {
+            entry.lastAccess = now;
+            hits.increment();
+            return await(entry);
+        }
+
+        Entry<V> created = new Entry<>();
+        Entry<V> current = entries.compute(key,
+                (k, existing) -> existing != null && !isExpired(existing, now) ? existing : created);
+        if (current != created) {
+            // Another thread is loading (or just loaded) it
+            current.lastAccess = now;
+            hits.increment();
+            return await(current);
+        }
+
+        misses.increment();
+        if (entries.size() > maxEntries) {
+            evictLeastRecentlyUsed(key);
+        }
+        try {
+            V value = loader.load();
+            created.loadedAt = System.nanoTime();
+            created.value.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException e) {
+            entries.remove(key, created);
+            created.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop one key
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Drop every key, e.g. after the underlying data changed
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Hits divided by all reads, NaN before the first read
+     */
+    public double getHitRatio() {
+        long hitCount = hits.getCount();
+        long total = hitCount + misses.getCount();
+        return total == 0 ? Double.NaN : (double) hitCount / total;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        long loadedAt = entry.loadedAt;
+        return loadedAt != Long.MAX_VALUE && now - loadedAt >= ttlNanos;
+    }
+
+    /**
+     * Evict the least recently used entry other than the one being loaded.
+     * A linear scan: caches like this hold at most a few hundred keys.
+     */
+    private void evictLeastRecentlyUsed(K loading) {
+        K oldestKey = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+            long lastAccess = candidate.getValue().lastAccess;
+            if (!candidate.getKey().equals(loading) && lastAccess < oldest) {
+                oldest = lastAccess;
+                oldestKey = candidate.getKey();
+            }
+        }
+        if (oldestKey != null) {
+            entries.remove(oldestKey);
+        }
+    }
+
+    private V await(Entry<V> entry) throws SQLException {
+        try {
+            return entry.value.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for " + name, e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Error loading " + name, cause);
+        }
+    }
+}
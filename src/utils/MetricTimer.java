@@ -0,0 +1,42 @@
+package utils;
+
+import database.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histogram of durations: recorded in nanoseconds, kept at microsecond
+ * resolution and exported in seconds as Prometheus expects
+ */
+public class MetricTimer extends Histogram {
+
+    public MetricTimer(String name, String help) {
+        this(name, help, new LatencyHistogram());
+    }
+
+    /**
+     * Expose an existing microsecond histogram as a timer
+     */
+    public MetricTimer(String name, String help, LatencyHistogram micros) {
+        super(name, help, micros, 1e-6);
+    }
+
+    /**
+     * Record a duration measured with System.nanoTime()
+     */
+    public void recordNanos(long nanos) {
+        record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Record the time elapsed since a System.nanoTime() reading
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    protected String display(double seconds) {
+        return String.format("%.1fms", seconds * 1000);
+    }
+}
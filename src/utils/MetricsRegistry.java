@@ -0,0 +1,95 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-process registry of counters, gauges, timers and histograms.
+ * Metrics are created on first use and looked up by name afterwards, so
+ * call sites can simply do MetricsRegistry.getInstance().counter(...).
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final ConcurrentSkipListMap<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    public Counter counter(String name, String help) {
+        return getOrCreate(name, Counter.class, () -> new Counter(name, help));
+    }
+
+    /**
+     * Register a gauge; re-registering a name replaces its supplier
+     */
+    public Gauge gauge(String name, String help, DoubleSupplier supplier) {
+        Gauge gauge = new Gauge(name, help, supplier);
+        Metric previous = metrics.put(name, gauge);
+        if (previous != null && !(previous instanceof Gauge)) {
+            metrics.put(name, previous);
+            throw new IllegalArgumentException("Metric " + name + " is already a " + previous.getType());
+        }
+        return gauge;
+    }
+
+    public MetricTimer timer(String name, String help) {
+        return getOrCreate(name, MetricTimer.class, () -> new MetricTimer(name, help));
+    }
+
+    public Histogram histogram(String name, String help) {
+        return getOrCreate(name, Histogram.class, () -> new Histogram(name, help));
+    }
+
+    /**
+     * Register a metric built elsewhere (e.g. a timer over an existing histogram)
+     */
+    public <T extends Metric> T register(T metric) {
+        Metric previous = metrics.putIfAbsent(metric.getName(), metric);
+        if (previous != null) {
+            throw new IllegalArgumentException("Metric " + metric.getName() + " is already registered");
+        }
+        return metric;
+    }
+
+    public void remove(String name) {
+        metrics.remove(name);
+    }
+
+    public Metric get(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * All metrics ordered by name
+     */
+    public List<Metric> getMetrics() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    /**
+     * Every metric in the Prometheus text exposition format (version 0.0.4)
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder();
+        for (Metric metric : metrics.values()) {
+            metric.writePrometheus(out);
+        }
+        return out.toString();
+    }
+
+    private <T extends Metric> T getOrCreate(String name, Class<T> type, Supplier<T> factory) {
+        Metric metric = metrics.computeIfAbsent(name, n -> factory.get());
+        if (metric.getClass() != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already a " + metric.getType());
+        }
+        return type.cast(metric);
+    }
+}
@@ -0,0 +1,78 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures password verify throughput on this machine, to size the
+ * verifier pool and the hashing cost.
+ *
+ * Usage: java -cp bin utils.PasswordHashBenchmark [targetMillis] [secondsPerRun]
+ *
+ * Calibrates the iteration count for the target verify time, then verifies
+ * continuously with 1, 2, 4... threads up to the number of cores and prints
+ * verifies per second in total and per thread.
+ */
+public class PasswordHashBenchmark {
+    // Defaults (change as needed)
+    private static final long DEFAULT_TARGET_MS = 100;
+    private static final int DEFAULT_SECONDS = 5;
+    private static final int MIN_ITERATIONS = 10_000;
+    private static final int MAX_ITERATIONS = 10_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        long targetMillis = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_TARGET_MS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        int iterations = PasswordHasher.calibrate(targetMillis, MIN_ITERATIONS, MAX_ITERATIONS);
+        PasswordHasher hasher = new PasswordHasher(iterations);
+        String stored = hasher.hash("benchmark-password");
+
+        System.out.println("Cores: " + cores + ", target " + targetMillis + " ms -> " + iterations
+                + " PBKDF2-HMAC-SHA256 iterations");
+        System.out.printf("%8s %12s %14s %12s%n", "Threads", "Verifies/s", "Per thread/s", "Avg ms");
+
+        for (int threads : threadCounts(cores)) {
+            LongAdder verifies = new LongAdder();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            CountDownLatch done = new CountDownLatch(threads);
+            List<Thread> workers = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(() -> {
+                    while (System.nanoTime() < deadline) {
+                        if (!hasher.verify(stored, "benchmark-password")) {
+                            throw new IllegalStateException("Verify failed");
+                        }
+                        verifies.increment();
+                    }
+                    done.countDown();
+                }, "benchmark-" + i);
+                workers.add(worker);
+            }
+            long start = System.nanoTime();
+            workers.forEach(Thread::start);
+            done.await();
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            double perSecond = verifies.sum() / elapsed;
+            System.out.printf("%8d %12.1f %14.1f %12.1f%n", threads, perSecond, perSecond / threads,
+                    threads * 1000 / perSecond);
+        }
+    }
+
+    /**
+     * 1, 2, 4... and finally the core count itself
+     */
+    private static List<Integer> threadCounts(int cores) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+        return counts;
+    }
+}
@@ -0,0 +1,139 @@
+package utils;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashes, stored as
+ * "pbkdf2-sha256$iterations$salt$hash" (salt and hash in Base64) so the cost
+ * can be raised later without invalidating existing hashes.
+ *
+ * Stored values without the prefix are legacy plain-text passwords; they
+ * still verify, and needsRehash() reports them so they can be replaced.
+ */
+public class PasswordHasher {
+    public static final String PREFIX = "pbkdf2-sha256$";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int CALIBRATION_ITERATIONS = 10_000;
+    private static final long CALIBRATION_MS = 1000; // Long enough for the JIT to compile the HMAC loop
+    private static final int ITERATION_STEP = 10_000; // Calibrated counts are rounded to this
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    /**
+     * @param iterations PBKDF2 iterations for new hashes
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Pick the iteration count whose hash takes about targetMillis on this
+     * machine, within [minIterations, maxIterations]. Takes about a second.
+     */
+    public static int calibrate(long targetMillis, int minIterations, int maxIterations) {
+        char[] password = "calibration-password".toCharArray();
+        byte[] salt = new byte[SALT_BYTES];
+        long best = Long.MAX_VALUE;
+        long end = System.nanoTime() + CALIBRATION_MS * 1_000_000L;
+        // The fastest round is the one least disturbed by the JIT, GC and other threads
+        for (long start = System.nanoTime(); start < end; start = System.nanoTime()) {
+            derive(password, salt, CALIBRATION_ITERATIONS);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        long iterations = CALIBRATION_ITERATIONS * (targetMillis * 1_000_000L) / Math.max(1, best);
+        iterations = Math.round((double) iterations / ITERATION_STEP) * ITERATION_STEP;
+        return (int) Math.max(minIterations, Math.min(maxIterations, iterations));
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hash a password with a new random salt
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = derive(password.toCharArray(), salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Check a password against a stored hash (or legacy plain-text value),
+     * in time independent of where they differ
+     */
+    public boolean verify(String stored, String password) {
+        if (stored == null || password == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8),
+                    password.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[0]);
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] expected = Base64.getDecoder().decode(parts[2]);
+            byte[] actual = derive(password.toCharArray(), salt, storedIterations);
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Malformed password hash: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * True if the stored value is plain text or hashed with fewer iterations
+     * than this hasher uses
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !isHashed(stored)) {
+            return true;
+        }
+        int end = stored.indexOf('$', PREFIX.length());
+        try {
+            return end < 0 || Integer.parseInt(stored.substring(PREFIX.length(), end)) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public static boolean isHashed(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+
+    private static byte[] derive(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(password, '\0');
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package utils;
+
+import models.Person;
+
+/**
+ * A logged-in user's session in the SessionStore.
+ *
+ * Holds the profile loaded at login, so checking who is calling and what
+ * role they have needs no database lookup.
+ */
+public class Session {
+    private final String token;
+    private final Person user;
+    private final int userId;
+    private final String role;
+    private final long createdAt;
+    private volatile long lastAccess;
+    volatile int wheelSlot = -1; // Changed under this session's lock by SessionStore
+
+    Session(String token, Person user, long now) {
+        this.token = token;
+        this.user = user;
+        this.userId = user.getUserId();
+        this.role = user.getRole();
+        this.createdAt = now;
+        this.lastAccess = now;
+    }
+
+    /**
+     * Opaque token identifying the session to clients
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Profile as loaded at login
+     */
+    public Person getUser() {
+        return user;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * True if the session's role is one of the given roles
+     */
+    public boolean hasRole(String... roles) {
+        for (String allowed : roles) {
+            if (allowed.equals(role)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch(long now) {
+        lastAccess = now;
+    }
+
+    @Override
+    public String toString() {
+        // Never the token: it is as good as the password while the session lasts
+        return "Session[user " + userId + ", " + role + "]";
+    }
+}
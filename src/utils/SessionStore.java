@@ -0,0 +1,241 @@
+package utils;
+
+import models.Person;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logged-in sessions for any number of concurrent users, keyed by an opaque
+ * random token.
+ *
+ * Sessions expire after IDLE_TIMEOUT_MINUTES without use; every lookup
+ * extends them. Expiry is tracked on a timing wheel: one slot per
+ * TICK_SECONDS, each holding the sessions due to expire in that tick, so
+ * the expiry task only looks at the sessions that are actually due and a
+ * lookup moves its session at most once a tick. The wheel also orders
+ * sessions by last use, so when MAX_SESSIONS is reached the least recently
+ * used are evicted first (to within one tick).
+ */
+public class SessionStore {
+    // Session limits (change as needed)
+    private static final long IDLE_TIMEOUT_MINUTES = 30;
+    private static final long TICK_SECONDS = 30;
+    private static final int MAX_SESSIONS = 10000;
+    private static final int TOKEN_BYTES = 32;
+
+    private static SessionStore instance; // Singleton pattern
+
+    private final long timeoutMillis;
+    private final long tickMillis;
+    private final int maxSessions;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final List<Set<Session>> wheel;
+    private final Object expiryLock = new Object();
+    private long lastExpiredTick; // Guarded by expiryLock
+    private final SecureRandom random = new SecureRandom();
+    private final Counter expired;
+    private final Counter evicted;
+
+    private SessionStore() {
+        this(TimeUnit.MINUTES.toMillis(IDLE_TIMEOUT_MINUTES), TimeUnit.SECONDS.toMillis(TICK_SECONDS),
+                MAX_SESSIONS);
+    }
+
+    /**
+     * A store with its own limits (the tests use short ones)
+     */
+    SessionStore(long timeoutMillis, long tickMillis, int maxSessions) {
+        this.timeoutMillis = timeoutMillis;
+        this.tickMillis = tickMillis;
+        this.maxSessions = maxSessions;
+        // One lap of the wheel must be longer than the timeout, so slots never hold two laps
+        int slots = (int) (timeoutMillis / tickMillis) + 2;
+        List<Set<Session>> slotSets = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            slotSets.add(ConcurrentHashMap.newKeySet());
+        }
+        this.wheel = Collections.unmodifiableList(slotSets);
+        this.lastExpiredTick = System.currentTimeMillis() / tickMillis - 1;
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        this.expired = registry.counter("scms_sessions_expired_total", "Sessions ended by the idle timeout");
+        this.evicted = registry.counter("scms_sessions_evicted_total",
+                "Least recently used sessions ended because the store was full");
+        registry.gauge("scms_sessions_active", "Logged-in sessions", sessions::size);
+
+        ScheduledExecutorService expiry = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "scms-session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleAtFixedRate(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get singleton instance of SessionStore
+     */
+    public static synchronized SessionStore getInstance() {
+        if (instance == null) {
+            instance = new SessionStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Start a session for a user who has just logged in
+     */
+    public Session create(Person user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        long now = System.currentTimeMillis();
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), user, now);
+
+        sessions.put(session.getToken(), session);
+        place(session, now);
+        if (sessions.size() > maxSessions) {
+            evictLeastRecentlyUsed();
+        }
+        return session;
+    }
+
+    /**
+     * Look up a session and extend it
+     *
+     * @return The session, or null if the token is unknown or has expired
+     */
+    public Session get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (isExpired(session, now)) {
+            if (remove(session)) {
+                expired.increment();
+            }
+            return null;
+        }
+        session.touch(now);
+        place(session, now);
+        return session;
+    }
+
+    /**
+     * End a session (logout). Unknown tokens are ignored.
+     */
+    public void invalidate(String token) {
+        Session session = token != null ? sessions.get(token) : null;
+        if (session != null) {
+            remove(session);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long getIdleTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.getLastAccess() >= timeoutMillis;
+    }
+
+    private int slotFor(long tick) {
+        return (int) (tick % wheel.size());
+    }
+
+    /**
+     * Put the session in the slot of the tick it now expires in, unless it
+     * is already there
+     */
+    private void place(Session session, long now) {
+        int slot = slotFor((now + timeoutMillis) / tickMillis);
+        if (session.wheelSlot == slot) {
+            return;
+        }
+        synchronized (session) {
+            if (session.wheelSlot == slot || !sessions.containsKey(session.getToken())) {
+                return;
+            }
+            if (session.wheelSlot >= 0) {
+                wheel.get(session.wheelSlot).remove(session);
+            }
+            wheel.get(slot).add(session);
+            session.wheelSlot = slot;
+        }
+    }
+
+    private boolean remove(Session session) {
+        if (!sessions.remove(session.getToken(), session)) {
+            return false;
+        }
+        synchronized (session) {
+            if (session.wheelSlot >= 0) {
+                wheel.get(session.wheelSlot).remove(session);
+                session.wheelSlot = -1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * End the sessions of every tick that has fully passed since the last run
+     */
+    void expireDue() {
+        try {
+            long now = System.currentTimeMillis();
+            long currentTick = now / tickMillis;
+            synchronized (expiryLock) {
+                // After a long pause one lap covers every slot
+                long from = Math.max(lastExpiredTick + 1, currentTick - wheel.size());
+                for (long tick = from; tick < currentTick; tick++) {
+                    for (Session session : wheel.get(slotFor(tick))) {
+                        // Sessions used since they were placed here are moving to a later slot
+                        if (isExpired(session, now) && remove(session)) {
+                            expired.increment();
+                        }
+                    }
+                }
+                lastExpiredTick = currentTick - 1;
+            }
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule
+            System.err.println("Error expiring sessions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove sessions from the soonest-expiring slots (the least recently
+     * used) until the store is back under maxSessions
+     */
+    private void evictLeastRecentlyUsed() {
+        synchronized (expiryLock) {
+            long tick = lastExpiredTick + 1;
+            for (int i = 0; i < wheel.size() && sessions.size() > maxSessions; i++, tick++) {
+                for (Session session : wheel.get(slotFor(tick))) {
+                    if (sessions.size() <= maxSessions) {
+                        break;
+                    }
+                    if (remove(session)) {
+                        evicted.increment();
+                    }
+                }
+            }
+        }
+    }
+}
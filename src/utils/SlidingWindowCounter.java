@@ -0,0 +1,121 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate per-key event counts over a sliding time window, in fixed
+ * memory however many distinct keys are seen (so a flood of random keys
+ * cannot grow it).
+ *
+ * Keys hash to one stripe in each of DEPTH rows (a count-min sketch). A
+ * stripe keeps one counter per time bucket; each counter packs the bucket
+ * epoch with the count in a single AtomicLong slot, so counters from an
+ * older pass of the ring are recognized and restarted without locks. A
+ * key's count is the smallest of its stripes: collisions can only make it
+ * higher, never lower.
+ */
+public class SlidingWindowCounter {
+    private static final int DEPTH = 2;
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int[] ROW_SEEDS = { 0x9E3779B1, 0x85EBCA77 };
+
+    private final int width;
+    private final int buckets;
+    private final long bucketMillis;
+    private final AtomicLongArray slots; // [row][stripe][bucket] = epoch << COUNT_BITS | count
+
+    /**
+     * @param width        Stripes per row (rounded up to a power of two); more means fewer collisions
+     * @param windowMillis Length of the sliding window
+     * @param buckets      Time buckets per window; the window slides one bucket at a time
+     */
+    public SlidingWindowCounter(int width, long windowMillis, int buckets) {
+        if (width < 1 || buckets < 1 || windowMillis < buckets) {
+            throw new IllegalArgumentException("Invalid counter shape: width=" + width + ", window="
+                    + windowMillis + "ms, buckets=" + buckets);
+        }
+        int stripes = 1;
+        while (stripes < width) {
+            stripes <<= 1;
+        }
+        this.width = stripes;
+        this.buckets = buckets;
+        this.bucketMillis = windowMillis / buckets;
+        this.slots = new AtomicLongArray(DEPTH * this.width * buckets);
+    }
+
+    /**
+     * Count one event for the key
+     *
+     * @return The key's count in the window, including this event
+     */
+    public long increment(String key) {
+        long epoch = System.currentTimeMillis() / bucketMillis;
+        int bucket = (int) (epoch % buckets);
+        long count = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int base = base(row, key);
+            int index = base + bucket;
+            while (true) {
+                long current = slots.get(index);
+                long next = (current >>> COUNT_BITS) == epoch
+                        ? Math.min(current + 1, (epoch << COUNT_BITS) | COUNT_MASK) // Saturate
+                        : (epoch << COUNT_BITS) | 1; // Slot last used a full window ago: restart it
+                if (slots.compareAndSet(index, current, next)) {
+                    break;
+                }
+            }
+            count = Math.min(count, sum(base, epoch));
+        }
+        return count;
+    }
+
+    /**
+     * The key's count in the window
+     */
+    public long count(String key) {
+        long epoch = System.currentTimeMillis() / bucketMillis;
+        long count = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            count = Math.min(count, sum(base(row, key), epoch));
+        }
+        return count;
+    }
+
+    /**
+     * Forget the key's events. Keys sharing its stripes are cleared too,
+     * which can only make them look better behaved than they were.
+     */
+    public void clear(String key) {
+        for (int row = 0; row < DEPTH; row++) {
+            int base = base(row, key);
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                slots.set(base + bucket, 0);
+            }
+        }
+    }
+
+    public long getWindowMillis() {
+        return bucketMillis * buckets;
+    }
+
+    private long sum(int base, long epoch) {
+        long total = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            long slot = slots.get(base + bucket);
+            if (epoch - (slot >>> COUNT_BITS) < buckets) {
+                total += slot & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    private int base(int row, String key) {
+        int h = key.hashCode() * ROW_SEEDS[row];
+        h ^= h >>> 16;
+        h *= 0x7FEB352D;
+        h ^= h >>> 15;
+        return (row * width + (h & (width - 1))) * buckets;
+    }
+}
@@ -0,0 +1,78 @@
+package utils;
+
+import database.AsyncDatabase;
+import database.MySQLDatabase;
+import database.PoolStats;
+import database.QueryMonitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Registers gauges over the database layer and the JVM, so pool usage,
+ * query latency and cache hit rates show up in the MetricsRegistry
+ */
+public class SystemMetrics {
+
+    private SystemMetrics() {
+    }
+
+    public static void register(MetricsRegistry registry) {
+        MySQLDatabase db = MySQLDatabase.getInstance();
+
+        // Connection pool
+        poolGauge(registry, db, "scms_db_pool_active_connections", "Connections currently borrowed",
+                PoolStats::getActiveConnections);
+        poolGauge(registry, db, "scms_db_pool_idle_connections", "Open connections waiting in the pool",
+                PoolStats::getIdleConnections);
+        poolGauge(registry, db, "scms_db_pool_max_connections", "Upper bound on pool size",
+                PoolStats::getMaxConnections);
+        poolGauge(registry, db, "scms_db_pool_waiting_threads", "Threads blocked waiting for a connection",
+                PoolStats::getWaitingThreads);
+        poolGauge(registry, db, "scms_db_pool_borrows_total", "Connections handed out since start",
+                PoolStats::getBorrowCount);
+        poolGauge(registry, db, "scms_db_pool_timeouts_total", "Borrow attempts that timed out",
+                PoolStats::getTimeoutCount);
+        poolGauge(registry, db, "scms_db_pool_wait_seconds_max", "Longest wait for a connection",
+                stats -> stats.getMaxWaitMicros() / 1e6);
+        poolGauge(registry, db, "scms_db_pool_leaks_total", "Connections held past the leak threshold",
+                PoolStats::getLeakCount);
+        poolGauge(registry, db, "scms_db_statement_cache_hit_ratio", "Share of prepares served from the cache",
+                PoolStats::getStatementCacheHitRate);
+
+        // Query latency
+        QueryMonitor monitor = db.getQueryMonitor();
+        if (registry.get("scms_db_query_seconds") == null) {
+            registry.register(new MetricTimer("scms_db_query_seconds", "Latency of all SQL statements",
+                    monitor.getOverallLatency()));
+        }
+        registry.gauge("scms_db_query_errors_total", "SQL statements that failed", monitor::getErrorCount);
+        registry.gauge("scms_db_slow_queries_total", "SQL statements slower than the slow-query threshold",
+                monitor::getSlowCount);
+
+        // Async executor
+        AsyncDatabase async = AsyncDatabase.getInstance();
+        registry.gauge("scms_db_async_in_flight", "Async database tasks submitted and not finished",
+                async::getInFlightCount);
+        registry.gauge("scms_db_async_queued", "Async database tasks waiting for a connection slot",
+                async::getQueuedCount);
+
+        // JVM
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registry.gauge("scms_jvm_heap_used_bytes", "Heap in use",
+                () -> memory.getHeapMemoryUsage().getUsed());
+        registry.gauge("scms_jvm_heap_max_bytes", "Maximum heap size",
+                () -> memory.getHeapMemoryUsage().getMax());
+        registry.gauge("scms_jvm_threads", "Live threads",
+                () -> ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private static void poolGauge(MetricsRegistry registry, MySQLDatabase db, String name, String help,
+            ToDoubleFunction<PoolStats> value) {
+        registry.gauge(name, help, () -> {
+            PoolStats stats = db.getPoolStats();
+            return stats != null ? value.applyAsDouble(stats) : Double.NaN;
+        });
+    }
+}
@@ -0,0 +1,70 @@
+import database.ConnectionPoolTest;
+import database.MySQLDatabaseTest;
+import database.StatementCacheTest;
+import services.AuditJournalTest;
+import services.LoginThrottleTest;
+import utils.JsonTest;
+import utils.LoadingCacheTest;
+import utils.RingBufferTest;
+import utils.SessionStoreTest;
+import utils.SlidingWindowCounterTest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Runs every public no-argument test* method of the test classes, each on a
+ * fresh instance, and exits with status 1 if any of them failed.
+ *
+ * Run it from a scratch directory: the login throttle writes audit events,
+ * which are journaled under logs/ while no database is reachable.
+ */
+public class TestRunner {
+    private static final Class<?>[] TEST_CLASSES = {
+            MySQLDatabaseTest.class,
+            ConnectionPoolTest.class,
+            StatementCacheTest.class,
+            RingBufferTest.class,
+            AuditJournalTest.class,
+            LoginThrottleTest.class,
+            SlidingWindowCounterTest.class,
+            SessionStoreTest.class,
+            JsonTest.class,
+            LoadingCacheTest.class
+    };
+
+    public static void main(String[] args) {
+        int passed = 0;
+        int failed = 0;
+
+        for (Class<?> testClass : TEST_CLASSES) {
+            Method[] methods = testClass.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!method.getName().startsWith("test") || method.getParameterCount() != 0
+                        || !Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = testClass.getSimpleName() + "." + method.getName();
+                try {
+                    method.invoke(testClass.getDeclaredConstructor().newInstance());
+                    passed++;
+                    System.out.println("PASS " + name);
+                } catch (InvocationTargetException e) {
+                    failed++;
+                    System.out.println("FAIL " + name + ": " + e.getCause());
+                    e.getCause().printStackTrace(System.out);
+                } catch (ReflectiveOperationException e) {
+                    failed++;
+                    System.out.println("FAIL " + name + ": cannot run: " + e);
+                }
+            }
+        }
+
+        System.out.println(passed + " passed, " + failed + " failed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,125 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static utils.Assert.*;
+
+/**
+ * Borrowing, timeouts and abandoned-connection reclaim of ConnectionPool,
+ * against the in-memory StubDriver
+ */
+public class ConnectionPoolTest {
+
+    private ConnectionPool startPool(int maxSize) throws SQLException {
+        StubDriver.reset();
+        ConnectionPool pool = new ConnectionPool(StubDriver.URL, "test", "test", 1, maxSize);
+        pool.setHousekeepingInterval(20);
+        pool.setLeakThreshold(0);
+        pool.start();
+        return pool;
+    }
+
+    public void testReturnedConnectionIsReused() throws SQLException {
+        ConnectionPool pool = startPool(2);
+        try {
+            pool.borrow().close();
+            pool.borrow().close();
+
+            assertEquals(1, StubDriver.opened.get(), "Physical connections opened");
+            PoolStats stats = pool.getStats();
+            assertEquals(2L, stats.getBorrowCount(), "Borrows");
+            assertEquals(0, stats.getActiveConnections(), "Active after returning");
+            assertEquals(1, stats.getIdleConnections(), "Idle after returning");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testBorrowTimesOutWhenExhausted() throws SQLException {
+        ConnectionPool pool = startPool(1);
+        pool.setBorrowTimeout(50);
+        Connection held = pool.borrow();
+        try {
+            assertThrows(SQLException.class, pool::borrow, "Borrow from an exhausted pool");
+            assertEquals(1L, pool.getStats().getTimeoutCount(), "Timeouts");
+        } finally {
+            held.close();
+            pool.shutdown();
+        }
+    }
+
+    public void testAbandonedConnectionIsReclaimed() throws Exception {
+        ConnectionPool pool = startPool(1);
+        pool.setAbandonedTimeout(100);
+        pool.setBorrowTimeout(1000);
+        try {
+            Connection leaked = pool.borrow();
+            Thread.sleep(400);
+
+            assertEquals(1L, pool.getStats().getAbandonedCount(), "Abandoned connections reclaimed");
+            assertTrue(StubDriver.closed.get() >= 1, "Abandoned physical connection closed");
+            // The permit came back, so the single-connection pool can lend again
+            pool.borrow().close();
+            leaked.close(); // Late close of a reclaimed connection is ignored
+            assertEquals(0, pool.getStats().getActiveConnections(), "Active after late close");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testSlowStatementIsNotReclaimed() throws Exception {
+        ConnectionPool pool = startPool(1);
+        pool.setAbandonedTimeout(100);
+        StubDriver.executeDelayMillis = 400;
+        try (Connection connection = pool.borrow();
+                PreparedStatement statement = connection.prepareStatement("SELECT slow");
+                ResultSet rs = statement.executeQuery()) {
+            int rows = 0;
+            while (rs.next()) {
+                rows++;
+            }
+            assertEquals(StubDriver.rowCount, rows, "Rows read after a slow execute");
+            assertEquals(0L, pool.getStats().getAbandonedCount(), "Connections reclaimed mid-statement");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testStreamingReadIsNotReclaimed() throws Exception {
+        ConnectionPool pool = startPool(1);
+        pool.setAbandonedTimeout(100);
+        StubDriver.rowCount = 8;
+        StubDriver.rowDelayMillis = 50;
+        try (Connection connection = pool.borrow();
+                PreparedStatement statement = connection.prepareStatement("SELECT many");
+                ResultSet rs = statement.executeQuery()) {
+            int rows = 0;
+            while (rs.next()) {
+                rows++;
+            }
+            assertEquals(8, rows, "Rows streamed");
+            assertEquals(0L, pool.getStats().getAbandonedCount(), "Connections reclaimed mid-scan");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testRepeatedStatementComesFromTheCache() throws SQLException {
+        ConnectionPool pool = startPool(1);
+        try {
+            for (int i = 0; i < 3; i++) {
+                try (Connection connection = pool.borrow();
+                        PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+                    statement.executeQuery().close();
+                }
+            }
+            assertEquals(1, StubDriver.prepared.get(), "Statements prepared on the driver");
+            assertEquals(2L, pool.getStats().getStatementCacheHits(), "Statement cache hits");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
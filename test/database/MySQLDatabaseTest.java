@@ -0,0 +1,147 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static utils.Assert.*;
+
+/**
+ * The row-mapper query API of MySQLDatabase (query, queryForObject and
+ * forEach) on a one-connection pool over the StubDriver, which returns
+ * rows numbered from 1
+ */
+public class MySQLDatabaseTest {
+    private static final String SQL = "SELECT n FROM numbers WHERE n > ?";
+    private static final Object[] PARAMS = { 0 };
+
+    private ConnectionPool pool;
+    private MySQLDatabase db;
+
+    private void open() throws SQLException {
+        StubDriver.reset();
+        pool = new ConnectionPool(StubDriver.URL, "test", "test", 1, 1);
+        pool.setBorrowTimeout(200); // A leaked connection fails the next borrow quickly
+        pool.start();
+        db = new MySQLDatabase(pool);
+    }
+
+    /**
+     * The connection went back to the pool and the statement back to its cache
+     */
+    private void assertReleased() throws SQLException {
+        assertEquals(0, pool.getStats().getActiveConnections(), "Connections still borrowed");
+        long hits = pool.getStats().getStatementCacheHits();
+        assertEquals(Integer.valueOf(1), db.queryForObject(SQL, PARAMS, rs -> rs.getInt(1)), "Next query");
+        assertEquals(hits + 1, pool.getStats().getStatementCacheHits(), "Statement reused from the cache");
+        assertEquals(1, StubDriver.prepared.get(), "Statements prepared on the driver");
+    }
+
+    public void testQueryMapsEveryRow() throws SQLException {
+        open();
+        try {
+            List<String> rows = db.query(SQL, PARAMS, rs -> rs.getInt(1) + ":" + rs.getString(1));
+
+            assertEquals(List.of("1:row1", "2:row2", "3:row3"), rows, "Mapped rows");
+            assertReleased();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testQueryOfNoRowsIsEmpty() throws SQLException {
+        open();
+        StubDriver.rowCount = 0;
+        try {
+            assertTrue(db.query(SQL, PARAMS, rs -> rs.getInt(1)).isEmpty(), "Rows");
+            assertNull(db.queryForObject(SQL, PARAMS, rs -> rs.getInt(1)), "Single row");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testQueryForObjectMapsTheFirstRow() throws SQLException {
+        open();
+        try {
+            assertEquals("row1", db.queryForObject(SQL, PARAMS, rs -> rs.getString(1)), "First row");
+            assertReleased();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testForEachHandsEveryRowToTheAction() throws SQLException {
+        open();
+        try {
+            List<Integer> seen = new ArrayList<>();
+            db.forEach(SQL, PARAMS, rs -> rs.getInt(1), seen::add);
+
+            assertEquals(List.of(1, 2, 3), seen, "Rows seen by the action");
+            assertReleased();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testMapperSqlExceptionReleasesStatementAndConnection() throws SQLException {
+        open();
+        try {
+            SQLException thrown = assertThrows(SQLException.class, () -> db.query(SQL, PARAMS, rs -> {
+                if (rs.getInt(1) == 2) {
+                    throw new SQLException("Bad value in row 2");
+                }
+                return rs.getInt(1);
+            }), "Query with a failing mapper");
+            assertEquals("Bad value in row 2", thrown.getMessage(), "Mapper's exception is passed on");
+
+            assertReleased();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testMapperRuntimeExceptionReleasesStatementAndConnection() throws SQLException {
+        open();
+        try {
+            assertThrows(IllegalStateException.class, () -> db.queryForObject(SQL, PARAMS, rs -> {
+                throw new IllegalStateException("Unexpected value");
+            }), "queryForObject with a failing mapper");
+
+            assertReleased();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testFailingActionReleasesStatementAndConnection() throws SQLException {
+        open();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> db.forEach(SQL, PARAMS, rs -> rs.getInt(1), row -> {
+                throw new IllegalArgumentException("Rejected row " + row);
+            }), "forEach with a failing action");
+
+            assertReleased();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testTransactionReleasesConnectionWhenIsolationCannotBeRead() throws SQLException {
+        open();
+        StubDriver.failIsolationRead = true;
+        try {
+            assertThrows(SQLException.class, () -> db.inTransaction(conn -> null), "Transaction start");
+            assertEquals(0, pool.getStats().getActiveConnections(), "Connections still borrowed");
+            StubDriver.failIsolationRead = false;
+            assertEquals("done", db.inTransaction(conn -> "done"), "Next transaction");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testQueryWithoutAPoolFails() {
+        MySQLDatabase unconnected = new MySQLDatabase(null);
+        assertThrows(SQLException.class, () -> unconnected.query(SQL, PARAMS, rs -> rs.getInt(1)),
+                "Query before connect()");
+    }
+}
@@ -0,0 +1,77 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static utils.Assert.*;
+
+/**
+ * Checkout, checkin and eviction of StatementCache
+ */
+public class StatementCacheTest {
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private Connection connect() throws SQLException {
+        StubDriver.reset();
+        return DriverManager.getConnection(StubDriver.URL);
+    }
+
+    public void testClosedStatementIsReused() throws SQLException {
+        StatementCache cache = new StatementCache(4, hits, misses, evictions);
+        try (Connection physical = connect()) {
+            PreparedStatement first = cache.prepare(physical, "SELECT 1", Statement.NO_GENERATED_KEYS);
+            first.close();
+            PreparedStatement second = cache.prepare(physical, "SELECT 1", Statement.NO_GENERATED_KEYS);
+
+            assertEquals(1, StubDriver.prepared.get(), "Statements prepared on the driver");
+            assertEquals(1L, hits.get(), "Hits");
+            assertEquals(1L, misses.get(), "Misses");
+            assertFalse(second.isClosed(), "Reused statement is open");
+        }
+    }
+
+    public void testStatementInUseIsNotShared() throws SQLException {
+        StatementCache cache = new StatementCache(4, hits, misses, evictions);
+        try (Connection physical = connect()) {
+            PreparedStatement first = cache.prepare(physical, "SELECT 1", Statement.NO_GENERATED_KEYS);
+            PreparedStatement second = cache.prepare(physical, "SELECT 1", Statement.NO_GENERATED_KEYS);
+
+            assertTrue(first != second, "Second checkout gets its own statement");
+            assertEquals(2, StubDriver.prepared.get(), "Statements prepared on the driver");
+            assertEquals(1, cache.size(), "Cached statements");
+            second.close();
+            first.close();
+        }
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() throws SQLException {
+        StatementCache cache = new StatementCache(2, hits, misses, evictions);
+        try (Connection physical = connect()) {
+            for (String sql : new String[] { "SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3" }) {
+                cache.prepare(physical, sql, Statement.NO_GENERATED_KEYS).close();
+            }
+
+            assertEquals(2, cache.size(), "Cached statements");
+            assertEquals(1L, evictions.get(), "Evictions");
+            cache.prepare(physical, "SELECT 1", Statement.NO_GENERATED_KEYS).close();
+            assertEquals(2L, hits.get(), "SELECT 1 was kept as the more recently used");
+        }
+    }
+
+    public void testGeneratedKeysAreCachedSeparately() throws SQLException {
+        StatementCache cache = new StatementCache(4, hits, misses, evictions);
+        try (Connection physical = connect()) {
+            cache.prepare(physical, "INSERT x", Statement.NO_GENERATED_KEYS).close();
+            cache.prepare(physical, "INSERT x", Statement.RETURN_GENERATED_KEYS).close();
+
+            assertEquals(2, cache.size(), "Cached statements");
+            assertEquals(0L, hits.get(), "Hits");
+        }
+    }
+}
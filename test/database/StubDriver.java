@@ -0,0 +1,207 @@
+package database;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * In-memory JDBC driver for tests, answering jdbc:stub: URLs.
+ *
+ * Every query returns rowCount rows of a single column, sleeping
+ * rowDelayMillis before each row so tests can simulate slow scans.
+ * Counts connections opened and closed and statements prepared.
+ */
+public class StubDriver implements Driver {
+    public static final String URL = "jdbc:stub:test";
+
+    public static volatile int rowCount = 3;
+    public static volatile long rowDelayMillis;
+    public static volatile long executeDelayMillis;
+    public static volatile boolean failIsolationRead; // getTransactionIsolation() throws when set
+
+    public static final AtomicInteger opened = new AtomicInteger();
+    public static final AtomicInteger closed = new AtomicInteger();
+    public static final AtomicInteger prepared = new AtomicInteger();
+
+    private static final StubDriver INSTANCE = new StubDriver();
+
+    static {
+        try {
+            DriverManager.registerDriver(INSTANCE);
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Register the driver (once) and reset its counters and settings
+     */
+    public static void reset() {
+        rowCount = 3;
+        rowDelayMillis = 0;
+        executeDelayMillis = 0;
+        failIsolationRead = false;
+        opened.set(0);
+        closed.set(0);
+        prepared.set(0);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        opened.incrementAndGet();
+        boolean[] isClosed = { false };
+        boolean[] autoCommit = { true };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!isClosed[0]) {
+                                isClosed[0] = true;
+                                closed.incrementAndGet();
+                            }
+                            return null;
+                        case "isClosed":
+                            return isClosed[0];
+                        case "isValid":
+                            return !isClosed[0];
+                        case "getAutoCommit":
+                            return autoCommit[0];
+                        case "setAutoCommit":
+                            autoCommit[0] = (Boolean) args[0];
+                            return null;
+                        case "getTransactionIsolation":
+                            if (failIsolationRead) {
+                                throw new SQLException("Isolation level not readable");
+                            }
+                            return Connection.TRANSACTION_REPEATABLE_READ;
+                        case "prepareStatement":
+                        case "createStatement":
+                            if (isClosed[0]) {
+                                throw new SQLException("Connection is closed");
+                            }
+                            prepared.incrementAndGet();
+                            return statement(isClosed);
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static PreparedStatement statement(boolean[] connectionClosed) {
+        boolean[] isClosed = { false };
+        return (PreparedStatement) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            isClosed[0] = true;
+                            return null;
+                        case "isClosed":
+                            return isClosed[0];
+                        case "executeQuery":
+                            pause(executeDelayMillis);
+                            return resultSet(connectionClosed);
+                        case "executeUpdate":
+                            pause(executeDelayMillis);
+                            return 1;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static ResultSet resultSet(boolean[] connectionClosed) {
+        int[] row = { 0 };
+        return (ResultSet) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            if (connectionClosed[0]) {
+                                throw new SQLException("Connection closed while reading");
+                            }
+                            pause(rowDelayMillis);
+                            return ++row[0] <= rowCount;
+                        case "getInt":
+                        case "getLong":
+                            return method.getName().equals("getInt") ? (Object) row[0] : (Object) (long) row[0];
+                        case "getString":
+                            return "row" + row[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith("jdbc:stub:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,225 @@
+package services;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static utils.Assert.*;
+
+/**
+ * Append, replay, quarantine, size cap and crash recovery of AuditJournal,
+ * in a temporary directory
+ */
+public class AuditJournalTest {
+    private static final int SEGMENT_BYTES = 4096;
+
+    private final Path directory;
+
+    public AuditJournalTest() throws IOException {
+        directory = Files.createTempDirectory("scms-journal-test");
+    }
+
+    private AuditJournal open(long maxBytes) throws IOException {
+        return new AuditJournal(directory.toString(), SEGMENT_BYTES, maxBytes);
+    }
+
+    private static List<AuditEvent> events(int count, String action) {
+        List<AuditEvent> events = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            events.add(new AuditEvent(i, action, "Event " + i, "10.0.0." + i, 1_000L * i));
+        }
+        return events;
+    }
+
+    private void cleanUp() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    public void testReplayReturnsEventsInOrderUntilMarked() throws IOException {
+        try {
+            AuditJournal journal = open(SEGMENT_BYTES * 4L);
+            assertEquals(3L, journal.append(events(3, "LOGIN")), "Last sequence");
+
+            List<AuditJournal.Entry> batch = journal.readBatch(10);
+            assertEquals(3, batch.size(), "Entries read");
+            AuditEvent first = batch.get(0).getEvent();
+            assertEquals(1L, batch.get(0).getSequence(), "First sequence");
+            assertEquals(Integer.valueOf(1), first.getUserId(), "User id");
+            assertEquals("LOGIN", first.getAction(), "Action");
+            assertEquals("Event 1", first.getDetails(), "Details");
+            assertEquals("10.0.0.1", first.getIpAddress(), "Address");
+            assertEquals(1_000L, first.getTimestampMillis(), "Timestamp");
+
+            // Reading again without markReplayed() returns the same events
+            assertEquals(3, journal.readBatch(10).size(), "Entries read again");
+            journal.markReplayed();
+            assertFalse(journal.hasPending(), "Pending after markReplayed");
+            assertTrue(journal.readBatch(10).isEmpty(), "Entries after markReplayed");
+            journal.close();
+        } finally {
+            cleanUp();
+        }
+    }
+
+    public void testSummaryKeepsItsOccurrences() throws IOException {
+        try {
+            AuditJournal journal = open(SEGMENT_BYTES * 4L);
+            journal.append(List.of(
+                    new AuditEvent(null, "LOGIN_FAILED", "5 failed login attempts", "10.0.0.9", 1_000L, 5),
+                    new AuditEvent(7, "LOGIN", "Single event", null, 2_000L)));
+
+            List<AuditJournal.Entry> batch = journal.readBatch(10);
+            AuditEvent summary = batch.get(0).getEvent();
+            assertNull(summary.getUserId(), "Summary user id");
+            assertEquals("10.0.0.9", summary.getIpAddress(), "Summary address");
+            assertEquals(5, summary.getOccurrences(), "Summary occurrences");
+            AuditEvent single = batch.get(1).getEvent();
+            assertEquals(Integer.valueOf(7), single.getUserId(), "User id after a summary");
+            assertNull(single.getIpAddress(), "Address left to the writer");
+            assertEquals(1, single.getOccurrences(), "Occurrences of a single event");
+            journal.close();
+        } finally {
+            cleanUp();
+        }
+    }
+
+    public void testBatchSizeIsRespected() throws IOException {
+        try {
+            AuditJournal journal = open(SEGMENT_BYTES * 4L);
+            journal.append(events(5, "LOGIN"));
+
+            List<AuditJournal.Entry> batch = journal.readBatch(2);
+            assertEquals(2, batch.size(), "First batch");
+            journal.markReplayed();
+            batch = journal.readBatch(10);
+            assertEquals(3, batch.size(), "Second batch");
+            assertEquals(3L, batch.get(0).getSequence(), "Second batch starts after the first");
+            journal.close();
+        } finally {
+            cleanUp();
+        }
+    }
+
+    public void testQuarantinedEventIsSkipped() throws IOException {
+        try {
+            AuditJournal journal = open(SEGMENT_BYTES * 4L);
+            journal.append(events(2, "POISON"));
+
+            List<AuditJournal.Entry> batch = journal.readBatch(10);
+            journal.quarantine(batch.get(0), "Data too long for column 'action'");
+
+            assertEquals(1L, journal.getPendingCount(), "Pending after quarantine");
+            List<AuditJournal.Entry> rest = journal.readBatch(10);
+            assertEquals(1, rest.size(), "Entries after quarantine");
+            assertEquals(2L, rest.get(0).getSequence(), "Remaining sequence");
+
+            List<String> lines = Files.readAllLines(journal.getQuarantineFile(), StandardCharsets.UTF_8);
+            assertEquals(1, lines.size(), "Quarantined lines");
+            assertTrue(lines.get(0).startsWith("1\t"), "Line starts with the sequence");
+            assertTrue(lines.get(0).endsWith("Data too long for column 'action'"), "Line ends with the reason");
+            journal.close();
+        } finally {
+            cleanUp();
+        }
+    }
+
+    public void testFullJournalRejectsAppendsUntilReplayed() throws IOException {
+        try {
+            AuditJournal journal = open(SEGMENT_BYTES * 2L);
+            List<AuditEvent> one = events(1, "FILL");
+
+            IOException full = assertThrows(IOException.class, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    journal.append(one);
+                }
+            }, "Appending past the cap");
+            assertTrue(full.getMessage().contains("full"), "Reports the journal as full");
+            assertEquals(SEGMENT_BYTES * 2L, journal.getSizeBytes(), "Size at the cap");
+
+            // Replaying the sealed segment frees room
+            while (!journal.readBatch(100).isEmpty()) {
+                journal.markReplayed();
+            }
+            journal.append(one);
+            assertEquals(1L, journal.getPendingCount(), "Pending after appending again");
+            journal.close();
+        } finally {
+            cleanUp();
+        }
+    }
+
+    public void testUnreplayedEventsSurviveRestart() throws IOException {
+        try {
+            AuditJournal journal = open(SEGMENT_BYTES * 4L);
+            String journalId = journal.getJournalId();
+            journal.append(events(3, "LOGIN"));
+            journal.readBatch(10); // Read but never marked, as if the process died mid-replay
+            journal.close();
+
+            AuditJournal reopened = open(SEGMENT_BYTES * 4L);
+            assertEquals(journalId, reopened.getJournalId(), "Journal id after restart");
+            assertEquals(3L, reopened.getPendingCount(), "Pending after restart");
+            assertEquals(1L, reopened.readBatch(10).get(0).getSequence(), "Replay starts at the oldest");
+            assertEquals(4L, reopened.append(events(1, "LOGOUT")), "Sequence continues after restart");
+
+            // The database checkpoint says the first two were already stored
+            reopened.skipThrough(2);
+            List<AuditJournal.Entry> rest = reopened.readBatch(10);
+            assertEquals(2, rest.size(), "Entries after the checkpoint");
+            assertEquals(3L, rest.get(0).getSequence(), "First entry after the checkpoint");
+            reopened.close();
+        } finally {
+            cleanUp();
+        }
+    }
+
+    public void testTornRecordEndsTheSegment() throws IOException {
+        try {
+            AuditJournal journal = open(SEGMENT_BYTES * 4L);
+            journal.append(events(3, "LOGIN"));
+            journal.close();
+
+            // Corrupt the payload of the last record, as a crash mid-write would
+            Path segment = onlySegment();
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+                long offset = 0;
+                for (int i = 0; i < 2; i++) {
+                    file.seek(offset);
+                    offset += 16 + file.readInt();
+                }
+                file.seek(offset + 16);
+                file.write(~file.read());
+            }
+
+            AuditJournal reopened = open(SEGMENT_BYTES * 4L);
+            assertEquals(2L, reopened.getPendingCount(), "Intact records recovered");
+            assertEquals(3L, reopened.append(events(1, "LOGOUT")), "Torn record's sequence is reused");
+            List<AuditJournal.Entry> batch = reopened.readBatch(10);
+            assertEquals(3, batch.size(), "Entries after recovery");
+            assertEquals("LOGOUT", batch.get(2).getEvent().getAction(), "New record replaces the torn one");
+            reopened.close();
+        } finally {
+            cleanUp();
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.journal")) {
+            files.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        assertEquals(1, segments.size(), "Segment files");
+        return segments.get(0);
+    }
+}
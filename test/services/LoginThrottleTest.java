@@ -0,0 +1,91 @@
+package services;
+
+import java.util.UUID;
+
+import static utils.Assert.*;
+
+/**
+ * Slow-down, lockout and unlock behavior of LoginThrottle. The throttle is
+ * a singleton, so every test uses usernames of its own.
+ */
+public class LoginThrottleTest {
+    private final LoginThrottle throttle = LoginThrottle.getInstance();
+
+    private static String newUsername() {
+        return "test-" + UUID.randomUUID();
+    }
+
+    public void testFirstFailuresAreNotSlowedDown() {
+        String username = newUsername();
+        throttle.recordFailure(username, null);
+        throttle.recordFailure(username, null);
+
+        assertTrue(throttle.check(username, null).isAllowed(), "Attempt after two failures");
+    }
+
+    public void testAttemptTooSoonAfterRepeatedFailuresIsRejected() throws InterruptedException {
+        String username = newUsername();
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure(username, null);
+        }
+
+        LoginThrottle.Decision decision = throttle.check(username, null);
+        assertTrue(decision.isTooSoon(), "Attempt right after the third failure");
+        assertFalse(decision.isLocked(), "Too soon is not a lockout");
+        long retryAfter = decision.getRetryAfterMillis();
+        assertTrue(retryAfter > 0 && retryAfter <= 500, "Retry after " + retryAfter + " ms");
+
+        // check() never blocks; waiting out the delay lets the next attempt through
+        Thread.sleep(retryAfter + 50);
+        assertTrue(throttle.check(username, null).isAllowed(), "Attempt after waiting");
+    }
+
+    public void testUsernamesAreThrottledCaseInsensitively() {
+        String username = newUsername();
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure(username.toUpperCase(), null);
+        }
+
+        assertTrue(throttle.check(username, null).isTooSoon(), "Same username in another case");
+    }
+
+    public void testSuccessClearsTheDelay() {
+        String username = newUsername();
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure(username, null);
+        }
+        throttle.recordSuccess(username);
+
+        assertTrue(throttle.check(username, null).isAllowed(), "Attempt after a successful login");
+    }
+
+    public void testRepeatedFailuresLockTheUsernameOut() {
+        String username = newUsername();
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure(username, null);
+        }
+
+        LoginThrottle.Decision decision = throttle.check(username, null);
+        assertTrue(decision.isLocked(), "Attempt after five failures");
+        LoginThrottle.Lockout lockout = decision.getLockout();
+        assertEquals(LoginThrottle.Lockout.Type.USER, lockout.getType(), "Lockout type");
+        assertEquals(5L, lockout.getFailures(), "Failures that started the lockout");
+        assertTrue(decision.getRetryAfterMillis() > 14 * 60_000L, "Locked for about 15 minutes");
+        assertEquals(1L, lockout.getRejected(), "Rejected attempts counted");
+        assertTrue(throttle.getLockouts().contains(lockout), "Listed as an active lockout");
+    }
+
+    public void testUnlockLiftsTheLockoutAndForgetsFailures() {
+        String username = newUsername();
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure(username, null);
+        }
+        LoginThrottle.Lockout lockout = throttle.check(username, null).getLockout();
+
+        assertTrue(throttle.unlock(lockout, null), "First unlock");
+        assertFalse(throttle.unlock(lockout, null), "Second unlock of the same lockout");
+        assertTrue(throttle.check(username, null).isAllowed(), "Attempt after unlock");
+        throttle.recordFailure(username, null);
+        assertTrue(throttle.check(username, null).isAllowed(), "One failure after unlock");
+    }
+}
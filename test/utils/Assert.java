@@ -0,0 +1,68 @@
+package utils;
+
+import java.util.Objects;
+
+/**
+ * Assertions for the tests under test/, which run without a test framework
+ */
+public final class Assert {
+
+    /**
+     * Code under test that may throw
+     */
+    @FunctionalInterface
+    public interface Block {
+        void run() throws Exception;
+    }
+
+    private Assert() {
+    }
+
+    public static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            fail(message);
+        }
+    }
+
+    public static void assertFalse(boolean condition, String message) {
+        assertTrue(!condition, message);
+    }
+
+    public static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            fail(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    public static void assertNull(Object value, String message) {
+        if (value != null) {
+            fail(message + ": expected null but was <" + value + ">");
+        }
+    }
+
+    public static void assertNotNull(Object value, String message) {
+        if (value == null) {
+            fail(message + ": was null");
+        }
+    }
+
+    /**
+     * Run the block and return what it threw, failing if it threw nothing or
+     * something of another type
+     */
+    public static <T extends Throwable> T assertThrows(Class<T> type, Block block, String message) {
+        try {
+            block.run();
+        } catch (Throwable thrown) {
+            if (type.isInstance(thrown)) {
+                return type.cast(thrown);
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but got " + thrown, thrown);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName() + " but nothing was thrown");
+    }
+
+    public static void fail(String message) {
+        throw new AssertionError(message);
+    }
+}
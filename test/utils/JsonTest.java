@@ -0,0 +1,76 @@
+package utils;
+
+import models.Payment;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static utils.Assert.*;
+
+/**
+ * Writing, parsing and bean conversion of Json
+ */
+public class JsonTest {
+
+    public void testValuesSurviveARoundTrip() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "Quote \" backslash \\ tab \t newline \n é");
+        value.put("count", 42L);
+        value.put("ratio", 0.25);
+        value.put("active", true);
+        value.put("missing", null);
+        value.put("items", Arrays.asList(1L, "two", false));
+
+        Object parsed = Json.parse(Json.write(value));
+        assertEquals(value, parsed, "Parsed value");
+    }
+
+    public void testKeysKeepTheirOrder() {
+        Map<String, Object> parsed = Json.parseObject("{\"z\": 1, \"a\": 2, \"m\": 3}");
+        assertEquals(Arrays.asList("z", "a", "m"), List.copyOf(parsed.keySet()), "Key order");
+    }
+
+    public void testNumbersParseAsLongOrDouble() {
+        Map<String, Object> parsed = Json.parseObject("{\"whole\": -12, \"fraction\": 1.5e2}");
+        assertEquals(-12L, parsed.get("whole"), "Whole number");
+        assertEquals(150.0, parsed.get("fraction"), "Fraction");
+    }
+
+    public void testUnicodeEscapesAreDecoded() {
+        assertEquals("é☃", Json.parse("\"\\u00e9\\u2603\""), "Escaped string");
+    }
+
+    public void testInvalidTextIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\": }"), "Missing value");
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[1, 2"), "Unclosed array");
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("1 2"), "Trailing content");
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("[1]"), "Array where an object is needed");
+    }
+
+    public void testModelObjectSurvivesARoundTrip() {
+        Payment payment = new Payment();
+        payment.setStudentId(12);
+        payment.setAmount(1500.5);
+        payment.setPaymentDate(LocalDate.of(2026, 3, 14));
+        payment.setPaymentMethod("MOBILE_MONEY");
+        payment.setReferenceNumber("REF-1");
+        payment.setSemester(2);
+
+        Payment copy = Json.toBean(Json.parseObject(Json.write(payment)), Payment.class);
+        assertEquals(12, copy.getStudentId(), "Student id");
+        assertEquals(1500.5, copy.getAmount(), "Amount");
+        assertEquals(LocalDate.of(2026, 3, 14), copy.getPaymentDate(), "Payment date");
+        assertEquals("MOBILE_MONEY", copy.getPaymentMethod(), "Payment method");
+        assertEquals("REF-1", copy.getReferenceNumber(), "Reference number");
+        assertEquals(2, copy.getSemester(), "Semester");
+    }
+
+    public void testUnknownKeysAreIgnoredByToBean() {
+        Payment payment = Json.toBean(Json.parseObject("{\"amount\": 10, \"noSuchProperty\": \"x\"}"),
+                Payment.class);
+        assertEquals(10.0, payment.getAmount(), "Amount from a whole number");
+    }
+}
@@ -0,0 +1,119 @@
+package utils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static utils.Assert.*;
+
+/**
+ * Single-flight loading, failure handling, expiry and eviction of
+ * LoadingCache
+ */
+public class LoadingCacheTest {
+    private static final AtomicInteger CACHES = new AtomicInteger();
+
+    private static LoadingCache<String, String> newCache(int maxEntries, long ttlMillis) {
+        // Each cache registers metrics under its name, so give every one its own
+        return new LoadingCache<>("test_cache_" + CACHES.incrementAndGet(), maxEntries, ttlMillis);
+    }
+
+    public void testValueIsLoadedOnce() throws SQLException {
+        LoadingCache<String, String> cache = newCache(10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()), "First read");
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()), "Second read");
+        assertEquals(1, loads.get(), "Loads");
+        assertEquals(0.5, cache.getHitRatio(), "Hit ratio");
+    }
+
+    public void testConcurrentMissesShareOneLoad() throws InterruptedException {
+        LoadingCache<String, String> cache = newCache(10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        int readers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    results.add(cache.get("catalog", () -> {
+                        loads.incrementAndGet();
+                        pause(200);
+                        return "courses";
+                    }));
+                } catch (Exception e) {
+                    results.add("error: " + e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        assertEquals(1, loads.get(), "Loads for concurrent misses");
+        assertEquals(readers, results.size(), "Readers answered");
+        for (String result : results) {
+            assertEquals("courses", result, "Value seen by every reader");
+        }
+    }
+
+    public void testFailureIsPassedOnAndNotCached() throws SQLException {
+        LoadingCache<String, String> cache = newCache(10, 60_000);
+        SQLException thrown = assertThrows(SQLException.class, () -> cache.get("k", () -> {
+            throw new SQLException("database down");
+        }), "Failed load");
+        assertEquals("database down", thrown.getMessage(), "Loader's exception is passed on");
+
+        assertEquals("v", cache.get("k", () -> "v"), "Read after a failed load");
+    }
+
+    public void testExpiredValueIsReloaded() throws Exception {
+        LoadingCache<String, String> cache = newCache(10, 100);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("k", () -> "v" + loads.incrementAndGet());
+        Thread.sleep(150);
+
+        assertEquals("v2", cache.get("k", () -> "v" + loads.incrementAndGet()), "Read after the TTL");
+    }
+
+    public void testLeastRecentlyUsedKeyIsEvicted() throws Exception {
+        LoadingCache<String, String> cache = newCache(2, 60_000);
+        cache.get("a", () -> "a");
+        Thread.sleep(5);
+        cache.get("b", () -> "b");
+        Thread.sleep(5);
+        cache.get("a", () -> "a"); // Now more recent than b
+        Thread.sleep(5);
+        cache.get("c", () -> "c");
+
+        assertEquals(2, cache.size(), "Keys kept");
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", () -> "a" + loads.incrementAndGet());
+        assertEquals(0, loads.get(), "Recently used key was kept");
+    }
+
+    public void testInvalidateAllForcesReload() throws SQLException {
+        LoadingCache<String, String> cache = newCache(10, 60_000);
+        cache.get("k", () -> "old");
+        cache.invalidateAll();
+
+        assertEquals("new", cache.get("k", () -> "new"), "Read after invalidateAll");
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static utils.Assert.*;
+
+/**
+ * Ordering, capacity and concurrent use of RingBuffer
+ */
+public class RingBufferTest {
+
+    public void testCapacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new RingBuffer<Integer>(5).capacity(), "Capacity for 5");
+        assertEquals(8, new RingBuffer<Integer>(8).capacity(), "Capacity for 8");
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<Integer>(1), "Capacity 1");
+    }
+
+    public void testElementsComeOutInOrder() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        // Several laps of the ring
+        for (int i = 0; i < 10; i++) {
+            assertTrue(buffer.offer(i), "Offer " + i);
+            assertTrue(buffer.offer(i + 100), "Offer " + (i + 100));
+            assertEquals(i, buffer.poll(), "First out");
+            assertEquals(i + 100, buffer.poll(), "Second out");
+        }
+        assertNull(buffer.poll(), "Poll when empty");
+        assertTrue(buffer.isEmpty(), "Empty");
+    }
+
+    public void testOfferFailsWhenFull() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            buffer.offer(i);
+        }
+
+        assertFalse(buffer.offer(4), "Offer when full");
+        assertEquals(4, buffer.size(), "Size when full");
+        buffer.poll();
+        assertTrue(buffer.offer(4), "Offer after a poll");
+    }
+
+    public void testDrainToHonorsTheLimit() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> drained = new ArrayList<>();
+
+        assertEquals(3, buffer.drainTo(drained, 3), "Drained");
+        assertEquals(List.of(0, 1, 2), drained, "Drained elements");
+        assertEquals(2, buffer.size(), "Left");
+    }
+
+    public void testConcurrentProducersAndConsumersLoseNothing() throws InterruptedException {
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        Set<Integer> seen = Collections.synchronizedSet(new HashSet<>());
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            }));
+        }
+        for (int c = 0; c < 2; c++) {
+            threads.add(new Thread(() -> {
+                while (done.getCount() > 0 || !buffer.isEmpty()) {
+                    Integer element = buffer.poll();
+                    if (element == null) {
+                        Thread.yield();
+                    } else if (seen.add(element)) {
+                        consumed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+
+        assertEquals(producers * perProducer, consumed.get(), "Distinct elements consumed");
+        assertTrue(buffer.isEmpty(), "Empty at the end");
+    }
+}
@@ -0,0 +1,100 @@
+package utils;
+
+import models.Student;
+
+import static utils.Assert.*;
+
+/**
+ * Lookup, logout, idle expiry and least-recently-used eviction of
+ * SessionStore, using stores with short limits
+ */
+public class SessionStoreTest {
+
+    private static Student student(int userId) {
+        Student student = new Student();
+        student.setUserId(userId);
+        return student;
+    }
+
+    public void testCreatedSessionIsFoundByToken() {
+        SessionStore store = new SessionStore(60_000, 1_000, 100);
+        Session session = store.create(student(7));
+
+        Session found = store.get(session.getToken());
+        assertTrue(found == session, "Session found by its token");
+        assertEquals(7, found.getUserId(), "User id");
+        assertEquals("STUDENT", found.getRole(), "Role");
+        assertEquals(1, store.size(), "Sessions");
+    }
+
+    public void testTokensAreUnique() {
+        SessionStore store = new SessionStore(60_000, 1_000, 100);
+        String first = store.create(student(1)).getToken();
+        String second = store.create(student(1)).getToken();
+
+        assertFalse(first.equals(second), "Two logins of one user get different tokens");
+        assertEquals(2, store.size(), "Sessions");
+    }
+
+    public void testUnknownTokenIsNotFound() {
+        SessionStore store = new SessionStore(60_000, 1_000, 100);
+        store.create(student(1));
+
+        assertNull(store.get("no-such-token"), "Unknown token");
+        assertNull(store.get(null), "Null token");
+    }
+
+    public void testInvalidatedSessionIsGone() {
+        SessionStore store = new SessionStore(60_000, 1_000, 100);
+        Session session = store.create(student(1));
+        store.invalidate(session.getToken());
+        store.invalidate(session.getToken()); // Second logout is ignored
+
+        assertNull(store.get(session.getToken()), "Session after logout");
+        assertEquals(0, store.size(), "Sessions");
+    }
+
+    public void testIdleSessionExpires() throws InterruptedException {
+        SessionStore store = new SessionStore(200, 50, 100);
+        Session session = store.create(student(1));
+        Thread.sleep(300);
+
+        assertNull(store.get(session.getToken()), "Session idle past the timeout");
+    }
+
+    public void testLookupExtendsTheSession() throws InterruptedException {
+        SessionStore store = new SessionStore(300, 50, 100);
+        Session session = store.create(student(1));
+        Thread.sleep(200);
+        assertNotNull(store.get(session.getToken()), "Session before the timeout");
+        Thread.sleep(200);
+
+        assertNotNull(store.get(session.getToken()), "Session used within the timeout");
+    }
+
+    public void testExpiryRemovesSessionsThatAreNeverLookedUpAgain() throws InterruptedException {
+        SessionStore store = new SessionStore(200, 50, 100);
+        store.create(student(1));
+        store.create(student(2));
+        Thread.sleep(400);
+        store.expireDue();
+
+        assertEquals(0, store.size(), "Sessions after expiry");
+    }
+
+    public void testLeastRecentlyUsedSessionIsEvictedWhenFull() throws InterruptedException {
+        SessionStore store = new SessionStore(60_000, 50, 2);
+        Session first = store.create(student(1));
+        Thread.sleep(120);
+        Session second = store.create(student(2));
+        Thread.sleep(120);
+        store.get(first.getToken()); // Now the most recently used
+        Thread.sleep(120);
+        Session third = store.create(student(3));
+
+        assertEquals(2, store.size(), "Sessions at the limit");
+        assertNull(store.get(second.getToken()), "Least recently used session");
+        assertNotNull(store.get(first.getToken()), "Recently used session");
+        assertNotNull(store.get(third.getToken()), "Newest session");
+    }
+}
@@ -0,0 +1,57 @@
+package utils;
+
+import static utils.Assert.*;
+
+/**
+ * Counting, clearing and window expiry of SlidingWindowCounter
+ */
+public class SlidingWindowCounterTest {
+
+    public void testCountsPerKey() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1024, 60_000, 6);
+        assertEquals(1L, counter.increment("alice"), "First event");
+        assertEquals(2L, counter.increment("alice"), "Second event");
+        counter.increment("bob");
+
+        assertEquals(2L, counter.count("alice"), "Count for alice");
+        assertEquals(1L, counter.count("bob"), "Count for bob");
+        assertEquals(0L, counter.count("carol"), "Count for an unseen key");
+    }
+
+    public void testClearForgetsTheKey() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1024, 60_000, 6);
+        counter.increment("alice");
+        counter.increment("alice");
+        counter.clear("alice");
+
+        assertEquals(0L, counter.count("alice"), "Count after clear");
+        assertEquals(1L, counter.increment("alice"), "Counting restarts after clear");
+    }
+
+    public void testEventsLeaveTheWindow() throws InterruptedException {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1024, 200, 4);
+        counter.increment("alice");
+        counter.increment("alice");
+        Thread.sleep(300);
+
+        assertEquals(0L, counter.count("alice"), "Count once the window has passed");
+        assertEquals(1L, counter.increment("alice"), "New event after the window");
+    }
+
+    public void testCollisionsOnlyOvercount() {
+        // Two stripes per row: most keys share stripes with another
+        SlidingWindowCounter counter = new SlidingWindowCounter(2, 60_000, 6);
+        for (int i = 0; i < 50; i++) {
+            counter.increment("key" + i);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertTrue(counter.count("key" + i) >= 1, "Count for key" + i);
+        }
+    }
+
+    public void testInvalidShapeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCounter(0, 1_000, 10), "Zero width");
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCounter(16, 5, 10),
+                "Window shorter than its buckets");
+    }
+}